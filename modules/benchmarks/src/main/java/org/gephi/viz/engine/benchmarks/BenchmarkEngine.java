@@ -0,0 +1,146 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.fixtures.SyntheticGraphGenerator;
+import org.gephi.viz.engine.status.GraphRenderingOptionsImpl;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.joml.Vector2f;
+
+/**
+ * Headless engine over a synthetic graph, with the status objects the world updaters need in the lookup.
+ *
+ * @author Eduardo Ramos
+ */
+public class BenchmarkEngine {
+
+    public enum GraphType {
+        ERDOS_RENYI,
+        BARABASI_ALBERT,
+        COMMUNITIES
+    }
+
+    public enum SelectionMode {
+        NONE,
+        SELECTION,
+        HIDE_NON_SELECTED,
+        EDGE_SELECTION_COLOR
+    }
+
+    public static final int VIEWPORT_WIDTH = 1920;
+    public static final int VIEWPORT_HEIGHT = 1080;
+
+    private final GraphModel graphModel;
+    private final VizEngine<HeadlessRenderingTarget, Object> engine;
+    private final GraphIndexImpl graphIndex;
+    private final GraphSelectionImpl selection;
+    private final GraphRenderingOptionsImpl renderingOptions;
+
+    public BenchmarkEngine(GraphModel graphModel) {
+        this.graphModel = graphModel;
+        this.engine = new VizEngine<>(graphModel, new HeadlessRenderingTarget());
+        this.graphIndex = new GraphIndexImpl(engine);
+        this.selection = new GraphSelectionImpl();
+        this.renderingOptions = new GraphRenderingOptionsImpl();
+
+        engine.addToLookup(graphIndex);
+        engine.addToLookup(selection);
+        engine.addToLookup(renderingOptions);
+
+        engine.reshape(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        fitView();
+    }
+
+    /**
+     * Creates a synthetic graph with half of the edges directed.
+     *
+     * @param graphType Graph type
+     * @param nodesCount Nodes count
+     * @param edgesPerNode Average edges per node
+     * @return Graph model with spatial index enabled
+     */
+    public static GraphModel createGraph(GraphType graphType, int nodesCount, int edgesPerNode) {
+        final SyntheticGraphGenerator generator = new SyntheticGraphGenerator().seed(42).directedRatio(0.5);
+        final long edgesCount = (long) nodesCount * edgesPerNode;
+
+        switch (graphType) {
+            case ERDOS_RENYI:
+                return generator.erdosRenyi(nodesCount, edgesCount);
+            case BARABASI_ALBERT:
+                return generator.barabasiAlbert(nodesCount, edgesPerNode);
+            case COMMUNITIES:
+                return generator.communities(nodesCount, Math.max(1, nodesCount / 1000), edgesCount, 0.9);
+            default:
+                throw new IllegalArgumentException("Unknown graph type " + graphType);
+        }
+    }
+
+    public final void fitView() {
+        final Rect2D boundaries = graphIndex.getGraphBoundaries();
+        engine.centerOn(
+            new Vector2f((boundaries.minX + boundaries.maxX) / 2, (boundaries.minY + boundaries.maxY) / 2),
+            boundaries.width(),
+            boundaries.height()
+        );
+    }
+
+    /**
+     * Selects a fraction of the nodes and their edges, and sets the rendering options of the mode.
+     *
+     * @param mode Selection mode
+     * @param selectedFraction Fraction of nodes to select, in range [0, 1]
+     * @param seed Random seed
+     */
+    public void applySelectionMode(SelectionMode mode, float selectedFraction, long seed) {
+        selection.clearSelectedNodes();
+        selection.clearSelectedEdges();
+        renderingOptions.setHideNonSelected(mode == SelectionMode.HIDE_NON_SELECTED);
+        renderingOptions.setEdgeSelectionColor(mode == SelectionMode.EDGE_SELECTION_COLOR);
+
+        if (mode == SelectionMode.NONE) {
+            return;
+        }
+
+        final Random random = new Random(seed);
+        final Graph graph = graphModel.getGraphVisible();
+        final Set<Node> selectedNodes = new HashSet<>();
+        final Set<Edge> selectedEdges = new HashSet<>();
+        for (Node node : graph.getNodes()) {
+            if (random.nextFloat() < selectedFraction) {
+                selectedNodes.add(node);
+                selectedEdges.addAll(graph.getEdges(node).toCollection());
+            }
+        }
+
+        selection.setSelectedNodes(selectedNodes);
+        selection.setSelectedEdges(selectedEdges);
+    }
+
+    public GraphModel getGraphModel() {
+        return graphModel;
+    }
+
+    public VizEngine<HeadlessRenderingTarget, Object> getEngine() {
+        return engine;
+    }
+
+    public GraphIndexImpl getGraphIndex() {
+        return graphIndex;
+    }
+
+    public GraphSelectionImpl getSelection() {
+        return selection;
+    }
+
+    public GraphRenderingOptionsImpl getRenderingOptions() {
+        return renderingOptions;
+    }
+}
@@ -0,0 +1,76 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.viz.engine.benchmarks.BenchmarkEngine.GraphType;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.structure.EdgesCallback;
+import org.gephi.viz.engine.util.structure.NodesCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Visible elements queries and edges indexing of {@link GraphIndexImpl}.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"4"})
+    public int edgesPerNode;
+
+    @Param({"ERDOS_RENYI"})
+    public GraphType graphType;
+
+    /**
+     * Zoom multiplier over the zoom that fits the whole graph. Greater than 1 only shows a part of the graph.
+     */
+    @Param({"1", "4"})
+    public float zoomFactor;
+
+    private BenchmarkEngine benchmarkEngine;
+    private final NodesCallback nodesCallback = new NodesCallback();
+    private final EdgesCallback edgesCallback = new EdgesCallback();
+
+    @Setup
+    public void setup() {
+        benchmarkEngine = new BenchmarkEngine(BenchmarkEngine.createGraph(graphType, nodes, edgesPerNode));
+        benchmarkEngine.getEngine().setZoom(benchmarkEngine.getEngine().getZoom() * zoomFactor);
+    }
+
+    @Benchmark
+    public int getVisibleNodes() {
+        benchmarkEngine.getGraphIndex().getVisibleNodes(nodesCallback);
+        return nodesCallback.getCount();
+    }
+
+    @Benchmark
+    public int getVisibleEdges() {
+        benchmarkEngine.getGraphIndex().getVisibleEdges(edgesCallback);
+        return edgesCallback.getCount();
+    }
+
+    @Benchmark
+    public float indexEdges() {
+        final GraphIndexImpl graphIndex = benchmarkEngine.getGraphIndex();
+        graphIndex.indexEdges();
+        return graphIndex.getEdgesMaxWeight();
+    }
+}
@@ -0,0 +1,27 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.spi.RenderingTarget;
+
+/**
+ * Rendering target that does nothing, for running the CPU side of the engine without a GPU.
+ *
+ * @author Eduardo Ramos
+ */
+public class HeadlessRenderingTarget implements RenderingTarget {
+
+    @Override
+    public void setup(VizEngine engine) {
+        //NOOP
+    }
+
+    @Override
+    public void start() {
+        //NOOP
+    }
+
+    @Override
+    public void stop() {
+        //NOOP
+    }
+}
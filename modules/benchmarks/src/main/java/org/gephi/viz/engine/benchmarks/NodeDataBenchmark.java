@@ -0,0 +1,96 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.benchmarks.BenchmarkEngine.GraphType;
+import org.gephi.viz.engine.benchmarks.BenchmarkEngine.SelectionMode;
+import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Nodes attributes building of a world update ({@link AbstractNodeData} updateData).
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodeDataBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"4"})
+    public int edgesPerNode;
+
+    @Param({"ERDOS_RENYI"})
+    public GraphType graphType;
+
+    @Param({"NONE", "SELECTION", "HIDE_NON_SELECTED"})
+    public SelectionMode selectionMode;
+
+    @Param({"false", "true"})
+    public boolean parallelPacking;
+
+    @Param({"false", "true"})
+    public boolean compactAttributes;
+
+    private BenchmarkEngine benchmarkEngine;
+    private CpuNodeData nodeData;
+
+    @Setup
+    public void setup() {
+        benchmarkEngine = new BenchmarkEngine(BenchmarkEngine.createGraph(graphType, nodes, edgesPerNode));
+        benchmarkEngine.applySelectionMode(selectionMode, 0.1f, 42);
+
+        nodeData = new CpuNodeData(compactAttributes);
+    }
+
+    @Benchmark
+    public int updateData() {
+        return nodeData.update(benchmarkEngine.getEngine(), benchmarkEngine.getGraphIndex(), parallelPacking);
+    }
+
+    /**
+     * Node data without GPU buffers, just the CPU side of world updates.
+     */
+    public static class CpuNodeData extends AbstractNodeData {
+
+        public CpuNodeData(boolean compactAttributes) {
+            super(true, false);
+            setCompactAttributes(compactAttributes);
+            initBuffers(null);
+        }
+
+        public int update(VizEngine engine, GraphIndexImpl graphIndex, boolean parallelPacking) {
+            updateData(
+                engine.getZoom(),
+                engine.getCullingBoundaries(),
+                graphIndex,
+                engine.getLookup().lookup(GraphRenderingOptions.class),
+                engine.getLookup().lookup(GraphSelection.class),
+                parallelPacking
+            );
+
+            //Release the snapshot like a renderer would do:
+            promoteNewestSnapshotToDraw();
+            return instanceCounter.totalToDraw();
+        }
+    }
+}
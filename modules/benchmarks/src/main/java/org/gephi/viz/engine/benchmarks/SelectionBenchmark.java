@@ -0,0 +1,73 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.benchmarks.BenchmarkEngine.GraphType;
+import org.gephi.viz.engine.util.actions.InputActionsProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rectangle selection of {@link InputActionsProcessor}, which also selects the edges of the selected nodes.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SelectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"4"})
+    public int edgesPerNode;
+
+    @Param({"ERDOS_RENYI"})
+    public GraphType graphType;
+
+    /**
+     * Fraction of the graph boundaries side covered by the selection rectangle.
+     */
+    @Param({"0.1", "0.5"})
+    public float rectangleSideFraction;
+
+    @Param({"false", "true"})
+    public boolean autoSelectNeighbours;
+
+    private BenchmarkEngine benchmarkEngine;
+    private InputActionsProcessor inputActionsProcessor;
+    private Rect2D rectangle;
+
+    @Setup
+    public void setup() {
+        benchmarkEngine = new BenchmarkEngine(BenchmarkEngine.createGraph(graphType, nodes, edgesPerNode));
+        benchmarkEngine.getRenderingOptions().setAutoSelectNeighbours(autoSelectNeighbours);
+        inputActionsProcessor = new InputActionsProcessor(benchmarkEngine.getEngine());
+
+        final Rect2D boundaries = benchmarkEngine.getGraphIndex().getGraphBoundaries();
+        final float centerX = (boundaries.minX + boundaries.maxX) / 2;
+        final float centerY = (boundaries.minY + boundaries.maxY) / 2;
+        final float halfWidth = boundaries.width() * rectangleSideFraction / 2;
+        final float halfHeight = boundaries.height() * rectangleSideFraction / 2;
+        rectangle = new Rect2D(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight);
+    }
+
+    @Benchmark
+    public int selectNodesOnRectangle() {
+        inputActionsProcessor.selectNodesOnRectangle(rectangle);
+        return benchmarkEngine.getSelection().getSelectedNodesCount();
+    }
+}
@@ -30,6 +30,7 @@ public class Main implements KeyListener {
     private static final boolean DISABLE_INDIRECT_RENDERING = false;
     private static final boolean DISABLE_INSTANCED_RENDERING = false;
     private static final boolean DISABLE_VAOS = false;
+    private static final boolean RENDER_ON_DEMAND = false;
 
     private static final boolean DEBUG = false;
 
@@ -55,6 +56,7 @@ public class Main implements KeyListener {
         glWindow.addKeyListener(this);
 
         final JOGLRenderingTarget renderingTarget = new JOGLRenderingTarget(glWindow);
+        renderingTarget.setRenderOnDemand(RENDER_ON_DEMAND);
 
         engine = VizEngineFactory.<JOGLRenderingTarget, NEWTEvent>newEngine(
                 renderingTarget,
@@ -64,6 +66,8 @@ public class Main implements KeyListener {
                 )
         );
         engine.setWorldUpdatersExecutionMode(UPDATE_DATA_MODE);
+        //The layout notifies its changes with markGraphChanged:
+        engine.setSkipUnchangedWorldUpdates(true);
 
         final OpenGLOptions glOptions = engine.getLookup().lookup(OpenGLOptions.class);
         glOptions.setDisableIndirectDrawing(DISABLE_INDIRECT_RENDERING);
@@ -152,6 +156,7 @@ public class Main implements KeyListener {
                 forceAtlas2.initAlgo();
                 while (layoutEnabled && forceAtlas2.canAlgo()) {
                     forceAtlas2.goAlgo();
+                    engine.markGraphChanged();
                 }
                 forceAtlas2.endAlgo();
             });
@@ -1,9 +1,14 @@
 package org.gephi.viz.engine;
 
 import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.spi.*;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.util.TimeUtils;
 import org.joml.*;
 import org.openide.util.Lookup;
@@ -24,6 +29,12 @@ import java.lang.Math;
 public class VizEngine<R extends RenderingTarget, I> {
 
     public static final int DEFAULT_MAX_WORLD_UPDATES_PER_SECOND = 60;
+    public static final float DEFAULT_OVERSCAN_FACTOR = 0.25f;
+
+    /**
+     * Minimum view size, relative to the view the culling boundaries were built for, to keep reusing the world data when zooming in.
+     */
+    private static final float MIN_OVERSCAN_VIEW_RATIO = 0.5f;
 
     //Rendering target
     private final R renderingTarget;
@@ -35,6 +46,8 @@ public class VizEngine<R extends RenderingTarget, I> {
     private int width = 0;
     private int height = 0;
     private Rect2D viewBoundaries = new Rect2D(0, 0, 0, 0);
+    private volatile Rect2D cullingBoundaries = null;
+    private float cullingViewWidth = 0;
 
     //Matrix
     private final Matrix4f modelMatrix = new Matrix4f().identity();
@@ -59,7 +72,9 @@ public class VizEngine<R extends RenderingTarget, I> {
     private WorldUpdaterExecutionMode worldUpdatersExecutionMode = WorldUpdaterExecutionMode.CONCURRENT_SYNCHRONOUS;
 
     //Input listeners:
-    private final List<I> eventsQueue = Collections.synchronizedList(new ArrayList<>());
+    private final Queue<I> eventsQueue = new ConcurrentLinkedQueue<>();
+    private final List<I> frameEvents = new ArrayList<>();
+    private InputEventsCoalescer<I> inputEventsCoalescer;
     private final Set<InputListener<R, I>> allInputListeners = new LinkedHashSet<>();
     private final List<InputListener<R, I>> inputListenersPipeline = new ArrayList<>();
 
@@ -69,6 +84,21 @@ public class VizEngine<R extends RenderingTarget, I> {
     //Settings:
     private final float[] backgroundColor = new float[]{1, 1, 1, 1};
     private int maxWorldUpdatesPerSecond = DEFAULT_MAX_WORLD_UPDATES_PER_SECOND;
+    private boolean skipUnchangedWorldUpdates = false;
+    private float overscanFactor = DEFAULT_OVERSCAN_FACTOR;
+
+    //World change tracking:
+    private GraphObserver graphObserver;
+    private GraphView observedGraphView;
+    private volatile int graphVersion = 0;
+    private volatile int viewVersion = 0;
+    private int lastUpdateGraphVersion = -1;
+    private int lastUpdateViewVersion = -1;
+    private int lastUpdateSelectionVersion = -1;
+    private int lastUpdateOptionsVersion = -1;
+
+    //Metrics:
+    private final EngineMetrics metrics = new EngineMetrics();
 
     //Lookup for communication between components:
     private final InstanceContent instanceContent;
@@ -78,6 +108,7 @@ public class VizEngine<R extends RenderingTarget, I> {
         this.graphModel = Objects.requireNonNull(graphModel, "graphModel mandatory");
         this.instanceContent = new InstanceContent();
         this.lookup = new AbstractLookup(instanceContent);
+        this.instanceContent.add(metrics);
         this.renderingTarget = Objects.requireNonNull(renderingTarget, "renderingTarget mandatory");
         loadModelViewProjection();
     }
@@ -174,6 +205,17 @@ public class VizEngine<R extends RenderingTarget, I> {
         return Collections.unmodifiableList(inputListenersPipeline);
     }
 
+    public InputEventsCoalescer<I> getInputEventsCoalescer() {
+        return inputEventsCoalescer;
+    }
+
+    /**
+     * @param inputEventsCoalescer Coalescer applied to the events of each frame before dispatching them to the input listeners, or null to dispatch every event
+     */
+    public void setInputEventsCoalescer(InputEventsCoalescer<I> inputEventsCoalescer) {
+        this.inputEventsCoalescer = inputEventsCoalescer;
+    }
+
     public void addRenderer(Renderer<R> renderer) {
         if (renderer != null) {
             allRenderers.add(renderer);
@@ -273,6 +315,20 @@ public class VizEngine<R extends RenderingTarget, I> {
         loadModelViewProjection();
     }
 
+    /**
+     * Zoom to cull elements smaller on screen than {@link GraphRenderingOptions#getMinObservedSize()} against in world updates.
+     * Zooming in until the view is {@link #MIN_OVERSCAN_VIEW_RATIO} times the culled one keeps the world data, so culling uses the largest zoom reached without a new world update, for growing elements to be already there.
+     *
+     * @return Zoom for sub-pixel culling
+     */
+    public float getCullingZoom() {
+        if (!isOverscanUsed()) {
+            return zoom;
+        }
+
+        return zoom / MIN_OVERSCAN_VIEW_RATIO;
+    }
+
     public float aspectRatio() {
         return (float) this.width / this.height;
     }
@@ -302,6 +358,9 @@ public class VizEngine<R extends RenderingTarget, I> {
         modelViewProjectionMatrix.invertAffine(modelViewProjectionMatrixInverted);
 
         calculateWorldBoundaries();
+
+        viewVersion++;
+        renderingTarget.requestFrame();
     }
 
     private void loadModel() {
@@ -393,6 +452,11 @@ public class VizEngine<R extends RenderingTarget, I> {
             renderer.dispose(renderingTarget);
         });
 
+        if (graphObserver != null) {
+            graphObserver.destroy();
+            graphObserver = null;
+        }
+
         this.isDestroyed = true;
     }
 
@@ -401,7 +465,7 @@ public class VizEngine<R extends RenderingTarget, I> {
     private CompletableFuture<WorldUpdater> completableFutureOfUpdater(final WorldUpdater updater) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                updater.updateWorld();
+                runWorldUpdater(updater);
             } catch (Throwable t) {
                 t.printStackTrace();//TODO Logger
             }
@@ -417,8 +481,11 @@ public class VizEngine<R extends RenderingTarget, I> {
         }
 
         renderingTarget.frameStart();
+        metrics.frameStart();
 
+        final long inputStartNanos = System.nanoTime();
         processInputEvents();
+        metrics.recordInputProcessing(System.nanoTime() - inputStartNanos);
 
         if (updatersThreadPool == null) {
             runWorldUpdaters();
@@ -430,19 +497,45 @@ public class VizEngine<R extends RenderingTarget, I> {
         for (RenderingLayer layer : ALL_LAYERS) {
             for (Renderer renderer : renderersPipeline) {
                 if (renderer.getLayers().contains(layer)) {
+                    final long renderStartNanos = System.nanoTime();
+                    renderingTarget.renderStart(renderer.getName(), layer);
                     renderer.render(renderingTarget, layer);
+                    renderingTarget.renderEnd(renderer.getName(), layer);
+                    metrics.recordRender(renderer.getName(), layer, System.nanoTime() - renderStartNanos);
                 }
             }
         }
 
+        for (Renderer renderer : renderersPipeline) {
+            renderer.reportMetrics(metrics);
+        }
+        renderingTarget.reportMetrics(metrics);
+
         //Schedule next concurrent world update:
         if (updatersThreadPool != null) {
             scheduleNextConcurrentWorldUpdateIfDone();
         }
 
+        metrics.frameEnd();
         renderingTarget.frameEnd();
     }
 
+    private void runWorldUpdater(WorldUpdater<R> worldUpdater) {
+        final long startNanos = System.nanoTime();
+        worldUpdater.updateWorld();
+        metrics.recordWorldUpdate(worldUpdater.getName(), System.nanoTime() - startNanos);
+    }
+
+    private void notifyRenderersWorldUpdated() {
+        for (Renderer renderer : renderersPipeline) {
+            final long startNanos = System.nanoTime();
+            renderingTarget.bufferUploadStart(renderer.getName());
+            renderer.worldUpdated(renderingTarget);
+            renderingTarget.bufferUploadEnd(renderer.getName());
+            metrics.recordBufferUpload(renderer.getName(), System.nanoTime() - startNanos);
+        }
+    }
+
     private long lastWorldUpdateMillis = 0;
 
     private void runWorldUpdaters() {
@@ -450,18 +543,23 @@ public class VizEngine<R extends RenderingTarget, I> {
         if (maxWorldUpdatesPerSecond >= 1) {
             if (TimeUtils.getTimeMillis() < lastWorldUpdateMillis + 1000 / maxWorldUpdatesPerSecond) {
                 //Skip world update
+                requestFrameIfWorldChanged();
                 return;
             }
         }
 
+        if (!hasWorldChangedSinceLastUpdate()) {
+            //Nothing changed, keep current world data
+            return;
+        }
+        recordWorldUpdateVersions();
+
         for (WorldUpdater<R> worldUpdater : updatersPipeline) {
-            worldUpdater.updateWorld();
+            runWorldUpdater(worldUpdater);
         }
         lastWorldUpdateMillis = TimeUtils.getTimeMillis();
 
-        for (Renderer renderer : renderersPipeline) {
-            renderer.worldUpdated(renderingTarget);
-        }
+        notifyRenderersWorldUpdated();
     }
 
     private void checkConcurrentWorldUpdateIsDone() {
@@ -473,9 +571,7 @@ public class VizEngine<R extends RenderingTarget, I> {
                     allUpdatersCompletableFuture = null;
 
                     //Notify renderers when next concurrent synchronous world data update is done:
-                    for (Renderer renderer : renderersPipeline) {
-                        renderer.worldUpdated(renderingTarget);
-                    }
+                    notifyRenderersWorldUpdated();
                 } catch (Throwable ex) {
                     ex.printStackTrace();//TODO Logger
                 }
@@ -485,9 +581,7 @@ public class VizEngine<R extends RenderingTarget, I> {
                 if (worldUpdateDone) {
                     allUpdatersCompletableFuture = null;
 
-                    for (Renderer renderer : renderersPipeline) {
-                        renderer.worldUpdated(renderingTarget);
-                    }
+                    notifyRenderersWorldUpdated();
                 }
             }
         }
@@ -500,10 +594,17 @@ public class VizEngine<R extends RenderingTarget, I> {
             if (maxWorldUpdatesPerSecond >= 1) {
                 if (TimeUtils.getTimeMillis() < lastWorldUpdateMillis + 1000 / maxWorldUpdatesPerSecond) {
                     //Skip world update
+                    requestFrameIfWorldChanged();
                     return;
                 }
             }
 
+            if (!hasWorldChangedSinceLastUpdate()) {
+                //Nothing changed, keep current world data
+                return;
+            }
+            recordWorldUpdateVersions();
+
             final CompletableFuture[] futures = new CompletableFuture[updatersPipeline.size()];
             for (int i = 0; i < futures.length; i++) {
                 final WorldUpdater worldUpdater = updatersPipeline.get(i);
@@ -511,15 +612,132 @@ public class VizEngine<R extends RenderingTarget, I> {
             }
 
             allUpdatersCompletableFuture = CompletableFuture.allOf(futures);
+            //Make sure a frame is rendered with the new world data:
+            allUpdatersCompletableFuture.whenComplete((result, ex) -> renderingTarget.requestFrame());
 
             lastWorldUpdateMillis = TimeUtils.getTimeMillis();
         }
     }
 
+    /**
+     * Checks the graph, view, selection and rendering options versions against the ones used by the last world update.
+     * When all of them are the same, updating the world would produce exactly the same data, so it can be skipped.
+     * When only the view changed but it is still inside the culling boundaries of the last world update, the renderers can keep drawing the current world data with the new MVP matrix.
+     *
+     * @return True if the world has to be updated
+     */
+    private boolean hasWorldChangedSinceLastUpdate() {
+        updateGraphVersion();
+
+        if (!skipUnchangedWorldUpdates) {
+            return true;
+        }
+
+        return graphVersion != lastUpdateGraphVersion
+                || (viewVersion != lastUpdateViewVersion && !isViewInsideCullingBoundaries())
+                || getSelectionVersion() != lastUpdateSelectionVersion
+                || getRenderingOptionsVersion() != lastUpdateOptionsVersion;
+    }
+
+    private void recordWorldUpdateVersions() {
+        lastUpdateGraphVersion = graphVersion;
+        lastUpdateViewVersion = viewVersion;
+        lastUpdateSelectionVersion = getSelectionVersion();
+        lastUpdateOptionsVersion = getRenderingOptionsVersion();
+
+        final Rect2D view = viewBoundaries;
+        cullingViewWidth = view.width();
+        if (!isOverscanUsed()) {
+            //No world data is reused for another view, a margin would only pack more elements:
+            cullingBoundaries = view;
+            return;
+        }
+
+        final float marginX = view.width() * overscanFactor;
+        final float marginY = view.height() * overscanFactor;
+        cullingBoundaries = new Rect2D(view.minX - marginX, view.minY - marginY, view.maxX + marginX, view.maxY + marginY);
+    }
+
+    /**
+     * @return True if world data is reused while the view stays inside the overscan margin
+     */
+    private boolean isOverscanUsed() {
+        return skipUnchangedWorldUpdates && overscanFactor > 0;
+    }
+
+    private boolean isViewInsideCullingBoundaries() {
+        final Rect2D culling = cullingBoundaries;
+        if (!isOverscanUsed() || culling == null) {
+            return false;
+        }
+
+        final Rect2D view = viewBoundaries;
+        return view.minX >= culling.minX && view.maxX <= culling.maxX
+                && view.minY >= culling.minY && view.maxY <= culling.maxY
+                && view.width() >= cullingViewWidth * MIN_OVERSCAN_VIEW_RATIO;
+    }
+
+    private int getSelectionVersion() {
+        final GraphSelection selection = lookup.lookup(GraphSelection.class);
+        return selection != null ? selection.getVersion() : 0;
+    }
+
+    private int getRenderingOptionsVersion() {
+        final GraphRenderingOptions renderingOptions = lookup.lookup(GraphRenderingOptions.class);
+        return renderingOptions != null ? renderingOptions.getVersion() : 0;
+    }
+
+    private void requestFrameIfWorldChanged() {
+        //A throttled world update still needs a later frame to be run when rendering on demand
+        if (hasWorldChangedSinceLastUpdate()) {
+            renderingTarget.requestFrame();
+        }
+    }
+
+    private void updateGraphVersion() {
+        final GraphView visibleView = graphModel.getVisibleView();
+        if (graphObserver == null || graphObserver.isDestroyed() || visibleView != observedGraphView) {
+            if (graphObserver != null && !graphObserver.isDestroyed()) {
+                graphObserver.destroy();
+            }
+
+            observedGraphView = visibleView;
+            graphObserver = graphModel.createGraphObserver(graphModel.getGraphVisible(), false);
+            graphVersion++;
+        } else if (graphObserver.hasGraphChanged()) {
+            graphVersion++;
+        }
+    }
+
+    /**
+     * Notifies that some graph elements have changed without modifying the graph structure.
+     * <p>
+     * Adding or removing nodes and edges is detected automatically, but changes of positions, sizes or colors (when running a layout, for example) are not versioned by the graph store, so they have to be notified with this method to trigger a world update when skipping unchanged world updates.
+     */
+    public void markGraphChanged() {
+        graphVersion++;
+        renderingTarget.requestFrame();
+    }
+
+    public int getGraphVersion() {
+        return graphVersion;
+    }
+
+    public int getViewVersion() {
+        return viewVersion;
+    }
+
     public Lookup getLookup() {
         return lookup;
     }
 
+    /**
+     * @return Performance metrics of this engine, also available in the lookup
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
     public void addToLookup(Object instance) {
         instanceContent.add(instance);
     }
@@ -564,6 +782,16 @@ public class VizEngine<R extends RenderingTarget, I> {
         return viewBoundaries;
     }
 
+    /**
+     * World updaters cull the graph against these boundaries, which are the view boundaries of the last world update, enlarged by the overscan factor when skipping unchanged world updates.
+     *
+     * @return Culling boundaries, or the view boundaries when no world update has been done yet
+     */
+    public Rect2D getCullingBoundaries() {
+        final Rect2D culling = cullingBoundaries;
+        return culling != null ? culling : viewBoundaries;
+    }
+
     public void getBackgroundColor(float[] backgroundColorFloats) {
         System.arraycopy(this.backgroundColor, 0, backgroundColorFloats, 0, 4);
     }
@@ -585,6 +813,7 @@ public class VizEngine<R extends RenderingTarget, I> {
         }
 
         System.arraycopy(color, 0, backgroundColor, 0, 4);
+        renderingTarget.requestFrame();
     }
 
     public int getMaxWorldUpdatesPerSecond() {
@@ -595,6 +824,38 @@ public class VizEngine<R extends RenderingTarget, I> {
         this.maxWorldUpdatesPerSecond = maxWorldUpdatesPerSecond;
     }
 
+    public boolean isSkipUnchangedWorldUpdates() {
+        return skipUnchangedWorldUpdates;
+    }
+
+    /**
+     * Enables skipping world updates when the graph, view, selection and rendering options are unchanged since the last one. Disabled by default.
+     * <p>
+     * Only structure changes of the graph are detected automatically. When enabled, every change of positions, sizes or colors must be notified with {@link #markGraphChanged()}, otherwise it is not drawn until something else triggers a world update.</p>
+     *
+     * @param skipUnchangedWorldUpdates Skip unchanged world updates
+     */
+    public void setSkipUnchangedWorldUpdates(boolean skipUnchangedWorldUpdates) {
+        this.skipUnchangedWorldUpdates = skipUnchangedWorldUpdates;
+    }
+
+    public float getOverscanFactor() {
+        return overscanFactor;
+    }
+
+    /**
+     * Sets the margin added to each side of the view when culling the graph in world updates, as a fraction of the view size.
+     * While the view is translated or zoomed inside that enlarged area, no world update is needed. Requires skipping unchanged world updates.
+     *
+     * @param overscanFactor Overscan factor, 0 to cull exactly against the view
+     */
+    public void setOverscanFactor(float overscanFactor) {
+        if (overscanFactor < 0) {
+            throw new IllegalArgumentException("overscanFactor must be >= 0");
+        }
+        this.overscanFactor = overscanFactor;
+    }
+
     public void getModelViewProjectionMatrixFloats(float[] mvpFloats) {
         modelViewProjectionMatrix.get(mvpFloats);
     }
@@ -647,17 +908,24 @@ public class VizEngine<R extends RenderingTarget, I> {
             inputListener.frameStart();
         }
 
-        final Object[] events = eventsQueue.toArray();
-        eventsQueue.clear();
+        I queuedEvent;
+        while ((queuedEvent = eventsQueue.poll()) != null) {
+            frameEvents.add(queuedEvent);
+        }
+
+        if (inputEventsCoalescer != null && frameEvents.size() > 1) {
+            inputEventsCoalescer.coalesce(frameEvents);
+        }
 
-        for (Object event : events) {
+        for (I event : frameEvents) {
             for (InputListener<R, I> inputListener : inputListenersPipeline) {
-                final boolean consumed = inputListener.processEvent((I) event);
+                final boolean consumed = inputListener.processEvent(event);
                 if (consumed) {
                     break;
                 }
             }
         }
+        frameEvents.clear();
 
         for (InputListener<R, I> inputListener : inputListenersPipeline) {
             inputListener.frameEnd();
@@ -666,5 +934,6 @@ public class VizEngine<R extends RenderingTarget, I> {
 
     public void queueEvent(I e) {
         eventsQueue.add(e);
+        renderingTarget.requestFrame();
     }
 }
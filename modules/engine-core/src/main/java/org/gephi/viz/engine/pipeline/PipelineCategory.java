@@ -8,4 +8,5 @@ public class PipelineCategory {
     public static final String NODE = "Node";
     public static final String EDGE = "Edge";
     public static final String RECTANGLE_SELECTION = "Rectangle selection";
+    public static final String SUB_PIXEL_DENSITY = "Sub-pixel density";
 }
@@ -16,6 +16,11 @@ public class InstanceCounter {
         selectedCountToDraw = selectedCount;
     }
 
+    public void promoteCountToDraw(InstanceCounter source) {
+        unselectedCountToDraw = source.unselectedCount;
+        selectedCountToDraw = source.selectedCount;
+    }
+
     public void clearCount() {
         unselectedCount = 0;
         selectedCount = 0;
@@ -0,0 +1,110 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Ring of world data snapshots shared between a world updater thread and the render thread.
+ * <p>
+ * The updater always writes into a free slot (never the newest published one, nor the one being drawn),
+ * and the renderer picks the newest complete snapshot when it's notified of a world update.
+ * This way concurrent world updates never touch the data being drawn.
+ *
+ * @author Eduardo Ramos
+ * @param <T> Snapshot type
+ */
+public class WorldSnapshotRing<T> {
+
+    public static final int DEFAULT_SIZE = 3;
+
+    private final Object[] slots;
+
+    private int writingIndex = -1;
+    private int newestIndex = -1;
+    private int drawingIndex = -1;
+
+    public WorldSnapshotRing(Supplier<T> snapshotFactory) {
+        this(DEFAULT_SIZE, snapshotFactory);
+    }
+
+    public WorldSnapshotRing(int size, Supplier<T> snapshotFactory) {
+        if (size < 3) {
+            throw new IllegalArgumentException("At least 3 snapshots are needed for writing, publishing and drawing");
+        }
+
+        this.slots = new Object[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = snapshotFactory.get();
+        }
+    }
+
+    /**
+     * @return A snapshot that is neither the newest published one nor the one being drawn
+     */
+    public synchronized T acquireForWriting() {
+        if (writingIndex >= 0) {
+            //Previous write was not published, reuse the slot
+            return slot(writingIndex);
+        }
+
+        for (int i = 1; i <= slots.length; i++) {
+            final int index = (newestIndex + i + slots.length) % slots.length;
+            if (index != newestIndex && index != drawingIndex) {
+                writingIndex = index;
+                return slot(index);
+            }
+        }
+
+        throw new IllegalStateException("No free snapshot");
+    }
+
+    /**
+     * Marks the snapshot being written as the newest complete one.
+     *
+     * @param snapshot Snapshot obtained with {@link #acquireForWriting()}
+     */
+    public synchronized void publish(T snapshot) {
+        if (writingIndex < 0 || slots[writingIndex] != snapshot) {
+            throw new IllegalArgumentException("Snapshot is not being written");
+        }
+
+        newestIndex = writingIndex;
+        writingIndex = -1;
+    }
+
+    /**
+     * Switches the drawing snapshot to the newest complete one.
+     *
+     * @return Newest snapshot or null if no snapshot was published since the last call
+     */
+    public synchronized T acquireNewestForDrawing() {
+        if (newestIndex < 0 || newestIndex == drawingIndex) {
+            return null;
+        }
+
+        drawingIndex = newestIndex;
+        return slot(drawingIndex);
+    }
+
+    /**
+     * @return Snapshot being drawn or null if none was acquired yet
+     */
+    public synchronized T getDrawing() {
+        return drawingIndex >= 0 ? slot(drawingIndex) : null;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    public void forEach(Consumer<T> consumer) {
+        for (int i = 0; i < slots.length; i++) {
+            consumer.accept(slot(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slot(int index) {
+        return (T) slots[index];
+    }
+}
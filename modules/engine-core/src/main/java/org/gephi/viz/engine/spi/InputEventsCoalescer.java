@@ -0,0 +1,20 @@
+package org.gephi.viz.engine.spi;
+
+import java.util.List;
+
+/**
+ * Merges input events queued during a frame before they are dispatched to the input listeners,
+ * so the cost of processing input stays bounded regardless of the events rate.
+ *
+ * @author Eduardo Ramos
+ * @param <I> Event type
+ */
+public interface InputEventsCoalescer<I> {
+
+    /**
+     * Coalesces the events in place. Events order must be kept.
+     *
+     * @param events Events queued since the previous frame, in arrival order
+     */
+    void coalesce(List<I> events);
+}
@@ -1,6 +1,7 @@
 package org.gephi.viz.engine.spi;
 
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 
 import java.util.EnumSet;
 
@@ -16,4 +17,13 @@ public interface Renderer<R extends RenderingTarget> extends PipelinedExecutor<R
     void render(R target, RenderingLayer layer);
 
     EnumSet<RenderingLayer> getLayers();
+
+    /**
+     * Called once per frame, after rendering, to report renderer specific metrics such as visible elements or uploaded bytes.
+     *
+     * @param metrics Engine metrics
+     */
+    default void reportMetrics(EngineMetrics metrics) {
+        //NOOP
+    }
 }
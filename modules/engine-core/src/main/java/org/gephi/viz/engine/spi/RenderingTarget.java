@@ -1,6 +1,8 @@
 package org.gephi.viz.engine.spi;
 
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 
 /**
  *
@@ -21,4 +23,48 @@ public interface RenderingTarget {
     default void frameEnd() {
         //NOOP
     }
+
+    /**
+     * Called before each renderer call of a frame, so targets can measure its GPU time.
+     *
+     * @param rendererName Renderer name
+     * @param layer Rendering layer
+     */
+    default void renderStart(String rendererName, RenderingLayer layer) {
+        //NOOP
+    }
+
+    default void renderEnd(String rendererName, RenderingLayer layer) {
+        //NOOP
+    }
+
+    /**
+     * Called before notifying a renderer that the world was updated, where it uploads its buffers, so targets can measure its GPU time.
+     *
+     * @param rendererName Renderer name
+     */
+    default void bufferUploadStart(String rendererName) {
+        //NOOP
+    }
+
+    default void bufferUploadEnd(String rendererName) {
+        //NOOP
+    }
+
+    /**
+     * Called once per frame, after the renderers reported their metrics, to report target specific metrics such as GPU times.
+     *
+     * @param metrics Engine metrics
+     */
+    default void reportMetrics(EngineMetrics metrics) {
+        //NOOP
+    }
+
+    /**
+     * Asks for a new frame to be rendered as soon as possible.
+     * Targets that render continuously can ignore it.
+     */
+    default void requestFrame() {
+        //NOOP
+    }
 }
@@ -18,7 +18,8 @@ public enum WorldUpdaterExecutionMode {
      * Run each world update in a concurrent thread but don't wait for termination in the render loop thread before rendering.
      * </p>
      * <p>
-     * Maximizes FPS and responsiveness to input events but can cause flicker when zooming out.
+     * Maximizes FPS and responsiveness to input events.
+     * Renderers draw the newest complete world snapshot with the current camera, so areas revealed when zooming out or panning can appear one update late.
      * </p>
      */
     CONCURRENT_ASYNCHRONOUS;
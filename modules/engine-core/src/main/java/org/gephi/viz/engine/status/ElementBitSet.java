@@ -0,0 +1,261 @@
+package org.gephi.viz.engine.status;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.gephi.graph.api.Element;
+
+/**
+ * Set of graph elements indexed by their graph store id.
+ * <p>
+ * Membership only needs an array access and a reference comparison, without hashing. The elements are kept by id besides the bits, so an element that was removed from the graph store and whose id was reused by another one is never reported as contained.</p>
+ * <p>
+ * Elements removed from the graph store are skipped when the set is counted or iterated, and dropped by later modifications of the set, so they are not kept in memory. The arrays are shrunk when the highest id left is much lower than their length.</p>
+ * <p>
+ * Elements that are not in a graph store (negative store id) are ignored. Queries never modify the set, so they can run concurrently with each other, but not with modifications.</p>
+ *
+ * @param <T> Element type
+ * @author Eduardo Ramos
+ */
+public class ElementBitSet<T extends Element> extends AbstractSet<T> {
+
+    private static final int MIN_MODIFICATIONS_BEFORE_STALE_REMOVAL = 64;
+
+    private long[] words = new long[0];
+    private Element[] elements = new Element[0];
+    //Used slots, including elements removed from the graph store:
+    private int size = 0;
+    private int modCount = 0;
+    private int modificationsSinceStaleRemoval = 0;
+
+    public boolean containsElement(T element) {
+        //Single read, the array can be replaced by a modification:
+        final Element[] elements = this.elements;
+        final int id = element.getStoreId();
+        return id >= 0 && id < elements.length && elements[id] == element;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Element)) {
+            return false;
+        }
+
+        final Element[] elements = this.elements;
+        final Element element = (Element) o;
+        final int id = element.getStoreId();
+        return id >= 0 && id < elements.length && elements[id] == element;
+    }
+
+    @Override
+    public boolean add(T element) {
+        final int id = element.getStoreId();
+        if (id < 0) {
+            return false;
+        }
+
+        removeStaleElementsIfNeeded();
+        ensureCapacity(id + 1);
+
+        final Element current = elements[id];
+        if (current == element) {
+            return false;
+        }
+
+        //Replacing an element removed from the store keeps the size:
+        if (current == null) {
+            words[id >>> 6] |= 1L << id;
+            size++;
+        }
+        elements[id] = element;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+
+        removeId(((Element) o).getStoreId());
+        removeStaleElementsIfNeeded();
+        trim();
+        return true;
+    }
+
+    private void removeId(int id) {
+        words[id >>> 6] &= ~(1L << id);
+        elements[id] = null;
+        size--;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(words, 0);
+            Arrays.fill(elements, null);
+            size = 0;
+            modCount++;
+        }
+        modificationsSinceStaleRemoval = 0;
+    }
+
+    @Override
+    public int size() {
+        if (size == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                final int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                if (isInStore(id)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 || !iterator().hasNext();
+    }
+
+    /**
+     * @return True if the element of the used slot is still in the graph store with the same id
+     */
+    private boolean isInStore(int id) {
+        return elements[id].getStoreId() == id;
+    }
+
+    /**
+     * Removes the stale elements once the set was modified as many times as its size, so the cost is amortized over the modifications.
+     */
+    private void removeStaleElementsIfNeeded() {
+        modificationsSinceStaleRemoval++;
+        if (modificationsSinceStaleRemoval >= Math.max(MIN_MODIFICATIONS_BEFORE_STALE_REMOVAL, size)) {
+            modificationsSinceStaleRemoval = 0;
+            removeStaleElements();
+        }
+    }
+
+    /**
+     * Removes the elements that are not in the graph store with the same id any more.
+     */
+    private void removeStaleElements() {
+        boolean removed = false;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                final int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                if (!isInStore(id)) {
+                    removeId(id);
+                    removed = true;
+                }
+            }
+        }
+
+        if (removed) {
+            trim();
+        }
+    }
+
+    /**
+     * Shrinks the arrays to the highest id left, when it is lower than a quarter of their length.
+     */
+    private void trim() {
+        int highestId = -1;
+        for (int i = words.length - 1; i >= 0; i--) {
+            if (words[i] != 0) {
+                highestId = (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+                break;
+            }
+        }
+
+        final int capacity = highestId + 1;
+        if (capacity < elements.length >> 2) {
+            elements = Arrays.copyOf(elements, capacity);
+            words = Arrays.copyOf(words, (capacity + 63) >>> 6);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            final int newCapacity = Math.max(capacity, elements.length + (elements.length >> 1));
+            elements = Arrays.copyOf(elements, newCapacity);
+            words = Arrays.copyOf(words, (newCapacity + 63) >>> 6);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ElementsIterator();
+    }
+
+    private class ElementsIterator implements Iterator<T> {
+
+        private int wordIndex = 0;
+        private long word = words.length > 0 ? words[0] : 0;
+        private int lastId = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                while (word == 0) {
+                    if (wordIndex + 1 >= words.length) {
+                        return false;
+                    }
+                    word = words[++wordIndex];
+                }
+
+                if (isInStore((wordIndex << 6) + Long.numberOfTrailingZeros(word))) {
+                    return true;
+                }
+
+                //Skip elements removed from the graph store:
+                word &= word - 1;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            lastId = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return (T) elements[lastId];
+        }
+
+        @Override
+        public void remove() {
+            if (lastId < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeId(lastId);
+            lastId = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
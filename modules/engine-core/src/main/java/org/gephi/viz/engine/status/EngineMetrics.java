@@ -0,0 +1,175 @@
+package org.gephi.viz.engine.status;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+
+/**
+ * Per-frame and rolling performance metrics of a {@link org.gephi.viz.engine.VizEngine}, available in its lookup.
+ * <p>
+ * The engine records input processing, world updates, buffer uploads and render times. Renderers report visible elements, uploaded bytes, direct buffers capacity and the waits of the CPU for the GPU before writing fenced buffers.
+ * Rendering targets may report the GPU times of buffer uploads and renders, when enabled and supported. GPU times are read without stalling, so they are recorded one or more frames after the measured calls.
+ * Every recorded value is also added to a {@link RollingStats} of the last frames, by key. Times are in nanoseconds.
+ *
+ * @author Eduardo Ramos
+ */
+public class EngineMetrics {
+
+    public static final int DEFAULT_WINDOW_SIZE = 300;
+
+    //Rolling stats keys:
+    public static final String FRAME = "frame";
+    public static final String INPUT_PROCESSING = "inputProcessing";
+    public static final String WORLD_UPDATE_PREFIX = "worldUpdate:";
+    public static final String BUFFER_UPLOAD_PREFIX = "bufferUpload:";
+    public static final String RENDER_PREFIX = "render:";
+    public static final String GPU_BUFFER_UPLOAD_PREFIX = "gpuBufferUpload:";
+    public static final String GPU_RENDER_PREFIX = "gpuRender:";
+    public static final String UPLOADED_BYTES = "uploadedBytes";
+    public static final String VISIBLE_NODES = "visibleNodes";
+    public static final String VISIBLE_EDGES = "visibleEdges";
+    public static final String DIRECT_BUFFERS_CAPACITY_BYTES = "directBuffersCapacityBytes";
+    public static final String BUFFER_FENCE_WAITS = "bufferFenceWaits";
+    public static final String BUFFER_FENCE_WAIT = "bufferFenceWait";
+
+    private final int windowSize;
+    private final Map<String, RollingStats> rollingStats = new ConcurrentHashMap<>();
+
+    private final FrameStats currentFrame = new FrameStats();
+    private FrameStats lastFrame = new FrameStats();
+    private long frameStartNanos = 0;
+    private long frameNumber = 0;
+
+    public EngineMetrics() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public EngineMetrics(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize should be at least 1");
+        }
+        this.windowSize = windowSize;
+    }
+
+    public static String renderKey(String rendererName, RenderingLayer layer) {
+        return rendererName + "@" + layer;
+    }
+
+    public synchronized void frameStart() {
+        currentFrame.clear();
+        currentFrame.frameNumber = frameNumber++;
+        frameStartNanos = System.nanoTime();
+    }
+
+    public synchronized void frameEnd() {
+        currentFrame.frameNanos = System.nanoTime() - frameStartNanos;
+
+        addSample(FRAME, currentFrame.frameNanos);
+        addSample(UPLOADED_BYTES, currentFrame.uploadedBytes);
+        addSample(VISIBLE_NODES, currentFrame.visibleNodes);
+        addSample(VISIBLE_EDGES, currentFrame.visibleEdges);
+        addSample(DIRECT_BUFFERS_CAPACITY_BYTES, currentFrame.directBuffersCapacityBytes);
+        addSample(BUFFER_FENCE_WAITS, currentFrame.bufferFenceWaits);
+        addSample(BUFFER_FENCE_WAIT, currentFrame.bufferFenceWaitNanos);
+
+        lastFrame = new FrameStats(currentFrame);
+    }
+
+    public synchronized void recordInputProcessing(long nanos) {
+        currentFrame.inputProcessingNanos += nanos;
+        addSample(INPUT_PROCESSING, nanos);
+    }
+
+    /**
+     * Can be called from any thread.
+     *
+     * @param updaterName World updater name
+     * @param nanos Update time
+     */
+    public synchronized void recordWorldUpdate(String updaterName, long nanos) {
+        currentFrame.worldUpdateNanos.merge(updaterName, nanos, Long::sum);
+        addSample(WORLD_UPDATE_PREFIX + updaterName, nanos);
+    }
+
+    public synchronized void recordBufferUpload(String rendererName, long nanos) {
+        currentFrame.bufferUploadNanos.merge(rendererName, nanos, Long::sum);
+        addSample(BUFFER_UPLOAD_PREFIX + rendererName, nanos);
+    }
+
+    public synchronized void recordRender(String rendererName, RenderingLayer layer, long nanos) {
+        final String key = renderKey(rendererName, layer);
+        currentFrame.renderNanos.merge(key, nanos, Long::sum);
+        addSample(RENDER_PREFIX + key, nanos);
+    }
+
+    public synchronized void recordGpuBufferUpload(String rendererName, long nanos) {
+        currentFrame.gpuBufferUploadNanos.merge(rendererName, nanos, Long::sum);
+        addSample(GPU_BUFFER_UPLOAD_PREFIX + rendererName, nanos);
+    }
+
+    public synchronized void recordGpuRender(String rendererName, RenderingLayer layer, long nanos) {
+        final String key = renderKey(rendererName, layer);
+        currentFrame.gpuRenderNanos.merge(key, nanos, Long::sum);
+        addSample(GPU_RENDER_PREFIX + key, nanos);
+    }
+
+    public synchronized void addUploadedBytes(long bytes) {
+        currentFrame.uploadedBytes += bytes;
+    }
+
+    public synchronized void addVisibleNodes(int count) {
+        currentFrame.visibleNodes += count;
+    }
+
+    public synchronized void addVisibleEdges(int count) {
+        currentFrame.visibleEdges += count;
+    }
+
+    public synchronized void addDirectBuffersCapacity(long bytes) {
+        currentFrame.directBuffersCapacityBytes += bytes;
+    }
+
+    /**
+     * @param waits Times the CPU waited for the GPU to release a buffer region
+     * @param nanos Total time of the waits
+     */
+    public synchronized void addBufferFenceWaits(int waits, long nanos) {
+        currentFrame.bufferFenceWaits += waits;
+        currentFrame.bufferFenceWaitNanos += nanos;
+    }
+
+    /**
+     * @return Copy of the metrics of the last complete frame
+     */
+    public synchronized FrameStats getLastFrameStats() {
+        return new FrameStats(lastFrame);
+    }
+
+    /**
+     * @param key Rolling stats key, one of the constants of this class. Prefixed keys are followed by the updater or renderer name
+     * @return Rolling stats or null if nothing has been recorded for the key
+     */
+    public RollingStats getRollingStats(String key) {
+        return rollingStats.get(key);
+    }
+
+    public Set<String> getRollingStatsKeys() {
+        return Collections.unmodifiableSet(rollingStats.keySet());
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public synchronized void clear() {
+        rollingStats.clear();
+        currentFrame.clear();
+        lastFrame = new FrameStats();
+    }
+
+    private void addSample(String key, long value) {
+        rollingStats.computeIfAbsent(key, k -> new RollingStats(windowSize)).add(value);
+    }
+}
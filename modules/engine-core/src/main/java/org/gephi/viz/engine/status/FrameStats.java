@@ -0,0 +1,146 @@
+package org.gephi.viz.engine.status;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Performance metrics of a single frame. Times are in nanoseconds.
+ * <p>
+ * World update times are the ones of the world updates that completed during the frame, which may have been started in previous frames when running concurrently.
+ * Render times measure CPU time of the render calls, not GPU execution time. GPU times, when measured by the rendering target, are the ones that became available during the frame, usually of the previous frames.
+ *
+ * @author Eduardo Ramos
+ */
+public class FrameStats {
+
+    long frameNumber = 0;
+    long frameNanos = 0;
+    long inputProcessingNanos = 0;
+    final Map<String, Long> worldUpdateNanos = new LinkedHashMap<>();
+    final Map<String, Long> bufferUploadNanos = new LinkedHashMap<>();
+    final Map<String, Long> renderNanos = new LinkedHashMap<>();
+    final Map<String, Long> gpuBufferUploadNanos = new LinkedHashMap<>();
+    final Map<String, Long> gpuRenderNanos = new LinkedHashMap<>();
+    long uploadedBytes = 0;
+    int visibleNodes = 0;
+    int visibleEdges = 0;
+    long directBuffersCapacityBytes = 0;
+    int bufferFenceWaits = 0;
+    long bufferFenceWaitNanos = 0;
+
+    FrameStats() {
+    }
+
+    FrameStats(FrameStats other) {
+        this.frameNumber = other.frameNumber;
+        this.frameNanos = other.frameNanos;
+        this.inputProcessingNanos = other.inputProcessingNanos;
+        this.worldUpdateNanos.putAll(other.worldUpdateNanos);
+        this.bufferUploadNanos.putAll(other.bufferUploadNanos);
+        this.renderNanos.putAll(other.renderNanos);
+        this.gpuBufferUploadNanos.putAll(other.gpuBufferUploadNanos);
+        this.gpuRenderNanos.putAll(other.gpuRenderNanos);
+        this.uploadedBytes = other.uploadedBytes;
+        this.visibleNodes = other.visibleNodes;
+        this.visibleEdges = other.visibleEdges;
+        this.directBuffersCapacityBytes = other.directBuffersCapacityBytes;
+        this.bufferFenceWaits = other.bufferFenceWaits;
+        this.bufferFenceWaitNanos = other.bufferFenceWaitNanos;
+    }
+
+    void clear() {
+        frameNanos = 0;
+        inputProcessingNanos = 0;
+        worldUpdateNanos.clear();
+        bufferUploadNanos.clear();
+        renderNanos.clear();
+        gpuBufferUploadNanos.clear();
+        gpuRenderNanos.clear();
+        uploadedBytes = 0;
+        visibleNodes = 0;
+        visibleEdges = 0;
+        directBuffersCapacityBytes = 0;
+        bufferFenceWaits = 0;
+        bufferFenceWaitNanos = 0;
+    }
+
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    public long getFrameNanos() {
+        return frameNanos;
+    }
+
+    public long getInputProcessingNanos() {
+        return inputProcessingNanos;
+    }
+
+    /**
+     * @return World update time by world updater name
+     */
+    public Map<String, Long> getWorldUpdateNanos() {
+        return Collections.unmodifiableMap(worldUpdateNanos);
+    }
+
+    /**
+     * @return Buffer upload time (world updated notification) by renderer name
+     */
+    public Map<String, Long> getBufferUploadNanos() {
+        return Collections.unmodifiableMap(bufferUploadNanos);
+    }
+
+    /**
+     * @return Render time by renderer name and layer, see {@link EngineMetrics#renderKey(java.lang.String, org.gephi.viz.engine.pipeline.RenderingLayer)}
+     */
+    public Map<String, Long> getRenderNanos() {
+        return Collections.unmodifiableMap(renderNanos);
+    }
+
+    /**
+     * @return GPU buffer upload time by renderer name
+     */
+    public Map<String, Long> getGpuBufferUploadNanos() {
+        return Collections.unmodifiableMap(gpuBufferUploadNanos);
+    }
+
+    /**
+     * @return GPU render time by renderer name and layer, see {@link EngineMetrics#renderKey(java.lang.String, org.gephi.viz.engine.pipeline.RenderingLayer)}
+     */
+    public Map<String, Long> getGpuRenderNanos() {
+        return Collections.unmodifiableMap(gpuRenderNanos);
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public int getVisibleNodes() {
+        return visibleNodes;
+    }
+
+    public int getVisibleEdges() {
+        return visibleEdges;
+    }
+
+    public long getDirectBuffersCapacityBytes() {
+        return directBuffersCapacityBytes;
+    }
+
+    /**
+     * @return Times the CPU waited for the GPU before writing a fenced buffer region
+     */
+    public int getBufferFenceWaits() {
+        return bufferFenceWaits;
+    }
+
+    public long getBufferFenceWaitNanos() {
+        return bufferFenceWaitNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameStats{" + "frameNumber=" + frameNumber + ", frameNanos=" + frameNanos + ", inputProcessingNanos=" + inputProcessingNanos + ", worldUpdateNanos=" + worldUpdateNanos + ", bufferUploadNanos=" + bufferUploadNanos + ", renderNanos=" + renderNanos + ", gpuBufferUploadNanos=" + gpuBufferUploadNanos + ", gpuRenderNanos=" + gpuRenderNanos + ", uploadedBytes=" + uploadedBytes + ", visibleNodes=" + visibleNodes + ", visibleEdges=" + visibleEdges + ", directBuffersCapacityBytes=" + directBuffersCapacityBytes + ", bufferFenceWaits=" + bufferFenceWaits + ", bufferFenceWaitNanos=" + bufferFenceWaitNanos + '}';
+    }
+}
@@ -27,6 +27,10 @@ public interface GraphRenderingOptions {
     boolean DEFAULT_AUTO_SELECT_NEIGHBOURS = true;
     float DEFAULT_LIGHTEN_NON_SELECTED_FACTOR = 0.9f;
 
+    //Sub-pixel culling:
+    float DEFAULT_MIN_OBSERVED_SIZE = 0;
+    boolean DEFAULT_SHOW_SUB_PIXEL_DENSITY = false;
+
     float getEdgeScale();
 
     void setEdgeScale(float edgeScale);
@@ -78,4 +82,29 @@ public interface GraphRenderingOptions {
     Color getEdgeInSelectionColor();
 
     void setEdgeInSelectionColor(Color color);
+
+    float getMinObservedSize();
+
+    /**
+     * Nodes with a radius on screen, and edges with a length on screen, below this size in pixels are not drawn. 0 disables sub-pixel culling.
+     *
+     * @param minObservedSize Minimum observed size in pixels
+     */
+    void setMinObservedSize(float minObservedSize);
+
+    boolean isShowSubPixelDensity();
+
+    /**
+     * When enabled along with sub-pixel culling, the culled nodes are accumulated into a low resolution density grid drawn behind the graph.
+     *
+     * @param showSubPixelDensity Show density of culled nodes
+     */
+    void setShowSubPixelDensity(boolean showSubPixelDensity);
+
+    /**
+     * Incremented every time any of the rendering options changes.
+     *
+     * @return Current options version
+     */
+    int getVersion();
 }
@@ -2,6 +2,7 @@ package org.gephi.viz.engine.status;
 
 import java.awt.*;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
 
@@ -24,6 +25,13 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     private boolean lightenNonSelected = DEFAULT_LIGHTEN_NON_SELECTED;
     private float lightenNonSelectedFactor = DEFAULT_LIGHTEN_NON_SELECTED_FACTOR;
 
+    //Sub-pixel culling:
+    private float minObservedSize = DEFAULT_MIN_OBSERVED_SIZE;
+    private boolean showSubPixelDensity = DEFAULT_SHOW_SUB_PIXEL_DENSITY;
+
+    //Setters are called from the UI threads and API users:
+    private final AtomicInteger version = new AtomicInteger();
+
     @Override
     public float getEdgeScale() {
         return edgeScale;
@@ -36,6 +44,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
         }
 
         this.edgeScale = edgeScale;
+        version.incrementAndGet();
     }
 
     @Override
@@ -46,6 +55,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowNodes(boolean showNodes) {
         this.showNodes = showNodes;
+        version.incrementAndGet();
     }
 
     @Override
@@ -56,6 +66,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowEdges(boolean showEdges) {
         this.showEdges = showEdges;
+        version.incrementAndGet();
     }
 
     @Override
@@ -66,6 +77,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowNodeLabels(boolean showNodeLabels) {
         this.showNodeLabels = showNodeLabels;
+        version.incrementAndGet();
     }
 
     @Override
@@ -76,6 +88,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowEdgeLabels(boolean showEdgeLabels) {
         this.showEdgeLabels = showEdgeLabels;
+        version.incrementAndGet();
     }
 
     @Override
@@ -86,6 +99,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setHideNonSelected(boolean hideNonSelected) {
         this.hideNonSelected = hideNonSelected;
+        version.incrementAndGet();
     }
 
     @Override
@@ -96,6 +110,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setLightenNonSelected(boolean lightenNonSelected) {
         this.lightenNonSelected = lightenNonSelected;
+        version.incrementAndGet();
     }
 
     @Override
@@ -114,6 +129,8 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
         }
 
         this.lightenNonSelectedFactor = lightenNonSelectedFactor;
+
+        version.incrementAndGet();
     }
 
     @Override
@@ -124,6 +141,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setAutoSelectNeighbours(boolean autoSelectNeighbours) {
         this.autoSelectNeighbours = autoSelectNeighbours;
+        version.incrementAndGet();
     }
 
     @Override
@@ -134,6 +152,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setEdgeSelectionColor(boolean edgeSelectionColor) {
         this.edgeSelectionColor = edgeSelectionColor;
+        version.incrementAndGet();
     }
 
     @Override
@@ -145,6 +164,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeBothSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeBothSelectionColor = color;
+        version.incrementAndGet();
     }
 
     @Override
@@ -156,6 +176,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeOutSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeOutSelectionColor = color;
+        version.incrementAndGet();
     }
 
     @Override
@@ -167,6 +188,37 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeInSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeInSelectionColor = color;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public float getMinObservedSize() {
+        return minObservedSize;
     }
 
+    @Override
+    public void setMinObservedSize(float minObservedSize) {
+        if (minObservedSize < 0) {
+            throw new IllegalArgumentException("minObservedSize should be >= 0");
+        }
+
+        this.minObservedSize = minObservedSize;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public boolean isShowSubPixelDensity() {
+        return showSubPixelDensity;
+    }
+
+    @Override
+    public void setShowSubPixelDensity(boolean showSubPixelDensity) {
+        this.showSubPixelDensity = showSubPixelDensity;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public int getVersion() {
+        return version.get();
+    }
 }
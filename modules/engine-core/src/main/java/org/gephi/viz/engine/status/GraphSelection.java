@@ -74,4 +74,11 @@ public interface GraphSelection {
     Vector2f getRectangleInitialPosition();
 
     Vector2f getRectangleCurrentPosition();
+
+    /**
+     * Incremented every time the set of selected nodes or edges changes.
+     *
+     * @return Current selection version
+     */
+    int getVersion();
 }
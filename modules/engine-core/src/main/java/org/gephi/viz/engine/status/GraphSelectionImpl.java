@@ -5,16 +5,21 @@ import org.gephi.graph.api.Node;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.joml.Vector2f;
 
+/**
+ * Selection backed by {@link ElementBitSet}, indexed by graph store id, as membership is checked for every visible element in world updates.
+ */
 public class GraphSelectionImpl implements GraphSelection {
 
-    private final Set<Node> nodes = new HashSet<>();
-    private final Set<Edge> edges = new HashSet<>();
+    private final ElementBitSet<Node> nodes = new ElementBitSet<>();
+    private final ElementBitSet<Edge> edges = new ElementBitSet<>();
     private GraphSelection.GraphSelectionMode selectionMode;
+    //Setters are called from the UI threads and API users:
+    private final AtomicInteger version = new AtomicInteger();
 
     public GraphSelectionImpl() {
         this.selectionMode = GraphSelectionMode.SIMPLE_MOUSE_SELECTION;
@@ -27,7 +32,7 @@ public class GraphSelectionImpl implements GraphSelection {
 
     @Override
     public boolean isNodeSelected(Node node) {
-        return nodes.contains(node);
+        return nodes.containsElement(node);
     }
 
     @Override
@@ -46,12 +51,14 @@ public class GraphSelectionImpl implements GraphSelection {
         if (nodes != null) {
             this.nodes.addAll(nodes);
         }
+        version.incrementAndGet();
     }
 
     @Override
     public void addSelectedNodes(Collection<Node> nodes) {
         if (nodes != null) {
             this.nodes.addAll(nodes);
+            version.incrementAndGet();
         }
     }
 
@@ -59,6 +66,7 @@ public class GraphSelectionImpl implements GraphSelection {
     public void removeSelectedNodes(Collection<Node> nodes) {
         if (nodes != null) {
             this.nodes.removeAll(nodes);
+            version.incrementAndGet();
         }
     }
 
@@ -69,6 +77,7 @@ public class GraphSelectionImpl implements GraphSelection {
         } else {
             this.nodes.clear();
             this.nodes.add(node);
+            version.incrementAndGet();
         }
     }
 
@@ -76,6 +85,7 @@ public class GraphSelectionImpl implements GraphSelection {
     public void addSelectedNode(Node node) {
         if (node != null) {
             this.nodes.add(node);
+            version.incrementAndGet();
         }
     }
 
@@ -83,17 +93,19 @@ public class GraphSelectionImpl implements GraphSelection {
     public void removeSelectedNode(Node node) {
         if (node != null) {
             this.nodes.remove(node);
+            version.incrementAndGet();
         }
     }
 
     @Override
     public void clearSelectedNodes() {
         this.nodes.clear();
+        version.incrementAndGet();
     }
 
     @Override
     public boolean isEdgeSelected(Edge edge) {
-        return edges.contains(edge);
+        return edges.containsElement(edge);
     }
 
     @Override
@@ -112,12 +124,14 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edges != null) {
             this.edges.addAll(edges);
         }
+        version.incrementAndGet();
     }
 
     @Override
     public void addSelectedEdges(Collection<Edge> edges) {
         if (edges != null) {
             this.edges.addAll(edges);
+            version.incrementAndGet();
         }
     }
 
@@ -125,6 +139,7 @@ public class GraphSelectionImpl implements GraphSelection {
     public void removeSelectedEdges(Collection<Edge> edges) {
         if (edges != null) {
             this.edges.removeAll(edges);
+            version.incrementAndGet();
         }
     }
 
@@ -135,6 +150,7 @@ public class GraphSelectionImpl implements GraphSelection {
         } else {
             this.edges.clear();
             this.edges.add(edge);
+            version.incrementAndGet();
         }
     }
 
@@ -142,6 +158,7 @@ public class GraphSelectionImpl implements GraphSelection {
     public void addSelectedEdge(Edge edge) {
         if (edge != null) {
             this.edges.add(edge);
+            version.incrementAndGet();
         }
     }
 
@@ -149,12 +166,14 @@ public class GraphSelectionImpl implements GraphSelection {
     public void removeSelectedEdge(Edge edge) {
         if (edge != null) {
             this.edges.remove(edge);
+            version.incrementAndGet();
         }
     }
 
     @Override
     public void clearSelectedEdges() {
         this.edges.clear();
+        version.incrementAndGet();
     }
 
     @Override
@@ -204,4 +223,9 @@ public class GraphSelectionImpl implements GraphSelection {
     public Vector2f getRectangleCurrentPosition() {
         return this.rectangleSelectionCurrentPosition;
     }
+
+    @Override
+    public int getVersion() {
+        return version.get();
+    }
 }
@@ -0,0 +1,96 @@
+package org.gephi.viz.engine.status;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last samples of a metric to calculate rolling mean, max and percentiles.
+ * Thread safe.
+ *
+ * @author Eduardo Ramos
+ */
+public class RollingStats {
+
+    private final long[] samples;
+    private final long[] sortedSamples;
+    private int count = 0;
+    private int nextIndex = 0;
+    private long last = 0;
+
+    public RollingStats(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize should be at least 1");
+        }
+
+        this.samples = new long[windowSize];
+        this.sortedSamples = new long[windowSize];
+    }
+
+    public synchronized void add(long value) {
+        samples[nextIndex] = value;
+        nextIndex = (nextIndex + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        last = value;
+    }
+
+    public synchronized long getLast() {
+        return last;
+    }
+
+    /**
+     * @return Number of samples in the window
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized double getMean() {
+        if (count == 0) {
+            return 0;
+        }
+
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return (double) sum / count;
+    }
+
+    public synchronized long getMax() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @param percentile Percentile in range [0, 100]
+     * @return Nearest-rank percentile of the samples in the window, or 0 if there are no samples
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile should be in range [0, 100]");
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        System.arraycopy(samples, 0, sortedSamples, 0, count);
+        Arrays.sort(sortedSamples, 0, count);
+
+        final int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sortedSamples[Math.max(rank - 1, 0)];
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        nextIndex = 0;
+        last = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RollingStats{" + "last=" + getLast() + ", mean=" + getMean() + ", p50=" + getPercentile(50) + ", p95=" + getPercentile(95) + ", p99=" + getPercentile(99) + ", max=" + getMax() + '}';
+    }
+}
@@ -23,11 +23,30 @@ public interface GraphIndex {
     Rect2D getGraphBoundaries();
 
     NodeIterable getVisibleNodes();
-    
+
+    /**
+     * Visible nodes for world updates, culled against the engine culling boundaries, which include the overscan margin.
+     * Nodes smaller on screen than {@link org.gephi.viz.engine.status.GraphRenderingOptions#getMinObservedSize()} are culled too.
+     *
+     * @param callback Callback
+     */
     void getVisibleNodes(ElementsCallback<Node> callback);
 
+    /**
+     * Nodes inside the engine culling boundaries that {@link #getVisibleNodes(ElementsCallback)} culls for being smaller on screen than {@link org.gephi.viz.engine.status.GraphRenderingOptions#getMinObservedSize()}.
+     *
+     * @param callback Callback
+     */
+    void getSubPixelNodes(ElementsCallback<Node> callback);
+
     EdgeIterable getVisibleEdges();
-    
+
+    /**
+     * Visible edges for world updates, culled against the engine culling boundaries, which include the overscan margin.
+     * Edges shorter on screen than {@link org.gephi.viz.engine.status.GraphRenderingOptions#getMinObservedSize()} are culled too.
+     *
+     * @param callback Callback
+     */
     void getVisibleEdges(ElementsCallback<Edge> callback);
 
     NodeIterable getNodesUnderPosition(float x, float y);
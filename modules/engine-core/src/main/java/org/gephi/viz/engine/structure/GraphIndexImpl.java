@@ -3,6 +3,7 @@ package org.gephi.viz.engine.structure;
 import org.gephi.graph.api.*;
 import org.gephi.graph.impl.GraphStoreConfiguration;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.util.EdgeIterableFilteredWrapper;
 import org.gephi.viz.engine.util.NodeIterableFilteredWrapper;
 import org.joml.Intersectionf;
@@ -29,6 +30,11 @@ public class GraphIndexImpl implements GraphIndex {
     private float edgesMinWeight = 1;
     private float edgesMaxWeight = 1;
 
+    //Visibility
+    private boolean incrementalVisibility = true;
+    private final VisibleNodesTracker visibleNodesTracker = new VisibleNodesTracker();
+    private final VisibleEdgesTracker visibleEdgesTracker = new VisibleEdgesTracker(visibleNodesTracker);
+
     private void init() {
         graphModel = engine.getGraphModel();
     }
@@ -124,15 +130,58 @@ public class GraphIndexImpl implements GraphIndex {
 
     @Override
     public void getVisibleNodes(ElementsCallback<Node> callback) {
+        getNodesInCullingBoundaries(callback, false);
+    }
+
+    @Override
+    public void getSubPixelNodes(ElementsCallback<Node> callback) {
+        getNodesInCullingBoundaries(callback, true);
+    }
+
+    /**
+     * @param subPixel True to get only the nodes smaller on screen than the min observed size, false to get only the others
+     */
+    private void getNodesInCullingBoundaries(ElementsCallback<Node> callback, boolean subPixel) {
         ensureInitialized();
 
+        //Radius in world units below which nodes are culled:
+        final float minSize = getMinObservedSize() / engine.getCullingZoom();
+        final boolean subPixelCulling = minSize > 0;
+
         final Graph visibleGraph = getVisibleGraph();
+        if (subPixel && !subPixelCulling) {
+            callback.start(visibleGraph);
+            callback.end(visibleGraph);
+            return;
+        }
+
+        if (isIncrementalVisibilityUsable()) {
+            synchronized (visibleNodesTracker) {
+                visibleNodesTracker.update(visibleGraph, engine.getGraphVersion(), engine.getCullingBoundaries(), true);
+
+                final Node[] nodes = visibleNodesTracker.getNodes();
+                final int count = visibleNodesTracker.getCount();
+
+                callback.start(visibleGraph);
+                for (int i = 0; i < count; i++) {
+                    final Node node = nodes[i];
+                    if (!subPixelCulling || (node.size() < minSize) == subPixel) {
+                        callback.accept(node);
+                    }
+                }
+                callback.end(visibleGraph);
+            }
+            return;
+        }
+
         callback.start(visibleGraph);
 
-        final NodeIterable nodeIterable = visibleGraph.getSpatialIndex().getNodesInArea(engine.getViewBoundaries());
+        final NodeIterable nodeIterable = visibleGraph.getSpatialIndex().getNodesInArea(engine.getCullingBoundaries());
         try {
             for (Node node : nodeIterable) {
-                callback.accept(node);
+                if (!subPixelCulling || (node.size() < minSize) == subPixel) {
+                    callback.accept(node);
+                }
             }
         } catch (Exception ex) {
             nodeIterable.doBreak();
@@ -152,12 +201,37 @@ public class GraphIndexImpl implements GraphIndex {
     public void getVisibleEdges(ElementsCallback<Edge> callback) {
         ensureInitialized();
 
+        //Length in world units below which edges are culled:
+        final float minLength = getMinObservedSize() / engine.getCullingZoom();
+        final float minLengthSquared = minLength * minLength;
+
         final Graph visibleGraph = getVisibleGraph();
+        if (isIncrementalVisibilityUsable()) {
+            synchronized (visibleEdgesTracker) {
+                visibleEdgesTracker.update(visibleGraph, engine.getGraphVersion(), engine.getCullingBoundaries(), true);
+
+                final Edge[] edges = visibleEdgesTracker.getEdges();
+                final int count = visibleEdgesTracker.getCount();
+
+                callback.start(visibleGraph);
+                for (int i = 0; i < count; i++) {
+                    final Edge edge = edges[i];
+                    if (minLengthSquared <= 0 || !isShorterThan(edge, minLengthSquared)) {
+                        callback.accept(edge);
+                    }
+                }
+                callback.end(visibleGraph);
+            }
+            return;
+        }
+
         callback.start(visibleGraph);
-        final EdgeIterable edgeIterable = visibleGraph.getSpatialIndex().getEdgesInArea(engine.getViewBoundaries());
+        final EdgeIterable edgeIterable = visibleGraph.getSpatialIndex().getEdgesInArea(engine.getCullingBoundaries());
         try {
             for (Edge edge : edgeIterable) {
-                callback.accept(edge);
+                if (minLengthSquared <= 0 || !isShorterThan(edge, minLengthSquared)) {
+                    callback.accept(edge);
+                }
             }
         } catch (Exception ex) {
             edgeIterable.doBreak();
@@ -256,6 +330,41 @@ public class GraphIndexImpl implements GraphIndex {
         }
     }
 
+    public boolean isIncrementalVisibility() {
+        return incrementalVisibility;
+    }
+
+    /**
+     * When enabled, the visible nodes and edges of the previous world update are kept, and translating the view at constant zoom only queries the strips entering the viewport.
+     * The whole view is queried again when the zoom, the graph version or the visible view change.
+     * <p>
+     * Position changes are only seen through the graph version, so this is only used when {@link VizEngine#isSkipUnchangedWorldUpdates()} is enabled and every change is notified with {@link VizEngine#markGraphChanged()}.</p>
+     *
+     * @param incrementalVisibility Enable incremental visibility
+     */
+    public void setIncrementalVisibility(boolean incrementalVisibility) {
+        this.incrementalVisibility = incrementalVisibility;
+    }
+
+    private boolean isIncrementalVisibilityUsable() {
+        return incrementalVisibility && engine.isSkipUnchangedWorldUpdates();
+    }
+
+    private float getMinObservedSize() {
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        return renderingOptions != null ? renderingOptions.getMinObservedSize() : 0;
+    }
+
+    private static boolean isShorterThan(Edge edge, float lengthSquared) {
+        final Node source = edge.getSource();
+        final Node target = edge.getTarget();
+
+        final float dx = target.x() - source.x();
+        final float dy = target.y() - source.y();
+
+        return dx * dx + dy * dy < lengthSquared;
+    }
+
     private Rect2D getCircleRect2D(float x, float y, float radius) {
         return new Rect2D(x - radius, y - radius, x + radius, y - radius);
     }
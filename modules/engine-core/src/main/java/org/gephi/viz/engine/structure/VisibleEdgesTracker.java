@@ -0,0 +1,119 @@
+package org.gephi.viz.engine.structure;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+
+/**
+ * Keeps the visible edges of the last query, patching them with the {@link VisibleNodesTracker} of the nodes queries when the view is only translated, so the spatial index is not queried twice.
+ * <p>
+ * Like the spatial index edges queries, an edge is visible when its source or its target is visible. Edges leaving the viewport are the ones without visible source and target any more, and edges entering it are the ones of the entering nodes.</p>
+ *
+ * @author Eduardo Ramos
+ */
+class VisibleEdgesTracker {
+
+    private final VisibleNodesTracker nodesTracker;
+
+    private final BitSet visibleIds = new BitSet();
+    private Edge[] edges = new Edge[0];
+    private int count = 0;
+    private int nodesRevision = -1;
+
+    VisibleEdgesTracker(VisibleNodesTracker nodesTracker) {
+        this.nodesTracker = nodesTracker;
+    }
+
+    void update(Graph graph, int graphVersion, Rect2D newRect, boolean incremental) {
+        synchronized (nodesTracker) {
+            final boolean translation = nodesTracker.update(graph, graphVersion, newRect, incremental);
+            final int revision = nodesTracker.getRevision();
+            if (revision == nodesRevision) {
+                //Same nodes as the last edges update:
+                return;
+            }
+
+            //Entering nodes are only relative to the previous revision:
+            if (translation && revision == nodesRevision + 1) {
+                removeLeavingEdges();
+                addEnteringEdges(graph);
+            } else {
+                queryAll(graph, newRect);
+            }
+            nodesRevision = revision;
+        }
+    }
+
+    private void queryAll(Graph graph, Rect2D newRect) {
+        visibleIds.clear();
+        count = 0;
+
+        final EdgeIterable edgeIterable = graph.getSpatialIndex().getEdgesInArea(newRect);
+        try {
+            for (Edge edge : edgeIterable) {
+                if (!visibleIds.get(edge.getStoreId())) {
+                    visibleIds.set(edge.getStoreId());
+                    add(edge);
+                }
+            }
+        } catch (Exception ex) {
+            edgeIterable.doBreak();
+        }
+    }
+
+    private void removeLeavingEdges() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            final Edge edge = edges[i];
+            if (nodesTracker.isVisible(edge.getSource()) || nodesTracker.isVisible(edge.getTarget())) {
+                edges[kept++] = edge;
+            } else {
+                visibleIds.clear(edge.getStoreId());
+            }
+        }
+
+        Arrays.fill(edges, kept, count, null);
+        count = kept;
+    }
+
+    private void addEnteringEdges(Graph graph) {
+        final Node[] enteringNodes = nodesTracker.getEnteringNodes();
+        final int enteringCount = nodesTracker.getEnteringCount();
+        if (enteringCount == 0) {
+            return;
+        }
+
+        graph.readLock();
+        try {
+            for (int i = 0; i < enteringCount; i++) {
+                for (Edge edge : graph.getEdges(enteringNodes[i])) {
+                    if (!visibleIds.get(edge.getStoreId())) {
+                        visibleIds.set(edge.getStoreId());
+                        add(edge);
+                    }
+                }
+            }
+        } finally {
+            graph.readUnlock();
+        }
+    }
+
+    private void add(Edge edge) {
+        if (count == edges.length) {
+            edges = Arrays.copyOf(edges, Math.max(16, count + (count >> 1)));
+        }
+        edges[count++] = edge;
+    }
+
+    Edge[] getEdges() {
+        return edges;
+    }
+
+    int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,215 @@
+package org.gephi.viz.engine.structure;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.Rect2D;
+
+/**
+ * Keeps the visible nodes of the last query. When the view is only translated at constant zoom, and the graph did not change, only the strips entering the viewport are queried in the spatial index, and the nodes leaving it are removed.
+ * <p>
+ * The same tracker is shared by the nodes and edges queries of a world update: an incremental update with the same view, graph version and rectangle as the previous one does nothing.</p>
+ *
+ * @author Eduardo Ramos
+ */
+class VisibleNodesTracker {
+
+    /**
+     * Relative tolerance when comparing view sizes, as view boundaries are calculated from the inverted MVP matrix.
+     */
+    private static final float SAME_SIZE_TOLERANCE = 1e-4f;
+
+    /**
+     * When translating more than this fraction of the view, querying the whole view is cheaper than patching.
+     */
+    private static final float MAX_TRANSLATION_FRACTION = 0.5f;
+
+    private final BitSet visibleIds = new BitSet();
+    private Node[] nodes = new Node[0];
+    private int count = 0;
+
+    private Node[] enteringNodes = new Node[0];
+    private int enteringCount = 0;
+
+    private GraphView graphView;
+    private int graphVersion;
+    private Rect2D rect;
+    private boolean translated = false;
+    private int revision = 0;
+
+    /**
+     * Updates the visible nodes for the given rectangle.
+     *
+     * @param graph Visible graph
+     * @param graphVersion Version of the graph, that changes when the nodes or their positions change
+     * @param newRect View rectangle
+     * @param incremental Allow patching the previous nodes when possible
+     * @return True when the previous nodes were patched, and {@link #getEnteringNodes()} contains the added ones. False when the whole rectangle was queried
+     */
+    boolean update(Graph graph, int graphVersion, Rect2D newRect, boolean incremental) {
+        if (incremental && isSameQuery(graph.getView(), graphVersion, newRect)) {
+            return translated;
+        }
+
+        final boolean translation = incremental && isTranslation(graph.getView(), graphVersion, newRect);
+
+        if (translation) {
+            removeLeavingNodes(newRect);
+            addEnteringNodes(graph, newRect);
+        } else {
+            queryAll(graph, newRect);
+        }
+
+        this.graphView = graph.getView();
+        this.graphVersion = graphVersion;
+        this.rect = newRect;
+        this.translated = translation;
+        revision++;
+
+        return translation;
+    }
+
+    private boolean isSameQuery(GraphView newGraphView, int newGraphVersion, Rect2D newRect) {
+        return rect != null && newGraphView == graphView && newGraphVersion == graphVersion
+                && newRect.minX == rect.minX && newRect.minY == rect.minY
+                && newRect.maxX == rect.maxX && newRect.maxY == rect.maxY;
+    }
+
+    private boolean isTranslation(GraphView newGraphView, int newGraphVersion, Rect2D newRect) {
+        if (rect == null || newGraphView != graphView || newGraphVersion != graphVersion) {
+            return false;
+        }
+
+        final float width = rect.width();
+        final float height = rect.height();
+        if (Math.abs(newRect.width() - width) > width * SAME_SIZE_TOLERANCE
+                || Math.abs(newRect.height() - height) > height * SAME_SIZE_TOLERANCE) {
+            return false;
+        }
+
+        return Math.abs(newRect.minX - rect.minX) <= width * MAX_TRANSLATION_FRACTION
+                && Math.abs(newRect.minY - rect.minY) <= height * MAX_TRANSLATION_FRACTION;
+    }
+
+    private void queryAll(Graph graph, Rect2D newRect) {
+        visibleIds.clear();
+        count = 0;
+        enteringCount = 0;
+
+        final NodeIterable nodeIterable = graph.getSpatialIndex().getNodesInArea(newRect);
+        try {
+            for (Node node : nodeIterable) {
+                if (!visibleIds.get(node.getStoreId())) {
+                    visibleIds.set(node.getStoreId());
+                    add(node);
+                }
+            }
+        } catch (Exception ex) {
+            nodeIterable.doBreak();
+        }
+    }
+
+    private void removeLeavingNodes(Rect2D newRect) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            final Node node = nodes[i];
+            if (intersects(node, newRect)) {
+                nodes[kept++] = node;
+            } else {
+                visibleIds.clear(node.getStoreId());
+            }
+        }
+
+        Arrays.fill(nodes, kept, count, null);
+        count = kept;
+    }
+
+    private void addEnteringNodes(Graph graph, Rect2D newRect) {
+        enteringCount = 0;
+
+        //Column entering from the left or right side, with the whole new height:
+        if (newRect.minX < rect.minX) {
+            addEnteringStrip(graph, new Rect2D(newRect.minX, newRect.minY, rect.minX, newRect.maxY));
+        } else if (newRect.maxX > rect.maxX) {
+            addEnteringStrip(graph, new Rect2D(rect.maxX, newRect.minY, newRect.maxX, newRect.maxY));
+        }
+
+        //Row entering from the bottom or top side, without the column:
+        final float minX = Math.max(newRect.minX, rect.minX);
+        final float maxX = Math.min(newRect.maxX, rect.maxX);
+        if (newRect.minY < rect.minY) {
+            addEnteringStrip(graph, new Rect2D(minX, newRect.minY, maxX, rect.minY));
+        } else if (newRect.maxY > rect.maxY) {
+            addEnteringStrip(graph, new Rect2D(minX, rect.maxY, maxX, newRect.maxY));
+        }
+    }
+
+    private void addEnteringStrip(Graph graph, Rect2D strip) {
+        final NodeIterable nodeIterable = graph.getSpatialIndex().getNodesInArea(strip);
+        try {
+            for (Node node : nodeIterable) {
+                if (!visibleIds.get(node.getStoreId())) {
+                    visibleIds.set(node.getStoreId());
+                    add(node);
+
+                    if (enteringCount == enteringNodes.length) {
+                        enteringNodes = Arrays.copyOf(enteringNodes, grow(enteringCount));
+                    }
+                    enteringNodes[enteringCount++] = node;
+                }
+            }
+        } catch (Exception ex) {
+            nodeIterable.doBreak();
+        }
+    }
+
+    private void add(Node node) {
+        if (count == nodes.length) {
+            nodes = Arrays.copyOf(nodes, grow(count));
+        }
+        nodes[count++] = node;
+    }
+
+    private static int grow(int length) {
+        return Math.max(16, length + (length >> 1));
+    }
+
+    private static boolean intersects(Node node, Rect2D rect) {
+        final float x = node.x();
+        final float y = node.y();
+        final float size = node.size();
+
+        return x + size >= rect.minX && x - size <= rect.maxX
+                && y + size >= rect.minY && y - size <= rect.maxY;
+    }
+
+    boolean isVisible(Node node) {
+        return visibleIds.get(node.getStoreId());
+    }
+
+    Node[] getNodes() {
+        return nodes;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    Node[] getEnteringNodes() {
+        return enteringNodes;
+    }
+
+    int getEnteringCount() {
+        return enteringCount;
+    }
+
+    /**
+     * @return Number of updates that changed the nodes, to know whether {@link #getEnteringNodes()} patch the nodes seen by a previous revision
+     */
+    int getRevision() {
+        return revision;
+    }
+}
@@ -0,0 +1,61 @@
+package org.gephi.viz.engine.util;
+
+import java.nio.FloatBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * Hashes of fixed size blocks of a buffer, to find which blocks changed between two world updates without keeping a copy of the previous data.
+ * Blocks are aligned to the start of the buffer.
+ *
+ * @author Eduardo Ramos
+ */
+public class BufferBlockHashes {
+
+    public static final int BLOCK_FLOATS = 1024;
+
+    private static final int PARALLEL_MIN_BLOCKS = 64;
+
+    private BufferBlockHashes() {
+    }
+
+    public static int blocksCount(int length) {
+        return (length + BLOCK_FLOATS - 1) / BLOCK_FLOATS;
+    }
+
+    /**
+     * Hashes the first length floats of the buffer. Reads are absolute, so the buffer position and limit are not modified.
+     *
+     * @param buffer Buffer
+     * @param length Floats to hash
+     * @param hashes Array to reuse if it's big enough
+     * @return Hashes array, with at least {@link #blocksCount(int)} elements
+     */
+    public static long[] compute(final FloatBuffer buffer, final int length, final long[] hashes) {
+        final int blocks = blocksCount(length);
+        final long[] dest = hashes != null && hashes.length >= blocks ? hashes : new long[blocks];
+
+        if (blocks >= PARALLEL_MIN_BLOCKS) {
+            IntStream.range(0, blocks).parallel().forEach(block -> dest[block] = hashBlock(buffer, block, length));
+        } else {
+            for (int block = 0; block < blocks; block++) {
+                dest[block] = hashBlock(buffer, block, length);
+            }
+        }
+
+        return dest;
+    }
+
+    private static long hashBlock(final FloatBuffer buffer, final int block, final int length) {
+        final int start = block * BLOCK_FLOATS;
+        final int end = Math.min(start + BLOCK_FLOATS, length);
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            //Raw bits, as packed colors can be NaN floats:
+            hash = (hash ^ Float.floatToRawIntBits(buffer.get(i))) * 0x100000001b3L;
+            hash ^= hash >>> 29;
+        }
+
+        return hash ^ (end - start);
+    }
+}
@@ -12,4 +12,76 @@ public class NumberUtils {
         return a == b ? true : Math.abs(a - b) < epsilon;
     }
 
+    public static final float HALF_FLOAT_MAX_VALUE = 65504f;
+
+    /**
+     * Converts a float to the bits of the nearest IEEE 754 half precision float, rounding to nearest even.
+     * Finite values too big for a half float are saturated to {@link #HALF_FLOAT_MAX_VALUE} instead of becoming infinity.
+     *
+     * @param value Float value
+     * @return Half float bits in the lower 16 bits
+     */
+    public static int toHalfFloatBits(float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int exponent = (bits >>> 23) & 0xFF;
+        final int mantissa = bits & 0x7FFFFF;
+
+        if (exponent == 0xFF) {
+            //Infinity or NaN
+            return sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0);
+        }
+
+        final int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1F) {
+            return sign | 0x7BFF;
+        }
+
+        if (halfExponent <= 0) {
+            //Subnormal half float, or zero
+            if (halfExponent < -10) {
+                return sign;
+            }
+
+            final int fullMantissa = mantissa | 0x800000;
+            final int shift = 14 - halfExponent;
+            return sign | roundToNearestEven(fullMantissa >> shift, fullMantissa & ((1 << shift) - 1), 1 << (shift - 1));
+        }
+
+        final int half = roundToNearestEven((halfExponent << 10) | (mantissa >> 13), mantissa & 0x1FFF, 0x1000);
+
+        //Rounding can carry into the exponent, up to infinity:
+        return sign | Math.min(half, 0x7BFF);
+    }
+
+    private static int roundToNearestEven(int truncated, int remainder, int halfway) {
+        if (remainder > halfway || (remainder == halfway && (truncated & 1) != 0)) {
+            return truncated + 1;
+        }
+        return truncated;
+    }
+
+    /**
+     * Converts the bits of an IEEE 754 half precision float to a float.
+     *
+     * @param halfBits Half float bits in the lower 16 bits
+     * @return Float value
+     */
+    public static float fromHalfFloatBits(int halfBits) {
+        final int sign = (halfBits & 0x8000) << 16;
+        final int exponent = (halfBits >>> 10) & 0x1F;
+        final int mantissa = halfBits & 0x3FF;
+
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+
+        if (exponent == 0) {
+            final float subnormal = mantissa * 0x1p-24f;
+            return sign != 0 ? -subnormal : subnormal;
+        }
+
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
 }
@@ -0,0 +1,86 @@
+package org.gephi.viz.engine;
+
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.spi.RenderingTarget;
+import org.gephi.viz.engine.spi.WorldUpdaterExecutionMode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class VizEngineTest {
+
+    public VizEngineTest() {
+    }
+
+    @Test
+    public void testDefaultCullingBoundariesAreTheView() {
+        final VizEngine<TestRenderingTarget, Object> engine = newEngine();
+
+        engine.display();
+
+        assertSameRect(engine.getViewBoundaries(), engine.getCullingBoundaries());
+        Assert.assertEquals(engine.getZoom(), engine.getCullingZoom(), 0);
+    }
+
+    @Test
+    public void testOverscanWhenSkippingUnchangedWorldUpdates() {
+        final VizEngine<TestRenderingTarget, Object> engine = newEngine();
+        engine.setSkipUnchangedWorldUpdates(true);
+
+        engine.display();
+
+        final Rect2D view = engine.getViewBoundaries();
+        final float marginX = view.width() * VizEngine.DEFAULT_OVERSCAN_FACTOR;
+        final float marginY = view.height() * VizEngine.DEFAULT_OVERSCAN_FACTOR;
+        assertSameRect(new Rect2D(view.minX - marginX, view.minY - marginY, view.maxX + marginX, view.maxY + marginY), engine.getCullingBoundaries());
+        Assert.assertTrue(engine.getCullingZoom() > engine.getZoom());
+    }
+
+    @Test
+    public void testNoOverscanWithZeroFactor() {
+        final VizEngine<TestRenderingTarget, Object> engine = newEngine();
+        engine.setSkipUnchangedWorldUpdates(true);
+        engine.setOverscanFactor(0);
+
+        engine.display();
+
+        assertSameRect(engine.getViewBoundaries(), engine.getCullingBoundaries());
+    }
+
+    private static VizEngine<TestRenderingTarget, Object> newEngine() {
+        final VizEngine<TestRenderingTarget, Object> engine = new VizEngine<>(GraphModel.Factory.newInstance(), new TestRenderingTarget());
+        engine.setWorldUpdatersExecutionMode(WorldUpdaterExecutionMode.SINGLE_THREAD);
+        engine.reshape(800, 600);
+        engine.setup();
+        return engine;
+    }
+
+    private static void assertSameRect(Rect2D expected, Rect2D actual) {
+        Assert.assertEquals(expected.minX, actual.minX, 1e-4f);
+        Assert.assertEquals(expected.minY, actual.minY, 1e-4f);
+        Assert.assertEquals(expected.maxX, actual.maxX, 1e-4f);
+        Assert.assertEquals(expected.maxY, actual.maxY, 1e-4f);
+    }
+
+    private static class TestRenderingTarget implements RenderingTarget {
+
+        @Override
+        public void setup(VizEngine engine) {
+            //NOOP
+        }
+
+        @Override
+        public void start() {
+            //NOOP
+        }
+
+        @Override
+        public void stop() {
+            //NOOP
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class WorldSnapshotRingTest {
+
+    public WorldSnapshotRingTest() {
+    }
+
+    @Test
+    public void testNothingToDrawBeforePublish() {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+
+        Assert.assertNull(ring.acquireNewestForDrawing());
+        Assert.assertNull(ring.getDrawing());
+
+        ring.acquireForWriting();
+        Assert.assertNull(ring.acquireNewestForDrawing());
+    }
+
+    @Test
+    public void testPublishedSnapshotsAreDrawnInOrder() {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+
+        for (int version = 0; version < 10; version++) {
+            final Snapshot writing = ring.acquireForWriting();
+            writing.version = version;
+            ring.publish(writing);
+
+            final Snapshot drawing = ring.acquireNewestForDrawing();
+            Assert.assertSame(writing, drawing);
+            Assert.assertEquals(version, drawing.version);
+            Assert.assertSame(drawing, ring.getDrawing());
+
+            //Only once per publish:
+            Assert.assertNull(ring.acquireNewestForDrawing());
+        }
+    }
+
+    @Test
+    public void testWritingNeverReusesDrawingOrNewest() {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+
+        final Snapshot first = ring.acquireForWriting();
+        ring.publish(first);
+        final Snapshot drawing = ring.acquireNewestForDrawing();
+
+        //Renderer keeps drawing the same snapshot while the updater publishes many times:
+        Snapshot newest = null;
+        for (int i = 0; i < 10; i++) {
+            final Snapshot writing = ring.acquireForWriting();
+            Assert.assertNotSame(drawing, writing);
+            Assert.assertNotSame(newest, writing);
+
+            ring.publish(writing);
+            newest = writing;
+            Assert.assertSame(drawing, ring.getDrawing());
+        }
+    }
+
+    @Test
+    public void testStaleSnapshotsAreDropped() {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+
+        for (int version = 0; version < 3; version++) {
+            final Snapshot writing = ring.acquireForWriting();
+            writing.version = version;
+            ring.publish(writing);
+        }
+
+        //Only the newest one is drawn, the older ones are skipped:
+        final Snapshot drawing = ring.acquireNewestForDrawing();
+        Assert.assertEquals(2, drawing.version);
+        Assert.assertNull(ring.acquireNewestForDrawing());
+    }
+
+    @Test
+    public void testUnpublishedWriteReusesSlot() {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+
+        final Snapshot writing = ring.acquireForWriting();
+        Assert.assertSame(writing, ring.acquireForWriting());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPublishNotWritingSnapshot() {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+
+        final Snapshot writing = ring.acquireForWriting();
+        ring.publish(writing);
+        ring.publish(writing);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmallRing() {
+        new WorldSnapshotRing<>(2, Snapshot::new);
+    }
+
+    @Test
+    public void testConcurrentUpdaterAndRenderer() throws InterruptedException {
+        final WorldSnapshotRing<Snapshot> ring = newRing();
+        final int updates = 20000;
+        final AtomicInteger errors = new AtomicInteger();
+
+        final Thread updater = new Thread(() -> {
+            for (int version = 1; version <= updates; version++) {
+                final Snapshot writing = ring.acquireForWriting();
+                writing.writing = true;
+                writing.version = version;
+                writing.writing = false;
+                ring.publish(writing);
+            }
+        });
+
+        final List<Integer> drawnVersions = new ArrayList<>();
+        updater.start();
+        int lastVersion = 0;
+        while (lastVersion < updates) {
+            final Snapshot drawing = ring.acquireNewestForDrawing();
+            if (drawing == null) {
+                continue;
+            }
+
+            final int version = drawing.version;
+            //Drawn snapshot must be complete and not be written while drawing:
+            for (int i = 0; i < 100; i++) {
+                if (drawing.writing || drawing.version != version) {
+                    errors.incrementAndGet();
+                }
+            }
+            if (version <= lastVersion) {
+                errors.incrementAndGet();
+            }
+            lastVersion = version;
+            drawnVersions.add(version);
+        }
+        updater.join();
+
+        Assert.assertEquals(0, errors.get());
+        Assert.assertEquals(updates, (int) drawnVersions.get(drawnVersions.size() - 1));
+    }
+
+    private static WorldSnapshotRing<Snapshot> newRing() {
+        return new WorldSnapshotRing<>(Snapshot::new);
+    }
+
+    private static class Snapshot {
+
+        private volatile int version = -1;
+        private volatile boolean writing = false;
+    }
+}
@@ -0,0 +1,157 @@
+package org.gephi.viz.engine.status;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementBitSetTest {
+
+    public ElementBitSetTest() {
+    }
+
+    @Test
+    public void testAddRemove() {
+        final Node[] nodes = createNodes(200);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+
+        Assert.assertTrue(set.add(nodes[3]));
+        Assert.assertFalse(set.add(nodes[3]));
+        Assert.assertTrue(set.addAll(Arrays.asList(nodes[70], nodes[150])));
+        Assert.assertEquals(3, set.size());
+        Assert.assertTrue(set.containsElement(nodes[70]));
+        Assert.assertFalse(set.containsElement(nodes[71]));
+
+        Assert.assertTrue(set.remove(nodes[70]));
+        Assert.assertFalse(set.remove(nodes[70]));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(nodes[3], nodes[150])), new HashSet<>(set));
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.containsElement(nodes[3]));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        final Node[] nodes = createNodes(200);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.addAll(Arrays.asList(nodes));
+
+        final Iterator<Node> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getStoreId() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        Assert.assertEquals(100, set.size());
+        for (Node node : nodes) {
+            Assert.assertEquals(node.getStoreId() % 2 != 0, set.containsElement(node));
+        }
+    }
+
+    @Test
+    public void testNodesRemovedFromGraph() {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Graph graph = graphModel.getGraph();
+        final Node[] nodes = createNodes(graph, 100);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.addAll(Arrays.asList(nodes));
+
+        graph.removeNode(nodes[10]);
+        graph.removeNode(nodes[99]);
+
+        Assert.assertFalse(set.containsElement(nodes[10]));
+        Assert.assertEquals(98, set.size());
+        for (Node node : set) {
+            Assert.assertNotSame(nodes[10], node);
+            Assert.assertNotSame(nodes[99], node);
+        }
+
+        //Reused id:
+        final Node added = graphModel.factory().newNode("added");
+        graph.addNode(added);
+        Assert.assertTrue(set.add(added));
+        Assert.assertTrue(set.containsElement(added));
+        Assert.assertEquals(99, set.size());
+    }
+
+    @Test
+    public void testQueriesDoNotModify() {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Graph graph = graphModel.getGraph();
+        final Node[] nodes = createNodes(graph, 100);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.addAll(Arrays.asList(nodes));
+
+        final Iterator<Node> iterator = set.iterator();
+        Assert.assertSame(nodes[0], iterator.next());
+
+        graph.removeNode(nodes[50]);
+
+        //Counting skips the removed node without invalidating the iteration:
+        Assert.assertEquals(99, set.size());
+        Assert.assertFalse(set.isEmpty());
+
+        int count = 1;
+        while (iterator.hasNext()) {
+            Assert.assertNotSame(nodes[50], iterator.next());
+            count++;
+        }
+        Assert.assertEquals(99, count);
+    }
+
+    @Test
+    public void testShrinkAfterRemovingHighestIds() {
+        final Node[] nodes = createNodes(1000);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.addAll(Arrays.asList(nodes));
+
+        for (int i = nodes.length - 1; i >= 10; i--) {
+            Assert.assertTrue(set.remove(nodes[i]));
+        }
+
+        Assert.assertEquals(10, set.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(nodes).subList(0, 10)), new HashSet<>(set));
+
+        Assert.assertTrue(set.add(nodes[999]));
+        Assert.assertTrue(set.containsElement(nodes[999]));
+        Assert.assertFalse(set.containsElement(nodes[500]));
+        Assert.assertEquals(11, set.size());
+    }
+
+    @Test
+    public void testNodeNotInStore() {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Node detached = graphModel.factory().newNode("detached");
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+
+        Assert.assertFalse(set.add(detached));
+        Assert.assertFalse(set.containsElement(detached));
+        Assert.assertEquals(0, set.size());
+    }
+
+    private static Node[] createNodes(int count) {
+        return createNodes(GraphModel.Factory.newInstance().getGraph(), count);
+    }
+
+    private static Node[] createNodes(Graph graph, int count) {
+        final GraphFactory factory = graph.getModel().factory();
+
+        final Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = factory.newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+}
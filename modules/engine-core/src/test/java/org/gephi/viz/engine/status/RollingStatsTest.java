@@ -0,0 +1,53 @@
+package org.gephi.viz.engine.status;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class RollingStatsTest {
+
+    public RollingStatsTest() {
+    }
+
+    @Test
+    public void testPercentiles() {
+        final RollingStats stats = new RollingStats(100);
+        for (int i = 100; i >= 1; i--) {
+            stats.add(i);
+        }
+
+        Assert.assertEquals(100, stats.getCount());
+        Assert.assertEquals(1, stats.getLast());
+        Assert.assertEquals(50, stats.getPercentile(50));
+        Assert.assertEquals(95, stats.getPercentile(95));
+        Assert.assertEquals(100, stats.getPercentile(100));
+        Assert.assertEquals(1, stats.getPercentile(0));
+        Assert.assertEquals(100, stats.getMax());
+        Assert.assertEquals(50.5, stats.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testWindow() {
+        final RollingStats stats = new RollingStats(3);
+        stats.add(10);
+        stats.add(20);
+        stats.add(30);
+        stats.add(40);
+
+        Assert.assertEquals(3, stats.getCount());
+        Assert.assertEquals(40, stats.getMax());
+        Assert.assertEquals(20, stats.getPercentile(0));
+        Assert.assertEquals(30, stats.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testEmpty() {
+        final RollingStats stats = new RollingStats(3);
+
+        Assert.assertEquals(0, stats.getPercentile(99));
+        Assert.assertEquals(0, stats.getMean(), 0.0001);
+    }
+}
@@ -0,0 +1,140 @@
+package org.gephi.viz.engine.structure;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class VisibleElementsTrackerTest {
+
+    public VisibleElementsTrackerTest() {
+    }
+
+    @Test
+    public void testTranslationsMatchFullQueries() {
+        final Graph graph = createGraph(2000, 4000);
+        final VisibleNodesTracker nodesTracker = new VisibleNodesTracker();
+        final VisibleEdgesTracker edgesTracker = new VisibleEdgesTracker(nodesTracker);
+
+        final Random random = new Random(7);
+        float minX = -100;
+        float minY = -50;
+        int patched = 0;
+        for (int i = 0; i < 200; i++) {
+            final Rect2D rect = new Rect2D(minX, minY, minX + 200, minY + 100);
+
+            if (nodesTracker.update(graph, 0, rect, true)) {
+                patched++;
+            }
+            edgesTracker.update(graph, 0, rect, true);
+
+            final VisibleNodesTracker expectedNodes = new VisibleNodesTracker();
+            expectedNodes.update(graph, 0, rect, false);
+            final VisibleEdgesTracker expectedEdges = new VisibleEdgesTracker(new VisibleNodesTracker());
+            expectedEdges.update(graph, 0, rect, false);
+
+            Assert.assertEquals(toSet(expectedNodes.getNodes(), expectedNodes.getCount()), toSet(nodesTracker.getNodes(), nodesTracker.getCount()));
+            Assert.assertEquals(toSet(expectedEdges.getEdges(), expectedEdges.getCount()), toSet(edgesTracker.getEdges(), edgesTracker.getCount()));
+
+            minX += (random.nextFloat() - 0.5f) * 80;
+            minY += (random.nextFloat() - 0.5f) * 40;
+        }
+
+        Assert.assertEquals(199, patched);
+    }
+
+    @Test
+    public void testZoomAndGraphVersionQueryAll() {
+        final Graph graph = createGraph(100, 100);
+        final VisibleNodesTracker tracker = new VisibleNodesTracker();
+
+        Assert.assertFalse(tracker.update(graph, 0, new Rect2D(0, 0, 100, 100), true));
+        Assert.assertTrue(tracker.update(graph, 0, new Rect2D(10, 0, 110, 100), true));
+        Assert.assertFalse(tracker.update(graph, 0, new Rect2D(10, 0, 210, 200), true));
+        Assert.assertFalse(tracker.update(graph, 1, new Rect2D(20, 0, 220, 200), true));
+        Assert.assertFalse(tracker.update(graph, 1, new Rect2D(30, 0, 230, 200), false));
+        Assert.assertFalse(tracker.update(graph, 1, new Rect2D(1000, 0, 1200, 200), true));
+    }
+
+    @Test
+    public void testEdgesShareNodesQueries() {
+        final Graph graph = createGraph(500, 1000);
+        final VisibleNodesTracker nodesTracker = new VisibleNodesTracker();
+        final VisibleEdgesTracker edgesTracker = new VisibleEdgesTracker(nodesTracker);
+
+        final Rect2D rect = new Rect2D(-100, -50, 100, 50);
+        nodesTracker.update(graph, 0, rect, true);
+        final int revision = nodesTracker.getRevision();
+
+        //Same query again does nothing, for the nodes and the edges:
+        Assert.assertFalse(nodesTracker.update(graph, 0, rect, true));
+        edgesTracker.update(graph, 0, rect, true);
+        Assert.assertEquals(revision, nodesTracker.getRevision());
+
+        //Edges patched with the translation done by the nodes query:
+        final Rect2D translated = new Rect2D(-80, -50, 120, 50);
+        Assert.assertTrue(nodesTracker.update(graph, 0, translated, true));
+        edgesTracker.update(graph, 0, translated, true);
+        Assert.assertEquals(revision + 1, nodesTracker.getRevision());
+
+        final VisibleEdgesTracker expectedEdges = new VisibleEdgesTracker(new VisibleNodesTracker());
+        expectedEdges.update(graph, 0, translated, false);
+        Assert.assertEquals(toSet(expectedEdges.getEdges(), expectedEdges.getCount()), toSet(edgesTracker.getEdges(), edgesTracker.getCount()));
+
+        //Missed revisions of the nodes make the edges query all:
+        nodesTracker.update(graph, 0, new Rect2D(-70, -50, 130, 50), true);
+        final Rect2D last = new Rect2D(-60, -50, 140, 50);
+        nodesTracker.update(graph, 0, last, true);
+        edgesTracker.update(graph, 0, last, true);
+
+        expectedEdges.update(graph, 0, last, false);
+        Assert.assertEquals(toSet(expectedEdges.getEdges(), expectedEdges.getCount()), toSet(edgesTracker.getEdges(), edgesTracker.getCount()));
+    }
+
+    private static Graph createGraph(int nodesCount, int edgesCount) {
+        final GraphModel graphModel = GraphModel.Factory.newInstance(Configuration.builder().enableSpatialIndex(true).build());
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getUndirectedGraph();
+        final Random random = new Random(42);
+
+        final Node[] nodes = new Node[nodesCount];
+        for (int i = 0; i < nodesCount; i++) {
+            final Node node = factory.newNode(String.valueOf(i));
+            node.setX((random.nextFloat() - 0.5f) * 1000);
+            node.setY((random.nextFloat() - 0.5f) * 1000);
+            node.setSize(1 + random.nextFloat() * 5);
+            nodes[i] = node;
+            graph.addNode(node);
+        }
+
+        for (int i = 0; i < edgesCount; i++) {
+            final Node source = nodes[random.nextInt(nodesCount)];
+            final Node target = nodes[random.nextInt(nodesCount)];
+            if (source != target && graph.getEdge(source, target) == null) {
+                graph.addEdge(factory.newEdge(source, target, false));
+            }
+        }
+
+        return graph;
+    }
+
+    private static <T> Set<T> toSet(T[] elements, int count) {
+        final Set<T> set = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            set.add(elements[i]);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,92 @@
+package org.gephi.viz.engine.util;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class BufferBlockHashesTest {
+
+    private static final int BLOCK = BufferBlockHashes.BLOCK_FLOATS;
+
+    public BufferBlockHashesTest() {
+    }
+
+    @Test
+    public void testBlocksCount() {
+        Assert.assertEquals(0, BufferBlockHashes.blocksCount(0));
+        Assert.assertEquals(1, BufferBlockHashes.blocksCount(1));
+        Assert.assertEquals(1, BufferBlockHashes.blocksCount(BLOCK));
+        Assert.assertEquals(2, BufferBlockHashes.blocksCount(BLOCK + 1));
+    }
+
+    @Test
+    public void testUnchangedData() {
+        final FloatBuffer buffer = createBuffer(BLOCK * 4 + 10);
+
+        final long[] hashes = BufferBlockHashes.compute(buffer, buffer.capacity(), null);
+        final long[] again = BufferBlockHashes.compute(buffer, buffer.capacity(), null);
+
+        Assert.assertEquals(5, hashes.length);
+        Assert.assertArrayEquals(hashes, again);
+    }
+
+    @Test
+    public void testSingleChangedBlock() {
+        final FloatBuffer buffer = createBuffer(BLOCK * 4);
+        final long[] hashes = BufferBlockHashes.compute(buffer, buffer.capacity(), null).clone();
+
+        buffer.put(BLOCK * 2 + 7, -1);
+        final long[] changed = BufferBlockHashes.compute(buffer, buffer.capacity(), null);
+
+        for (int block = 0; block < 4; block++) {
+            Assert.assertEquals(block == 2, hashes[block] != changed[block]);
+        }
+    }
+
+    @Test
+    public void testLengthChange() {
+        final FloatBuffer buffer = createBuffer(BLOCK * 2);
+
+        final long[] hashes = BufferBlockHashes.compute(buffer, BLOCK + 10, null);
+        final long[] shorter = BufferBlockHashes.compute(buffer, BLOCK + 9, null);
+
+        Assert.assertEquals(hashes[0], shorter[0]);
+        Assert.assertNotEquals(hashes[1], shorter[1]);
+    }
+
+    @Test
+    public void testReusesArray() {
+        final FloatBuffer buffer = createBuffer(BLOCK * 3);
+        final long[] array = new long[8];
+
+        Assert.assertSame(array, BufferBlockHashes.compute(buffer, buffer.capacity(), array));
+        Assert.assertNotSame(array, BufferBlockHashes.compute(buffer, buffer.capacity(), new long[2]));
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        final FloatBuffer buffer = createBuffer(BLOCK * 100);
+
+        final long[] parallel = BufferBlockHashes.compute(buffer, buffer.capacity(), null);
+        for (int block = 0; block < 100; block++) {
+            final long[] sequential = BufferBlockHashes.compute(buffer, (block + 1) * BLOCK, null);
+            Assert.assertEquals(parallel[block], sequential[block]);
+        }
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals(buffer.capacity(), buffer.limit());
+    }
+
+    private static FloatBuffer createBuffer(int length) {
+        final float[] data = new float[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = i * 0.5f;
+        }
+        Arrays.fill(data, 0, Math.min(3, length), Float.NaN);
+        return FloatBuffer.wrap(data);
+    }
+}
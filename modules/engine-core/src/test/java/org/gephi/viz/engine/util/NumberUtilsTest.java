@@ -0,0 +1,48 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NumberUtilsTest {
+
+    @Test
+    public void testHalfFloatExactValues() {
+        Assert.assertEquals(0x0000, NumberUtils.toHalfFloatBits(0f));
+        Assert.assertEquals(0x8000, NumberUtils.toHalfFloatBits(-0f));
+        Assert.assertEquals(0x3C00, NumberUtils.toHalfFloatBits(1f));
+        Assert.assertEquals(0xC000, NumberUtils.toHalfFloatBits(-2f));
+        Assert.assertEquals(0x3555, NumberUtils.toHalfFloatBits(1f / 3f));
+        Assert.assertEquals(0x7BFF, NumberUtils.toHalfFloatBits(NumberUtils.HALF_FLOAT_MAX_VALUE));
+        Assert.assertEquals(0x0001, NumberUtils.toHalfFloatBits(0x1p-24f));
+    }
+
+    @Test
+    public void testHalfFloatSaturation() {
+        Assert.assertEquals(0x7BFF, NumberUtils.toHalfFloatBits(1e6f));
+        Assert.assertEquals(0xFBFF, NumberUtils.toHalfFloatBits(-1e6f));
+        Assert.assertEquals(0x7C00, NumberUtils.toHalfFloatBits(Float.POSITIVE_INFINITY));
+        Assert.assertTrue(Float.isNaN(NumberUtils.fromHalfFloatBits(NumberUtils.toHalfFloatBits(Float.NaN))));
+    }
+
+    @Test
+    public void testHalfFloatRoundTrip() {
+        for (float value = -1000f; value < 1000f; value += 0.37f) {
+            final float roundTrip = NumberUtils.fromHalfFloatBits(NumberUtils.toHalfFloatBits(value));
+
+            //11 bits of precision:
+            Assert.assertEquals(value, roundTrip, Math.abs(value) / 2048f + 1e-6f);
+        }
+    }
+
+    @Test
+    public void testHalfFloatRoundToNearestEven() {
+        //Exactly between 1 and the next half float, 1 + 2^-10:
+        Assert.assertEquals(0x3C00, NumberUtils.toHalfFloatBits(1f + 0x1p-11f));
+        //Exactly between 1 + 2^-10 and 1 + 2^-9:
+        Assert.assertEquals(0x3C02, NumberUtils.toHalfFloatBits(1f + 0x1p-10f + 0x1p-11f));
+    }
+}
@@ -17,6 +17,7 @@ public class Constants {
     public static final String ATTRIB_NAME_TARGET_COLOR = "targetColor";
     public static final String ATTRIB_NAME_SOURCE_SIZE = "sourceSize";
     public static final String ATTRIB_NAME_TARGET_SIZE = "targetSize";
+    public static final String ATTRIB_NAME_ENDPOINTS = "endpoints";
 
     public static final int SHADER_VERT_LOCATION = 0;
     public static final int SHADER_POSITION_LOCATION = 1;
@@ -27,6 +28,7 @@ public class Constants {
     public static final int SHADER_SOURCE_SIZE_LOCATION = 6;
     public static final int SHADER_TARGET_SIZE_LOCATION = 7;
     public static final int SHADER_POSITION_TARGET_LOCATION = 8;
+    public static final int SHADER_ENDPOINTS_LOCATION = 9;
 
     public static final String UNIFORM_NAME_MODEL_VIEW_PROJECTION = "mvp";
     public static final String UNIFORM_NAME_EDGE_SCALE = "edgeScale";
@@ -40,10 +42,21 @@ public class Constants {
     public static final String UNIFORM_NAME_SIZE_MULTIPLIER = "sizeMultiplier";
     public static final String UNIFORM_NAME_COLOR_LIGHTEN_FACTOR = "colorLightenFactor";
     public static final String UNIFORM_NAME_COLOR_MULTIPLIER = "colorMultiplier";
+    public static final String UNIFORM_NAME_NODES_DATA = "nodesData";
+    public static final String UNIFORM_NAME_PIXEL_SIZE = "pixelSize";
+    public static final String UNIFORM_NAME_BORDER_SIZE = "borderSize";
+    public static final String UNIFORM_NAME_BORDER_DARKEN_FACTOR = "borderDarkenFactor";
+    public static final String UNIFORM_NAME_GRID_BOUNDS = "gridBounds";
+    public static final String UNIFORM_NAME_DENSITY_TEXTURE = "densityTexture";
+
+    //Uniform blocks:
+    public static final String UNIFORM_BLOCK_NAME_FRAME = "FrameUniforms";
+    public static final int UNIFORM_BLOCK_BINDING_FRAME = 0;
 
     //Rendering order:
     public static final int RENDERING_ORDER_NODES = 100;
     public static final int RENDERING_ORDER_EDGES = 50;
+    public static final int RENDERING_ORDER_DENSITY = 0;
 
     public static final float NODER_BORDER_DARKEN_FACTOR = 0.498f;//Configurable?
 
@@ -0,0 +1,85 @@
+package org.gephi.viz.engine.util.gl;
+
+import org.gephi.viz.engine.util.TimeUtils;
+
+/**
+ * Animator that only runs when a frame is requested, or when the idle fps floor is reached.
+ * Several frame requests received while running are coalesced into a single run.
+ *
+ * @author Eduardo Ramos
+ */
+public class OnDemandFPSAnimator implements Runnable {
+
+    //Runnable
+    protected final Runnable runnable;
+    //Fps
+    protected long lastRunTime;
+    protected long idleDelay;
+    //Flags
+    protected boolean frameRequested = true;
+    protected volatile boolean animating = true;
+    //Lock
+    protected final Object lock = new Object();
+
+    public OnDemandFPSAnimator(Runnable runnable, float idleFps) {
+        this.runnable = runnable;
+        setIdleFps(idleFps);
+    }
+
+    @Override
+    public void run() {
+        while (animating) {
+            synchronized (this.lock) {
+                long timeout;
+                while (animating && !frameRequested
+                        && (timeout = idleDelay - TimeUtils.getTimeMillis() + lastRunTime) > 0) {
+                    try {
+                        this.lock.wait(timeout);
+                    } catch (InterruptedException ex) {
+                    }
+                }
+
+                frameRequested = false;
+            }
+
+            if (!animating) {
+                break;
+            }
+
+            lastRunTime = TimeUtils.getTimeMillis();
+            try {
+                runnable.run();
+            } catch (Throwable ex) {
+                ex.printStackTrace();//TODO log if enabled
+            }
+        }
+    }
+
+    public final void requestFrame() {
+        synchronized (this.lock) {
+            frameRequested = true;
+            this.lock.notify();
+        }
+    }
+
+    /**
+     * @param idleFps Minimum frames per second when no frame is requested. Zero or less to never run while idle
+     */
+    public final void setIdleFps(float idleFps) {
+        synchronized (this.lock) {
+            idleDelay = idleFps > 0 ? (long) (1000.0f / idleFps) : Long.MAX_VALUE;
+            this.lock.notify();
+        }
+    }
+
+    public final void shutdown() {
+        synchronized (this.lock) {
+            animating = false;
+            this.lock.notify();
+        }
+    }
+
+    public final boolean isAnimating() {
+        return animating;
+    }
+}
@@ -1,5 +1,7 @@
 package org.gephi.viz.engine.util.gl;
 
+import java.io.File;
+
 /**
  *
  * @author Eduardo Ramos
@@ -10,7 +12,16 @@ public class OpenGLOptions {
     private boolean disableInstancedDrawing = false;
     private boolean disableVertexArrayDrawing = false;
     private boolean disableVAOS = false;
+    private boolean disableParallelPacking = false;
+    private boolean disablePersistentMapping = false;
+    private boolean disableFencedBufferRing = false;
+    private boolean disableFrameUniforms = false;
+    private boolean indexedEdgesDrawing = false;
+    private boolean impostorNodesDrawing = false;
+    private boolean compactAttributes = false;
+    private volatile boolean gpuTimerQueries = false;
     private boolean debug = false;
+    private File programBinaryCacheDirectory = null;
 
     public OpenGLOptions() {
     }
@@ -47,6 +58,125 @@ public class OpenGLOptions {
         this.disableVAOS = disableVAOS;
     }
 
+    public boolean isDisableParallelPacking() {
+        return disableParallelPacking;
+    }
+
+    /**
+     * Disables packing the attributes of big sets of visible elements from several threads of the common fork-join pool in world updates.
+     *
+     * @param disableParallelPacking Disable parallel packing
+     */
+    public void setDisableParallelPacking(boolean disableParallelPacking) {
+        this.disableParallelPacking = disableParallelPacking;
+    }
+
+    public boolean isDisablePersistentMapping() {
+        return disablePersistentMapping;
+    }
+
+    /**
+     * Disables writing instanced attributes into persistently mapped buffers, even when supported by the GL implementation.
+     *
+     * @param disablePersistentMapping Disable persistent mapping
+     */
+    public void setDisablePersistentMapping(boolean disablePersistentMapping) {
+        this.disablePersistentMapping = disablePersistentMapping;
+    }
+
+    public boolean isDisableFencedBufferRing() {
+        return disableFencedBufferRing;
+    }
+
+    /**
+     * Disables uploading instanced attributes into a ring of buffer regions protected by fences when persistent mapping is not used, even when supported by the GL implementation. Each upload then orphans the buffer.
+     *
+     * @param disableFencedBufferRing Disable fenced buffer ring
+     */
+    public void setDisableFencedBufferRing(boolean disableFencedBufferRing) {
+        this.disableFencedBufferRing = disableFencedBufferRing;
+    }
+
+    public boolean isDisableFrameUniforms() {
+        return disableFrameUniforms;
+    }
+
+    /**
+     * Disables sharing the per frame uniforms of node and edge programs in a uniform buffer, even when supported by the GL implementation. Each program then gets its own uniforms on every draw.
+     *
+     * @param disableFrameUniforms Disable frame uniforms
+     */
+    public void setDisableFrameUniforms(boolean disableFrameUniforms) {
+        this.disableFrameUniforms = disableFrameUniforms;
+    }
+
+    public boolean isIndexedEdgesDrawing() {
+        return indexedEdgesDrawing;
+    }
+
+    /**
+     * Enables the edges pipeline that fetches nodes data by index from a texture buffer, with less memory and uploads per edge. It needs GL 4 texture buffers big enough for the nodes and is ignored otherwise.
+     *
+     * @param indexedEdgesDrawing Use indexed edges drawing
+     */
+    public void setIndexedEdgesDrawing(boolean indexedEdgesDrawing) {
+        this.indexedEdgesDrawing = indexedEdgesDrawing;
+    }
+
+    public boolean isImpostorNodesDrawing() {
+        return impostorNodesDrawing;
+    }
+
+    /**
+     * Enables the nodes pipeline that draws a single quad per node, with disc and border computed in the fragment shader. It needs instancing support and is ignored otherwise.
+     *
+     * @param impostorNodesDrawing Use impostor nodes drawing
+     */
+    public void setImpostorNodesDrawing(boolean impostorNodesDrawing) {
+        this.impostorNodesDrawing = impostorNodesDrawing;
+    }
+
+    public boolean isCompactAttributes() {
+        return compactAttributes;
+    }
+
+    /**
+     * Enables the compact layout of instanced attributes: 16 bits quantized positions, half float sizes and weights. It needs half float vertex attributes support and is ignored otherwise.
+     *
+     * @param compactAttributes Use compact attributes
+     */
+    public void setCompactAttributes(boolean compactAttributes) {
+        this.compactAttributes = compactAttributes;
+    }
+
+    public boolean isGpuTimerQueries() {
+        return gpuTimerQueries;
+    }
+
+    /**
+     * Enables measuring the GPU time of each renderer call and buffer upload with timer queries, reported to the engine metrics. It is ignored when timer queries are not supported by the GL implementation.
+     * Can be changed while rendering.
+     *
+     * @param gpuTimerQueries Use GPU timer queries
+     */
+    public void setGpuTimerQueries(boolean gpuTimerQueries) {
+        this.gpuTimerQueries = gpuTimerQueries;
+    }
+
+    public File getProgramBinaryCacheDirectory() {
+        return programBinaryCacheDirectory;
+    }
+
+    /**
+     * Directory where linked program binaries are cached between runs, when supported by the GL implementation. Disabled by default.
+     * Binaries are given to the driver as they are read, so it should be a directory only the current user can write, not a shared one.
+     *
+     * @param programBinaryCacheDirectory Cache directory or null to always compile programs from source
+     */
+    public void setProgramBinaryCacheDirectory(File programBinaryCacheDirectory) {
+        this.programBinaryCacheDirectory = programBinaryCacheDirectory;
+    }
+
     public boolean isDebug() {
         return debug;
     }
@@ -57,7 +187,7 @@ public class OpenGLOptions {
 
     @Override
     public String toString() {
-        return "OpenGLOptions{" + "disableIndirectDrawing=" + disableIndirectDrawing + ", disableInstancedDrawing=" + disableInstancedDrawing + ", disableVertexArrayDrawing=" + disableVertexArrayDrawing + ", disableVAOS=" + disableVAOS + ", debug=" + debug + '}';
+        return "OpenGLOptions{" + "disableIndirectDrawing=" + disableIndirectDrawing + ", disableInstancedDrawing=" + disableInstancedDrawing + ", disableVertexArrayDrawing=" + disableVertexArrayDrawing + ", disableVAOS=" + disableVAOS + ", disableParallelPacking=" + disableParallelPacking + ", disablePersistentMapping=" + disablePersistentMapping + ", disableFencedBufferRing=" + disableFencedBufferRing + ", disableFrameUniforms=" + disableFrameUniforms + ", indexedEdgesDrawing=" + indexedEdgesDrawing + ", impostorNodesDrawing=" + impostorNodesDrawing + ", compactAttributes=" + compactAttributes + ", gpuTimerQueries=" + gpuTimerQueries + ", programBinaryCacheDirectory=" + programBinaryCacheDirectory + ", debug=" + debug + '}';
     }
 
 }
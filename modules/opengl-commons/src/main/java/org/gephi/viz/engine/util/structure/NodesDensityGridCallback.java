@@ -0,0 +1,143 @@
+package org.gephi.viz.engine.util.structure;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.structure.GraphIndex.ElementsCallback;
+
+/**
+ * Accumulates the nodes it receives into a low resolution grid over an area of the world.
+ * <p>
+ * Each cell gets the average color of its nodes, weighted by their area on screen, and an opacity that is the fraction of the cell covered by them.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesDensityGridCallback implements ElementsCallback<Node> {
+
+    private Rect2D bounds = new Rect2D(0, 0, 0, 0);
+    private int width = 0;
+    private int height = 0;
+    private float zoom = 1;
+    private float cellsPerWorldUnitX = 0;
+    private float cellsPerWorldUnitY = 0;
+    private float cellArea = 1;
+
+    //Per cell accumulated red, green, blue (weighted by area) and area on screen:
+    private float[] accumulated = new float[0];
+    private int count = 0;
+
+    /**
+     * Defines the grid of the next elements. Must be called before each query.
+     *
+     * @param bounds World area of the grid
+     * @param width Columns
+     * @param height Rows
+     * @param zoom Engine zoom, to compute the area of nodes on screen
+     */
+    public void setup(Rect2D bounds, int width, int height, float zoom) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height should be > 0");
+        }
+
+        this.bounds = bounds;
+        this.width = width;
+        this.height = height;
+        this.zoom = zoom;
+
+        cellsPerWorldUnitX = bounds.width() > 0 ? width / bounds.width() : 0;
+        cellsPerWorldUnitY = bounds.height() > 0 ? height / bounds.height() : 0;
+        cellArea = (bounds.width() * zoom / width) * (bounds.height() * zoom / height);
+
+        if (accumulated.length < width * height * 4) {
+            accumulated = new float[width * height * 4];
+        }
+    }
+
+    @Override
+    public void start(Graph graph) {
+        Arrays.fill(accumulated, 0, width * height * 4, 0);
+        count = 0;
+    }
+
+    @Override
+    public void accept(Node node) {
+        //Floor, not truncation, for nodes just below the min bounds to be left out:
+        final int column = Math.min((int) Math.floor((node.x() - bounds.minX) * cellsPerWorldUnitX), width - 1);
+        final int row = Math.min((int) Math.floor((node.y() - bounds.minY) * cellsPerWorldUnitY), height - 1);
+        if (column < 0 || row < 0) {
+            return;
+        }
+
+        final float observedSize = node.size() * zoom;
+        final float area = (float) Math.PI * observedSize * observedSize;
+
+        //Java color is argb:
+        final int argb = node.getRGBA();
+        final float alpha = ((argb >>> 24) & 0xFF) / 255f;
+        final float weight = area * alpha;
+
+        final int index = (row * width + column) * 4;
+        accumulated[index] += weight * ((argb >> 16) & 0xFF);
+        accumulated[index + 1] += weight * ((argb >> 8) & 0xFF);
+        accumulated[index + 2] += weight * (argb & 0xFF);
+        accumulated[index + 3] += weight;
+        count++;
+    }
+
+    @Override
+    public void end(Graph graph) {
+        //NOOP
+    }
+
+    /**
+     * Writes the grid as RGBA bytes with premultiplied alpha, so it can be filtered, row by row from the bottom one.
+     *
+     * @param buffer Destination, with at least width * height * 4 bytes remaining
+     */
+    public void fillRGBA(ByteBuffer buffer) {
+        final int cells = width * height;
+        for (int i = 0; i < cells; i++) {
+            final int index = i * 4;
+            final float weight = accumulated[index + 3];
+            if (weight <= 0) {
+                buffer.putInt(0);
+                continue;
+            }
+
+            final float coverage = Math.min(weight / cellArea, 1f);
+            final float colorFactor = coverage / weight;
+
+            buffer.put((byte) (accumulated[index] * colorFactor));
+            buffer.put((byte) (accumulated[index + 1] * colorFactor));
+            buffer.put((byte) (accumulated[index + 2] * colorFactor));
+            buffer.put((byte) (coverage * 255));
+        }
+    }
+
+    public void reset() {
+        accumulated = new float[0];
+        count = 0;
+    }
+
+    public Rect2D getBounds() {
+        return bounds;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return Nodes accumulated since the last query start
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,13 @@
+#version 100
+
+#ifdef GL_ES
+precision lowp float;
+#endif
+
+uniform sampler2D densityTexture;
+varying vec2 texCoord;
+
+void main() {
+    //Premultiplied alpha
+    gl_FragColor = texture2D(densityTexture, texCoord);
+}
@@ -0,0 +1,12 @@
+#version 100
+
+uniform mat4 mvp;
+uniform vec4 gridBounds;
+attribute vec2 vert;
+
+varying vec2 texCoord;
+
+void main() {
+    texCoord = vert;
+    gl_Position = mvp * vec4(mix(gridBounds.xy, gridBounds.zw, vert), 0.0, 1.0);
+}
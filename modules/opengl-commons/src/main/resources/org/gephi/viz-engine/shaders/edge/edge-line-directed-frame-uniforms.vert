@@ -0,0 +1,66 @@
+//#if with_selection
+//#if selected
+//#outname "edge-line-directed-frame-uniforms_with_selection_selected.vert"
+//#else
+//#outname "edge-line-directed-frame-uniforms_with_selection_unselected.vert"
+//#endif
+//#endif
+#version 330
+#define ARROW_HEIGHT 1.1
+
+//Shared by all programs, uploaded once per frame:
+layout(std140) uniform FrameUniforms {
+    mat4 mvp;
+    vec4 backgroundColor;
+    vec4 viewport;//width, height, 1/width, 1/height
+    float colorLightenFactor;
+    float edgeScaleMin;
+    float edgeScaleMax;
+    float minWeight;
+    float weightDifferenceDivisor;
+};
+
+in vec3 vert;
+in vec2 position;
+in vec2 targetPosition;
+in float size;//It's the weight
+in vec4 sourceColor;
+in vec4 elementColor;
+in float sourceSize;
+in float targetSize;
+
+out vec4 fragColor;
+
+void main() {
+    float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
+
+    vec2 direction = targetPosition - position;
+    vec2 directionNormalized = normalize(direction);
+
+    vec2 sideVector = vec2(-directionNormalized.y, directionNormalized.x) * thickness * 0.5;
+    vec2 arrowHeight = directionNormalized * thickness * ARROW_HEIGHT * 2.0;
+
+    vec2 lineStart = directionNormalized * sourceSize;
+    vec2 lineLength = (direction - lineStart) - directionNormalized * targetSize;
+
+    vec2 edgeVert = lineStart + lineLength * vert.x + sideVector * vert.y + arrowHeight * vert.z;
+
+    gl_Position = mvp * vec4(edgeVert + position, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color;
+    if(elementColor.a <= 0.0) {
+        color = sourceColor.bgra;
+    } else {
+        color = elementColor.bgra;
+    }
+    color = color / 255.0;
+
+    //#if with_selection
+    //#if !selected
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+    //#endif
+    //#endif
+
+    fragColor = color;
+}
@@ -0,0 +1,75 @@
+//#if with_selection
+//#if selected
+//#outname "edge-line-undirected-indexed_with_selection_selected.vert"
+//#else
+//#outname "edge-line-undirected-indexed_with_selection_unselected.vert"
+//#endif
+//#endif
+#version 330
+
+uniform mat4 mvp;
+//#if with_selection
+//#if !selected
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+//#endif
+//#endif
+uniform float minWeight;
+uniform float weightDifferenceDivisor;
+uniform float edgeScaleMin;
+uniform float edgeScaleMax;
+//Position, size and color bits of each node, indexed by node store id:
+uniform usamplerBuffer nodesData;
+
+in vec2 vert;
+in ivec2 endpoints;//Source and target store id
+in float size;//It's the weight
+in vec4 elementColor;
+
+out vec4 fragColor;
+
+//Java argb color to rgba in [0, 255]
+vec4 unpackColor(uint argb) {
+    return vec4(float((argb >> 16) & 0xFFu), float((argb >> 8) & 0xFFu), float(argb & 0xFFu), float(argb >> 24));
+}
+
+void main() {
+    uvec4 source = texelFetch(nodesData, endpoints.x);
+    uvec4 target = texelFetch(nodesData, endpoints.y);
+
+    vec2 position = uintBitsToFloat(source.xy);
+    vec2 targetPosition = uintBitsToFloat(target.xy);
+    float sourceSize = uintBitsToFloat(source.z);
+    float targetSize = uintBitsToFloat(target.z);
+
+    float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
+
+    vec2 direction = targetPosition - position;
+    vec2 directionNormalized = normalize(direction);
+
+    vec2 sideVector = vec2(-directionNormalized.y, directionNormalized.x) * thickness * 0.5;
+
+    vec2 lineStart = directionNormalized * sourceSize;
+    vec2 lineLength = (direction - lineStart) - directionNormalized * targetSize;
+
+    vec2 edgeVert = lineStart + lineLength * vert.x + sideVector * vert.y;
+
+    gl_Position = mvp * vec4(edgeVert + position, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color;
+    if(elementColor.a <= 0.0) {
+        color = (unpackColor(source.w) + unpackColor(target.w)) * 0.5;//Average the colors
+    } else {
+        color = elementColor.bgra;
+    }
+    color = color / 255.0;
+
+    //#if with_selection
+    //#if !selected
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+    //#endif
+    //#endif
+
+    fragColor = color;
+}
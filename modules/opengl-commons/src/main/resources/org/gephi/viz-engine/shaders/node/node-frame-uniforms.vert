@@ -0,0 +1,51 @@
+//#if with_selection
+//#if selected
+//#outname "node-frame-uniforms_with_selection_selected.vert"
+//#else
+//#outname "node-frame-uniforms_with_selection_unselected.vert"
+//#endif
+//#endif
+#version 330
+
+//Shared by all programs, uploaded once per frame:
+layout(std140) uniform FrameUniforms {
+    mat4 mvp;
+    vec4 backgroundColor;
+    vec4 viewport;//width, height, 1/width, 1/height
+    float colorLightenFactor;
+    float edgeScaleMin;
+    float edgeScaleMax;
+    float minWeight;
+    float weightDifferenceDivisor;
+};
+
+uniform float sizeMultiplier;
+uniform float colorMultiplier;
+
+in vec2 vert;
+in vec2 position;
+in vec4 elementColor;
+in float size;
+
+out vec4 fragColor;
+
+void main() {	
+    vec2 instancePosition = size * sizeMultiplier * vert + position;
+    gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color = elementColor.bgra / 255.0;
+
+    //#if with_selection
+    //#if selected
+    color.rgb = color.rgb * colorMultiplier;
+    //#else
+    color.rgb = color.rgb * colorMultiplier;
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+    //#endif
+    //#else
+    color.rgb = color.rgb * colorMultiplier;
+    //#endif
+
+    fragColor = color;
+}
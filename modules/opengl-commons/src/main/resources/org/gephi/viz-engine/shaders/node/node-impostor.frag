@@ -0,0 +1,30 @@
+#version 100
+
+#ifdef GL_ES
+precision mediump float;
+#endif
+
+uniform float borderSize;
+
+varying vec2 localPosition;
+varying float antialiasingWidth;
+varying vec4 fragColor;
+varying vec4 fragBorderColor;
+
+void main() {
+    float distance = length(localPosition);
+
+    //Coverage of the disc, with a ramp of one pixel centered on its edge:
+    float coverage = clamp((1.0 - distance) / antialiasingWidth + 0.5, 0.0, 1.0);
+    if (coverage <= 0.0) {
+        discard;
+    }
+
+    //Same ramp between the border and the inside:
+    float inside = clamp((1.0 - borderSize - distance) / antialiasingWidth + 0.5, 0.0, 1.0);
+    vec4 color = mix(fragBorderColor, fragColor, inside);
+
+    //Only coverage goes to alpha, turned into samples coverage when multisampling.
+    //Color alpha is left out like in the other nodes pipelines, drawn without blending:
+    gl_FragColor = vec4(color.rgb, coverage);
+}
@@ -0,0 +1,56 @@
+//#if with_selection
+//#if selected
+//#outname "node-impostor_with_selection_selected.vert"
+//#else
+//#outname "node-impostor_with_selection_unselected.vert"
+//#endif
+//#endif
+#version 100
+
+uniform mat4 mvp;
+uniform float sizeMultiplier;
+uniform float pixelSize;//World size of a pixel
+uniform float borderDarkenFactor;
+//#if with_selection
+//#if !selected
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+//#endif
+//#endif
+
+attribute vec2 vert;
+attribute vec2 position;
+attribute vec4 elementColor;
+attribute float size;
+
+varying vec2 localPosition;//Position in the quad, the disc has radius 1
+varying float antialiasingWidth;//Size of a pixel in localPosition units
+varying vec4 fragColor;
+varying vec4 fragBorderColor;
+
+void main() {
+    float radius = max(size * sizeMultiplier, 1e-6);
+
+    //Grow the quad by a pixel so the antialiased edge of the disc is not cut:
+    float quadRadius = radius + pixelSize;
+
+    localPosition = vert * (quadRadius / radius);
+    antialiasingWidth = pixelSize / radius;
+
+    vec2 instancePosition = quadRadius * vert + position;
+    gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color = elementColor.bgra / 255.0;
+    vec4 borderColor = vec4(color.rgb * borderDarkenFactor, color.a);
+
+    //#if with_selection
+    //#if !selected
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+    borderColor.rgb = mix(borderColor.rgb, backgroundColor.rgb, colorLightenFactor);
+    //#endif
+    //#endif
+
+    fragColor = color;
+    fragBorderColor = borderColor;
+}
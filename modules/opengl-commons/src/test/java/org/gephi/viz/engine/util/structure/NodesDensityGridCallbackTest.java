@@ -0,0 +1,173 @@
+package org.gephi.viz.engine.util.structure;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesDensityGridCallbackTest {
+
+    private final GraphFactory factory = GraphModel.Factory.newInstance().factory();
+    private int nextNodeId = 0;
+
+    public NodesDensityGridCallbackTest() {
+    }
+
+    @Test
+    public void testFullyCoveredCell() {
+        final NodesDensityGridCallback callback = newCallback(1);
+
+        callback.start(null);
+        callback.accept(newNode(7, 2, 5, Color.RED));
+        callback.end(null);
+
+        Assert.assertEquals(1, callback.getCount());
+
+        //Bottom row first, second column:
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 0, 0, 0, 0, 0);
+        assertCell(rgba, 1, 255, 0, 0, 255);
+        assertCell(rgba, 2, 0, 0, 0, 0);
+        assertCell(rgba, 3, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testPartiallyCoveredCell() {
+        final NodesDensityGridCallback callback = newCallback(1);
+
+        callback.start(null);
+        callback.accept(newNode(2, 7, 1, Color.RED));
+        callback.end(null);
+
+        //Area of PI on a cell of 25, premultiplied:
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 2, 32, 0, 0, 32);
+    }
+
+    @Test
+    public void testColorsWeightedByArea() {
+        final NodesDensityGridCallback callback = newCallback(1);
+
+        callback.start(null);
+        callback.accept(newNode(2, 2, 1, Color.RED));
+        callback.accept(newNode(3, 3, 1, Color.BLUE));
+        callback.end(null);
+
+        Assert.assertEquals(2, callback.getCount());
+
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 0, 32, 0, 32, 64);
+    }
+
+    @Test
+    public void testTransparentNodesWeightLess() {
+        final NodesDensityGridCallback callback = newCallback(1);
+
+        callback.start(null);
+        callback.accept(newNode(2, 2, 1, new Color(0, 0, 255, 0)));
+        callback.accept(newNode(3, 3, 1, Color.RED));
+        callback.end(null);
+
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 0, 32, 0, 0, 32);
+    }
+
+    @Test
+    public void testCoverageIndependentOfZoom() {
+        final NodesDensityGridCallback callback = newCallback(2);
+
+        //Same node on screen as in testPartiallyCoveredCell:
+        callback.start(null);
+        callback.accept(newNode(1, 3.5f, 0.5f, Color.RED));
+        callback.end(null);
+
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 2, 32, 0, 0, 32);
+    }
+
+    @Test
+    public void testNodesOutsideBounds() {
+        final NodesDensityGridCallback callback = newCallback(1);
+
+        callback.start(null);
+        callback.accept(newNode(-1, 2, 5, Color.RED));
+        callback.accept(newNode(2, -1, 5, Color.RED));
+        //Max bounds go to the last column and row:
+        callback.accept(newNode(10, 10, 5, Color.GREEN));
+        callback.end(null);
+
+        Assert.assertEquals(1, callback.getCount());
+
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 0, 0, 0, 0, 0);
+        assertCell(rgba, 1, 0, 0, 0, 0);
+        assertCell(rgba, 2, 0, 0, 0, 0);
+        assertCell(rgba, 3, 0, 255, 0, 255);
+    }
+
+    @Test
+    public void testStartClearsPreviousQuery() {
+        final NodesDensityGridCallback callback = newCallback(1);
+
+        callback.start(null);
+        callback.accept(newNode(2, 2, 5, Color.RED));
+        callback.end(null);
+
+        callback.setup(new Rect2D(0, 0, 10, 10), 2, 2, 1);
+        callback.start(null);
+        callback.accept(newNode(7, 7, 5, Color.BLUE));
+        callback.end(null);
+
+        Assert.assertEquals(1, callback.getCount());
+
+        final byte[] rgba = fill(callback);
+        assertCell(rgba, 0, 0, 0, 0, 0);
+        assertCell(rgba, 3, 0, 0, 255, 255);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyGrid() {
+        new NodesDensityGridCallback().setup(new Rect2D(0, 0, 10, 10), 0, 2, 1);
+    }
+
+    /**
+     * Grid of 2x2 cells over [0, 10] world units.
+     */
+    private static NodesDensityGridCallback newCallback(float zoom) {
+        final NodesDensityGridCallback callback = new NodesDensityGridCallback();
+        //Same cells on screen whatever the zoom:
+        callback.setup(new Rect2D(0, 0, 10 / zoom, 10 / zoom), 2, 2, zoom);
+        return callback;
+    }
+
+    private Node newNode(float x, float y, float size, Color color) {
+        final Node node = factory.newNode(String.valueOf(nextNodeId++));
+        node.setX(x);
+        node.setY(y);
+        node.setSize(size);
+        node.setColor(color);
+        return node;
+    }
+
+    private static byte[] fill(NodesDensityGridCallback callback) {
+        final ByteBuffer buffer = ByteBuffer.allocate(callback.getWidth() * callback.getHeight() * 4);
+        callback.fillRGBA(buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+        return buffer.array();
+    }
+
+    private static void assertCell(byte[] rgba, int cell, int red, int green, int blue, int alpha) {
+        Assert.assertEquals(red, rgba[cell * 4] & 0xFF);
+        Assert.assertEquals(green, rgba[cell * 4 + 1] & 0xFF);
+        Assert.assertEquals(blue, rgba[cell * 4 + 2] & 0xFF);
+        Assert.assertEquals(alpha, rgba[cell * 4 + 3] & 0xFF);
+    }
+}
@@ -16,10 +16,18 @@ import com.jogamp.opengl.util.Animator;
 import java.awt.Frame;
 import static java.awt.SystemColor.window;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.util.gl.GLFrameUniforms;
+import org.gephi.viz.engine.jogl.util.gl.GLProgramBinaryCache;
+import org.gephi.viz.engine.jogl.util.gl.GLStateTracker;
+import org.gephi.viz.engine.jogl.util.gl.GLTimerQueries;
 import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
 import org.gephi.viz.engine.jogl.util.gl.capabilities.Profile;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.spi.RenderingTarget;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.util.TimeUtils;
+import org.gephi.viz.engine.util.gl.OnDemandFPSAnimator;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
 
 /**
  *
@@ -27,11 +35,22 @@ import org.gephi.viz.engine.util.TimeUtils;
  */
 public class JOGLRenderingTarget implements RenderingTarget, GLEventListener, com.jogamp.newt.event.KeyListener, com.jogamp.newt.event.MouseListener {
 
+    public static final float DEFAULT_IDLE_FPS = 1;
+
     private final GLAutoDrawable drawable;
 
     //Animators
     private Animator animator;
+    private OnDemandFPSAnimator onDemandAnimator;
+    private Thread onDemandAnimatorThread;
+    private boolean renderOnDemand = false;
+    private float idleFps = DEFAULT_IDLE_FPS;
     private VizEngine<JOGLRenderingTarget, NEWTEvent> engine;
+    private GLFrameUniforms frameUniforms;
+    private GLStateTracker stateTracker;
+    private OpenGLOptions openGLOptions;
+    //Null when timer queries are not supported:
+    private GLTimerQueries timerQueries;
 
     //For displaying FPS in window title
     private String windowTitleFormat = null;
@@ -91,10 +110,20 @@ public class JOGLRenderingTarget implements RenderingTarget, GLEventListener, co
 
     @Override
     public void start() {
-        if (animator != null) {
+        if (animator != null || onDemandAnimator != null) {
             throw new IllegalStateException("Call stop first!");
         }
 
+        if (renderOnDemand) {
+            //Otherwise every frame runs a world update, that requests another frame:
+            engine.setSkipUnchangedWorldUpdates(true);
+
+            onDemandAnimator = new OnDemandFPSAnimator(drawable::display, idleFps);
+            onDemandAnimatorThread = new Thread(onDemandAnimator, "VizEngine On Demand Animator");
+            onDemandAnimatorThread.start();
+            return;
+        }
+
         animator = new Animator();
         animator.add(drawable);
         animator.setRunAsFastAsPossible(false);
@@ -106,11 +135,66 @@ public class JOGLRenderingTarget implements RenderingTarget, GLEventListener, co
 
     @Override
     public void stop() {
-        if (animator == null) {
+        if (animator == null && onDemandAnimator == null) {
             throw new IllegalStateException("Call start first!");
         }
-        animator.stop();
-        animator = null;
+
+        if (onDemandAnimator != null) {
+            onDemandAnimator.shutdown();
+            try {
+                onDemandAnimatorThread.join(10_000);
+            } catch (InterruptedException ex) {
+                ex.printStackTrace();
+                //NOOP
+            }
+            onDemandAnimator = null;
+            onDemandAnimatorThread = null;
+        } else {
+            animator.stop();
+            animator = null;
+        }
+    }
+
+    @Override
+    public void requestFrame() {
+        final OnDemandFPSAnimator currentAnimator = onDemandAnimator;
+        if (currentAnimator != null) {
+            currentAnimator.requestFrame();
+        }
+    }
+
+    public boolean isRenderOnDemand() {
+        return renderOnDemand;
+    }
+
+    /**
+     * When enabled, frames are only rendered when requested (input events, camera changes, finished world updates and graph changes) or when the idle fps floor is reached, instead of continuously.
+     * As every world update requests a frame, starting in this mode enables {@link VizEngine#setSkipUnchangedWorldUpdates(boolean)}, so graph changes other than structure ones must be notified with {@link VizEngine#markGraphChanged()}.
+     * Must be called before starting the engine.
+     *
+     * @param renderOnDemand Render on demand
+     */
+    public void setRenderOnDemand(boolean renderOnDemand) {
+        if (animator != null || onDemandAnimator != null) {
+            throw new IllegalStateException("Rendering mode can't be changed while started");
+        }
+        this.renderOnDemand = renderOnDemand;
+    }
+
+    public float getIdleFps() {
+        return idleFps;
+    }
+
+    /**
+     * @param idleFps Minimum frames per second rendered when rendering on demand and no frame is requested. Zero or less to disable
+     */
+    public void setIdleFps(float idleFps) {
+        this.idleFps = idleFps;
+
+        final OnDemandFPSAnimator currentAnimator = onDemandAnimator;
+        if (currentAnimator != null) {
+            currentAnimator.setIdleFps(idleFps);
+        }
     }
 
     @Override
@@ -120,6 +204,18 @@ public class JOGLRenderingTarget implements RenderingTarget, GLEventListener, co
         final GLCapabilitiesSummary capabilities = new GLCapabilitiesSummary(gl, Profile.CORE);
         engine.addToLookup(capabilities);
 
+        //Programs are looked up in the cache and models look for the frame uniforms when initializing the pipeline:
+        openGLOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        stateTracker = GLStateTracker.attach(gl, openGLOptions);
+        GLProgramBinaryCache.attach(gl, capabilities, openGLOptions);
+        frameUniforms = GLFrameUniforms.attach(gl, engine, capabilities, openGLOptions);
+
+        if (gl.isGL2GL3() && capabilities.isTimerQuerySupported()) {
+            timerQueries = new GLTimerQueries();
+        } else {
+            timerQueries = null;
+        }
+
         gl.setSwapInterval(0);//Disable Vertical synchro
 
         gl.glDisable(GL.GL_DEPTH_TEST);//Z-order is set by the order of drawing
@@ -128,13 +224,61 @@ public class JOGLRenderingTarget implements RenderingTarget, GLEventListener, co
         gl.glDisable(GL.GL_BLEND);
 
         engine.initPipeline();
+        stateTracker.restoreDefaults(gl);
 
         lastFpsTime = TimeUtils.getTimeMillis();
     }
 
     @Override
     public void dispose(GLAutoDrawable drawable) {
-        //NOOP
+        if (frameUniforms != null) {
+            frameUniforms.dispose(drawable.getGL());
+            frameUniforms = null;
+        }
+        if (timerQueries != null) {
+            timerQueries.destroy(drawable.getGL());
+            timerQueries = null;
+        }
+    }
+
+    private boolean isGpuTiming() {
+        return timerQueries != null && openGLOptions != null && openGLOptions.isGpuTimerQueries();
+    }
+
+    @Override
+    public void renderStart(String rendererName, RenderingLayer layer) {
+        if (isGpuTiming()) {
+            timerQueries.renderStart(drawable.getGL(), rendererName, layer);
+        }
+    }
+
+    @Override
+    public void renderEnd(String rendererName, RenderingLayer layer) {
+        if (timerQueries != null) {
+            timerQueries.end(drawable.getGL());
+        }
+    }
+
+    @Override
+    public void bufferUploadStart(String rendererName) {
+        if (isGpuTiming()) {
+            timerQueries.bufferUploadStart(drawable.getGL(), rendererName);
+        }
+    }
+
+    @Override
+    public void bufferUploadEnd(String rendererName) {
+        if (timerQueries != null) {
+            timerQueries.end(drawable.getGL());
+        }
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        //Results of queries issued before disabling are still reported:
+        if (timerQueries != null) {
+            timerQueries.reportMetrics(drawable.getGL(), metrics);
+        }
     }
 
     private final float[] backgroundColor = new float[4];
@@ -148,7 +292,14 @@ public class JOGLRenderingTarget implements RenderingTarget, GLEventListener, co
         gl.glClear(GL_COLOR_BUFFER_BIT);
 
         updateFPS();
+        if (frameUniforms != null) {
+            frameUniforms.frameStart();
+        }
+
+        //Other users of the context may have changed the state since the last frame:
+        stateTracker.invalidate();
         engine.display();
+        stateTracker.restoreDefaults(gl);
     }
 
     @Override
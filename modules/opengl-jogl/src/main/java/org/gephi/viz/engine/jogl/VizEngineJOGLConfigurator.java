@@ -10,6 +10,7 @@ import static com.jogamp.opengl.GLProfile.GLES2;
 import static com.jogamp.opengl.GLProfile.GLES3;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.jogl.pipeline.DefaultJOGLEventListener;
+import org.gephi.viz.engine.jogl.pipeline.NEWTEventsCoalescer;
 import org.gephi.viz.engine.jogl.pipeline.arrays.ArrayDrawEdgeData;
 import org.gephi.viz.engine.jogl.pipeline.arrays.ArrayDrawNodeData;
 import org.gephi.viz.engine.jogl.pipeline.arrays.renderers.EdgeRendererArrayDraw;
@@ -17,9 +18,18 @@ import org.gephi.viz.engine.jogl.pipeline.arrays.renderers.NodeRendererArrayDraw
 import org.gephi.viz.engine.jogl.pipeline.arrays.renderers.RectangleSelectionArrayDraw;
 import org.gephi.viz.engine.jogl.pipeline.arrays.updaters.EdgesUpdaterArrayDrawRendering;
 import org.gephi.viz.engine.jogl.pipeline.arrays.updaters.NodesUpdaterArrayDrawRendering;
+import org.gephi.viz.engine.jogl.pipeline.density.DensityGridData;
+import org.gephi.viz.engine.jogl.pipeline.density.renderers.DensityGridRenderer;
+import org.gephi.viz.engine.jogl.pipeline.density.updaters.DensityGridUpdater;
+import org.gephi.viz.engine.jogl.pipeline.impostor.ImpostorNodeData;
+import org.gephi.viz.engine.jogl.pipeline.impostor.renderers.NodeRendererImpostor;
+import org.gephi.viz.engine.jogl.pipeline.impostor.updaters.NodesUpdaterImpostorRendering;
 import org.gephi.viz.engine.jogl.pipeline.indirect.IndirectNodeData;
 import org.gephi.viz.engine.jogl.pipeline.indirect.renderers.NodeRendererIndirect;
 import org.gephi.viz.engine.jogl.pipeline.indirect.updaters.NodesUpdaterIndirectRendering;
+import org.gephi.viz.engine.jogl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.jogl.pipeline.indexed.renderers.EdgeRendererIndexed;
+import org.gephi.viz.engine.jogl.pipeline.indexed.updaters.EdgesUpdaterIndexedRendering;
 import org.gephi.viz.engine.jogl.pipeline.instanced.InstancedEdgeData;
 import org.gephi.viz.engine.jogl.pipeline.instanced.InstancedNodeData;
 import org.gephi.viz.engine.jogl.pipeline.instanced.renderers.EdgeRendererInstanced;
@@ -84,13 +94,24 @@ public class VizEngineJOGLConfigurator implements VizEngineConfigurator<JOGLRend
         engine.addToLookup(renderingOptions);
         engine.addToLookup(openGLOptions);
 
+        setupImpostorRendering(engine, graphIndex);
         setupIndirectRendering(engine, graphIndex);
+        setupIndexedRendering(engine, graphIndex);
         setupInstancedRendering(engine, graphIndex);
         setupVertexArrayRendering(engine, graphIndex);
+        setupSubPixelDensityRendering(engine, graphIndex);
 
         setupInputListeners(engine);
     }
 
+    private void setupImpostorRendering(VizEngine engine, GraphIndexImpl graphIndex) {
+        //Only nodes supported, edges are already drawn in a single pass
+        final ImpostorNodeData nodeData = new ImpostorNodeData();
+
+        engine.addRenderer(new NodeRendererImpostor(engine, nodeData));
+        engine.addWorldUpdater(new NodesUpdaterImpostorRendering(engine, nodeData, graphIndex));
+    }
+
     private void setupIndirectRendering(VizEngine engine, GraphIndexImpl graphIndex) {
         //Only nodes supported, edges don't have a LOD to benefit from
         final IndirectNodeData nodeData = new IndirectNodeData();
@@ -99,6 +120,14 @@ public class VizEngineJOGLConfigurator implements VizEngineConfigurator<JOGLRend
         engine.addWorldUpdater(new NodesUpdaterIndirectRendering(engine, nodeData, graphIndex));
     }
 
+    private void setupIndexedRendering(VizEngine engine, GraphIndexImpl graphIndex) {
+        //Only edges supported, nodes already have their own data
+        final IndexedEdgeData edgeData = new IndexedEdgeData();
+
+        engine.addRenderer(new EdgeRendererIndexed(engine, edgeData));
+        engine.addWorldUpdater(new EdgesUpdaterIndexedRendering(engine, edgeData, graphIndex));
+    }
+
     private void setupInstancedRendering(VizEngine engine, GraphIndexImpl graphIndex) {
         //Nodes:
         final InstancedNodeData nodeData = new InstancedNodeData();
@@ -126,7 +155,15 @@ public class VizEngineJOGLConfigurator implements VizEngineConfigurator<JOGLRend
         engine.addRenderer(new RectangleSelectionArrayDraw(engine));
     }
 
+    private void setupSubPixelDensityRendering(VizEngine engine, GraphIndexImpl graphIndex) {
+        final DensityGridData densityData = new DensityGridData();
+
+        engine.addRenderer(new DensityGridRenderer(engine, densityData));
+        engine.addWorldUpdater(new DensityGridUpdater(engine, densityData, graphIndex));
+    }
+
     private void setupInputListeners(VizEngine<JOGLRenderingTarget, NEWTEvent> engine) {
         engine.addInputListener(new DefaultJOGLEventListener(engine));
+        engine.setInputEventsCoalescer(new NEWTEventsCoalescer());
     }
 }
@@ -0,0 +1,23 @@
+package org.gephi.viz.engine.jogl.availability;
+
+import com.jogamp.opengl.GL;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+/**
+ * Availability of the compact instanced attributes layout, with quantized positions and half floats.
+ *
+ * @author Eduardo Ramos
+ */
+public class CompactAttributes {
+
+    public static boolean isAvailable(VizEngine engine, GL gl) {
+        final OpenGLOptions openGLOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        if (openGLOptions == null || !openGLOptions.isCompactAttributes()) {
+            return false;
+        }
+
+        //Half float vertex attributes:
+        return gl.isGL2ES3();
+    }
+}
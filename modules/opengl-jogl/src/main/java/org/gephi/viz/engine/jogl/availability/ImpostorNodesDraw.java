@@ -0,0 +1,29 @@
+package org.gephi.viz.engine.jogl.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+/**
+ * Impostor nodes are opt-in, see {@link OpenGLOptions#setImpostorNodesDrawing(boolean)}. When enabled, they are preferred over the other nodes pipelines.
+ *
+ * @author Eduardo Ramos
+ */
+public class ImpostorNodesDraw {
+
+    public static int getPreferenceInCategory() {
+        return 110;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        if (!engine.getLookup().lookup(OpenGLOptions.class).isImpostorNodesDrawing()) {
+            return false;
+        }
+
+        final GLCapabilitiesSummary caps = engine.getLookup().lookup(GLCapabilitiesSummary.class);
+
+        return drawable.getGLProfile().isGL2ES3()
+                && caps.isInstancingSupported();
+    }
+}
@@ -0,0 +1,57 @@
+package org.gephi.viz.engine.jogl.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+/**
+ * Indexed edges are opt-in, see {@link OpenGLOptions#setIndexedEdgesDrawing(boolean)}. When enabled, they are preferred over the other edges pipelines.
+ *
+ * @author Eduardo Ramos
+ */
+public class IndexedEdgesDraw {
+
+    public static int getPreferenceInCategory() {
+        return 120;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        if (!engine.getLookup().lookup(OpenGLOptions.class).isIndexedEdgesDrawing()) {
+            return false;
+        }
+
+        final GLCapabilitiesSummary caps = engine.getLookup().lookup(GLCapabilitiesSummary.class);
+
+        return drawable.getGLProfile().isGL4()
+                && caps.isIndexedEdgesSupported()
+                && isNodesTextureBufferBigEnough(engine, caps);
+    }
+
+    /**
+     * Nodes data is fetched by store id from a texture buffer, so the highest node store id must fit in GL_MAX_TEXTURE_BUFFER_SIZE.
+     */
+    private static boolean isNodesTextureBufferBigEnough(VizEngine engine, GLCapabilitiesSummary caps) {
+        int highestStoreId = -1;
+        final Graph graph = engine.getGraphModel().getGraph();
+        graph.readLock();
+        try {
+            for (Node node : graph.getNodes()) {
+                highestStoreId = Math.max(highestStoreId, node.getStoreId());
+            }
+        } finally {
+            graph.readUnlock();
+        }
+
+        final long texels = (long) (highestStoreId + 1) * IndexedEdgeData.NODE_TEXELS;
+        if (texels > caps.getMaxTextureBufferSize()) {
+            System.out.println("Indexed edges not available, nodes need " + texels + " texels and GL_MAX_TEXTURE_BUFFER_SIZE is " + caps.getMaxTextureBufferSize());
+            return false;
+        }
+
+        return true;
+    }
+}
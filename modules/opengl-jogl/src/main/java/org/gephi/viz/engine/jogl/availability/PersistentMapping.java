@@ -0,0 +1,27 @@
+package org.gephi.viz.engine.jogl.availability;
+
+import com.jogamp.opengl.GL;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+/**
+ * Availability of persistently mapped streaming buffers for instanced attributes.
+ *
+ * @author Eduardo Ramos
+ */
+public class PersistentMapping {
+
+    public static boolean isAvailable(VizEngine engine, GL gl) {
+        final OpenGLOptions openGLOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        if (openGLOptions != null && openGLOptions.isDisablePersistentMapping()) {
+            return false;
+        }
+
+        final GLCapabilitiesSummary caps = engine.getLookup().lookup(GLCapabilitiesSummary.class);
+
+        return gl.isGL4()
+                && caps != null
+                && caps.isPersistentMappingSupported();
+    }
+}
@@ -2,12 +2,16 @@ package org.gephi.viz.engine.jogl.models;
 
 import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.GL3ES3;
+import com.jogamp.opengl.GL4;
 import org.gephi.viz.engine.util.gl.Constants;
 
 import static com.jogamp.opengl.GL.GL_TRIANGLES;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_SHORT;
 import static org.gephi.viz.engine.util.gl.Constants.*;
 import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.jogl.util.gl.GLFrameUniforms;
 import org.gephi.viz.engine.jogl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.jogl.util.gl.GLStateTracker;
 
 /**
  *
@@ -33,21 +37,40 @@ public class EdgeLineModelDirected {
         + TARGET_SIZE_FLOATS
         + SIZE_FLOATS;
 
+    //Compact layout: quantized source and target positions (2 unsigned shorts each), half float weight and source size, half float target size and padding, source color, color
+    public static final int COMPACT_TOTAL_ATTRIBUTES_FLOATS = 6;
+
     private static final int VERTEX_PER_TRIANGLE = 3;
 
     public static final int TRIANGLE_COUNT = 3;
     public static final int VERTEX_COUNT = TRIANGLE_COUNT * VERTEX_PER_TRIANGLE;
+    //Distinct corners when drawing with indices:
+    public static final int INDEXED_VERTEX_COUNT = 7;
 
     private GLShaderProgram program;
     private GLShaderProgram programWithSelectionSelected;
     private GLShaderProgram programWithSelectionUnselected;
 
+    //Programs taking the per frame uniforms from the shared block, when supported:
+    private GLFrameUniforms frameUniforms;
+    private GLShaderProgram programFrameUniforms;
+    private GLShaderProgram programFrameUniformsWithSelectionSelected;
+    private GLShaderProgram programFrameUniformsWithSelectionUnselected;
+
     public int getVertexCount() {
         return VERTEX_COUNT;
     }
 
     public void initGLPrograms(GL2ES2 gl) {
-        initProgram(gl);
+        //Only the programs that will be used, the plain ones are compiled on the first fallback when the shared block is supported:
+        frameUniforms = GLFrameUniforms.get(gl);
+        if (frameUniforms != null) {
+            programFrameUniforms = initFrameUniformsProgram(gl, SHADERS_EDGE_LINE_FRAME_UNIFORMS_SOURCE);
+            programFrameUniformsWithSelectionSelected = initFrameUniformsProgram(gl, SHADERS_EDGE_LINE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_SELECTED);
+            programFrameUniformsWithSelectionUnselected = initFrameUniformsProgram(gl, SHADERS_EDGE_LINE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_UNSELECTED);
+        } else {
+            initProgram(gl);
+        }
     }
 
     private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "edge";
@@ -56,6 +79,12 @@ public class EdgeLineModelDirected {
     private static final String SHADERS_EDGE_LINE_SOURCE_WITH_SELECTION_SELECTED = "edge-line-directed_with_selection_selected";
     private static final String SHADERS_EDGE_LINE_SOURCE_WITH_SELECTION_UNSELECTED = "edge-line-directed_with_selection_unselected";
 
+    private static final String SHADERS_EDGE_LINE_FRAME_UNIFORMS_SOURCE = "edge-line-directed-frame-uniforms";
+    private static final String SHADERS_EDGE_LINE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_SELECTED = "edge-line-directed-frame-uniforms_with_selection_selected";
+    private static final String SHADERS_EDGE_LINE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_UNSELECTED = "edge-line-directed-frame-uniforms_with_selection_unselected";
+    //Pass-through GLSL 330 fragment shader:
+    private static final String SHADERS_EDGE_LINE_FRAME_UNIFORMS_FRAGMENT_SOURCE = "edge-line-indexed";
+
     private void initProgram(GL2ES2 gl) {
         program = new GLShaderProgram(SHADERS_ROOT, SHADERS_EDGE_LINE_SOURCE, SHADERS_EDGE_LINE_SOURCE)
             .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
@@ -109,6 +138,33 @@ public class EdgeLineModelDirected {
             .init(gl);
     }
 
+    private GLShaderProgram initFrameUniformsProgram(GL2ES2 gl, String vertBasename) {
+        return new GLShaderProgram(SHADERS_ROOT, vertBasename, SHADERS_EDGE_LINE_FRAME_UNIFORMS_FRAGMENT_SOURCE)
+            .addUniformBlockBinding(UNIFORM_BLOCK_NAME_FRAME, UNIFORM_BLOCK_BINDING_FRAME)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION_TARGET, SHADER_POSITION_TARGET_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SOURCE_COLOR, SHADER_SOURCE_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SOURCE_SIZE, SHADER_SOURCE_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_TARGET_SIZE, SHADER_TARGET_SIZE_LOCATION)
+            .init(gl);
+    }
+
+    private boolean useFrameUniformsProgram(GL2ES2 gl, GLShaderProgram frameUniformsProgram, float[] mvpFloats, float scale, float minWeight, float maxWeight) {
+        if (frameUniforms == null || !frameUniforms.use(gl, mvpFloats, scale, minWeight, maxWeight)) {
+            if (program == null) {
+                initProgram(gl);
+            }
+            return false;
+        }
+
+        //Nothing else to set, all uniforms are in the block:
+        frameUniformsProgram.use(gl);
+        return true;
+    }
+
     public void drawArraysMultipleInstance(GL2ES2 gl, final int drawBatchCount) {
         if (drawBatchCount <= 0){
             return;
@@ -117,25 +173,50 @@ public class EdgeLineModelDirected {
         gl.glDrawArrays(GL_TRIANGLES, 0, VERTEX_COUNT * drawBatchCount);
     }
 
+    public void drawElementsMultipleInstance(GL2ES2 gl, final int drawBatchCount) {
+        if (drawBatchCount <= 0) {
+            return;
+        }
+        //Multiple lines, attributes must be in the buffer once per indexed vertex count and indices bound as unsigned shorts:
+        gl.glDrawElements(GL_TRIANGLES, VERTEX_COUNT * drawBatchCount, GL_UNSIGNED_SHORT, 0);
+    }
+
     public void drawInstanced(GL3ES3 gl, int instanceCount) {
         gl.glDrawArraysInstanced(GL_TRIANGLES, 0, VERTEX_COUNT, instanceCount);
     }
 
+    public void drawInstanced(GL4 gl, int instanceCount, int baseInstance) {
+        gl.glDrawArraysInstancedBaseInstance(GL_TRIANGLES, 0, VERTEX_COUNT, instanceCount, baseInstance);
+    }
+
     public void stopUsingProgram(GL2ES2 gl) {
-        gl.glUseProgram(0);
+        GLStateTracker.stopUsingProgram(gl);
     }
 
     public void useProgram(GL2ES2 gl, float[] mvpFloats, float scale, float minWeight, float maxWeight) {
+        if (useFrameUniformsProgram(gl, programFrameUniforms, mvpFloats, scale, minWeight, maxWeight)) {
+            return;
+        }
+
         program.use(gl);
         prepareProgramData(gl, mvpFloats, scale, minWeight, maxWeight);
     }
 
     public void useProgramWithSelectionSelected(GL2ES2 gl, float[] mvpFloats, float scale, float minWeight, float maxWeight) {
+        if (useFrameUniformsProgram(gl, programFrameUniformsWithSelectionSelected, mvpFloats, scale, minWeight, maxWeight)) {
+            return;
+        }
+
         programWithSelectionSelected.use(gl);
         prepareProgramDataWithSelectionSelected(gl, mvpFloats, scale, minWeight, maxWeight);
     }
 
     public void useProgramWithSelectionUnselected(GL2ES2 gl, float[] mvpFloats, float scale, float minWeight, float maxWeight, float[] backgroundColorFloats, float colorLightenFactor) {
+        //Background color and lighten factor of the block are always the current ones:
+        if (useFrameUniformsProgram(gl, programFrameUniformsWithSelectionUnselected, mvpFloats, scale, minWeight, maxWeight)) {
+            return;
+        }
+
         programWithSelectionUnselected.use(gl);
         prepareProgramDataWithSelectionUnselected(gl, mvpFloats, scale, minWeight, maxWeight, backgroundColorFloats, colorLightenFactor);
     }
@@ -199,4 +280,29 @@ public class EdgeLineModelDirected {
             1, 2, -1// arrow bottom right vertex
         };
     }
+
+    /**
+     * @return Distinct corners of {@link #getVertexData()}, to be used with {@link #getVertexIndices()}
+     */
+    public static float[] getIndexedVertexData() {
+        return new float[]{
+            0, 1, 0,// bottom right corner
+            0, -1, 0,// bottom left corner
+            1, -1, -1,// top left corner
+            1, 1, -1,// top right corner
+            1, 0, 0,//arrow tip
+            1, -2, -1,// arrow bottom left vertex
+            1, 2, -1// arrow bottom right vertex
+        };
+    }
+
+    public static short[] getVertexIndices() {
+        return new short[]{
+            //Edge line as a rectangle:
+            0, 1, 2,
+            2, 3, 0,
+            //Arrow tip triangle:
+            4, 5, 6
+        };
+    }
 }
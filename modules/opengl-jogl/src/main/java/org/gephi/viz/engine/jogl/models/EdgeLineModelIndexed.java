@@ -0,0 +1,148 @@
+package org.gephi.viz.engine.jogl.models;
+
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL4;
+import org.gephi.viz.engine.util.gl.Constants;
+
+import static com.jogamp.opengl.GL.GL_TRIANGLES;
+import static org.gephi.viz.engine.util.gl.Constants.*;
+import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.jogl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.jogl.util.gl.GLStateTracker;
+
+/**
+ * Edge lines that reference their source and target by node index. Positions, sizes and colors of the nodes are fetched in the vertex shader from a texture buffer bound to {@link Constants#UNIFORM_NAME_NODES_DATA}.
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeLineModelIndexed {
+
+    public static final int ENDPOINTS_FLOATS = 2;
+    public static final int SIZE_FLOATS = 1;
+    public static final int COLOR_FLOATS = 1;
+
+    public static final int TOTAL_ATTRIBUTES_FLOATS
+        = ENDPOINTS_FLOATS
+        + SIZE_FLOATS
+        + COLOR_FLOATS;
+
+    //Node data in the texture buffer: position, size and color
+    public static final int NODE_FLOATS = 4;
+
+    private final boolean directed;
+
+    private GLShaderProgram program;
+    private GLShaderProgram programWithSelectionSelected;
+    private GLShaderProgram programWithSelectionUnselected;
+
+    public EdgeLineModelIndexed(boolean directed) {
+        this.directed = directed;
+    }
+
+    public int getVertexCount() {
+        return directed ? EdgeLineModelDirected.VERTEX_COUNT : EdgeLineModelUndirected.VERTEX_COUNT;
+    }
+
+    public int getVertexFloats() {
+        return directed ? EdgeLineModelDirected.VERTEX_FLOATS : EdgeLineModelUndirected.VERTEX_FLOATS;
+    }
+
+    public float[] getVertexData() {
+        return directed ? EdgeLineModelDirected.getVertexData() : EdgeLineModelUndirected.getVertexData();
+    }
+
+    public void initGLPrograms(GL2ES2 gl) {
+        initProgram(gl);
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "edge";
+
+    private static final String SHADERS_EDGE_LINE_FRAGMENT_SOURCE = "edge-line-indexed";
+
+    private void initProgram(GL2ES2 gl) {
+        final String source = directed ? "edge-line-directed-indexed" : "edge-line-undirected-indexed";
+
+        program = new GLShaderProgram(SHADERS_ROOT, source, SHADERS_EDGE_LINE_FRAGMENT_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+            .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+            .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+            .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+            .addUniformName(UNIFORM_NAME_NODES_DATA)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_ENDPOINTS, SHADER_ENDPOINTS_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .init(gl);
+
+        programWithSelectionSelected = new GLShaderProgram(SHADERS_ROOT, source + "_with_selection_selected", SHADERS_EDGE_LINE_FRAGMENT_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+            .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+            .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+            .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+            .addUniformName(UNIFORM_NAME_NODES_DATA)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_ENDPOINTS, SHADER_ENDPOINTS_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .init(gl);
+
+        programWithSelectionUnselected = new GLShaderProgram(SHADERS_ROOT, source + "_with_selection_unselected", SHADERS_EDGE_LINE_FRAGMENT_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+            .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+            .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+            .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+            .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+            .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+            .addUniformName(UNIFORM_NAME_NODES_DATA)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_ENDPOINTS, SHADER_ENDPOINTS_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .init(gl);
+    }
+
+    public void drawInstanced(GL4 gl, int instanceCount, int baseInstance) {
+        if (instanceCount <= 0) {
+            return;
+        }
+        gl.glDrawArraysInstancedBaseInstance(GL_TRIANGLES, 0, getVertexCount(), instanceCount, baseInstance);
+    }
+
+    public void useProgram(GL2ES2 gl, float[] mvpFloats, float scale, float minWeight, float maxWeight, int nodesDataTextureUnit) {
+        program.use(gl);
+        prepareProgramData(gl, program, mvpFloats, scale, minWeight, maxWeight, nodesDataTextureUnit);
+    }
+
+    public void useProgramWithSelectionSelected(GL2ES2 gl, float[] mvpFloats, float scale, float minWeight, float maxWeight, int nodesDataTextureUnit) {
+        programWithSelectionSelected.use(gl);
+        prepareProgramData(gl, programWithSelectionSelected, mvpFloats, scale, minWeight, maxWeight, nodesDataTextureUnit);
+    }
+
+    public void useProgramWithSelectionUnselected(GL2ES2 gl, float[] mvpFloats, float scale, float minWeight, float maxWeight, int nodesDataTextureUnit, float[] backgroundColorFloats, float colorLightenFactor) {
+        programWithSelectionUnselected.use(gl);
+        prepareProgramData(gl, programWithSelectionUnselected, mvpFloats, scale, minWeight, maxWeight, nodesDataTextureUnit);
+        gl.glUniform4fv(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
+        gl.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+    }
+
+    public void stopUsingProgram(GL2ES2 gl) {
+        GLStateTracker.stopUsingProgram(gl);
+    }
+
+    private void prepareProgramData(GL2ES2 gl, GLShaderProgram program, float[] mvpFloats, float scale, float minWeight, float maxWeight, int nodesDataTextureUnit) {
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN), EDGE_SCALE_MIN * scale);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX), EDGE_SCALE_MAX * scale);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT), minWeight);
+        gl.glUniform1i(program.getUniformLocation(UNIFORM_NAME_NODES_DATA), nodesDataTextureUnit);
+
+        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), 1);
+        } else {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), maxWeight - minWeight);
+        }
+    }
+}
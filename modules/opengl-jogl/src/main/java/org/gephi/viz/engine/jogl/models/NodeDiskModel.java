@@ -3,7 +3,9 @@ package org.gephi.viz.engine.jogl.models;
 import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.GL2ES3;
 import com.jogamp.opengl.GL4;
+import org.gephi.viz.engine.jogl.util.gl.GLFrameUniforms;
 import org.gephi.viz.engine.jogl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.jogl.util.gl.GLStateTracker;
 import org.gephi.viz.engine.util.gl.Constants;
 
 import static com.jogamp.opengl.GL.GL_TRIANGLES;
@@ -15,6 +17,8 @@ import static org.gephi.viz.engine.util.gl.Constants.SHADER_COLOR_LOCATION;
 import static org.gephi.viz.engine.util.gl.Constants.SHADER_POSITION_LOCATION;
 import static org.gephi.viz.engine.util.gl.Constants.SHADER_SIZE_LOCATION;
 import static org.gephi.viz.engine.util.gl.Constants.SHADER_VERT_LOCATION;
+import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_BLOCK_BINDING_FRAME;
+import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_BLOCK_NAME_FRAME;
 import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_NAME_BACKGROUND_COLOR;
 import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_NAME_COLOR_LIGHTEN_FACTOR;
 import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_NAME_COLOR_MULTIPLIER;
@@ -37,17 +41,42 @@ public class NodeDiskModel {
         + COLOR_FLOATS
         + SIZE_FLOATS;
 
+    //Compact layout: quantized position (2 unsigned shorts), color, half float size and padding
+    public static final int COMPACT_TOTAL_ATTRIBUTES_FLOATS = 3;
+
     private GLShaderProgram program;
     private GLShaderProgram programWithSelectionSelected;
     private GLShaderProgram programWithSelectionUnselected;
 
+    //Programs taking the per frame uniforms from the shared block, when supported:
+    private GLFrameUniforms frameUniforms;
+    private GLShaderProgram programFrameUniforms;
+    private GLShaderProgram programFrameUniformsWithSelectionSelected;
+    private GLShaderProgram programFrameUniformsWithSelectionUnselected;
+
     private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
 
     private static final String SHADERS_NODE_CIRCLE_SOURCE = "node";
     private static final String SHADERS_NODE_CIRCLE_SOURCE_WITH_SELECTION_SELECTED = "node_with_selection_selected";
     private static final String SHADERS_NODE_CIRCLE_SOURCE_WITH_SELECTION_UNSELECTED = "node_with_selection_unselected";
 
+    private static final String SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE = "node-frame-uniforms";
+    private static final String SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_SELECTED = "node-frame-uniforms_with_selection_selected";
+    private static final String SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_UNSELECTED = "node-frame-uniforms_with_selection_unselected";
+
     public void initGLPrograms(GL2ES2 gl) {
+        //Only the programs that will be used, the plain ones are compiled on the first fallback when the shared block is supported:
+        frameUniforms = GLFrameUniforms.get(gl);
+        if (frameUniforms != null) {
+            programFrameUniforms = initFrameUniformsProgram(gl, SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE);
+            programFrameUniformsWithSelectionSelected = initFrameUniformsProgram(gl, SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_SELECTED);
+            programFrameUniformsWithSelectionUnselected = initFrameUniformsProgram(gl, SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE_WITH_SELECTION_UNSELECTED);
+        } else {
+            initPrograms(gl);
+        }
+    }
+
+    private void initPrograms(GL2ES2 gl) {
         program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_CIRCLE_SOURCE, SHADERS_NODE_CIRCLE_SOURCE)
             .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
             .addUniformName(UNIFORM_NAME_SIZE_MULTIPLIER)
@@ -81,6 +110,32 @@ public class NodeDiskModel {
             .init(gl);
     }
 
+    private GLShaderProgram initFrameUniformsProgram(GL2ES2 gl, String vertBasename) {
+        return new GLShaderProgram(SHADERS_ROOT, vertBasename, SHADERS_NODE_CIRCLE_FRAME_UNIFORMS_SOURCE)
+            .addUniformBlockBinding(UNIFORM_BLOCK_NAME_FRAME, UNIFORM_BLOCK_BINDING_FRAME)
+            .addUniformName(UNIFORM_NAME_SIZE_MULTIPLIER)
+            .addUniformName(UNIFORM_NAME_COLOR_MULTIPLIER)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .init(gl);
+    }
+
+    private boolean useFrameUniformsProgram(GL2ES2 gl, GLShaderProgram frameUniformsProgram, float[] mvpFloats, float sizeMultiplier, float colorMultiplier) {
+        if (frameUniforms == null || !frameUniforms.use(gl, mvpFloats)) {
+            if (program == null) {
+                initPrograms(gl);
+            }
+            return false;
+        }
+
+        frameUniformsProgram.use(gl);
+        gl.glUniform1f(frameUniformsProgram.getUniformLocation(UNIFORM_NAME_SIZE_MULTIPLIER), sizeMultiplier);
+        gl.glUniform1f(frameUniformsProgram.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER), colorMultiplier);
+        return true;
+    }
+
     public void drawArraysSingleInstance(GL2ES2 gl, int firstVertexIndex, int vertexCount) {
         gl.glDrawArrays(GL_TRIANGLES, firstVertexIndex, vertexCount);
     }
@@ -92,6 +147,13 @@ public class NodeDiskModel {
         gl.glDrawArraysInstanced(GL_TRIANGLES, vertexOffset, vertexCount, instanceCount);
     }
 
+    public void drawInstanced(GL4 gl, int vertexOffset, int vertexCount, int instanceCount, int baseInstance) {
+        if (instanceCount <= 0) {
+            return;
+        }
+        gl.glDrawArraysInstancedBaseInstance(GL_TRIANGLES, vertexOffset, vertexCount, instanceCount, baseInstance);
+    }
+
     public void drawIndirect(GL4 gl, int instanceCount, int instancesOffset) {
         if (instanceCount <= 0) {
             return;
@@ -100,6 +162,10 @@ public class NodeDiskModel {
     }
 
     public void useProgramWithSelectionSelected(GL2ES2 gl, float[] mvpFloats, float sizeMultiplier, float colorMultiplier) {
+        if (useFrameUniformsProgram(gl, programFrameUniformsWithSelectionSelected, mvpFloats, sizeMultiplier, colorMultiplier)) {
+            return;
+        }
+
         //Circle:
         programWithSelectionSelected.use(gl);
 
@@ -109,6 +175,11 @@ public class NodeDiskModel {
     }
 
     public void useProgramWithSelectionUnselected(GL2ES2 gl, float[] mvpFloats, float sizeMultiplier, float[] backgroundColorFloats, float colorLightenFactor, float colorMultiplier) {
+        //Background color and lighten factor of the block are always the current ones:
+        if (useFrameUniformsProgram(gl, programFrameUniformsWithSelectionUnselected, mvpFloats, sizeMultiplier, colorMultiplier)) {
+            return;
+        }
+
         //Circle:
         programWithSelectionUnselected.use(gl);
 
@@ -120,6 +191,10 @@ public class NodeDiskModel {
     }
 
     public void useProgram(GL2ES2 gl, float[] mvpFloats, float sizeMultiplier, float colorMultiplier) {
+        if (useFrameUniformsProgram(gl, programFrameUniforms, mvpFloats, sizeMultiplier, colorMultiplier)) {
+            return;
+        }
+
         //Circle:
         program.use(gl);
 
@@ -129,6 +204,6 @@ public class NodeDiskModel {
     }
 
     public void stopUsingProgram(GL2ES2 gl) {
-        gl.glUseProgram(0);
+        GLStateTracker.stopUsingProgram(gl);
     }
 }
@@ -0,0 +1,129 @@
+package org.gephi.viz.engine.jogl.models;
+
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL4;
+import org.gephi.viz.engine.jogl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.jogl.util.gl.GLStateTracker;
+import org.gephi.viz.engine.util.gl.Constants;
+
+import static com.jogamp.opengl.GL.GL_TRIANGLE_STRIP;
+import static org.gephi.viz.engine.util.gl.Constants.*;
+
+/**
+ * Nodes drawn as one screen-aligned quad each. Disc, border and antialiasing are computed in the fragment shader, so a single draw per layer is enough and the border can never cover the inside of other nodes.
+ * <p>
+ * Uses the same per-instance attributes as {@link NodeDiskModel}.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeImpostorModel {
+
+    public static final int VERTEX_FLOATS = 2;
+    public static final int VERTEX_COUNT = 4;
+
+    private GLShaderProgram program;
+    private GLShaderProgram programWithSelectionSelected;
+    private GLShaderProgram programWithSelectionUnselected;
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
+
+    private static final String SHADERS_NODE_IMPOSTOR_SOURCE = "node-impostor";
+    private static final String SHADERS_NODE_IMPOSTOR_SOURCE_WITH_SELECTION_SELECTED = "node-impostor_with_selection_selected";
+    private static final String SHADERS_NODE_IMPOSTOR_SOURCE_WITH_SELECTION_UNSELECTED = "node-impostor_with_selection_unselected";
+
+    /**
+     * @return Triangle strip of the quad that contains the disc of radius 1
+     */
+    public static float[] getVertexData() {
+        return new float[]{
+            -1, -1,
+            1, -1,
+            -1, 1,
+            1, 1
+        };
+    }
+
+    public void initGLPrograms(GL2ES2 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_IMPOSTOR_SOURCE, SHADERS_NODE_IMPOSTOR_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_SIZE_MULTIPLIER)
+            .addUniformName(UNIFORM_NAME_PIXEL_SIZE)
+            .addUniformName(UNIFORM_NAME_BORDER_SIZE)
+            .addUniformName(UNIFORM_NAME_BORDER_DARKEN_FACTOR)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .init(gl);
+
+        programWithSelectionSelected = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_IMPOSTOR_SOURCE_WITH_SELECTION_SELECTED, SHADERS_NODE_IMPOSTOR_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_SIZE_MULTIPLIER)
+            .addUniformName(UNIFORM_NAME_PIXEL_SIZE)
+            .addUniformName(UNIFORM_NAME_BORDER_SIZE)
+            .addUniformName(UNIFORM_NAME_BORDER_DARKEN_FACTOR)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .init(gl);
+
+        programWithSelectionUnselected = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_IMPOSTOR_SOURCE_WITH_SELECTION_UNSELECTED, SHADERS_NODE_IMPOSTOR_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_SIZE_MULTIPLIER)
+            .addUniformName(UNIFORM_NAME_PIXEL_SIZE)
+            .addUniformName(UNIFORM_NAME_BORDER_SIZE)
+            .addUniformName(UNIFORM_NAME_BORDER_DARKEN_FACTOR)
+            .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+            .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .init(gl);
+    }
+
+    public void drawInstanced(GL2ES3 gl, int instanceCount) {
+        if (instanceCount <= 0) {
+            return;
+        }
+        gl.glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, VERTEX_COUNT, instanceCount);
+    }
+
+    public void drawInstanced(GL4 gl, int instanceCount, int baseInstance) {
+        if (instanceCount <= 0) {
+            return;
+        }
+        gl.glDrawArraysInstancedBaseInstance(GL_TRIANGLE_STRIP, 0, VERTEX_COUNT, instanceCount, baseInstance);
+    }
+
+    public void useProgram(GL2ES2 gl, float[] mvpFloats, float sizeMultiplier, float pixelSize, float borderSize) {
+        program.use(gl);
+        prepareProgramData(gl, program, mvpFloats, sizeMultiplier, pixelSize, borderSize);
+    }
+
+    public void useProgramWithSelectionSelected(GL2ES2 gl, float[] mvpFloats, float sizeMultiplier, float pixelSize, float borderSize) {
+        programWithSelectionSelected.use(gl);
+        prepareProgramData(gl, programWithSelectionSelected, mvpFloats, sizeMultiplier, pixelSize, borderSize);
+    }
+
+    public void useProgramWithSelectionUnselected(GL2ES2 gl, float[] mvpFloats, float sizeMultiplier, float pixelSize, float borderSize, float[] backgroundColorFloats, float colorLightenFactor) {
+        programWithSelectionUnselected.use(gl);
+        prepareProgramData(gl, programWithSelectionUnselected, mvpFloats, sizeMultiplier, pixelSize, borderSize);
+        gl.glUniform4fv(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
+        gl.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+    }
+
+    public void stopUsingProgram(GL2ES2 gl) {
+        GLStateTracker.stopUsingProgram(gl);
+    }
+
+    private void prepareProgramData(GL2ES2 gl, GLShaderProgram program, float[] mvpFloats, float sizeMultiplier, float pixelSize, float borderSize) {
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_SIZE_MULTIPLIER), sizeMultiplier);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_PIXEL_SIZE), pixelSize);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_BORDER_SIZE), borderSize);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_BORDER_DARKEN_FACTOR), NODER_BORDER_DARKEN_FACTOR);
+    }
+}
@@ -0,0 +1,86 @@
+package org.gephi.viz.engine.jogl.pipeline;
+
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+import java.util.List;
+import org.gephi.viz.engine.spi.InputEventsCoalescer;
+
+/**
+ * Coalesces consecutive mouse events of the same kind:
+ * <ul>
+ * <li>Moves: only the last one is kept</li>
+ * <li>Drags: only the last one is kept, listeners compute the drag delta from the last known position</li>
+ * <li>Wheel: rotations are summed into a single event at the last position</li>
+ * </ul>
+ *
+ * Events are only merged when they have the same modifiers, so button and key states are respected.
+ *
+ * @author Eduardo Ramos
+ */
+public class NEWTEventsCoalescer implements InputEventsCoalescer<NEWTEvent> {
+
+    @Override
+    public void coalesce(List<NEWTEvent> events) {
+        int count = 0;
+        for (NEWTEvent event : events) {
+            if (count > 0) {
+                final NEWTEvent previous = events.get(count - 1);
+                final NEWTEvent merged = merge(previous, event);
+                if (merged != null) {
+                    events.set(count - 1, merged);
+                    continue;
+                }
+            }
+
+            events.set(count++, event);
+        }
+
+        events.subList(count, events.size()).clear();
+    }
+
+    private NEWTEvent merge(NEWTEvent previous, NEWTEvent event) {
+        if (!(previous instanceof MouseEvent) || !(event instanceof MouseEvent)) {
+            return null;
+        }
+
+        final MouseEvent previousMouseEvent = (MouseEvent) previous;
+        final MouseEvent mouseEvent = (MouseEvent) event;
+        if (previous.getEventType() != event.getEventType()
+                || previousMouseEvent.getModifiers() != mouseEvent.getModifiers()) {
+            return null;
+        }
+
+        switch (event.getEventType()) {
+            case MouseEvent.EVENT_MOUSE_MOVED:
+            case MouseEvent.EVENT_MOUSE_DRAGGED:
+                return event;
+            case MouseEvent.EVENT_MOUSE_WHEEL_MOVED:
+                if (previousMouseEvent.getRotationScale() != mouseEvent.getRotationScale()) {
+                    return null;
+                }
+
+                final float[] previousRotation = previousMouseEvent.getRotation();
+                final float[] rotation = mouseEvent.getRotation();
+                final float[] sumRotation = new float[]{
+                    previousRotation[0] + rotation[0],
+                    previousRotation[1] + rotation[1],
+                    previousRotation[2] + rotation[2]
+                };
+
+                return new MouseEvent(
+                        MouseEvent.EVENT_MOUSE_WHEEL_MOVED,
+                        mouseEvent.getSource(),
+                        mouseEvent.getWhen(),
+                        mouseEvent.getModifiers(),
+                        mouseEvent.getX(),
+                        mouseEvent.getY(),
+                        mouseEvent.getClickCount(),
+                        mouseEvent.getButton(),
+                        sumRotation,
+                        mouseEvent.getRotationScale()
+                );
+            default:
+                return null;
+        }
+    }
+}
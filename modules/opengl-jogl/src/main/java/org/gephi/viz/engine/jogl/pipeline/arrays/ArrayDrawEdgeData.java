@@ -7,14 +7,14 @@ import static org.gephi.viz.engine.pipeline.RenderingLayer.BACK1;
 import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.jogl.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.jogl.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.jogl.pipeline.common.PipelineUtils;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
@@ -23,17 +23,23 @@ import org.gephi.viz.engine.jogl.util.ManagedDirectBuffer;
 import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
 
 /**
+ * Edges without instancing. Each batch of edges is drawn with 16-bit indices over the distinct corners of the edge model, so attributes are copied once per distinct corner instead of once per triangle vertex.
  *
  * @author Eduardo Ramos
  */
 public class ArrayDrawEdgeData extends AbstractEdgeData {
 
-    private final int[] bufferName = new int[4];
+    private final int[] bufferName = new int[6];
 
     private static final int VERT_BUFFER_UNDIRECTED = 0;
     private static final int VERT_BUFFER_DIRECTED = 1;
     private static final int ATTRIBS_BUFFER_DIRECTED = 2;
     private static final int ATTRIBS_BUFFER_UNDIRECTED = 3;
+    private static final int INDICES_BUFFER_UNDIRECTED = 4;
+    private static final int INDICES_BUFFER_DIRECTED = 5;
+
+    private GLBufferMutable indicesGLBufferUndirected;
+    private GLBufferMutable indicesGLBufferDirected;
 
     public ArrayDrawEdgeData() {
         super(false, false);
@@ -41,9 +47,11 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
 
     public void update(VizEngine engine, GraphIndexImpl graphIndex) {
         updateData(
+            engine.getCullingBoundaries(),
             graphIndex,
             engine.getLookup().lookup(GraphRenderingOptions.class),
-            engine.getLookup().lookup(GraphSelection.class)
+            engine.getLookup().lookup(GraphSelection.class),
+            PipelineUtils.isParallelPackingEnabled(engine)
         );
     }
 
@@ -59,37 +67,41 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         final int instancesOffset = renderingUnselectedEdges ? 0 : undirectedInstanceCounter.unselectedCountToDraw;
 
         final FloatBuffer batchUpdateBuffer = attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.floatBuffer();
+        final FloatBuffer attribs = attributesToDraw(instancesOffset);
+
+        indicesGLBufferUndirected.bind(gl);
 
         final int maxIndex = (instancesOffset + instanceCount);
-        for (int edgeBase = instancesOffset; edgeBase < maxIndex; edgeBase += BATCH_EDGES_SIZE) {
-            final int drawBatchCount = Math.min(maxIndex - edgeBase, BATCH_EDGES_SIZE);
+        for (int edgeBase = instancesOffset; edgeBase < maxIndex; edgeBase += BATCH_EDGES_SIZE_UNDIRECTED) {
+            final int drawBatchCount = Math.min(maxIndex - edgeBase, BATCH_EDGES_SIZE_UNDIRECTED);
 
-            //Need to copy attributes as many times as vertex per model:
+            //Need to copy attributes as many times as distinct vertex per model:
             for (int edgeIndex = 0; edgeIndex < drawBatchCount; edgeIndex++) {
-                System.arraycopy(
-                    attributesBuffer, (edgeBase + edgeIndex) * ATTRIBS_STRIDE,
-                    attributesDrawBufferBatchOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_UNDIRECTED,
+                attribs.get(
+                    attributesDrawBufferBatchOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * INDEXED_VERTEX_COUNT_UNDIRECTED,
                     ATTRIBS_STRIDE
                 );
 
                 ArrayUtils.repeat(
                     attributesDrawBufferBatchOneCopyPerVertex,
-                    edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_UNDIRECTED,
+                    edgeIndex * ATTRIBS_STRIDE * INDEXED_VERTEX_COUNT_UNDIRECTED,
                     ATTRIBS_STRIDE,
-                    VERTEX_COUNT_UNDIRECTED
+                    INDEXED_VERTEX_COUNT_UNDIRECTED
                 );
             }
 
             batchUpdateBuffer.clear();
-            batchUpdateBuffer.put(attributesDrawBufferBatchOneCopyPerVertex, 0, drawBatchCount * ATTRIBS_STRIDE * VERTEX_COUNT_UNDIRECTED);
+            batchUpdateBuffer.put(attributesDrawBufferBatchOneCopyPerVertex, 0, drawBatchCount * ATTRIBS_STRIDE * INDEXED_VERTEX_COUNT_UNDIRECTED);
             batchUpdateBuffer.flip();
 
+            uploadedBytes += (long) batchUpdateBuffer.remaining() * Float.BYTES;
             attributesGLBufferUndirected.bind(gl);
             attributesGLBufferUndirected.updateWithOrphaning(gl, batchUpdateBuffer);
             attributesGLBufferUndirected.unbind(gl);
-            lineModelUndirected.drawArraysMultipleInstance(gl, drawBatchCount);
+            lineModelUndirected.drawElementsMultipleInstance(gl, drawBatchCount);
         }
 
+        indicesGLBufferUndirected.unbind(gl);
         lineModelUndirected.stopUsingProgram(gl);
         unsetupUndirectedVertexArrayAttributes(gl);
     }
@@ -106,45 +118,64 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         }
 
         final FloatBuffer batchUpdateBuffer = attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.floatBuffer();
+        final FloatBuffer attribs = attributesToDraw(instancesOffset);
+
+        indicesGLBufferDirected.bind(gl);
 
         final int maxIndex = (instancesOffset + instanceCount);
-        for (int edgeBase = instancesOffset; edgeBase < maxIndex; edgeBase += BATCH_EDGES_SIZE) {
-            final int drawBatchCount = Math.min(maxIndex - edgeBase, BATCH_EDGES_SIZE);
+        for (int edgeBase = instancesOffset; edgeBase < maxIndex; edgeBase += BATCH_EDGES_SIZE_DIRECTED) {
+            final int drawBatchCount = Math.min(maxIndex - edgeBase, BATCH_EDGES_SIZE_DIRECTED);
 
-            //Need to copy attributes as many times as vertex per model:
+            //Need to copy attributes as many times as distinct vertex per model:
             for (int edgeIndex = 0; edgeIndex < drawBatchCount; edgeIndex++) {
-                System.arraycopy(
-                    attributesBuffer, (edgeBase + edgeIndex) * ATTRIBS_STRIDE,
-                    attributesDrawBufferBatchOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_DIRECTED,
+                attribs.get(
+                    attributesDrawBufferBatchOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * INDEXED_VERTEX_COUNT_DIRECTED,
                     ATTRIBS_STRIDE
                 );
 
                 ArrayUtils.repeat(
                     attributesDrawBufferBatchOneCopyPerVertex,
-                    edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_DIRECTED,
+                    edgeIndex * ATTRIBS_STRIDE * INDEXED_VERTEX_COUNT_DIRECTED,
                     ATTRIBS_STRIDE,
-                    VERTEX_COUNT_DIRECTED
+                    INDEXED_VERTEX_COUNT_DIRECTED
                 );
             }
 
             batchUpdateBuffer.clear();
-            batchUpdateBuffer.put(attributesDrawBufferBatchOneCopyPerVertex, 0, drawBatchCount * ATTRIBS_STRIDE * VERTEX_COUNT_DIRECTED);
+            batchUpdateBuffer.put(attributesDrawBufferBatchOneCopyPerVertex, 0, drawBatchCount * ATTRIBS_STRIDE * INDEXED_VERTEX_COUNT_DIRECTED);
             batchUpdateBuffer.flip();
 
+            uploadedBytes += (long) batchUpdateBuffer.remaining() * Float.BYTES;
             attributesGLBufferDirected.bind(gl);
             attributesGLBufferDirected.updateWithOrphaning(gl, batchUpdateBuffer);
             attributesGLBufferDirected.unbind(gl);
 
-            lineModelDirected.drawArraysMultipleInstance(gl, drawBatchCount);
+            lineModelDirected.drawElementsMultipleInstance(gl, drawBatchCount);
         }
 
+        indicesGLBufferDirected.unbind(gl);
         lineModelDirected.stopUsingProgram(gl);
         unsetupDirectedVertexArrayAttributes(gl);
     }
 
-    private float[] attributesBuffer;
+    private FloatBuffer attributesToDraw(final int instancesOffset) {
+        if (snapshotToDraw == null) {
+            return null;
+        }
+
+        final FloatBuffer attribs = snapshotToDraw.attributesBuffer.floatBuffer();
+        attribs.position(instancesOffset * ATTRIBS_STRIDE);
+        return attribs;
+    }
+
+    //Indices are unsigned shorts, the most supported type:
+    private static final int BATCH_MAX_VERTICES = 65536;
+
+    private static final int INDEXED_VERTEX_COUNT_UNDIRECTED = EdgeLineModelUndirected.INDEXED_VERTEX_COUNT;
+    private static final int INDEXED_VERTEX_COUNT_DIRECTED = EdgeLineModelDirected.INDEXED_VERTEX_COUNT;
 
-    private static final int BATCH_EDGES_SIZE = 65536;
+    private static final int BATCH_EDGES_SIZE_UNDIRECTED = BATCH_MAX_VERTICES / INDEXED_VERTEX_COUNT_UNDIRECTED;
+    private static final int BATCH_EDGES_SIZE_DIRECTED = BATCH_MAX_VERTICES / INDEXED_VERTEX_COUNT_DIRECTED;
 
     //For drawing in a loop:
     private float[] attributesDrawBufferBatchOneCopyPerVertex;
@@ -153,109 +184,76 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
     @Override
     protected void initBuffers(GL gl) {
         super.initBuffers(gl);
-        attributesDrawBufferBatchOneCopyPerVertex = new float[ATTRIBS_STRIDE * VERTEX_COUNT_MAX * BATCH_EDGES_SIZE];//Need to copy attributes as many times as vertex per model
-        attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * VERTEX_COUNT_MAX * BATCH_EDGES_SIZE);
+        attributesDrawBufferBatchOneCopyPerVertex = new float[ATTRIBS_STRIDE * BATCH_MAX_VERTICES];//Need to copy attributes as many times as distinct vertex per model
+        attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_MAX_VERTICES);
 
         gl.glGenBuffers(bufferName.length, bufferName, 0);
 
-        {
-            float[] singleElementData = EdgeLineModelUndirected.getVertexData();
-            float[] undirectedVertexDataArray = new float[singleElementData.length * BATCH_EDGES_SIZE];
-            System.arraycopy(singleElementData, 0, undirectedVertexDataArray, 0, singleElementData.length);
-            ArrayUtils.repeat(undirectedVertexDataArray, 0, singleElementData.length, BATCH_EDGES_SIZE);
+        vertexGLBufferUndirected = initBatchVertexBuffer(gl, bufferName[VERT_BUFFER_UNDIRECTED], EdgeLineModelUndirected.getIndexedVertexData(), BATCH_EDGES_SIZE_UNDIRECTED);
+        indicesGLBufferUndirected = initBatchIndicesBuffer(gl, bufferName[INDICES_BUFFER_UNDIRECTED], EdgeLineModelUndirected.getVertexIndices(), INDEXED_VERTEX_COUNT_UNDIRECTED, BATCH_EDGES_SIZE_UNDIRECTED);
 
-            final FloatBuffer undirectedVertexData = GLBuffers.newDirectFloatBuffer(undirectedVertexDataArray);
-
-            vertexGLBufferUndirected = new GLBufferMutable(bufferName[VERT_BUFFER_UNDIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-            vertexGLBufferUndirected.bind(gl);
-            vertexGLBufferUndirected.init(gl, undirectedVertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
-            vertexGLBufferUndirected.unbind(gl);
-        }
-
-        {
-            float[] singleElementData = EdgeLineModelDirected.getVertexData();
-            float[] directedVertexDataArray = new float[singleElementData.length * BATCH_EDGES_SIZE];
-            System.arraycopy(singleElementData, 0, directedVertexDataArray, 0, singleElementData.length);
-            ArrayUtils.repeat(directedVertexDataArray, 0, singleElementData.length, BATCH_EDGES_SIZE);
-
-            final FloatBuffer directedVertexData = GLBuffers.newDirectFloatBuffer(directedVertexDataArray);
-
-            vertexGLBufferDirected = new GLBufferMutable(bufferName[VERT_BUFFER_DIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-            vertexGLBufferDirected.bind(gl);
-            vertexGLBufferDirected.init(gl, directedVertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
-            vertexGLBufferDirected.unbind(gl);
-        }
+        vertexGLBufferDirected = initBatchVertexBuffer(gl, bufferName[VERT_BUFFER_DIRECTED], EdgeLineModelDirected.getIndexedVertexData(), BATCH_EDGES_SIZE_DIRECTED);
+        indicesGLBufferDirected = initBatchIndicesBuffer(gl, bufferName[INDICES_BUFFER_DIRECTED], EdgeLineModelDirected.getVertexIndices(), INDEXED_VERTEX_COUNT_DIRECTED, BATCH_EDGES_SIZE_DIRECTED);
 
         //Initialize for batch edges size:
         attributesGLBufferDirected = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_DIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferDirected.bind(gl);
-        attributesGLBufferDirected.init(gl, VERTEX_COUNT_MAX * ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferDirected.init(gl, INDEXED_VERTEX_COUNT_DIRECTED * ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE_DIRECTED, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferDirected.unbind(gl);
 
         attributesGLBufferUndirected = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_UNDIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferUndirected.bind(gl);
-        attributesGLBufferUndirected.init(gl, VERTEX_COUNT_MAX * ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferUndirected.init(gl, INDEXED_VERTEX_COUNT_UNDIRECTED * ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE_UNDIRECTED, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferUndirected.unbind(gl);
-
-        attributesBuffer = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
     }
 
-    public void updateBuffers() {
-        undirectedInstanceCounter.promoteCountToDraw();
-        directedInstanceCounter.promoteCountToDraw();
+    private static GLBufferMutable initBatchVertexBuffer(GL gl, int bufferName, float[] singleElementData, int batchEdgesSize) {
+        final float[] vertexDataArray = new float[singleElementData.length * batchEdgesSize];
+        System.arraycopy(singleElementData, 0, vertexDataArray, 0, singleElementData.length);
+        ArrayUtils.repeat(vertexDataArray, 0, singleElementData.length, batchEdgesSize);
+
+        final GLBufferMutable vertexGLBuffer = new GLBufferMutable(bufferName, GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        vertexGLBuffer.bind(gl);
+        vertexGLBuffer.init(gl, GLBuffers.newDirectFloatBuffer(vertexDataArray), GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        vertexGLBuffer.unbind(gl);
+        return vertexGLBuffer;
     }
 
-    private void updateData(final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
-        if (!renderingOptions.isShowEdges()) {
-            undirectedInstanceCounter.clearCount();
-            directedInstanceCounter.clearCount();
-            return;
+    private static GLBufferMutable initBatchIndicesBuffer(GL gl, int bufferName, short[] singleElementIndices, int indexedVertexCount, int batchEdgesSize) {
+        final ShortBuffer indices = GLBuffers.newDirectShortBuffer(singleElementIndices.length * batchEdgesSize);
+        for (int edgeIndex = 0; edgeIndex < batchEdgesSize; edgeIndex++) {
+            final int firstVertex = edgeIndex * indexedVertexCount;
+            for (short index : singleElementIndices) {
+                //Unsigned, values above Short.MAX_VALUE wrap to negative:
+                indices.put((short) (firstVertex + index));
+            }
         }
+        indices.flip();
 
-        graphIndex.indexEdges();
-
-        //Selection:
-        final boolean someSelection = graphSelection.someNodesOrEdgesSelection();
-        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
-        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
-        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
-        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
-        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
-        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
-
-        final int totalEdges = graphIndex.getEdgeCount();
-
-        final float[] attribs
-            = attributesBuffer
-            = ArrayUtils.ensureCapacityNoCopy(attributesBuffer, totalEdges * ATTRIBS_STRIDE);
-
-        graphIndex.getVisibleEdges(edgesCallback);
-
-        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
-        final int visibleEdgesCount = edgesCallback.getCount();
-
-        final Graph graph = graphIndex.getVisibleGraph();
+        final GLBufferMutable indicesGLBuffer = new GLBufferMutable(bufferName, GLBufferMutable.GL_BUFFER_TYPE_ELEMENT_INDICES);
+        indicesGLBuffer.bind(gl);
+        indicesGLBuffer.init(gl, indices, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        indicesGLBuffer.unbind(gl);
+        return indicesGLBuffer;
+    }
 
-        int attribsIndex = 0;
-        attribsIndex = updateUndirectedData(
-            graph,
-            someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray,
-            graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-            attribs, attribsIndex
-        );
-        updateDirectedData(
-            graph, someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray,
-            graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-            attribs, attribsIndex
-        );
+    public void updateBuffers() {
+        promoteNewestSnapshotToDraw();
     }
 
     @Override
     public void dispose(GL gl) {
         super.dispose(gl);
+        if (indicesGLBufferUndirected != null) {
+            indicesGLBufferUndirected.destroy(gl);
+            indicesGLBufferUndirected = null;
+        }
+        if (indicesGLBufferDirected != null) {
+            indicesGLBufferDirected.destroy(gl);
+            indicesGLBufferDirected = null;
+        }
         attributesDrawBufferBatchOneCopyPerVertex = null;
         attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.destroy();
-
-        attributesBuffer = null;
+        attributesBufferBatch = null;
     }
 }
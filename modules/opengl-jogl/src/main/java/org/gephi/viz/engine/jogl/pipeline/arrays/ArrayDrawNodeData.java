@@ -8,6 +8,7 @@ import java.nio.FloatBuffer;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.jogl.pipeline.common.PipelineUtils;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
@@ -27,12 +28,19 @@ public class ArrayDrawNodeData extends AbstractNodeData {
         super(false, false);
     }
 
+    @Override
+    protected boolean isLodBucketing() {
+        return true;
+    }
+
     public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
         updateData(
             engine.getZoom(),
+            engine.getCullingBoundaries(),
             spatialIndex,
             engine.getLookup().lookup(GraphRenderingOptions.class),
-            engine.getLookup().lookup(GraphSelection.class)
+            engine.getLookup().lookup(GraphSelection.class),
+            PipelineUtils.isParallelPackingEnabled(engine)
         );
     }
 
@@ -59,56 +67,43 @@ public class ArrayDrawNodeData extends AbstractNodeData {
         final boolean renderingUnselectedNodes = layer.isBack();
         final int instancesOffset = renderingUnselectedNodes ? 0 : instanceCounter.unselectedCountToDraw;
 
-
-        final float zoom = engine.getZoom();
         final float[] attrs = new float[ATTRIBS_STRIDE];
         int index = instancesOffset * ATTRIBS_STRIDE;
 
         //We have to perform one draw call per instance because repeating the attributes without instancing per each vertex would use too much memory:
         //TODO: Maybe we can batch a few nodes at once though
-        final FloatBuffer attribs = attributesBuffer.floatBuffer();
+        final FloatBuffer attribs = snapshotToDraw.attributesBuffer.floatBuffer();
 
         attribs.position(index);
-        for (int i = 0; i < instanceCount; i++) {
-            attribs.get(attrs);
-
-            //Choose LOD:
-            final float size = attrs[3];
-            final float observedSize = size * zoom;
-
-            final int circleVertexCount;
-            final int firstVertex;
-            if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
-                circleVertexCount = circleVertexCount64;
-                firstVertex = firstVertex64;
-            } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
-                circleVertexCount = circleVertexCount32;
-                firstVertex = firstVertex32;
-            } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
-                circleVertexCount = circleVertexCount16;
-                firstVertex = firstVertex16;
-            } else {
-                circleVertexCount = circleVertexCount8;
-                firstVertex = firstVertex8;
-            }
+        for (int lodBucket = 0; lodBucket < LOD_BUCKETS; lodBucket++) {
+            //Nodes of the layer are grouped by LOD bucket, so the LOD is chosen once per bucket:
+            final int bucketInstanceCount = getLodBucketCountToDraw(layer, lodBucket);
+            final int circleVertexCount = lodVertexCount[lodBucket];
+            final int firstVertex = lodFirstVertex[lodBucket];
+
+            for (int i = 0; i < bucketInstanceCount; i++) {
+                attribs.get(attrs);
 
-            //Define instance attributes:
-            gl.glVertexAttrib2fv(SHADER_POSITION_LOCATION, attrs, 0);
+                final float size = attrs[3];
 
-            //No vertexAttribArray, we have to unpack rgba manually:
-            final int argb = Float.floatToRawIntBits(attrs[2]);
+                //Define instance attributes:
+                gl.glVertexAttrib2fv(SHADER_POSITION_LOCATION, attrs, 0);
 
-            final int a = ((argb >> 24) & 0xFF);
-            final int r = ((argb >> 16) & 0xFF);
-            final int g = ((argb >> 8) & 0xFF);
-            final int b = (argb & 0xFF);
+                //No vertexAttribArray, we have to unpack rgba manually:
+                final int argb = Float.floatToRawIntBits(attrs[2]);
 
-            gl.glVertexAttrib4f(SHADER_COLOR_LOCATION, b, g, r, a);
+                final int a = ((argb >> 24) & 0xFF);
+                final int r = ((argb >> 16) & 0xFF);
+                final int g = ((argb >> 8) & 0xFF);
+                final int b = (argb & 0xFF);
 
-            gl.glVertexAttrib1f(SHADER_SIZE_LOCATION, size);
+                gl.glVertexAttrib4f(SHADER_COLOR_LOCATION, b, g, r, a);
 
-            //Draw the instance:
-            diskModel.drawArraysSingleInstance(gl, firstVertex, circleVertexCount);
+                gl.glVertexAttrib1f(SHADER_SIZE_LOCATION, size);
+
+                //Draw the instance:
+                diskModel.drawArraysSingleInstance(gl, firstVertex, circleVertexCount);
+            }
         }
 
         diskModel.stopUsingProgram(gl);
@@ -116,8 +111,8 @@ public class ArrayDrawNodeData extends AbstractNodeData {
     }
 
     public void updateBuffers() {
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
+        //Attributes are read from the snapshot when drawing, no upload needed
+        promoteNewestSnapshotToDraw();
     }
 
     @Override
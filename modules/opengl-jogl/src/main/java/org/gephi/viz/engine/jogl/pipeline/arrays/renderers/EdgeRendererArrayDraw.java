@@ -8,6 +8,7 @@ import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractEdgeRenderer;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.jogl.pipeline.arrays.ArrayDrawEdgeData;
 import org.gephi.viz.engine.spi.Renderer;
 import org.gephi.viz.engine.util.gl.Constants;
@@ -45,6 +46,11 @@ public class EdgeRendererArrayDraw extends AbstractEdgeRenderer {
         edgeData.drawArrays(target.getDrawable().getGL().getGL2ES2(), layer, engine, mvpFloats);
     }
 
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        edgeData.reportMetrics(metrics);
+    }
+
     @Override
     public int getPreferenceInCategory() {
         return ArrayDraw.getPreferenceInCategory();
@@ -8,6 +8,7 @@ import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeRenderer;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.jogl.pipeline.arrays.ArrayDrawNodeData;
 import org.gephi.viz.engine.spi.Renderer;
 import org.gephi.viz.engine.util.gl.Constants;
@@ -45,6 +46,11 @@ public class NodeRendererArrayDraw extends AbstractNodeRenderer {
         nodeData.drawArrays(target.getDrawable().getGL().getGL2ES2(), layer, engine, mvpFloats);
     }
 
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        nodeData.reportMetrics(metrics);
+    }
+
     @Override
     public int getPreferenceInCategory() {
         return ArrayDraw.getPreferenceInCategory();
@@ -3,24 +3,35 @@ package org.gephi.viz.engine.jogl.pipeline.common;
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_FLOAT;
 import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_SHORT;
 import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
 import java.nio.FloatBuffer;
+import java.util.stream.IntStream;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.jogl.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.jogl.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.jogl.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.jogl.util.PositionsQuantization;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.pipeline.common.WorldSnapshotRing;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import static org.gephi.viz.engine.util.gl.Constants.*;
 import org.gephi.viz.engine.jogl.util.gl.GLBuffer;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferDirtyRangesUploader;
 import org.gephi.viz.engine.jogl.util.gl.GLVertexArrayObject;
 import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
 import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.BufferBlockHashes;
+import org.gephi.viz.engine.util.NumberUtils;
 import org.gephi.viz.engine.util.gl.OpenGLOptions;
 import org.gephi.viz.engine.util.structure.EdgesCallback;
 
@@ -45,6 +56,10 @@ public class AbstractEdgeData {
     protected GLBuffer attributesGLBufferDirectedSecondary;
     protected GLBuffer attributesGLBufferUndirected;
     protected GLBuffer attributesGLBufferUndirectedSecondary;
+    protected final GLBufferDirtyRangesUploader attributesDirectedUploader = new GLBufferDirtyRangesUploader();
+    protected final GLBufferDirtyRangesUploader attributesDirectedSecondaryUploader = new GLBufferDirtyRangesUploader();
+    protected final GLBufferDirtyRangesUploader attributesUndirectedUploader = new GLBufferDirtyRangesUploader();
+    protected final GLBufferDirtyRangesUploader attributesUndirectedSecondaryUploader = new GLBufferDirtyRangesUploader();
 
     protected final EdgesCallback edgesCallback = new EdgesCallback();
 
@@ -52,6 +67,19 @@ public class AbstractEdgeData {
         EdgeLineModelUndirected.TOTAL_ATTRIBUTES_FLOATS,
         EdgeLineModelDirected.TOTAL_ATTRIBUTES_FLOATS
     );
+    protected static final int COMPACT_ATTRIBS_STRIDE = Math.max(
+        EdgeLineModelUndirected.COMPACT_TOTAL_ATTRIBUTES_FLOATS,
+        EdgeLineModelDirected.COMPACT_TOTAL_ATTRIBUTES_FLOATS
+    );
+
+    //Attributes layout, see setCompactAttributes:
+    protected boolean compactAttributes = false;
+    protected int attributesStride = ATTRIBS_STRIDE;
+    private PositionsQuantization packingQuantization;
+    private float packingMinWeight = 0;
+    private float packingWeightDivisor = 1;
+    protected final PositionsQuantization positionsQuantizationToDraw = new PositionsQuantization();
+    private final float[] compactMvpFloats = new float[16];
 
     protected static final int VERTEX_COUNT_UNDIRECTED = EdgeLineModelUndirected.VERTEX_COUNT;
     protected static final int VERTEX_COUNT_DIRECTED = EdgeLineModelDirected.VERTEX_COUNT;
@@ -60,32 +88,131 @@ public class AbstractEdgeData {
     protected final boolean instanced;
     protected final boolean usesSecondaryBuffer;
 
-    protected ManagedDirectBuffer attributesBuffer;
+    protected WorldSnapshotRing<EdgesSnapshot> snapshots;
+    protected EdgesSnapshot snapshotToDraw;
+    //Bytes uploaded to GPU buffers since the last metrics report:
+    protected long uploadedBytes = 0;
+    private EdgesSnapshot writingSnapshot;
+    protected boolean someSelectionToDraw = false;
+    protected boolean edgeSelectionColorToDraw = false;
 
     protected float[] attributesBufferBatch;
     protected static final int BATCH_EDGES_SIZE = 32768;
 
+    // Parallel packing, see updateEdgesDataParallel:
+    protected static final int PARALLEL_CHUNK_EDGES_SIZE = BATCH_EDGES_SIZE;
+    protected static final int PARALLEL_PACKING_MIN_EDGES = PARALLEL_CHUNK_EDGES_SIZE * 2;
+    private static final int PARALLEL_BATCH_EDGES_SIZE = 1024;
+
+    //Buckets of the parallel packing, in the order of the attributes buffer:
+    private static final byte BUCKET_NONE = -1;
+    private static final byte BUCKET_UNDIRECTED_UNSELECTED = 0;
+    private static final byte BUCKET_UNDIRECTED_SELECTED = 1;
+    private static final byte BUCKET_DIRECTED_UNSELECTED = 2;
+    private static final byte BUCKET_DIRECTED_SELECTED = 3;
+    private static final int BUCKETS_COUNT = 4;
+    private static final ThreadLocal<float[][]> PARALLEL_ATTRIBUTES_BATCHES = ThreadLocal.withInitial(() -> new float[BUCKETS_COUNT][ATTRIBS_STRIDE * PARALLEL_BATCH_EDGES_SIZE]);
+    private byte[] edgeBuckets = new byte[0];
+
     public AbstractEdgeData(boolean instanced, boolean usesSecondaryBuffer) {
         this.instanced = instanced;
         this.usesSecondaryBuffer = usesSecondaryBuffer;
     }
 
     public void init(GL2ES2 gl) {
+        init(gl, false);
+    }
+
+    public void init(GL2ES2 gl, boolean compactAttributes) {
+        setCompactAttributes(compactAttributes);
         lineModelDirected.initGLPrograms(gl);
         lineModelUndirected.initGLPrograms(gl);
         initBuffers(gl);
     }
 
+    /**
+     * Chooses the attributes layout, before the buffers are initialized. Only instanced rendering supports the compact layout.
+     * <p>
+     * The compact layout stores positions as 16 bits unsigned normalized integers in the view of each snapshot expanded by its size on each side (see {@link PositionsQuantization}), edges leaving it being clipped. Weights are normalized and stored with sizes as half floats: 28 bytes per edge instead of 40.</p>
+     *
+     * @param compactAttributes True to use the compact layout
+     */
+    protected void setCompactAttributes(boolean compactAttributes) {
+        this.compactAttributes = instanced && compactAttributes;
+        this.attributesStride = this.compactAttributes ? COMPACT_ATTRIBS_STRIDE : ATTRIBS_STRIDE;
+    }
+
     protected void initBuffers(GL gl) {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
-        attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
+        attributesBufferBatch = new float[attributesStride * BATCH_EDGES_SIZE];
+        snapshots = new WorldSnapshotRing<>(EdgesSnapshot::new);
+    }
+
+    /**
+     * Starts writing the edges data of a world update into a free snapshot.
+     * The update* methods fill the counters of this snapshot.
+     *
+     * @param viewBoundaries View the snapshot is built for
+     * @return Snapshot to write into
+     */
+    protected EdgesSnapshot acquireSnapshotForWriting(final Rect2D viewBoundaries) {
+        writingSnapshot = snapshots.acquireForWriting();
+        writingSnapshot.viewBoundaries = viewBoundaries;
+        if (compactAttributes) {
+            writingSnapshot.positionsQuantization.setExpandedView(viewBoundaries);
+            packingQuantization = writingSnapshot.positionsQuantization;
+        }
+        return writingSnapshot;
+    }
+
+    /**
+     * Sets the weights range used to normalize the weights of the compact attributes layout. Must be called before packing the edges of the snapshot.
+     *
+     * @param minWeight Min weight
+     * @param maxWeight Max weight
+     */
+    protected void setPackingWeights(final float minWeight, final float maxWeight) {
+        packingMinWeight = minWeight;
+        packingWeightDivisor = NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f) ? 1 : maxWeight - minWeight;
+    }
+
+    protected void publishSnapshot() {
+        if (instanced) {
+            writingSnapshot.attributesBlockHashes = BufferBlockHashes.compute(
+                writingSnapshot.attributesBuffer.floatBuffer(),
+                (writingSnapshot.undirectedInstanceCounter.total() + writingSnapshot.directedInstanceCounter.total()) * attributesStride,
+                writingSnapshot.attributesBlockHashes
+            );
+        }
+
+        snapshots.publish(writingSnapshot);
+        writingSnapshot = null;
+    }
+
+    /**
+     * Switches the data to draw to the newest complete world snapshot, if any.
+     *
+     * @return The newest snapshot, that should be uploaded if necessary, or null if there is no new snapshot since the last call
+     */
+    protected EdgesSnapshot promoteNewestSnapshotToDraw() {
+        final EdgesSnapshot snapshot = snapshots.acquireNewestForDrawing();
+        if (snapshot != null) {
+            snapshotToDraw = snapshot;
+            undirectedInstanceCounter.promoteCountToDraw(snapshot.undirectedInstanceCounter);
+            directedInstanceCounter.promoteCountToDraw(snapshot.directedInstanceCounter);
+            someSelectionToDraw = snapshot.someSelection;
+            edgeSelectionColorToDraw = snapshot.edgeSelectionColor;
+            positionsQuantizationToDraw.set(snapshot.positionsQuantization);
+        }
+
+        return snapshot;
     }
 
     protected int setupShaderProgramForRenderingLayerUndirected(final GL2ES2 gl,
                                                                 final RenderingLayer layer,
                                                                 final VizEngine engine,
-                                                                final float[] mvpFloats) {
-        final boolean someSelection = engine.getLookup().lookup(GraphSelection.class).someNodesOrEdgesSelection();
+                                                                float[] mvpFloats) {
+        //Use the selection state of the data being drawn, not the current one:
+        final boolean someSelection = someSelectionToDraw;
         final boolean renderingUnselectedEdges = layer.isBack();
         if (!someSelection && renderingUnselectedEdges) {
             return 0;
@@ -95,13 +222,22 @@ public class AbstractEdgeData {
 
         final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
 
-        final float edgeScale = renderingOptions.getEdgeScale();
+        float edgeScale = renderingOptions.getEdgeScale();
         float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
 
         final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
 
-        final float minWeight = graphIndex.getEdgesMinWeight();
-        final float maxWeight = graphIndex.getEdgesMaxWeight();
+        float minWeight = graphIndex.getEdgesMinWeight();
+        float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        if (compactAttributes) {
+            //Quantized positions are in the 0..1 range of the snapshot box and weights are already normalized:
+            positionsQuantizationToDraw.applyToModelViewProjection(mvpFloats, compactMvpFloats);
+            mvpFloats = compactMvpFloats;
+            edgeScale /= positionsQuantizationToDraw.getScale();
+            minWeight = 0;
+            maxWeight = 1;
+        }
 
         final int instanceCount;
         if (renderingUnselectedEdges) {
@@ -133,7 +269,7 @@ public class AbstractEdgeData {
             );
 
             if (someSelection) {
-                if (edgeSelectionColor) {
+                if (edgeSelectionColorToDraw) {
                     lineModelUndirected.useProgram(
                         gl,
                         mvpFloats,
@@ -169,8 +305,9 @@ public class AbstractEdgeData {
     protected int setupShaderProgramForRenderingLayerDirected(final GL2ES2 gl,
                                                               final RenderingLayer layer,
                                                               final VizEngine engine,
-                                                              final float[] mvpFloats) {
-        final boolean someSelection = engine.getLookup().lookup(GraphSelection.class).someNodesOrEdgesSelection();
+                                                              float[] mvpFloats) {
+        //Use the selection state of the data being drawn, not the current one:
+        final boolean someSelection = someSelectionToDraw;
         final boolean renderingUnselectedEdges = layer.isBack();
         if (!someSelection && renderingUnselectedEdges) {
             return 0;
@@ -180,13 +317,22 @@ public class AbstractEdgeData {
 
         final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
 
-        final float edgeScale = renderingOptions.getEdgeScale();
+        float edgeScale = renderingOptions.getEdgeScale();
         float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
 
         final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
 
-        final float minWeight = graphIndex.getEdgesMinWeight();
-        final float maxWeight = graphIndex.getEdgesMaxWeight();
+        float minWeight = graphIndex.getEdgesMinWeight();
+        float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        if (compactAttributes) {
+            //Quantized positions are in the 0..1 range of the snapshot box and weights are already normalized:
+            positionsQuantizationToDraw.applyToModelViewProjection(mvpFloats, compactMvpFloats);
+            mvpFloats = compactMvpFloats;
+            edgeScale /= positionsQuantizationToDraw.getScale();
+            minWeight = 0;
+            maxWeight = 1;
+        }
 
         final int instanceCount;
         if (renderingUnselectedEdges) {
@@ -217,7 +363,7 @@ public class AbstractEdgeData {
             );
 
             if (someSelection) {
-                if (someSelection && edgeSelectionColor) {
+                if (edgeSelectionColorToDraw) {
                     lineModelDirected.useProgram(
                         gl,
                         mvpFloats,
@@ -266,12 +412,11 @@ public class AbstractEdgeData {
         checkBufferIndexing(directBuffer, attribs, index);
 
         if (graph.isUndirected()) {
-            directedInstanceCounter.unselectedCount = 0;
-            directedInstanceCounter.selectedCount = 0;
+            writingSnapshot.directedInstanceCounter.clearCount();
             return index;
         }
 
-        saveSelectionState(this.someSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
+        saveSelectionState(someSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
 
         int newEdgesCountUnselected = 0;
         int newEdgesCountSelected = 0;
@@ -291,7 +436,7 @@ public class AbstractEdgeData {
                     newEdgesCountSelected++;
 
                     fillDirectedEdgeAttributesDataWithSelection(attribs, edge, index, selected);
-                    index += ATTRIBS_STRIDE;
+                    index += attributesStride;
 
                     if (directBuffer != null && index == attribs.length) {
                         directBuffer.put(attribs, 0, attribs.length);
@@ -313,7 +458,7 @@ public class AbstractEdgeData {
                     newEdgesCountUnselected++;
 
                     fillDirectedEdgeAttributesDataWithSelection(attribs, edge, index, false);
-                    index += ATTRIBS_STRIDE;
+                    index += attributesStride;
 
                     if (directBuffer != null && index == attribs.length) {
                         directBuffer.put(attribs, 0, attribs.length);
@@ -335,7 +480,7 @@ public class AbstractEdgeData {
                     newEdgesCountSelected++;
 
                     fillDirectedEdgeAttributesDataWithSelection(attribs, edge, index, true);
-                    index += ATTRIBS_STRIDE;
+                    index += attributesStride;
 
                     if (directBuffer != null && index == attribs.length) {
                         directBuffer.put(attribs, 0, attribs.length);
@@ -354,7 +499,7 @@ public class AbstractEdgeData {
                 newEdgesCountSelected++;
 
                 fillDirectedEdgeAttributesDataWithoutSelection(attribs, edge, index);
-                index += ATTRIBS_STRIDE;
+                index += attributesStride;
 
                 if (directBuffer != null && index == attribs.length) {
                     directBuffer.put(attribs, 0, attribs.length);
@@ -369,8 +514,8 @@ public class AbstractEdgeData {
             index = 0;
         }
 
-        directedInstanceCounter.unselectedCount = newEdgesCountUnselected;
-        directedInstanceCounter.selectedCount = newEdgesCountSelected;
+        writingSnapshot.directedInstanceCounter.unselectedCount = newEdgesCountUnselected;
+        writingSnapshot.directedInstanceCounter.selectedCount = newEdgesCountSelected;
 
         return index;
     }
@@ -391,8 +536,7 @@ public class AbstractEdgeData {
         checkBufferIndexing(directBuffer, attribs, index);
 
         if (graph.isDirected()) {
-            undirectedInstanceCounter.unselectedCount = 0;
-            undirectedInstanceCounter.selectedCount = 0;
+            writingSnapshot.undirectedInstanceCounter.clearCount();
             return index;
         }
 
@@ -416,7 +560,7 @@ public class AbstractEdgeData {
                     newEdgesCountSelected++;
 
                     fillUndirectedEdgeAttributesDataWithSelection(attribs, edge, index, true);
-                    index += ATTRIBS_STRIDE;
+                    index += attributesStride;
 
                     if (directBuffer != null && index == attribs.length) {
                         directBuffer.put(attribs, 0, attribs.length);
@@ -438,7 +582,7 @@ public class AbstractEdgeData {
                     newEdgesCountUnselected++;
 
                     fillUndirectedEdgeAttributesDataWithSelection(attribs, edge, index, false);
-                    index += ATTRIBS_STRIDE;
+                    index += attributesStride;
 
                     if (directBuffer != null && index == attribs.length) {
                         directBuffer.put(attribs, 0, attribs.length);
@@ -460,7 +604,7 @@ public class AbstractEdgeData {
                     newEdgesCountSelected++;
 
                     fillUndirectedEdgeAttributesDataWithSelection(attribs, edge, index, true);
-                    index += ATTRIBS_STRIDE;
+                    index += attributesStride;
 
                     if (directBuffer != null && index == attribs.length) {
                         directBuffer.put(attribs, 0, attribs.length);
@@ -479,7 +623,7 @@ public class AbstractEdgeData {
                 newEdgesCountSelected++;
 
                 fillUndirectedEdgeAttributesDataWithoutSelection(attribs, edge, index);
-                index += ATTRIBS_STRIDE;
+                index += attributesStride;
 
                 if (directBuffer != null && index == attribs.length) {
                     directBuffer.put(attribs, 0, attribs.length);
@@ -494,20 +638,214 @@ public class AbstractEdgeData {
             index = 0;
         }
 
-        undirectedInstanceCounter.unselectedCount = newEdgesCountUnselected;
-        undirectedInstanceCounter.selectedCount = newEdgesCountSelected;
+        writingSnapshot.undirectedInstanceCounter.unselectedCount = newEdgesCountUnselected;
+        writingSnapshot.undirectedInstanceCounter.selectedCount = newEdgesCountSelected;
 
         return index;
     }
 
+    /**
+     * Builds the attributes of the visible edges of a world update into a new snapshot, without any GL call.
+     */
+    protected void updateData(final Rect2D viewBoundaries, final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection, final boolean parallelPacking) {
+        final EdgesSnapshot snapshot = acquireSnapshotForWriting(viewBoundaries);
+
+        if (!renderingOptions.isShowEdges()) {
+            snapshot.clear();
+            publishSnapshot();
+            return;
+        }
+
+        graphIndex.indexEdges();
+
+        if (compactAttributes) {
+            setPackingWeights(graphIndex.getEdgesMinWeight(), graphIndex.getEdgesMaxWeight());
+        }
+
+        //Selection:
+        final boolean someSelection = graphSelection.someNodesOrEdgesSelection();
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
+        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
+        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+
+        final int totalEdges = graphIndex.getEdgeCount();
+
+        snapshot.attributesBuffer.ensureCapacity(totalEdges * attributesStride);
+
+        final FloatBuffer attribsDirectBuffer = snapshot.attributesBuffer.floatBuffer();
+
+        graphIndex.getVisibleEdges(edgesCallback);
+
+        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
+        final int visibleEdgesCount = edgesCallback.getCount();
+
+        if (parallelPacking && visibleEdgesCount >= PARALLEL_PACKING_MIN_EDGES) {
+            updateEdgesDataParallel(
+                someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                attribsDirectBuffer
+            );
+        } else {
+            final Graph graph = graphIndex.getVisibleGraph();
+
+            updateUndirectedData(
+                graph,
+                someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                attributesBufferBatch, 0, attribsDirectBuffer
+            );
+            updateDirectedData(
+                graph,
+                someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                attributesBufferBatch, 0, attribsDirectBuffer
+            );
+        }
+
+        publishSnapshot();
+    }
+
+    /**
+     * Same result as calling {@link #updateUndirectedData} and then {@link #updateDirectedData} with a direct buffer, but the visible edges are split in chunks processed by the common fork-join pool.
+     * <p>
+     * A single pass classifies each edge into undirected/directed and unselected/selected buckets and counts the buckets of each chunk. Then each chunk writes its edges directly at its offsets of each bucket region in the direct buffer.</p>
+     */
+    protected void updateEdgesDataParallel(
+        final boolean someSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection, final boolean edgeSelectionColor, final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor,
+        final FloatBuffer directBuffer
+    ) {
+        saveSelectionState(someSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
+
+        if (edgeBuckets.length < visibleEdgesCount) {
+            edgeBuckets = new byte[visibleEdgesCount];
+        }
+        final byte[] buckets = edgeBuckets;
+
+        final int chunks = (visibleEdgesCount + PARALLEL_CHUNK_EDGES_SIZE - 1) / PARALLEL_CHUNK_EDGES_SIZE;
+        final int[] chunkBucketOffsets = new int[chunks * BUCKETS_COUNT];
+
+        //Classification pass, with the bucket counts of each chunk:
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int start = chunk * PARALLEL_CHUNK_EDGES_SIZE;
+            final int end = Math.min(start + PARALLEL_CHUNK_EDGES_SIZE, visibleEdgesCount);
+            final int chunkOffset = chunk * BUCKETS_COUNT;
+
+            for (int j = start; j < end; j++) {
+                final Edge edge = visibleEdgesArray[j];
+                final boolean selected = !someSelection || graphSelection.isEdgeSelected(edge);
+
+                final byte bucket;
+                if (!selected && hideNonSelected) {
+                    bucket = BUCKET_NONE;
+                } else if (edge.isDirected()) {
+                    bucket = selected ? BUCKET_DIRECTED_SELECTED : BUCKET_DIRECTED_UNSELECTED;
+                } else {
+                    bucket = selected ? BUCKET_UNDIRECTED_SELECTED : BUCKET_UNDIRECTED_UNSELECTED;
+                }
+
+                buckets[j] = bucket;
+                if (bucket != BUCKET_NONE) {
+                    chunkBucketOffsets[chunkOffset + bucket]++;
+                }
+            }
+        });
+
+        //Replace the counts by the offsets of each chunk in each bucket region:
+        final int[] bucketTotals = new int[BUCKETS_COUNT];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int bucket = 0; bucket < BUCKETS_COUNT; bucket++) {
+                final int count = chunkBucketOffsets[chunk * BUCKETS_COUNT + bucket];
+                chunkBucketOffsets[chunk * BUCKETS_COUNT + bucket] = bucketTotals[bucket];
+                bucketTotals[bucket] += count;
+            }
+        }
+
+        final int[] bucketStarts = new int[BUCKETS_COUNT];
+        for (int bucket = 1; bucket < BUCKETS_COUNT; bucket++) {
+            bucketStarts[bucket] = bucketStarts[bucket - 1] + bucketTotals[bucket - 1];
+        }
+
+        //Scatter pass:
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int start = chunk * PARALLEL_CHUNK_EDGES_SIZE;
+            final int end = Math.min(start + PARALLEL_CHUNK_EDGES_SIZE, visibleEdgesCount);
+
+            float[][] batches = PARALLEL_ATTRIBUTES_BATCHES.get();
+            if (batches[0].length != attributesStride * PARALLEL_BATCH_EDGES_SIZE) {
+                //Batches must hold a whole number of edges of the current layout:
+                batches = new float[BUCKETS_COUNT][attributesStride * PARALLEL_BATCH_EDGES_SIZE];
+                PARALLEL_ATTRIBUTES_BATCHES.set(batches);
+            }
+            final int[] batchIndexes = new int[BUCKETS_COUNT];
+            final int[] positions = new int[BUCKETS_COUNT];
+            for (int bucket = 0; bucket < BUCKETS_COUNT; bucket++) {
+                positions[bucket] = bucketStarts[bucket] + chunkBucketOffsets[chunk * BUCKETS_COUNT + bucket];
+            }
+
+            //Duplicates share the content but have their own position:
+            final FloatBuffer target = directBuffer.duplicate();
+
+            for (int j = start; j < end; j++) {
+                final byte bucket = buckets[j];
+                if (bucket == BUCKET_NONE) {
+                    continue;
+                }
+
+                final Edge edge = visibleEdgesArray[j];
+                final float[] batch = batches[bucket];
+                final int index = batchIndexes[bucket];
+                final boolean selected = bucket == BUCKET_UNDIRECTED_SELECTED || bucket == BUCKET_DIRECTED_SELECTED;
+
+                if (bucket >= BUCKET_DIRECTED_UNSELECTED) {
+                    if (someSelection) {
+                        fillDirectedEdgeAttributesDataWithSelection(batch, edge, index, selected);
+                    } else {
+                        fillDirectedEdgeAttributesDataWithoutSelection(batch, edge, index);
+                    }
+                } else {
+                    if (someSelection) {
+                        fillUndirectedEdgeAttributesDataWithSelection(batch, edge, index, selected);
+                    } else {
+                        fillUndirectedEdgeAttributesDataWithoutSelection(batch, edge, index);
+                    }
+                }
+
+                if (index + attributesStride == batch.length) {
+                    flushBatch(target, batch, batch.length, positions, bucket);
+                    batchIndexes[bucket] = 0;
+                } else {
+                    batchIndexes[bucket] = index + attributesStride;
+                }
+            }
+
+            //Remaining:
+            for (int bucket = 0; bucket < BUCKETS_COUNT; bucket++) {
+                if (batchIndexes[bucket] > 0) {
+                    flushBatch(target, batches[bucket], batchIndexes[bucket], positions, bucket);
+                }
+            }
+        });
+
+        writingSnapshot.undirectedInstanceCounter.unselectedCount = bucketTotals[BUCKET_UNDIRECTED_UNSELECTED];
+        writingSnapshot.undirectedInstanceCounter.selectedCount = bucketTotals[BUCKET_UNDIRECTED_SELECTED];
+        writingSnapshot.directedInstanceCounter.unselectedCount = bucketTotals[BUCKET_DIRECTED_UNSELECTED];
+        writingSnapshot.directedInstanceCounter.selectedCount = bucketTotals[BUCKET_DIRECTED_SELECTED];
+    }
+
+    private void flushBatch(final FloatBuffer target, final float[] batch, final int length, final int[] positions, final int bucket) {
+        target.position(positions[bucket] * attributesStride);
+        target.put(batch, 0, length);
+        positions[bucket] += length / attributesStride;
+    }
+
     private void checkBufferIndexing(final FloatBuffer directBuffer, final float[] attribs, final int index) {
         if (directBuffer != null) {
-            if (attribs.length % ATTRIBS_STRIDE != 0) {
-                throw new IllegalArgumentException("When filling a directBuffer, attribs buffer length should be a multiple of ATTRIBS_STRIDE = " + ATTRIBS_STRIDE);
+            if (attribs.length % attributesStride != 0) {
+                throw new IllegalArgumentException("When filling a directBuffer, attribs buffer length should be a multiple of the attributes stride = " + attributesStride);
             }
 
-            if (index % ATTRIBS_STRIDE != 0) {
-                throw new IllegalArgumentException("When filling a directBuffer, index should be a multiple of ATTRIBS_STRIDE = " + ATTRIBS_STRIDE);
+            if (index % attributesStride != 0) {
+                throw new IllegalArgumentException("When filling a directBuffer, index should be a multiple of the attributes stride = " + attributesStride);
             }
         }
     }
@@ -526,6 +864,9 @@ public class AbstractEdgeData {
         this.edgeBothSelectionColor = edgeBothSelectionColor;
         this.edgeOutSelectionColor = edgeOutSelectionColor;
         this.edgeInSelectionColor = edgeInSelectionColor;
+
+        writingSnapshot.someSelection = someSelection;
+        writingSnapshot.edgeSelectionColor = edgeSelectionColor;
     }
 
     protected void fillUndirectedEdgeAttributesDataBase(final float[] buffer, final Edge edge, final int index) {
@@ -556,6 +897,11 @@ public class AbstractEdgeData {
     }
 
     protected void fillUndirectedEdgeAttributesDataWithoutSelection(final float[] buffer, final Edge edge, final int index) {
+        if (compactAttributes) {
+            fillEdgeAttributesDataCompact(buffer, edge, index, Float.intBitsToFloat(edge.getRGBA()), true);
+            return;
+        }
+
         fillUndirectedEdgeAttributesDataBase(buffer, edge, index);
 
         buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
@@ -566,40 +912,14 @@ public class AbstractEdgeData {
     }
 
     protected void fillUndirectedEdgeAttributesDataWithSelection(final float[] buffer, final Edge edge, final int index, final boolean selected) {
-        final Node source = edge.getSource();
-        final Node target = edge.getTarget();
+        if (compactAttributes) {
+            fillEdgeAttributesDataCompact(buffer, edge, index, edgeColorWithSelection(edge, selected), true);
+            return;
+        }
 
         fillUndirectedEdgeAttributesDataBase(buffer, edge, index);
 
-        //Color:
-        if (selected) {
-            if (someSelection && edgeSelectionColor) {
-                boolean sourceSelected = graphSelection.isNodeSelected(source);
-                boolean targetSelected = graphSelection.isNodeSelected(target);
-
-                if (sourceSelected && targetSelected) {
-                    buffer[index + 7] = edgeBothSelectionColor;//Color
-                } else if (sourceSelected) {
-                    buffer[index + 7] = edgeOutSelectionColor;//Color
-                } else if (targetSelected) {
-                    buffer[index + 7] = edgeInSelectionColor;//Color
-                } else {
-                    buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
-                }
-            } else {
-                if (someSelection && edge.alpha() <= 0) {
-                    if (graphSelection.isNodeSelected(source)) {
-                        buffer[index + 7] = Float.intBitsToFloat(target.getRGBA());//Color
-                    } else {
-                        buffer[index + 7] = Float.intBitsToFloat(source.getRGBA());//Color
-                    }
-                } else {
-                    buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
-                }
-            }
-        } else {
-            buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
-        }
+        buffer[index + 7] = edgeColorWithSelection(edge, selected);//Color
 
         //Source and target size:
         buffer[index + 8] = edge.getSource().size();
@@ -631,6 +951,11 @@ public class AbstractEdgeData {
     }
 
     protected void fillDirectedEdgeAttributesDataWithoutSelection(final float[] buffer, final Edge edge, final int index) {
+        if (compactAttributes) {
+            fillEdgeAttributesDataCompact(buffer, edge, index, Float.intBitsToFloat(edge.getRGBA()), false);
+            return;
+        }
+
         fillDirectedEdgeAttributesDataBase(buffer, edge, index);
 
         //Color:
@@ -645,41 +970,120 @@ public class AbstractEdgeData {
         final Node source = edge.getSource();
         final Node target = edge.getTarget();
 
+        if (compactAttributes) {
+            fillEdgeAttributesDataCompact(buffer, edge, index, edgeColorWithSelection(edge, selected), false);
+            return;
+        }
+
         fillDirectedEdgeAttributesDataBase(buffer, edge, index);
 
-        //Color:
-        if (selected) {
-            if (someSelection && edgeSelectionColor) {
-                boolean sourceSelected = graphSelection.isNodeSelected(source);
-                boolean targetSelected = graphSelection.isNodeSelected(target);
-
-                if (sourceSelected && targetSelected) {
-                    buffer[index + 6] = edgeBothSelectionColor;//Color
-                } else if (sourceSelected) {
-                    buffer[index + 6] = edgeOutSelectionColor;//Color
-                } else if (targetSelected) {
-                    buffer[index + 6] = edgeInSelectionColor;//Color
-                } else {
-                    buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
-                }
+        buffer[index + 6] = edgeColorWithSelection(edge, selected);//Color
+
+        //Source and target size:
+        buffer[index + 7] = source.size();
+        buffer[index + 8] = target.size();
+    }
+
+    private float edgeColorWithSelection(final Edge edge, final boolean selected) {
+        if (!selected) {
+            return Float.intBitsToFloat(edge.getRGBA());
+        }
+
+        final Node source = edge.getSource();
+        final Node target = edge.getTarget();
+
+        if (someSelection && edgeSelectionColor) {
+            boolean sourceSelected = graphSelection.isNodeSelected(source);
+            boolean targetSelected = graphSelection.isNodeSelected(target);
+
+            if (sourceSelected && targetSelected) {
+                return edgeBothSelectionColor;
+            } else if (sourceSelected) {
+                return edgeOutSelectionColor;
+            } else if (targetSelected) {
+                return edgeInSelectionColor;
             } else {
-                if (someSelection && edge.alpha() <= 0) {
-                    if (graphSelection.isNodeSelected(source)) {
-                        buffer[index + 6] = Float.intBitsToFloat(target.getRGBA());//Color
-                    } else {
-                        buffer[index + 6] = Float.intBitsToFloat(source.getRGBA());//Color
-                    }
+                return Float.intBitsToFloat(edge.getRGBA());
+            }
+        } else {
+            if (someSelection && edge.alpha() <= 0) {
+                if (graphSelection.isNodeSelected(source)) {
+                    return Float.intBitsToFloat(target.getRGBA());
                 } else {
-                    buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
+                    return Float.intBitsToFloat(source.getRGBA());
                 }
+            } else {
+                return Float.intBitsToFloat(edge.getRGBA());
             }
+        }
+    }
+
+    /**
+     * Fills the compact layout of an edge, see {@link #setCompactAttributes(boolean)}. Ends outside the quantization box are clipped to it and lose their node size, as they are out of sight anyway.
+     */
+    private void fillEdgeAttributesDataCompact(final float[] buffer, final Edge edge, final int index, final float color, final boolean undirected) {
+        final Node source = edge.getSource();
+        final Node target = edge.getTarget();
+        final PositionsQuantization quantization = packingQuantization;
+
+        float sourceX = source.x();
+        float sourceY = source.y();
+        float targetX = target.x();
+        float targetY = target.y();
+        float sourceSize = source.size();
+        float targetSize = target.size();
+
+        if (quantization.isTriviallyOutside(sourceX, sourceY, targetX, targetY)) {
+            //Can't be seen, collapse it:
+            targetX = sourceX;
+            targetY = sourceY;
+            sourceSize = 0;
+            targetSize = 0;
         } else {
-            buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
+            final float sourceClip = quantization.clipStartFraction(sourceX, sourceY, targetX, targetY);
+            final float targetClip = quantization.clipStartFraction(targetX, targetY, sourceX, sourceY);
+
+            if (sourceClip + targetClip >= 1) {
+                //Passes by the box without crossing it:
+                targetX = sourceX;
+                targetY = sourceY;
+                sourceSize = 0;
+                targetSize = 0;
+            } else {
+                final float dx = targetX - sourceX;
+                final float dy = targetY - sourceY;
+
+                if (sourceClip > 0) {
+                    sourceSize = 0;
+                }
+                if (targetClip > 0) {
+                    targetSize = 0;
+                }
+
+                targetX -= dx * targetClip;
+                targetY -= dy * targetClip;
+                sourceX += dx * sourceClip;
+                sourceY += dy * sourceClip;
+            }
         }
 
-        //Source and target size:
-        buffer[index + 7] = source.size();
-        buffer[index + 8] = target.size();
+        final float scale = quantization.getScale();
+        final float weight = ((float) edge.getWeight() - packingMinWeight) / packingWeightDivisor;
+
+        //Source and target positions:
+        buffer[index] = quantization.pack(sourceX, sourceY);
+        buffer[index + 1] = quantization.pack(targetX, targetY);
+
+        //Weight and source size, target size:
+        buffer[index + 2] = Float.intBitsToFloat(NumberUtils.toHalfFloatBits(weight) | (NumberUtils.toHalfFloatBits(sourceSize / scale) << 16));
+        buffer[index + 3] = Float.intBitsToFloat(NumberUtils.toHalfFloatBits(targetSize / scale));
+
+        //Source color, color and target color:
+        buffer[index + 4] = Float.intBitsToFloat(source.getRGBA());
+        buffer[index + 5] = color;
+        if (undirected) {
+            buffer[index + 6] = Float.intBitsToFloat(target.getRGBA());
+        }
     }
 
     private UndirectedEdgesVAO undirectedEdgesVAO;
@@ -755,6 +1159,33 @@ public class AbstractEdgeData {
         }
     }
 
+    /**
+     * Destroys the vertex arrays, so they are configured again with the current attributes buffers.
+     *
+     * @param gl GL
+     */
+    protected void resetVertexArrayAttributes(GL2ES2 gl) {
+        if (undirectedEdgesVAO != null) {
+            undirectedEdgesVAO.destroy(gl);
+            undirectedEdgesVAO = null;
+        }
+
+        if (undirectedEdgesVAOSecondary != null) {
+            undirectedEdgesVAOSecondary.destroy(gl);
+            undirectedEdgesVAOSecondary = null;
+        }
+
+        if (directedEdgesVAO != null) {
+            directedEdgesVAO.destroy(gl);
+            directedEdgesVAO = null;
+        }
+
+        if (directedEdgesVAOSecondary != null) {
+            directedEdgesVAOSecondary.destroy(gl);
+            directedEdgesVAOSecondary = null;
+        }
+    }
+
     public void dispose(GL gl) {
         if (vertexGLBufferUndirected != null) {
             vertexGLBufferUndirected.destroy(gl);
@@ -780,9 +1211,84 @@ public class AbstractEdgeData {
             attributesGLBufferUndirectedSecondary.destroy(gl);
         }
 
+        attributesDirectedUploader.reset();
+        attributesDirectedSecondaryUploader.reset();
+        attributesUndirectedUploader.reset();
+        attributesUndirectedSecondaryUploader.reset();
+
+        if (snapshots != null) {
+            snapshots.forEach(EdgesSnapshot::destroy);
+            snapshots = null;
+            snapshotToDraw = null;
+        }
+
         edgesCallback.reset();
     }
 
+    public void reportMetrics(EngineMetrics metrics) {
+        metrics.addVisibleEdges(undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.totalToDraw());
+        metrics.addUploadedBytes(uploadedBytes);
+        uploadedBytes = 0;
+
+        if (snapshots != null) {
+            snapshots.forEach(snapshot -> metrics.addDirectBuffersCapacity(snapshot.attributesBuffer.getCapacityBytes()));
+        }
+    }
+
+    /**
+     * Edges data built by a world update.
+     * <p>
+     * Attributes are in world coordinates, so drawing a snapshot with the current camera transform compensates any camera change since the snapshot was built.
+     */
+    protected static class EdgesSnapshot {
+
+        public final ManagedDirectBuffer attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
+        public final InstanceCounter undirectedInstanceCounter = new InstanceCounter();
+        public final InstanceCounter directedInstanceCounter = new InstanceCounter();
+        public boolean someSelection = false;
+        public boolean edgeSelectionColor = false;
+        //Block hashes of the attributes, to only upload the changed ones:
+        public long[] attributesBlockHashes = new long[0];
+
+        //View the snapshot was built for:
+        public Rect2D viewBoundaries;
+
+        //Box of the quantized positions, with the compact attributes layout:
+        public final PositionsQuantization positionsQuantization = new PositionsQuantization();
+
+        public void clear() {
+            undirectedInstanceCounter.clearCount();
+            directedInstanceCounter.clearCount();
+            someSelection = false;
+            edgeSelectionColor = false;
+        }
+
+        public void destroy() {
+            attributesBuffer.destroy();
+        }
+    }
+
+    /**
+     * Attribute pointers of the compact layout written by {@link #fillEdgeAttributesDataCompact}, with the attributes buffer bound.
+     */
+    private void configureCompactAttributes(GL2ES2 gl, boolean undirected) {
+        final int stride = COMPACT_ATTRIBS_STRIDE * Float.BYTES;
+        final int halfFloatBytes = Float.BYTES / 2;
+
+        gl.glVertexAttribPointer(SHADER_POSITION_LOCATION, 2, GL_UNSIGNED_SHORT, true, stride, 0);
+        gl.glVertexAttribPointer(SHADER_POSITION_TARGET_LOCATION, 2, GL_UNSIGNED_SHORT, true, stride, Float.BYTES);
+
+        gl.glVertexAttribPointer(SHADER_SIZE_LOCATION, 1, GL2ES3.GL_HALF_FLOAT, false, stride, 2 * Float.BYTES);
+        gl.glVertexAttribPointer(SHADER_SOURCE_SIZE_LOCATION, 1, GL2ES3.GL_HALF_FLOAT, false, stride, 2 * Float.BYTES + halfFloatBytes);
+        gl.glVertexAttribPointer(SHADER_TARGET_SIZE_LOCATION, 1, GL2ES3.GL_HALF_FLOAT, false, stride, 3 * Float.BYTES);
+
+        gl.glVertexAttribPointer(SHADER_SOURCE_COLOR_LOCATION, Float.BYTES, GL_UNSIGNED_BYTE, false, stride, 4 * Float.BYTES);
+        gl.glVertexAttribPointer(SHADER_COLOR_LOCATION, Float.BYTES, GL_UNSIGNED_BYTE, false, stride, 5 * Float.BYTES);
+        if (undirected) {
+            gl.glVertexAttribPointer(SHADER_TARGET_COLOR_LOCATION, Float.BYTES, GL_UNSIGNED_BYTE, false, stride, 6 * Float.BYTES);
+        }
+    }
+
     private class UndirectedEdgesVAO extends GLVertexArrayObject {
 
         private final GLBuffer attributesBuffer;
@@ -800,6 +1306,13 @@ public class AbstractEdgeData {
             }
             vertexGLBufferUndirected.unbind(gl);
 
+            if (compactAttributes) {
+                attributesBuffer.bind(gl);
+                configureCompactAttributes(gl, true);
+                attributesBuffer.unbind(gl);
+                return;
+            }
+
             attributesBuffer.bind(gl);
             {
                 int stride = ATTRIBS_STRIDE * Float.BYTES;
@@ -882,6 +1395,13 @@ public class AbstractEdgeData {
             }
             vertexGLBufferDirected.unbind(gl);
 
+            if (compactAttributes) {
+                attributesBuffer.bind(gl);
+                configureCompactAttributes(gl, false);
+                attributesBuffer.unbind(gl);
+                return;
+            }
+
             attributesBuffer.bind(gl);
             {
                 int stride = ATTRIBS_STRIDE * Float.BYTES;
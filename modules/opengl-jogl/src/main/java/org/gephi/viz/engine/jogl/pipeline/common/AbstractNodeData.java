@@ -2,23 +2,33 @@ package org.gephi.viz.engine.jogl.pipeline.common;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_FLOAT;
 import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_SHORT;
 import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
 import com.jogamp.opengl.util.GLBuffers;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.jogl.models.NodeDiskModel;
 import org.gephi.viz.engine.jogl.models.NodeDiskVertexDataGenerator;
 import org.gephi.viz.engine.jogl.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.jogl.util.PositionsQuantization;
 import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.pipeline.common.WorldSnapshotRing;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.BufferBlockHashes;
+import org.gephi.viz.engine.util.NumberUtils;
 
 import static com.jogamp.opengl.GL.GL_UNSIGNED_INT;
 import static org.gephi.viz.engine.jogl.util.gl.GLBufferMutable.GL_BUFFER_TYPE_ARRAY;
@@ -27,6 +37,7 @@ import static org.gephi.viz.engine.util.gl.Constants.*;
 import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_INTS_COUNT;
 
 import org.gephi.viz.engine.jogl.util.gl.GLBuffer;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferDirtyRangesUploader;
 import org.gephi.viz.engine.jogl.util.gl.GLVertexArrayObject;
 import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
 import org.gephi.viz.engine.util.gl.OpenGLOptions;
@@ -45,6 +56,9 @@ public abstract class AbstractNodeData {
     protected static final int OBSERVED_SIZE_LOD_THRESHOLD_32 = 16;
     protected static final int OBSERVED_SIZE_LOD_THRESHOLD_16 = 2;
 
+    //LOD buckets, from the 64 segments circle to the 8 segments one, see getLodBucket:
+    protected static final int LOD_BUCKETS = 4;
+
     // NOTE: Why secondary buffers and VAOs?
     // Sadly, we cannot use glDrawArraysInstancedBaseInstance in MacOS and it will be never available
 
@@ -52,9 +66,19 @@ public abstract class AbstractNodeData {
     protected GLBuffer attributesGLBuffer;
     protected GLBuffer attributesGLBufferSecondary;
     protected GLBuffer commandsGLBuffer;
+    protected final GLBufferDirtyRangesUploader attributesUploader = new GLBufferDirtyRangesUploader();
+    protected final GLBufferDirtyRangesUploader attributesSecondaryUploader = new GLBufferDirtyRangesUploader();
     protected final NodesCallback nodesCallback = new NodesCallback();
 
     protected static final int ATTRIBS_STRIDE = NodeDiskModel.TOTAL_ATTRIBUTES_FLOATS;
+    protected static final int COMPACT_ATTRIBS_STRIDE = NodeDiskModel.COMPACT_TOTAL_ATTRIBUTES_FLOATS;
+
+    //Attributes layout, see setCompactAttributes:
+    protected boolean compactAttributes = false;
+    protected int attributesStride = ATTRIBS_STRIDE;
+    private PositionsQuantization packingQuantization;
+    protected final PositionsQuantization positionsQuantizationToDraw = new PositionsQuantization();
+    private final float[] compactMvpFloats = new float[16];
 
     protected final NodeDiskModel diskModel;
 
@@ -71,20 +95,35 @@ public abstract class AbstractNodeData {
     protected final int firstVertex32;
     protected final int firstVertex16;
     protected final int firstVertex8;
+    protected final int[] lodFirstVertex;
+    protected final int[] lodVertexCount;
     protected final boolean instancedRendering;
     protected final boolean indirectCommands;
 
     // State:
     protected final InstanceCounter instanceCounter = new InstanceCounter();
-    protected float maxNodeSize = 0;
     protected float maxNodeSizeToDraw = 0;
+    protected boolean someSelectionToDraw = false;
+    //Instances of each layer (unselected first) and LOD bucket, when LOD bucketing:
+    protected final int[] lodBucketCountsToDraw = new int[2 * LOD_BUCKETS];
 
     // Buffers for vertex attributes:
     protected static final int BATCH_NODES_SIZE = 32768;
-    protected ManagedDirectBuffer attributesBuffer;
+
+    // Parallel packing, see updateData:
+    protected static final int PARALLEL_CHUNK_NODES_SIZE = BATCH_NODES_SIZE;
+    protected static final int PARALLEL_PACKING_MIN_NODES = PARALLEL_CHUNK_NODES_SIZE * 2;
+    private static final int PARALLEL_BATCH_NODES_SIZE = 4096;
+    private static final ThreadLocal<float[]> PARALLEL_ATTRIBUTES_BATCH = ThreadLocal.withInitial(() -> new float[ATTRIBS_STRIDE * PARALLEL_BATCH_NODES_SIZE]);
+    private static final ThreadLocal<int[]> PARALLEL_COMMANDS_BATCH = ThreadLocal.withInitial(() -> new int[INDIRECT_DRAW_COMMAND_INTS_COUNT * PARALLEL_BATCH_NODES_SIZE]);
+    protected WorldSnapshotRing<NodesSnapshot> snapshots;
+    //Bytes uploaded to GPU buffers since the last metrics report:
+    protected long uploadedBytes = 0;
+    protected NodesSnapshot snapshotToDraw;
     protected float[] attributesBufferBatch;
-    protected ManagedDirectBuffer commandsBuffer;
     private int[] commandsBufferBatch;
+    //Layer and LOD bucket of each visible node, see packNodesChunks:
+    private byte[] nodeTargets = new byte[0];
 
     public AbstractNodeData(final boolean instancedRendering, final boolean indirectCommands) {
         this.instancedRendering = instancedRendering;
@@ -106,21 +145,98 @@ public abstract class AbstractNodeData {
         firstVertex32 = generator64.getVertexCount();
         firstVertex16 = firstVertex32 + generator32.getVertexCount();
         firstVertex8 = firstVertex16 + generator16.getVertexCount();
+
+        lodFirstVertex = new int[]{firstVertex64, firstVertex32, firstVertex16, firstVertex8};
+        lodVertexCount = new int[]{circleVertexCount64, circleVertexCount32, circleVertexCount16, circleVertexCount8};
     }
 
     public void init(GL2ES2 gl) {
-        diskModel.initGLPrograms(gl);
+        init(gl, false);
+    }
+
+    public void init(GL2ES2 gl, boolean compactAttributes) {
+        setCompactAttributes(compactAttributes);
+        initGLPrograms(gl);
         initBuffers(gl);
     }
 
+    protected void initGLPrograms(GL2ES2 gl) {
+        diskModel.initGLPrograms(gl);
+    }
+
+    /**
+     * Chooses the attributes layout, before the buffers are initialized. Only instanced rendering supports the compact layout.
+     * <p>
+     * The compact layout stores positions as 16 bits unsigned normalized integers in the box of the visible nodes of each snapshot (see {@link PositionsQuantization}), sizes as half floats and colors as bytes: 12 bytes per node instead of 16.</p>
+     *
+     * @param compactAttributes True to use the compact layout
+     */
+    protected void setCompactAttributes(boolean compactAttributes) {
+        this.compactAttributes = instancedRendering && compactAttributes;
+        this.attributesStride = this.compactAttributes ? COMPACT_ATTRIBS_STRIDE : ATTRIBS_STRIDE;
+    }
+
+    /**
+     * When true, the nodes of each layer are grouped by LOD bucket while packing, from the most detailed circle to the least detailed one, so a layer can be drawn with one draw per bucket instead of the same circle for every node.
+     *
+     * @return True to group nodes by LOD bucket
+     */
+    protected boolean isLodBucketing() {
+        return false;
+    }
+
+    /**
+     * @param observedSize Size of a node on screen
+     * @return LOD bucket of the node, 0 for the 64 segments circle to 3 for the 8 segments one
+     */
+    protected static int getLodBucket(final float observedSize) {
+        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
+            return 0;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
+            return 1;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+
+    /**
+     * @param layer Layer
+     * @param lodBucket LOD bucket
+     * @return Instances of the LOD bucket in the layer being drawn. They follow the instances of the previous buckets of the layer
+     */
+    protected int getLodBucketCountToDraw(final RenderingLayer layer, final int lodBucket) {
+        return lodBucketCountsToDraw[(layer.isBack() ? 0 : LOD_BUCKETS) + lodBucket];
+    }
+
     protected void initBuffers(GL gl) {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_NODES_SIZE];
-        attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE);
+        attributesBufferBatch = new float[attributesStride * BATCH_NODES_SIZE];
 
         if (indirectCommands) {
             commandsBufferBatch = new int[INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE];
-            commandsBuffer = new ManagedDirectBuffer(GL_UNSIGNED_INT, INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE);
         }
+
+        snapshots = new WorldSnapshotRing<>(() -> new NodesSnapshot(indirectCommands));
+    }
+
+    /**
+     * Switches the data to draw to the newest complete world snapshot, if any.
+     *
+     * @return The newest snapshot, that should be uploaded if necessary, or null if there is no new snapshot since the last call
+     */
+    protected NodesSnapshot promoteNewestSnapshotToDraw() {
+        final NodesSnapshot snapshot = snapshots.acquireNewestForDrawing();
+        if (snapshot != null) {
+            snapshotToDraw = snapshot;
+            instanceCounter.promoteCountToDraw(snapshot.instanceCounter);
+            maxNodeSizeToDraw = snapshot.maxNodeSize;
+            someSelectionToDraw = snapshot.someSelection;
+            positionsQuantizationToDraw.set(snapshot.positionsQuantization);
+            System.arraycopy(snapshot.lodBucketCounts, 0, lodBucketCountsToDraw, 0, lodBucketCountsToDraw.length);
+        }
+
+        return snapshot;
     }
 
     protected void initCirclesGLVertexBuffer(GL gl, final int bufferName) {
@@ -156,9 +272,10 @@ public abstract class AbstractNodeData {
     protected int setupShaderProgramForRenderingLayer(final GL2ES2 gl,
                                                       final RenderingLayer layer,
                                                       final VizEngine engine,
-                                                      final float[] mvpFloats,
+                                                      float[] mvpFloats,
                                                       final boolean isRenderingOutsideCircle) {
-        final boolean someSelection = engine.getLookup().lookup(GraphSelection.class).someNodesOrEdgesSelection();
+        //Use the selection state of the data being drawn, not the current one:
+        final boolean someSelection = someSelectionToDraw;
         final boolean renderingUnselectedNodes = layer.isBack();
         if (!someSelection && renderingUnselectedNodes) {
             return 0;
@@ -167,7 +284,8 @@ public abstract class AbstractNodeData {
         final float[] backgroundColorFloats = engine.getBackgroundColor();
 
         final int instanceCount;
-        final float sizeMultiplier = isRenderingOutsideCircle ? 1f : INSIDE_CIRCLE_SIZE;
+        final float sizeMultiplier = (isRenderingOutsideCircle ? 1f : INSIDE_CIRCLE_SIZE) * getWorldScaleToDraw();
+        mvpFloats = getModelViewProjectionToDraw(mvpFloats);
 
         if (renderingUnselectedNodes) {
             instanceCount = instanceCounter.unselectedCountToDraw;
@@ -205,12 +323,43 @@ public abstract class AbstractNodeData {
         return instanceCount;
     }
 
+    /**
+     * @param mvpFloats Model view projection of the world
+     * @return Model view projection of the attributes being drawn, that maps quantized positions back to the world with the compact attributes layout
+     */
+    protected float[] getModelViewProjectionToDraw(final float[] mvpFloats) {
+        if (!compactAttributes) {
+            return mvpFloats;
+        }
+
+        //Quantized positions are in the 0..1 range of the snapshot box:
+        positionsQuantizationToDraw.applyToModelViewProjection(mvpFloats, compactMvpFloats);
+        return compactMvpFloats;
+    }
+
+    /**
+     * @return Factor from world lengths to the space of the positions being drawn, not 1 with the compact attributes layout
+     */
+    protected float getWorldScaleToDraw() {
+        return compactAttributes ? 1f / positionsQuantizationToDraw.getScale() : 1f;
+    }
+
     protected void updateData(final float zoom,
+                              final Rect2D viewBoundaries,
                               final GraphIndexImpl spatialIndex,
                               final GraphRenderingOptions renderingOptions,
-                              final GraphSelection selection) {
+                              final GraphSelection selection,
+                              final boolean parallelPacking) {
+        final NodesSnapshot snapshot = snapshots.acquireForWriting();
+        snapshot.zoom = zoom;
+        snapshot.viewBoundaries = viewBoundaries;
+
         if (!renderingOptions.isShowNodes()) {
-            instanceCounter.clearCount();
+            snapshot.instanceCounter.clearCount();
+            Arrays.fill(snapshot.lodBucketCounts, 0);
+            snapshot.maxNodeSize = 0;
+            snapshot.someSelection = false;
+            snapshots.publish(snapshot);
             return;
         }
 
@@ -223,19 +372,34 @@ public abstract class AbstractNodeData {
 
         final int totalNodes = spatialIndex.getNodeCount();
 
-        attributesBuffer.ensureCapacity(totalNodes * ATTRIBS_STRIDE);
+        snapshot.attributesBuffer.ensureCapacity(totalNodes * attributesStride);
         if (indirectCommands) {
-            commandsBuffer.ensureCapacity(totalNodes * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+            snapshot.commandsBuffer.ensureCapacity(totalNodes * INDIRECT_DRAW_COMMAND_INTS_COUNT);
         }
 
-        final FloatBuffer attribs = attributesBuffer.floatBuffer();
-        final IntBuffer commands = indirectCommands ? commandsBuffer.intBuffer() : null;
+        final FloatBuffer attribs = snapshot.attributesBuffer.floatBuffer();
+        final IntBuffer commands = indirectCommands ? snapshot.commandsBuffer.intBuffer() : null;
 
         spatialIndex.getVisibleNodes(nodesCallback);
 
         final Node[] visibleNodesArray = nodesCallback.getNodesArray();
         final int visibleNodesCount = nodesCallback.getCount();
 
+        if (compactAttributes) {
+            computePositionsQuantization(snapshot.positionsQuantization, visibleNodesArray, visibleNodesCount);
+            packingQuantization = snapshot.positionsQuantization;
+        }
+
+        final boolean parallel = parallelPacking && visibleNodesCount >= PARALLEL_PACKING_MIN_NODES;
+        final boolean lodBucketing = isLodBucketing();
+        if (parallel || lodBucketing) {
+            packNodesChunks(snapshot, visibleNodesArray, visibleNodesCount, zoom, selection, someSelection, hideNonSelected, parallel, lodBucketing, attribs, commands);
+            snapshot.someSelection = someSelection;
+            computeBlockHashes(snapshot);
+            snapshots.publish(snapshot);
+            return;
+        }
+
         int newNodesCountUnselected = 0;
         int newNodesCountSelected = 0;
 
@@ -260,7 +424,7 @@ public abstract class AbstractNodeData {
 
                     newNodesCountSelected++;
                     fillNodeAttributesData(node, attributesIndex);
-                    attributesIndex += ATTRIBS_STRIDE;
+                    attributesIndex += attributesStride;
 
                     if (attributesIndex == attributesBufferBatch.length) {
                         attribs.put(attributesBufferBatch);
@@ -291,7 +455,7 @@ public abstract class AbstractNodeData {
                     newNodesCountUnselected++;
 
                     fillNodeAttributesData(node, attributesIndex);
-                    attributesIndex += ATTRIBS_STRIDE;
+                    attributesIndex += attributesStride;
 
                     if (attributesIndex == attributesBufferBatch.length) {
                         attribs.put(attributesBufferBatch);
@@ -323,7 +487,7 @@ public abstract class AbstractNodeData {
                     newNodesCountSelected++;
 
                     fillNodeAttributesData(node, attributesIndex);
-                    attributesIndex += ATTRIBS_STRIDE;
+                    attributesIndex += attributesStride;
 
                     if (attributesIndex == attributesBufferBatch.length) {
                         attribs.put(attributesBufferBatch);
@@ -350,7 +514,7 @@ public abstract class AbstractNodeData {
                 newNodesCountSelected++;
 
                 fillNodeAttributesData(node, attributesIndex);
-                attributesIndex += ATTRIBS_STRIDE;
+                attributesIndex += attributesStride;
 
                 if (attributesIndex == attributesBufferBatch.length) {
                     attribs.put(attributesBufferBatch);
@@ -379,17 +543,244 @@ public abstract class AbstractNodeData {
             commands.put(commandsBufferBatch, 0, commandIndex);
         }
 
-        instanceCounter.unselectedCount = newNodesCountUnselected;
-        instanceCounter.selectedCount = newNodesCountSelected;
-        maxNodeSize = newMaxNodeSize;
+        snapshot.instanceCounter.unselectedCount = newNodesCountUnselected;
+        snapshot.instanceCounter.selectedCount = newNodesCountSelected;
+        Arrays.fill(snapshot.lodBucketCounts, 0);
+        snapshot.lodBucketCounts[0] = newNodesCountUnselected;
+        snapshot.lodBucketCounts[LOD_BUCKETS] = newNodesCountSelected;
+        snapshot.maxNodeSize = newMaxNodeSize;
+        snapshot.someSelection = someSelection;
+        computeBlockHashes(snapshot);
+
+        snapshots.publish(snapshot);
+    }
+
+    private static void computePositionsQuantization(final PositionsQuantization quantization, final Node[] visibleNodesArray, final int visibleNodesCount) {
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (int j = 0; j < visibleNodesCount; j++) {
+            final Node node = visibleNodesArray[j];
+            final float x = node.x();
+            final float y = node.y();
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        quantization.set(minX, minY, maxX, maxY);
+    }
+
+    private void computeBlockHashes(final NodesSnapshot snapshot) {
+        //Only instanced rendering uploads attributes to GL buffers:
+        if (instancedRendering) {
+            snapshot.attributesBlockHashes = BufferBlockHashes.compute(
+                snapshot.attributesBuffer.floatBuffer(),
+                snapshot.instanceCounter.total() * attributesStride,
+                snapshot.attributesBlockHashes
+            );
+        }
+    }
+
+    /**
+     * Same layout as the sequential packing of updateData, but the visible nodes are split in chunks, processed by the common fork-join pool when parallel.
+     * A first pass finds the target of each node (layer and LOD bucket) and counts the targets of each chunk, so each chunk knows where its nodes go in the buffers, and a second pass writes each chunk directly at its offsets.
+     * <p>
+     * With LOD bucketing the nodes of each layer are grouped by LOD bucket, otherwise all of them are in the first bucket.</p>
+     */
+    private void packNodesChunks(final NodesSnapshot snapshot,
+                                 final Node[] visibleNodesArray,
+                                 final int visibleNodesCount,
+                                 final float zoom,
+                                 final GraphSelection selection,
+                                 final boolean someSelection,
+                                 final boolean hideNonSelected,
+                                 final boolean parallel,
+                                 final boolean lodBucketing,
+                                 final FloatBuffer attribs,
+                                 final IntBuffer commands) {
+        final int chunks = (visibleNodesCount + PARALLEL_CHUNK_NODES_SIZE - 1) / PARALLEL_CHUNK_NODES_SIZE;
+        final int targets = 2 * LOD_BUCKETS;
+        final int[] chunkTargetCounts = new int[chunks * targets];
+        final float[] chunkMaxNodeSizes = new float[chunks];
+
+        if (nodeTargets.length < visibleNodesCount) {
+            nodeTargets = new byte[visibleNodesCount];
+        }
+        final byte[] nodeTargets = this.nodeTargets;
+
+        //First pass: target of each node, targets count and max node size of each chunk
+        chunksStream(chunks, parallel).forEach(chunk -> {
+            final int start = chunk * PARALLEL_CHUNK_NODES_SIZE;
+            final int end = Math.min(start + PARALLEL_CHUNK_NODES_SIZE, visibleNodesCount);
+
+            float maxNodeSize = 0;
+            for (int j = start; j < end; j++) {
+                final Node node = visibleNodesArray[j];
+                final float size = node.size();
+                maxNodeSize = Math.max(size, maxNodeSize);
+
+                //All nodes are in the main layer when there is no selection:
+                final boolean selected = !someSelection || selection.isNodeSelected(node);
+                if (!selected && hideNonSelected) {
+                    nodeTargets[j] = -1;
+                    continue;
+                }
+
+                final int target = (selected ? LOD_BUCKETS : 0) + (lodBucketing ? getLodBucket(size * zoom) : 0);
+                nodeTargets[j] = (byte) target;
+                chunkTargetCounts[chunk * targets + target]++;
+            }
+
+            chunkMaxNodeSizes[chunk] = maxNodeSize;
+        });
+
+        //Offsets of each target of each chunk. Unselected nodes go first (bottom), then selected ones (up), each layer by LOD bucket:
+        final int[] chunkTargetOffsets = new int[chunks * targets];
+        final int[] targetCounts = new int[targets];
+        int position = 0;
+        for (int target = 0; target < targets; target++) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                chunkTargetOffsets[chunk * targets + target] = position;
+                position += chunkTargetCounts[chunk * targets + target];
+                targetCounts[target] += chunkTargetCounts[chunk * targets + target];
+            }
+        }
+
+        int unselectedCount = 0;
+        for (int target = 0; target < LOD_BUCKETS; target++) {
+            unselectedCount += targetCounts[target];
+        }
+
+        float maxNodeSize = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            maxNodeSize = Math.max(chunkMaxNodeSizes[chunk], maxNodeSize);
+        }
+
+        final int totalUnselected = unselectedCount;
+
+        //Second pass: write each chunk at its offsets
+        chunksStream(chunks, parallel).forEach(chunk -> {
+            final int start = chunk * PARALLEL_CHUNK_NODES_SIZE;
+            final int end = Math.min(start + PARALLEL_CHUNK_NODES_SIZE, visibleNodesCount);
+
+            for (int target = 0; target < targets; target++) {
+                if (chunkTargetCounts[chunk * targets + target] == 0) {
+                    continue;
+                }
+
+                final int firstPosition = chunkTargetOffsets[chunk * targets + target];
+                //Instance ids start at 0 for each of the 2 attribute buffers (main/selected and secondary/unselected)
+                final int firstInstanceId = target < LOD_BUCKETS ? firstPosition : firstPosition - totalUnselected;
+                packNodesRange(visibleNodesArray, nodeTargets, start, end, (byte) target, zoom, firstPosition, firstInstanceId, attribs, commands);
+            }
+        });
+
+        snapshot.instanceCounter.unselectedCount = totalUnselected;
+        snapshot.instanceCounter.selectedCount = position - totalUnselected;
+        System.arraycopy(targetCounts, 0, snapshot.lodBucketCounts, 0, targets);
+        snapshot.maxNodeSize = maxNodeSize;
+    }
+
+    private static IntStream chunksStream(final int chunks, final boolean parallel) {
+        final IntStream stream = IntStream.range(0, chunks);
+        return parallel ? stream.parallel() : stream;
+    }
+
+    /**
+     * Writes the nodes of a range with the given target, possibly from a worker thread.
+     */
+    private void packNodesRange(final Node[] visibleNodesArray,
+                                final byte[] nodeTargets,
+                                final int start,
+                                final int end,
+                                final byte target,
+                                final float zoom,
+                                final int firstPosition,
+                                final int firstInstanceId,
+                                final FloatBuffer attribs,
+                                final IntBuffer commands) {
+        float[] attributesBatch = PARALLEL_ATTRIBUTES_BATCH.get();
+        if (attributesBatch.length != attributesStride * PARALLEL_BATCH_NODES_SIZE) {
+            //Batches must hold a whole number of nodes of the current layout:
+            attributesBatch = new float[attributesStride * PARALLEL_BATCH_NODES_SIZE];
+            PARALLEL_ATTRIBUTES_BATCH.set(attributesBatch);
+        }
+        final int[] commandsBatch = indirectCommands ? PARALLEL_COMMANDS_BATCH.get() : null;
+
+        //Duplicates share the content but have their own position:
+        final FloatBuffer attribsTarget = attribs.duplicate();
+        attribsTarget.position(firstPosition * attributesStride);
+        final IntBuffer commandsTarget = indirectCommands ? commands.duplicate() : null;
+        if (indirectCommands) {
+            commandsTarget.position(firstPosition * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+        }
+
+        int attributesIndex = 0;
+        int commandIndex = 0;
+        int instanceId = firstInstanceId;
+        for (int j = start; j < end; j++) {
+            if (nodeTargets[j] != target) {
+                continue;
+            }
+
+            final Node node = visibleNodesArray[j];
+
+            fillNodeAttributesData(node, attributesBatch, attributesIndex);
+            attributesIndex += attributesStride;
+
+            if (attributesIndex == attributesBatch.length) {
+                attribsTarget.put(attributesBatch);
+                attributesIndex = 0;
+            }
+
+            if (indirectCommands) {
+                fillNodeCommandData(node, zoom, commandsBatch, commandIndex, instanceId);
+                instanceId++;
+                commandIndex += INDIRECT_DRAW_COMMAND_INTS_COUNT;
+
+                if (commandIndex == commandsBatch.length) {
+                    commandsTarget.put(commandsBatch);
+                    commandIndex = 0;
+                }
+            }
+        }
+
+        //Remaining:
+        if (attributesIndex > 0) {
+            attribsTarget.put(attributesBatch, 0, attributesIndex);
+        }
+
+        if (indirectCommands && commandIndex > 0) {
+            commandsTarget.put(commandsBatch, 0, commandIndex);
+        }
     }
 
     protected void fillNodeAttributesData(final Node node, final int index) {
+        fillNodeAttributesData(node, attributesBufferBatch, index);
+    }
+
+    protected void fillNodeAttributesData(final Node node, final float[] attributesBufferBatch, final int index) {
         final float x = node.x();
         final float y = node.y();
         final float size = node.size();
         final int rgba = node.getRGBA();
 
+        if (compactAttributes) {
+            //Position:
+            attributesBufferBatch[index] = packingQuantization.pack(x, y);
+
+            //Color:
+            attributesBufferBatch[index + 1] = Float.intBitsToFloat(rgba);
+
+            //Size:
+            attributesBufferBatch[index + 2] = Float.intBitsToFloat(NumberUtils.toHalfFloatBits(size));
+            return;
+        }
+
         //Position:
         attributesBufferBatch[index] = x;
         attributesBufferBatch[index + 1] = y;
@@ -402,29 +793,17 @@ public abstract class AbstractNodeData {
     }
 
     protected void fillNodeCommandData(final Node node, final float zoom, final int index, final int instanceId) {
+        fillNodeCommandData(node, zoom, commandsBufferBatch, index, instanceId);
+    }
+
+    protected void fillNodeCommandData(final Node node, final float zoom, final int[] commandsBufferBatch, final int index, final int instanceId) {
         //Indirect Draw:
         //Choose LOD:
-        final float observedSize = node.size() * zoom;
-
-        final int circleVertexCount;
-        final int firstVertex;
-        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
-            circleVertexCount = circleVertexCount64;
-            firstVertex = firstVertex64;
-        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
-            circleVertexCount = circleVertexCount32;
-            firstVertex = firstVertex32;
-        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
-            circleVertexCount = circleVertexCount16;
-            firstVertex = firstVertex16;
-        } else {
-            circleVertexCount = circleVertexCount8;
-            firstVertex = firstVertex8;
-        }
+        final int lodBucket = getLodBucket(node.size() * zoom);
 
-        commandsBufferBatch[index] = circleVertexCount;//vertex count
+        commandsBufferBatch[index] = lodVertexCount[lodBucket];//vertex count
         commandsBufferBatch[index + 1] = 1;//instance count
-        commandsBufferBatch[index + 2] = firstVertex;//first vertex
+        commandsBufferBatch[index + 2] = lodFirstVertex[lodBucket];//first vertex
         commandsBufferBatch[index + 3] = instanceId;//base instance
     }
 
@@ -465,12 +844,55 @@ public abstract class AbstractNodeData {
         }
     }
 
+    /**
+     * Points the instanced attributes of the vertex array in use for a layer to an instance, to draw from it when base instance is not available.
+     * Must be set back to 0 after drawing.
+     *
+     * @param gl GL
+     * @param layer Layer being drawn
+     * @param firstInstance First instance to draw
+     */
+    protected void setInstancedAttributesOffset(GL2ES2 gl, RenderingLayer layer, int firstInstance) {
+        final NodesVAO vao = layer.isBack() ? nodesVAOSecondary : nodesVAO;
+        if (vao != null) {
+            vao.configureInstancedAttributes(gl, (long) firstInstance * attributesStride * Float.BYTES);
+        }
+    }
+
+    /**
+     * Destroys the vertex arrays, so they are configured again with the current attributes buffers.
+     *
+     * @param gl GL
+     */
+    protected void resetVertexArrayAttributes(GL2ES2 gl) {
+        if (nodesVAO != null) {
+            nodesVAO.destroy(gl);
+            nodesVAO = null;
+        }
+
+        if (nodesVAOSecondary != null) {
+            nodesVAOSecondary.destroy(gl);
+            nodesVAOSecondary = null;
+        }
+    }
+
+    public void reportMetrics(EngineMetrics metrics) {
+        metrics.addVisibleNodes(instanceCounter.totalToDraw());
+        metrics.addUploadedBytes(uploadedBytes);
+        uploadedBytes = 0;
+
+        if (snapshots != null) {
+            snapshots.forEach(snapshot -> metrics.addDirectBuffersCapacity(snapshot.getCapacityBytes()));
+        }
+    }
+
     public void dispose(GL gl) {
         attributesBufferBatch = null;
         commandsBufferBatch = null;
-        if (attributesBuffer != null) {
-            attributesBuffer.destroy();
-            attributesBuffer = null;
+        if (snapshots != null) {
+            snapshots.forEach(NodesSnapshot::destroy);
+            snapshots = null;
+            snapshotToDraw = null;
         }
 
         if (vertexGLBuffer != null) {
@@ -487,14 +909,54 @@ public abstract class AbstractNodeData {
             attributesGLBufferSecondary.destroy(gl);
             attributesGLBufferSecondary = null;
         }
-        if (commandsBuffer != null) {
-            commandsBuffer.destroy();
-            commandsBuffer = null;
-        }
+
+        attributesUploader.reset();
+        attributesSecondaryUploader.reset();
 
         nodesCallback.reset();
     }
 
+    /**
+     * Nodes data built by a world update.
+     * <p>
+     * Attributes are in world coordinates, so drawing a snapshot with the current camera transform compensates any camera change since the snapshot was built.
+     */
+    protected static class NodesSnapshot {
+
+        public final ManagedDirectBuffer attributesBuffer;
+        public final ManagedDirectBuffer commandsBuffer;
+        public final InstanceCounter instanceCounter = new InstanceCounter();
+        //Instances of each layer (unselected first) and LOD bucket:
+        public final int[] lodBucketCounts = new int[2 * LOD_BUCKETS];
+        public float maxNodeSize = 0;
+        public boolean someSelection = false;
+        //Block hashes of the attributes, to only upload the changed ones:
+        public long[] attributesBlockHashes = new long[0];
+
+        //View the snapshot was built for:
+        public float zoom;
+        public Rect2D viewBoundaries;
+
+        //Box of the quantized positions, with the compact attributes layout:
+        public final PositionsQuantization positionsQuantization = new PositionsQuantization();
+
+        public NodesSnapshot(final boolean indirectCommands) {
+            attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE);
+            commandsBuffer = indirectCommands ? new ManagedDirectBuffer(GL_UNSIGNED_INT, INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE) : null;
+        }
+
+        public long getCapacityBytes() {
+            return attributesBuffer.getCapacityBytes() + (commandsBuffer != null ? commandsBuffer.getCapacityBytes() : 0);
+        }
+
+        public void destroy() {
+            attributesBuffer.destroy();
+            if (commandsBuffer != null) {
+                commandsBuffer.destroy();
+            }
+        }
+    }
+
     private class NodesVAO extends GLVertexArrayObject {
 
         private final GLBuffer vertexBuffer;
@@ -515,10 +977,31 @@ public abstract class AbstractNodeData {
             vertexBuffer.unbind(gl);
 
             if (instancedRendering) {
+                configureInstancedAttributes(gl, 0);
+            }
+        }
+
+        public void configureInstancedAttributes(GL2ES2 gl, long firstInstanceOffset) {
+            if (compactAttributes) {
+                attributesBuffer.bind(gl);
+                {
+                    final int stride = COMPACT_ATTRIBS_STRIDE * Float.BYTES;
+                    long offset = firstInstanceOffset;
+
+                    gl.glVertexAttribPointer(SHADER_POSITION_LOCATION, NodeDiskModel.POSITION_FLOATS, GL_UNSIGNED_SHORT, true, stride, offset);
+                    offset += Float.BYTES;
+
+                    gl.glVertexAttribPointer(SHADER_COLOR_LOCATION, NodeDiskModel.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+                    offset += NodeDiskModel.COLOR_FLOATS * Float.BYTES;
+
+                    gl.glVertexAttribPointer(SHADER_SIZE_LOCATION, NodeDiskModel.SIZE_FLOATS, GL2ES3.GL_HALF_FLOAT, false, stride, offset);
+                }
+                attributesBuffer.unbind(gl);
+            } else {
                 attributesBuffer.bind(gl);
                 {
                     final int stride = ATTRIBS_STRIDE * Float.BYTES;
-                    int offset = 0;
+                    long offset = firstInstanceOffset;
 
                     gl.glVertexAttribPointer(SHADER_POSITION_LOCATION, NodeDiskModel.POSITION_FLOATS, GL_FLOAT, false, stride, offset);
                     offset += NodeDiskModel.POSITION_FLOATS * Float.BYTES;
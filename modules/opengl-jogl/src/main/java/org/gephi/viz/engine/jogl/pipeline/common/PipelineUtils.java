@@ -0,0 +1,23 @@
+package org.gephi.viz.engine.jogl.pipeline.common;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class PipelineUtils {
+
+    private PipelineUtils() {
+    }
+
+    /**
+     * @param engine Engine
+     * @return True unless parallel packing is disabled in {@link OpenGLOptions}
+     */
+    public static boolean isParallelPackingEnabled(final VizEngine engine) {
+        final OpenGLOptions openGLOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        return openGLOptions == null || !openGLOptions.isDisableParallelPacking();
+    }
+}
@@ -0,0 +1,297 @@
+package org.gephi.viz.engine.jogl.pipeline.density;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.jogl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.jogl.util.gl.GLVertexArrayObject;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.pipeline.common.WorldSnapshotRing;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.gl.Constants;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.gephi.viz.engine.util.structure.NodesDensityGridCallback;
+
+import static com.jogamp.opengl.GL.GL_BLEND;
+import static com.jogamp.opengl.GL.GL_BLEND_DST_RGB;
+import static com.jogamp.opengl.GL.GL_BLEND_SRC_RGB;
+import static com.jogamp.opengl.GL.GL_CLAMP_TO_EDGE;
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import static com.jogamp.opengl.GL.GL_LINEAR;
+import static com.jogamp.opengl.GL.GL_ONE;
+import static com.jogamp.opengl.GL.GL_ONE_MINUS_SRC_ALPHA;
+import static com.jogamp.opengl.GL.GL_RGBA;
+import static com.jogamp.opengl.GL.GL_TEXTURE0;
+import static com.jogamp.opengl.GL.GL_TEXTURE_2D;
+import static com.jogamp.opengl.GL.GL_TEXTURE_MAG_FILTER;
+import static com.jogamp.opengl.GL.GL_TEXTURE_MIN_FILTER;
+import static com.jogamp.opengl.GL.GL_TEXTURE_WRAP_S;
+import static com.jogamp.opengl.GL.GL_TEXTURE_WRAP_T;
+import static com.jogamp.opengl.GL.GL_TRIANGLES;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
+import static org.gephi.viz.engine.util.gl.Constants.ATTRIB_NAME_VERT;
+import static org.gephi.viz.engine.util.gl.Constants.SHADER_VERT_LOCATION;
+import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_NAME_DENSITY_TEXTURE;
+import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_NAME_GRID_BOUNDS;
+import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_NAME_MODEL_VIEW_PROJECTION;
+
+/**
+ * Density of the nodes culled for being smaller than {@link GraphRenderingOptions#getMinObservedSize()}, accumulated in world updates into a grid of a few screen pixels per cell and drawn as a single textured quad.
+ * <p>
+ * The work per frame is bounded by the screen resolution instead of the number of culled nodes.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class DensityGridData {
+
+    //Screen pixels per grid cell:
+    private static final int CELL_PIXELS = 4;
+    private static final int MAX_GRID_SIZE = 1024;
+
+    private static final int DENSITY_TEXTURE_UNIT = 0;
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "density";
+
+    public static final int VERTEX_COUNT = 6; // 2 triangles
+    public static final int VERTEX_FLOATS = 2;
+
+    private final int[] bufferName = new int[1];
+    private final int[] textureName = new int[1];
+
+    private GLShaderProgram program;
+    private GLBufferMutable vertexGLBuffer;
+    private DensityGridVAO vao;
+
+    private final NodesDensityGridCallback gridCallback = new NodesDensityGridCallback();
+    private WorldSnapshotRing<DensitySnapshot> snapshots;
+
+    //State:
+    private boolean someDensityToDraw = false;
+    private final float[] gridBoundsToDraw = new float[4];
+
+    private final int[] intData = new int[2];
+    private final byte[] booleanData = new byte[1];
+    //Bytes uploaded to the texture since the last metrics report:
+    private long uploadedBytes = 0;
+
+    public void init(GL2ES2 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT, "density", "density")
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_GRID_BOUNDS)
+            .addUniformName(UNIFORM_NAME_DENSITY_TEXTURE)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .init(gl);
+
+        gl.glGenBuffers(bufferName.length, bufferName, 0);
+
+        //Unit quad, scaled to the grid bounds in the vertex shader:
+        final FloatBuffer quadVertexBuffer = GLBuffers.newDirectFloatBuffer(new float[]{
+            //Triangle 1:
+            0, 0,
+            0, 1,
+            1, 0,
+            //Triangle 2:
+            0, 1,
+            1, 1,
+            1, 0
+        });
+
+        vertexGLBuffer = new GLBufferMutable(bufferName[0], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        vertexGLBuffer.bind(gl);
+        vertexGLBuffer.init(gl, quadVertexBuffer, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        vertexGLBuffer.unbind(gl);
+
+        gl.glGenTextures(1, textureName, 0);
+        gl.glBindTexture(GL_TEXTURE_2D, textureName[0]);
+        gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        gl.glBindTexture(GL_TEXTURE_2D, 0);
+
+        snapshots = new WorldSnapshotRing<>(DensitySnapshot::new);
+    }
+
+    public void update(VizEngine engine, GraphIndexImpl graphIndex) {
+        final DensitySnapshot snapshot = snapshots.acquireForWriting();
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        if (!renderingOptions.isShowNodes() || !renderingOptions.isShowSubPixelDensity() || renderingOptions.getMinObservedSize() <= 0) {
+            snapshot.empty = true;
+            snapshots.publish(snapshot);
+            return;
+        }
+
+        final Rect2D bounds = engine.getCullingBoundaries();
+        final float zoom = engine.getZoom();
+        final int width = Math.max(1, Math.min((int) Math.ceil(bounds.width() * zoom / CELL_PIXELS), MAX_GRID_SIZE));
+        final int height = Math.max(1, Math.min((int) Math.ceil(bounds.height() * zoom / CELL_PIXELS), MAX_GRID_SIZE));
+
+        gridCallback.setup(bounds, width, height, zoom);
+        graphIndex.getSubPixelNodes(gridCallback);
+
+        if (gridCallback.getCount() == 0) {
+            snapshot.empty = true;
+            snapshots.publish(snapshot);
+            return;
+        }
+
+        snapshot.rgbaBuffer.ensureCapacity(width * height * 4);
+        gridCallback.fillRGBA(snapshot.rgbaBuffer.byteBuffer());
+
+        snapshot.empty = false;
+        snapshot.bounds = bounds;
+        snapshot.width = width;
+        snapshot.height = height;
+        snapshots.publish(snapshot);
+    }
+
+    public void updateTexture(GL2ES2 gl) {
+        final DensitySnapshot snapshot = snapshots.acquireNewestForDrawing();
+        if (snapshot == null) {
+            //Nothing new to upload
+            return;
+        }
+
+        someDensityToDraw = !snapshot.empty;
+        if (!someDensityToDraw) {
+            return;
+        }
+
+        gridBoundsToDraw[0] = snapshot.bounds.minX;
+        gridBoundsToDraw[1] = snapshot.bounds.minY;
+        gridBoundsToDraw[2] = snapshot.bounds.maxX;
+        gridBoundsToDraw[3] = snapshot.bounds.maxY;
+
+        final ByteBuffer buf = snapshot.rgbaBuffer.byteBuffer();
+        buf.limit(snapshot.width * snapshot.height * 4);
+
+        gl.glBindTexture(GL_TEXTURE_2D, textureName[0]);
+        gl.glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, snapshot.width, snapshot.height, 0, GL_RGBA, GL_UNSIGNED_BYTE, buf);
+        gl.glBindTexture(GL_TEXTURE_2D, 0);
+
+        uploadedBytes += buf.remaining();
+    }
+
+    public void draw(GL2ES2 gl, VizEngine engine, float[] mvpFloats) {
+        if (!someDensityToDraw) {
+            return;
+        }
+
+        if (vao == null) {
+            vao = new DensityGridVAO(
+                engine.getLookup().lookup(GLCapabilitiesSummary.class),
+                engine.getLookup().lookup(OpenGLOptions.class)
+            );
+        }
+
+        program.use(gl);
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_GRID_BOUNDS), 1, gridBoundsToDraw, 0);
+        gl.glUniform1i(program.getUniformLocation(UNIFORM_NAME_DENSITY_TEXTURE), DENSITY_TEXTURE_UNIT);
+
+        gl.glActiveTexture(GL_TEXTURE0 + DENSITY_TEXTURE_UNIT);
+        gl.glBindTexture(GL_TEXTURE_2D, textureName[0]);
+
+        vao.use(gl);
+
+        gl.glGetBooleanv(GL_BLEND, booleanData, 0);
+        gl.glGetIntegerv(GL_BLEND_SRC_RGB, intData, 0);
+        gl.glGetIntegerv(GL_BLEND_DST_RGB, intData, 1);
+
+        final boolean blendEnabled = booleanData[0] > 0;
+
+        if (!blendEnabled) {
+            gl.glEnable(GL_BLEND);
+        }
+        //Premultiplied alpha:
+        gl.glBlendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
+
+        gl.glDrawArrays(GL_TRIANGLES, 0, VERTEX_COUNT);
+
+        //Restore state:
+        gl.glBlendFunc(intData[0], intData[1]);
+        if (!blendEnabled) {
+            gl.glDisable(GL_BLEND);
+        }
+
+        vao.stopUsing(gl);
+        gl.glBindTexture(GL_TEXTURE_2D, 0);
+        program.stopUsing(gl);
+    }
+
+    public void reportMetrics(EngineMetrics metrics) {
+        metrics.addUploadedBytes(uploadedBytes);
+        uploadedBytes = 0;
+
+        if (snapshots != null) {
+            snapshots.forEach(snapshot -> metrics.addDirectBuffersCapacity(snapshot.rgbaBuffer.getCapacityBytes()));
+        }
+    }
+
+    public void dispose(GL gl) {
+        if (snapshots != null) {
+            snapshots.forEach(snapshot -> snapshot.rgbaBuffer.destroy());
+            snapshots = null;
+        }
+
+        if (vertexGLBuffer != null) {
+            vertexGLBuffer.destroy(gl);
+            vertexGLBuffer = null;
+        }
+
+        if (vao != null) {
+            vao.destroy(gl.getGL2ES2());
+            vao = null;
+        }
+
+        gl.glDeleteTextures(1, textureName, 0);
+        gridCallback.reset();
+        someDensityToDraw = false;
+    }
+
+    private static class DensitySnapshot {
+
+        public final ManagedDirectBuffer rgbaBuffer = new ManagedDirectBuffer(GL_UNSIGNED_BYTE, 4 * 256 * 256);
+        public boolean empty = true;
+        public Rect2D bounds;
+        public int width;
+        public int height;
+    }
+
+    private class DensityGridVAO extends GLVertexArrayObject {
+
+        public DensityGridVAO(GLCapabilitiesSummary capabilities, OpenGLOptions openGLOptions) {
+            super(capabilities, openGLOptions);
+        }
+
+        @Override
+        protected void configure(GL2ES2 gl) {
+            vertexGLBuffer.bind(gl);
+            {
+                gl.glVertexAttribPointer(SHADER_VERT_LOCATION, VERTEX_FLOATS, GL_FLOAT, false, 0, 0);
+            }
+            vertexGLBuffer.unbind(gl);
+        }
+
+        @Override
+        protected int[] getUsedAttributeLocations() {
+            return new int[]{
+                SHADER_VERT_LOCATION
+            };
+        }
+
+        @Override
+        protected int[] getInstancedAttributeLocations() {
+            return null;
+        }
+    }
+}
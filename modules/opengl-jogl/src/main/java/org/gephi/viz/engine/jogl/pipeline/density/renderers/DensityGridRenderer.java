@@ -0,0 +1,76 @@
+package org.gephi.viz.engine.jogl.pipeline.density.renderers;
+
+import java.util.EnumSet;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
+import org.gephi.viz.engine.jogl.pipeline.density.DensityGridData;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.util.gl.Constants;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class DensityGridRenderer implements Renderer<JOGLRenderingTarget> {
+
+    private final VizEngine engine;
+    private final DensityGridData densityData;
+
+    public DensityGridRenderer(VizEngine engine, DensityGridData densityData) {
+        this.engine = engine;
+        this.densityData = densityData;
+    }
+
+    @Override
+    public void init(JOGLRenderingTarget target) {
+        //NOOP
+    }
+
+    @Override
+    public void worldUpdated(JOGLRenderingTarget target) {
+        densityData.updateTexture(target.getDrawable().getGL().getGL2ES2());
+    }
+
+    private final float[] mvpFloats = new float[16];
+
+    @Override
+    public void render(JOGLRenderingTarget target, RenderingLayer layer) {
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+
+        densityData.draw(target.getDrawable().getGL().getGL2ES2(), engine, mvpFloats);
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        densityData.reportMetrics(metrics);
+    }
+
+    @Override
+    public EnumSet<RenderingLayer> getLayers() {
+        //Behind everything else
+        return EnumSet.of(RenderingLayer.BACK1);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.SUB_PIXEL_DENSITY;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "Sub-pixel density";
+    }
+
+    @Override
+    public int getOrder() {
+        return Constants.RENDERING_ORDER_DENSITY;
+    }
+}
@@ -0,0 +1,60 @@
+package org.gephi.viz.engine.jogl.pipeline.density.updaters;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
+import org.gephi.viz.engine.jogl.pipeline.density.DensityGridData;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class DensityGridUpdater implements WorldUpdater<JOGLRenderingTarget> {
+
+    private final VizEngine engine;
+    private final DensityGridData densityData;
+    private final GraphIndexImpl spatialIndex;
+
+    public DensityGridUpdater(VizEngine engine, DensityGridData densityData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.densityData = densityData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(JOGLRenderingTarget target) {
+        densityData.init(target.getDrawable().getGL().getGL2ES2());
+    }
+
+    @Override
+    public void dispose(JOGLRenderingTarget target) {
+        densityData.dispose(target.getDrawable().getGL().getGL2ES2());
+    }
+
+    @Override
+    public void updateWorld() {
+        densityData.update(engine, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.SUB_PIXEL_DENSITY;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "Sub-pixel density";
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,119 @@
+package org.gephi.viz.engine.jogl.pipeline.impostor;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.FloatBuffer;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.models.NodeImpostorModel;
+import org.gephi.viz.engine.jogl.pipeline.instanced.InstancedNodeData;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+
+import static com.jogamp.opengl.GL.GL_SAMPLE_ALPHA_TO_COVERAGE;
+
+/**
+ * Instanced nodes drawn with {@link NodeImpostorModel}: one quad per node and a single draw per layer, instead of two tessellated discs (border and inside).
+ * <p>
+ * Attributes and their upload are the same as {@link InstancedNodeData}.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class ImpostorNodeData extends InstancedNodeData {
+
+    private final NodeImpostorModel impostorModel = new NodeImpostorModel();
+
+    @Override
+    protected boolean isLodBucketing() {
+        //Same quad for every node
+        return false;
+    }
+
+    @Override
+    protected void initGLPrograms(GL2ES2 gl) {
+        impostorModel.initGLPrograms(gl);
+    }
+
+    @Override
+    protected void initVertexGLBuffer(GL gl, final int bufferName) {
+        final FloatBuffer quadVertexBuffer = GLBuffers.newDirectFloatBuffer(NodeImpostorModel.getVertexData());
+        vertexGLBuffer = new GLBufferMutable(bufferName, GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        vertexGLBuffer.bind(gl);
+        vertexGLBuffer.init(gl, quadVertexBuffer, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        vertexGLBuffer.unbind(gl);
+    }
+
+    public void drawImpostors(GL2ES3 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats, int framebufferWidth) {
+        final int instanceCount = setupImpostorProgramForRenderingLayer(gl, layer, engine, mvpFloats, framebufferWidth);
+
+        if (instanceCount <= 0) {
+            impostorModel.stopUsingProgram(gl);
+            unsetupVertexArrayAttributes(gl);
+            return;
+        }
+
+        //Antialiased edges without blending, when multisampling:
+        gl.glEnable(GL_SAMPLE_ALPHA_TO_COVERAGE);
+        if (isAttributesStreaming()) {
+            impostorModel.drawInstanced(gl.getGL4(), instanceCount, getAttributesBaseInstance(layer));
+        } else {
+            impostorModel.drawInstanced(gl, instanceCount);
+        }
+        gl.glDisable(GL_SAMPLE_ALPHA_TO_COVERAGE);
+
+        impostorModel.stopUsingProgram(gl);
+        unsetupVertexArrayAttributes(gl);
+    }
+
+    private int setupImpostorProgramForRenderingLayer(final GL2ES2 gl,
+                                                      final RenderingLayer layer,
+                                                      final VizEngine engine,
+                                                      final float[] worldMvpFloats,
+                                                      final int framebufferWidth) {
+        //Use the selection state of the data being drawn, not the current one:
+        final boolean someSelection = someSelectionToDraw;
+        final boolean renderingUnselectedNodes = layer.isBack();
+        if (!someSelection && renderingUnselectedNodes) {
+            return 0;
+        }
+
+        final float[] mvpFloats = getModelViewProjectionToDraw(worldMvpFloats);
+        final float sizeMultiplier = getWorldScaleToDraw();
+
+        //Framebuffer pixels, not window ones, which differ on HiDPI screens:
+        final Rect2D viewBoundaries = engine.getViewBoundaries();
+        final float pixelSize = (viewBoundaries.maxX - viewBoundaries.minX) / Math.max(1, framebufferWidth) * sizeMultiplier;
+
+        final int instanceCount;
+        if (renderingUnselectedNodes) {
+            instanceCount = instanceCounter.unselectedCountToDraw;
+            final float colorLightenFactor = engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor();
+            impostorModel.useProgramWithSelectionUnselected(
+                gl,
+                mvpFloats,
+                sizeMultiplier,
+                pixelSize,
+                BORDER_SIZE,
+                engine.getBackgroundColor(),
+                colorLightenFactor
+            );
+
+            setupSecondaryVertexArrayAttributes(gl, engine);
+        } else {
+            instanceCount = instanceCounter.selectedCountToDraw;
+
+            if (someSelection) {
+                impostorModel.useProgramWithSelectionSelected(gl, mvpFloats, sizeMultiplier, pixelSize, BORDER_SIZE);
+            } else {
+                impostorModel.useProgram(gl, mvpFloats, sizeMultiplier, pixelSize, BORDER_SIZE);
+            }
+
+            setupVertexArrayAttributes(gl, engine);
+        }
+
+        return instanceCount;
+    }
+}
@@ -0,0 +1,64 @@
+package org.gephi.viz.engine.jogl.pipeline.impostor.renderers;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.ImpostorNodesDraw;
+import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
+import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeRenderer;
+import org.gephi.viz.engine.jogl.pipeline.impostor.ImpostorNodeData;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeRendererImpostor extends AbstractNodeRenderer {
+
+    private final VizEngine engine;
+    private final ImpostorNodeData nodeData;
+
+    public NodeRendererImpostor(VizEngine engine, ImpostorNodeData nodeData) {
+        this.engine = engine;
+        this.nodeData = nodeData;
+    }
+
+    @Override
+    public void init(JOGLRenderingTarget target) {
+        //NOOP
+    }
+
+    @Override
+    public void worldUpdated(JOGLRenderingTarget target) {
+        nodeData.updateBuffers(target.getDrawable().getGL(), engine);
+    }
+
+    private final float[] mvpFloats = new float[16];
+
+    @Override
+    public void render(JOGLRenderingTarget target, RenderingLayer layer) {
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+        final GLAutoDrawable drawable = target.getDrawable();
+        nodeData.drawImpostors(drawable.getGL().getGL2ES3(), layer, engine, mvpFloats, drawable.getSurfaceWidth());
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        nodeData.reportMetrics(metrics);
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return ImpostorNodesDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Nodes (Impostors)";
+    }
+
+    @Override
+    public boolean isAvailable(JOGLRenderingTarget target) {
+        return ImpostorNodesDraw.isAvailable(engine, target.getDrawable());
+    }
+}
@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.jogl.pipeline.impostor.updaters;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.CompactAttributes;
+import org.gephi.viz.engine.jogl.availability.ImpostorNodesDraw;
+import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.jogl.pipeline.impostor.ImpostorNodeData;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesUpdaterImpostorRendering implements WorldUpdater<JOGLRenderingTarget> {
+
+    private final VizEngine engine;
+    private final ImpostorNodeData nodeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public NodesUpdaterImpostorRendering(VizEngine engine, ImpostorNodeData nodeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.nodeData = nodeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(JOGLRenderingTarget target) {
+        nodeData.init(target.getDrawable().getGL().getGL2ES2(), CompactAttributes.isAvailable(engine, target.getDrawable().getGL()));
+    }
+
+    @Override
+    public void dispose(JOGLRenderingTarget target) {
+        nodeData.dispose(target.getDrawable().getGL());
+    }
+
+    @Override
+    public void updateWorld() {
+        nodeData.update(engine, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.NODE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return ImpostorNodesDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Nodes (Impostors)";
+    }
+
+    @Override
+    public boolean isAvailable(JOGLRenderingTarget target) {
+        return ImpostorNodesDraw.isAvailable(engine, target.getDrawable());
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
@@ -0,0 +1,570 @@
+package org.gephi.viz.engine.jogl.pipeline.indexed;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.models.EdgeLineModelIndexed;
+import org.gephi.viz.engine.jogl.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.jogl.util.gl.GLBuffer;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferDirtyRangesUploader;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.jogl.util.gl.GLVertexArrayObject;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.pipeline.common.WorldSnapshotRing;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.BufferBlockHashes;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.gephi.viz.engine.util.structure.EdgesCallback;
+
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import static com.jogamp.opengl.GL2ES2.GL_INT;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
+import static org.gephi.viz.engine.util.gl.Constants.*;
+
+/**
+ * Edges data where each edge instance only references its source and target by node store id, besides its weight and color.
+ * <p>
+ * Positions, sizes and colors of the nodes are written once per node in a texture buffer, and fetched by the vertex shader. Compared to the instanced edges, that copy the data of both nodes into every edge, the edges attributes are 4 floats instead of 10, and moving nodes only changes the nodes texture buffer, so the edges blocks are skipped by the dirty ranges upload.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class IndexedEdgeData {
+
+    private static final int ATTRIBS_STRIDE = EdgeLineModelIndexed.TOTAL_ATTRIBUTES_FLOATS;
+    private static final int NODE_FLOATS = EdgeLineModelIndexed.NODE_FLOATS;
+    /**
+     * RGBA32UI texels per node in the nodes texture buffer.
+     */
+    public static final int NODE_TEXELS = NODE_FLOATS / 4;
+    private static final int BATCH_EDGES_SIZE = 32768;
+    private static final int NODES_DATA_TEXTURE_UNIT = 0;
+
+    //Buckets, in the order of the attributes buffer:
+    private static final int BUCKET_NONE = -1;
+    private static final int BUCKET_UNDIRECTED_UNSELECTED = 0;
+    private static final int BUCKET_UNDIRECTED_SELECTED = 1;
+    private static final int BUCKET_DIRECTED_UNSELECTED = 2;
+    private static final int BUCKET_DIRECTED_SELECTED = 3;
+    private static final int BUCKETS_COUNT = 4;
+
+    private final EdgeLineModelIndexed lineModelUndirected = new EdgeLineModelIndexed(false);
+    private final EdgeLineModelIndexed lineModelDirected = new EdgeLineModelIndexed(true);
+
+    private final InstanceCounter undirectedInstanceCounter = new InstanceCounter();
+    private final InstanceCounter directedInstanceCounter = new InstanceCounter();
+    private boolean someSelectionToDraw = false;
+
+    private final EdgesCallback edgesCallback = new EdgesCallback();
+
+    //Nodes with a higher store id don't fit in the nodes texture buffer:
+    private int maxNodes = Integer.MAX_VALUE;
+    private boolean maxNodesWarned = false;
+
+    private WorldSnapshotRing<IndexedEdgesSnapshot> snapshots;
+    //Bytes uploaded to GPU buffers since the last metrics report:
+    private long uploadedBytes = 0;
+
+    //Packing arrays, only used by the world updater:
+    private float[] nodesData = new float[0];
+    private float[] attributesData = new float[0];
+    private byte[] edgeBuckets = new byte[0];
+
+    private final int[] bufferName = new int[4];
+
+    private static final int VERT_BUFFER_UNDIRECTED = 0;
+    private static final int VERT_BUFFER_DIRECTED = 1;
+    private static final int ATTRIBS_BUFFER = 2;
+    private static final int NODES_BUFFER = 3;
+
+    private GLBuffer vertexGLBufferUndirected;
+    private GLBuffer vertexGLBufferDirected;
+    private GLBuffer attributesGLBuffer;
+    private GLBuffer nodesGLBuffer;
+    private final int[] nodesTextureName = new int[1];
+    private final GLBufferDirtyRangesUploader attributesUploader = new GLBufferDirtyRangesUploader();
+    private final GLBufferDirtyRangesUploader nodesUploader = new GLBufferDirtyRangesUploader();
+
+    //First instance of each bucket in the attributes buffer:
+    private final int[] bucketBaseInstances = new int[BUCKETS_COUNT];
+
+    private EdgesVAO undirectedEdgesVAO;
+    private EdgesVAO directedEdgesVAO;
+
+    public void init(GL4 gl) {
+        final int[] maxTextureBufferSize = new int[1];
+        gl.glGetIntegerv(GL4.GL_MAX_TEXTURE_BUFFER_SIZE, maxTextureBufferSize, 0);
+        maxNodes = maxTextureBufferSize[0] / NODE_TEXELS;
+
+        lineModelUndirected.initGLPrograms(gl);
+        lineModelDirected.initGLPrograms(gl);
+        initBuffers(gl);
+    }
+
+    private void initBuffers(GL4 gl) {
+        gl.glGenBuffers(bufferName.length, bufferName, 0);
+
+        vertexGLBufferUndirected = new GLBufferMutable(bufferName[VERT_BUFFER_UNDIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        vertexGLBufferUndirected.bind(gl);
+        vertexGLBufferUndirected.init(gl, GLBuffers.newDirectFloatBuffer(lineModelUndirected.getVertexData()), GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        vertexGLBufferUndirected.unbind(gl);
+
+        vertexGLBufferDirected = new GLBufferMutable(bufferName[VERT_BUFFER_DIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        vertexGLBufferDirected.bind(gl);
+        vertexGLBufferDirected.init(gl, GLBuffers.newDirectFloatBuffer(lineModelDirected.getVertexData()), GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        vertexGLBufferDirected.unbind(gl);
+
+        //Initialize for batch edges size:
+        attributesGLBuffer = new GLBufferMutable(bufferName[ATTRIBS_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        attributesGLBuffer.bind(gl);
+        attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.unbind(gl);
+
+        //Uploaded as an array buffer, read as a texture buffer:
+        nodesGLBuffer = new GLBufferMutable(bufferName[NODES_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        nodesGLBuffer.bind(gl);
+        nodesGLBuffer.init(gl, NODE_FLOATS * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        nodesGLBuffer.unbind(gl);
+
+        //Unsigned integers keep the bits of the floats and colors as they are:
+        gl.glGenTextures(1, nodesTextureName, 0);
+        gl.glBindTexture(GL4.GL_TEXTURE_BUFFER, nodesTextureName[0]);
+        gl.glTexBuffer(GL4.GL_TEXTURE_BUFFER, GL4.GL_RGBA32UI, nodesGLBuffer.getId());
+        gl.glBindTexture(GL4.GL_TEXTURE_BUFFER, 0);
+
+        snapshots = new WorldSnapshotRing<>(IndexedEdgesSnapshot::new);
+    }
+
+    public void update(VizEngine engine, GraphIndexImpl graphIndex) {
+        final IndexedEdgesSnapshot snapshot = snapshots.acquireForWriting();
+        snapshot.clear();
+        snapshot.viewBoundaries = engine.getCullingBoundaries();
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final GraphSelection graphSelection = engine.getLookup().lookup(GraphSelection.class);
+
+        if (!renderingOptions.isShowEdges()) {
+            snapshots.publish(snapshot);
+            return;
+        }
+
+        graphIndex.indexEdges();
+
+        //Selection:
+        final boolean someSelection = graphSelection.someNodesOrEdgesSelection();
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
+        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
+        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+
+        snapshot.someSelection = someSelection;
+
+        //Edges with an endpoint out of the view are visible too, so the nodes data includes all nodes:
+        packNodes(graphIndex.getVisibleGraph(), snapshot);
+
+        graphIndex.getVisibleEdges(edgesCallback);
+
+        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
+        final int visibleEdgesCount = edgesCallback.getCount();
+
+        //Classification pass:
+        if (edgeBuckets.length < visibleEdgesCount) {
+            edgeBuckets = new byte[visibleEdgesCount];
+        }
+
+        final int[] bucketCounts = new int[BUCKETS_COUNT];
+        for (int j = 0; j < visibleEdgesCount; j++) {
+            final Edge edge = visibleEdgesArray[j];
+            final boolean selected = !someSelection || graphSelection.isEdgeSelected(edge);
+
+            final int bucket;
+            if (!selected && hideNonSelected) {
+                bucket = BUCKET_NONE;
+            } else if (edge.getSource().getStoreId() >= maxNodes || edge.getTarget().getStoreId() >= maxNodes) {
+                bucket = BUCKET_NONE;
+            } else if (edge.isDirected()) {
+                bucket = selected ? BUCKET_DIRECTED_SELECTED : BUCKET_DIRECTED_UNSELECTED;
+            } else {
+                bucket = selected ? BUCKET_UNDIRECTED_SELECTED : BUCKET_UNDIRECTED_UNSELECTED;
+            }
+
+            edgeBuckets[j] = (byte) bucket;
+            if (bucket != BUCKET_NONE) {
+                bucketCounts[bucket]++;
+            }
+        }
+
+        final int[] positions = new int[BUCKETS_COUNT];
+        int total = 0;
+        for (int bucket = 0; bucket < BUCKETS_COUNT; bucket++) {
+            positions[bucket] = total * ATTRIBS_STRIDE;
+            total += bucketCounts[bucket];
+        }
+
+        if (attributesData.length < total * ATTRIBS_STRIDE) {
+            attributesData = new float[total * ATTRIBS_STRIDE];
+        }
+
+        //Scatter pass:
+        final float[] attribs = attributesData;
+        for (int j = 0; j < visibleEdgesCount; j++) {
+            final int bucket = edgeBuckets[j];
+            if (bucket == BUCKET_NONE) {
+                continue;
+            }
+
+            final Edge edge = visibleEdgesArray[j];
+            final boolean selected = bucket == BUCKET_UNDIRECTED_SELECTED || bucket == BUCKET_DIRECTED_SELECTED;
+            final int index = positions[bucket];
+
+            attribs[index] = Float.intBitsToFloat(edge.getSource().getStoreId());
+            attribs[index + 1] = Float.intBitsToFloat(edge.getTarget().getStoreId());
+            attribs[index + 2] = (float) edge.getWeight();
+            attribs[index + 3] = someSelection
+                ? edgeColorWithSelection(edge, selected, graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor)
+                : Float.intBitsToFloat(edge.getRGBA());
+
+            positions[bucket] = index + ATTRIBS_STRIDE;
+        }
+
+        snapshot.attributesBuffer.ensureCapacity(total * ATTRIBS_STRIDE);
+        snapshot.attributesBuffer.floatBuffer().put(attribs, 0, total * ATTRIBS_STRIDE);
+        snapshot.attributesBlockHashes = BufferBlockHashes.compute(snapshot.attributesBuffer.floatBuffer(), total * ATTRIBS_STRIDE, snapshot.attributesBlockHashes);
+
+        snapshot.undirectedInstanceCounter.unselectedCount = bucketCounts[BUCKET_UNDIRECTED_UNSELECTED];
+        snapshot.undirectedInstanceCounter.selectedCount = bucketCounts[BUCKET_UNDIRECTED_SELECTED];
+        snapshot.directedInstanceCounter.unselectedCount = bucketCounts[BUCKET_DIRECTED_UNSELECTED];
+        snapshot.directedInstanceCounter.selectedCount = bucketCounts[BUCKET_DIRECTED_SELECTED];
+
+        snapshots.publish(snapshot);
+    }
+
+    private void packNodes(final Graph graph, final IndexedEdgesSnapshot snapshot) {
+        int length = 0;
+        for (Node node : graph.getNodes()) {
+            if (node.getStoreId() >= maxNodes) {
+                if (!maxNodesWarned) {
+                    //Availability is only checked when the pipeline is set up, and the graph grew since then:
+                    System.out.println("Nodes don't fit in GL_MAX_TEXTURE_BUFFER_SIZE any more, their edges are not drawn. Disable indexed edges drawing to use instanced edges");
+                    maxNodesWarned = true;
+                }
+                continue;
+            }
+
+            final int index = node.getStoreId() * NODE_FLOATS;
+            if (index + NODE_FLOATS > nodesData.length) {
+                nodesData = Arrays.copyOf(nodesData, Math.max(index + NODE_FLOATS, nodesData.length + (nodesData.length >> 1)));
+            }
+
+            nodesData[index] = node.x();
+            nodesData[index + 1] = node.y();
+            nodesData[index + 2] = node.size();
+            nodesData[index + 3] = Float.intBitsToFloat(node.getRGBA());
+
+            length = Math.max(length, index + NODE_FLOATS);
+        }
+
+        snapshot.nodesLength = length;
+        snapshot.nodesBuffer.ensureCapacity(length);
+        snapshot.nodesBuffer.floatBuffer().put(nodesData, 0, length);
+        snapshot.nodesBlockHashes = BufferBlockHashes.compute(snapshot.nodesBuffer.floatBuffer(), length, snapshot.nodesBlockHashes);
+    }
+
+    private static float edgeColorWithSelection(final Edge edge, final boolean selected, final GraphSelection graphSelection, final boolean edgeSelectionColor,
+                                                final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor) {
+        if (!selected) {
+            return Float.intBitsToFloat(edge.getRGBA());
+        }
+
+        final Node source = edge.getSource();
+        final Node target = edge.getTarget();
+
+        if (edgeSelectionColor) {
+            final boolean sourceSelected = graphSelection.isNodeSelected(source);
+            final boolean targetSelected = graphSelection.isNodeSelected(target);
+
+            if (sourceSelected && targetSelected) {
+                return edgeBothSelectionColor;
+            } else if (sourceSelected) {
+                return edgeOutSelectionColor;
+            } else if (targetSelected) {
+                return edgeInSelectionColor;
+            } else {
+                return Float.intBitsToFloat(edge.getRGBA());
+            }
+        } else if (edge.alpha() <= 0) {
+            if (graphSelection.isNodeSelected(source)) {
+                return Float.intBitsToFloat(target.getRGBA());
+            } else {
+                return Float.intBitsToFloat(source.getRGBA());
+            }
+        } else {
+            return Float.intBitsToFloat(edge.getRGBA());
+        }
+    }
+
+    public void updateBuffers(GL4 gl) {
+        final IndexedEdgesSnapshot snapshot = snapshots.acquireNewestForDrawing();
+        if (snapshot == null) {
+            //Nothing new to upload
+            return;
+        }
+
+        undirectedInstanceCounter.promoteCountToDraw(snapshot.undirectedInstanceCounter);
+        directedInstanceCounter.promoteCountToDraw(snapshot.directedInstanceCounter);
+        someSelectionToDraw = snapshot.someSelection;
+
+        bucketBaseInstances[BUCKET_UNDIRECTED_UNSELECTED] = 0;
+        bucketBaseInstances[BUCKET_UNDIRECTED_SELECTED] = undirectedInstanceCounter.unselectedCountToDraw;
+        bucketBaseInstances[BUCKET_DIRECTED_UNSELECTED] = undirectedInstanceCounter.totalToDraw();
+        bucketBaseInstances[BUCKET_DIRECTED_SELECTED] = undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.unselectedCountToDraw;
+
+        final FloatBuffer nodesBuf = snapshot.nodesBuffer.floatBuffer();
+        nodesBuf.limit(snapshot.nodesLength);
+
+        nodesGLBuffer.bind(gl);
+        uploadedBytes += nodesUploader.upload(gl, nodesGLBuffer, nodesBuf, snapshot.nodesBlockHashes);
+        nodesGLBuffer.unbind(gl);
+
+        final FloatBuffer attribsBuf = snapshot.attributesBuffer.floatBuffer();
+        attribsBuf.limit((undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.totalToDraw()) * ATTRIBS_STRIDE);
+
+        attributesGLBuffer.bind(gl);
+        uploadedBytes += attributesUploader.upload(gl, attributesGLBuffer, attribsBuf, snapshot.attributesBlockHashes);
+        attributesGLBuffer.unbind(gl);
+    }
+
+    public void draw(GL4 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+        //Use the selection state of the data being drawn, not the current one:
+        final boolean renderingUnselectedEdges = layer.isBack();
+        if (!someSelectionToDraw && renderingUnselectedEdges) {
+            return;
+        }
+
+        gl.glActiveTexture(GL.GL_TEXTURE0 + NODES_DATA_TEXTURE_UNIT);
+        gl.glBindTexture(GL4.GL_TEXTURE_BUFFER, nodesTextureName[0]);
+
+        if (renderingUnselectedEdges) {
+            draw(gl, engine, mvpFloats, lineModelUndirected, undirectedInstanceCounter.unselectedCountToDraw, BUCKET_UNDIRECTED_UNSELECTED, true);
+            draw(gl, engine, mvpFloats, lineModelDirected, directedInstanceCounter.unselectedCountToDraw, BUCKET_DIRECTED_UNSELECTED, true);
+        } else {
+            draw(gl, engine, mvpFloats, lineModelUndirected, undirectedInstanceCounter.selectedCountToDraw, BUCKET_UNDIRECTED_SELECTED, false);
+            draw(gl, engine, mvpFloats, lineModelDirected, directedInstanceCounter.selectedCountToDraw, BUCKET_DIRECTED_SELECTED, false);
+        }
+
+        gl.glBindTexture(GL4.GL_TEXTURE_BUFFER, 0);
+    }
+
+    private void draw(final GL4 gl, final VizEngine engine, final float[] mvpFloats, final EdgeLineModelIndexed model, final int instanceCount, final int bucket, final boolean unselected) {
+        if (instanceCount <= 0) {
+            return;
+        }
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+
+        final float edgeScale = renderingOptions.getEdgeScale();
+        final float minWeight = graphIndex.getEdgesMinWeight();
+        final float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        if (unselected) {
+            model.useProgramWithSelectionUnselected(
+                gl, mvpFloats, edgeScale, minWeight, maxWeight, NODES_DATA_TEXTURE_UNIT,
+                engine.getBackgroundColor(),
+                renderingOptions.getLightenNonSelectedFactor()
+            );
+        } else if (someSelectionToDraw && !renderingOptions.isEdgeSelectionColor()) {
+            model.useProgramWithSelectionSelected(gl, mvpFloats, edgeScale, minWeight, maxWeight, NODES_DATA_TEXTURE_UNIT);
+        } else {
+            model.useProgram(gl, mvpFloats, edgeScale, minWeight, maxWeight, NODES_DATA_TEXTURE_UNIT);
+        }
+
+        final EdgesVAO vao = getVertexArray(engine, model);
+        vao.use(gl);
+        model.drawInstanced(gl, instanceCount, bucketBaseInstances[bucket]);
+        vao.stopUsing(gl);
+        model.stopUsingProgram(gl);
+    }
+
+    private EdgesVAO getVertexArray(final VizEngine engine, final EdgeLineModelIndexed model) {
+        if (model == lineModelDirected) {
+            if (directedEdgesVAO == null) {
+                directedEdgesVAO = new EdgesVAO(
+                    engine.getLookup().lookup(GLCapabilitiesSummary.class),
+                    engine.getLookup().lookup(OpenGLOptions.class),
+                    vertexGLBufferDirected, model.getVertexFloats()
+                );
+            }
+            return directedEdgesVAO;
+        } else {
+            if (undirectedEdgesVAO == null) {
+                undirectedEdgesVAO = new EdgesVAO(
+                    engine.getLookup().lookup(GLCapabilitiesSummary.class),
+                    engine.getLookup().lookup(OpenGLOptions.class),
+                    vertexGLBufferUndirected, model.getVertexFloats()
+                );
+            }
+            return undirectedEdgesVAO;
+        }
+    }
+
+    public void reportMetrics(EngineMetrics metrics) {
+        metrics.addVisibleEdges(undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.totalToDraw());
+        metrics.addUploadedBytes(uploadedBytes);
+        uploadedBytes = 0;
+
+        if (snapshots != null) {
+            snapshots.forEach(snapshot -> metrics.addDirectBuffersCapacity(snapshot.getCapacityBytes()));
+        }
+    }
+
+    public void dispose(GL gl) {
+        if (undirectedEdgesVAO != null) {
+            undirectedEdgesVAO.destroy(gl.getGL2ES2());
+            undirectedEdgesVAO = null;
+        }
+
+        if (directedEdgesVAO != null) {
+            directedEdgesVAO.destroy(gl.getGL2ES2());
+            directedEdgesVAO = null;
+        }
+
+        if (vertexGLBufferUndirected != null) {
+            vertexGLBufferUndirected.destroy(gl);
+            vertexGLBufferUndirected = null;
+        }
+
+        if (vertexGLBufferDirected != null) {
+            vertexGLBufferDirected.destroy(gl);
+            vertexGLBufferDirected = null;
+        }
+
+        if (attributesGLBuffer != null) {
+            attributesGLBuffer.destroy(gl);
+            attributesGLBuffer = null;
+        }
+
+        if (nodesGLBuffer != null) {
+            nodesGLBuffer.destroy(gl);
+            nodesGLBuffer = null;
+            gl.glDeleteTextures(1, nodesTextureName, 0);
+        }
+
+        attributesUploader.reset();
+        nodesUploader.reset();
+
+        if (snapshots != null) {
+            snapshots.forEach(IndexedEdgesSnapshot::destroy);
+            snapshots = null;
+        }
+
+        nodesData = new float[0];
+        attributesData = new float[0];
+        edgeBuckets = new byte[0];
+        edgesCallback.reset();
+    }
+
+    /**
+     * Nodes and edges data built by a world update.
+     */
+    private static class IndexedEdgesSnapshot {
+
+        public final ManagedDirectBuffer nodesBuffer = new ManagedDirectBuffer(GL_FLOAT, NODE_FLOATS * BATCH_EDGES_SIZE);
+        public final ManagedDirectBuffer attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
+        public final InstanceCounter undirectedInstanceCounter = new InstanceCounter();
+        public final InstanceCounter directedInstanceCounter = new InstanceCounter();
+        public int nodesLength = 0;
+        public boolean someSelection = false;
+        //Block hashes, to only upload the changed ones:
+        public long[] nodesBlockHashes = new long[0];
+        public long[] attributesBlockHashes = new long[0];
+
+        //View the snapshot was built for:
+        public Rect2D viewBoundaries;
+
+        public void clear() {
+            undirectedInstanceCounter.clearCount();
+            directedInstanceCounter.clearCount();
+            nodesLength = 0;
+            someSelection = false;
+        }
+
+        public long getCapacityBytes() {
+            return nodesBuffer.getCapacityBytes() + attributesBuffer.getCapacityBytes();
+        }
+
+        public void destroy() {
+            nodesBuffer.destroy();
+            attributesBuffer.destroy();
+        }
+    }
+
+    private class EdgesVAO extends GLVertexArrayObject {
+
+        private final GLBuffer vertexBuffer;
+        private final int vertexFloats;
+
+        public EdgesVAO(GLCapabilitiesSummary capabilities, OpenGLOptions openGLOptions, GLBuffer vertexBuffer, int vertexFloats) {
+            super(capabilities, openGLOptions);
+            this.vertexBuffer = vertexBuffer;
+            this.vertexFloats = vertexFloats;
+        }
+
+        @Override
+        protected void configure(GL2ES2 gl) {
+            vertexBuffer.bind(gl);
+            {
+                gl.glVertexAttribPointer(SHADER_VERT_LOCATION, vertexFloats, GL_FLOAT, false, 0, 0);
+            }
+            vertexBuffer.unbind(gl);
+
+            attributesGLBuffer.bind(gl);
+            {
+                int stride = ATTRIBS_STRIDE * Float.BYTES;
+                int offset = 0;
+                gl.getGL2ES3().glVertexAttribIPointer(SHADER_ENDPOINTS_LOCATION, EdgeLineModelIndexed.ENDPOINTS_FLOATS, GL_INT, stride, offset);
+                offset += EdgeLineModelIndexed.ENDPOINTS_FLOATS * Float.BYTES;
+
+                gl.glVertexAttribPointer(SHADER_SIZE_LOCATION, EdgeLineModelIndexed.SIZE_FLOATS, GL_FLOAT, false, stride, offset);
+                offset += EdgeLineModelIndexed.SIZE_FLOATS * Float.BYTES;
+
+                gl.glVertexAttribPointer(SHADER_COLOR_LOCATION, EdgeLineModelIndexed.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+            }
+            attributesGLBuffer.unbind(gl);
+        }
+
+        @Override
+        protected int[] getUsedAttributeLocations() {
+            return new int[]{
+                SHADER_VERT_LOCATION,
+                SHADER_ENDPOINTS_LOCATION,
+                SHADER_SIZE_LOCATION,
+                SHADER_COLOR_LOCATION
+            };
+        }
+
+        @Override
+        protected int[] getInstancedAttributeLocations() {
+            return new int[]{
+                SHADER_ENDPOINTS_LOCATION,
+                SHADER_SIZE_LOCATION,
+                SHADER_COLOR_LOCATION
+            };
+        }
+    }
+}
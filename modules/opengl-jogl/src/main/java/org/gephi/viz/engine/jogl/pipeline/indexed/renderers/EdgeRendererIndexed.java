@@ -0,0 +1,71 @@
+package org.gephi.viz.engine.jogl.pipeline.indexed.renderers;
+
+import java.util.EnumSet;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.IndexedEdgesDraw;
+import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
+import org.gephi.viz.engine.jogl.pipeline.common.AbstractEdgeRenderer;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.jogl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.util.gl.Constants;
+
+/**
+ * TODO: self loops
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeRendererIndexed extends AbstractEdgeRenderer {
+
+    private final VizEngine engine;
+    private final IndexedEdgeData edgeData;
+
+    public EdgeRendererIndexed(VizEngine engine, IndexedEdgeData edgeData) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+    }
+
+    @Override
+    public void init(JOGLRenderingTarget target) {
+        //NOOP
+    }
+
+    @Override
+    public void worldUpdated(JOGLRenderingTarget target) {
+        edgeData.updateBuffers(target.getDrawable().getGL().getGL4());
+    }
+
+    private final float[] mvpFloats = new float[16];
+
+    @Override
+    public void render(JOGLRenderingTarget target, RenderingLayer layer) {
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+        edgeData.draw(
+            target.getDrawable().getGL().getGL4(),
+            layer,
+            engine, mvpFloats
+        );
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        edgeData.reportMetrics(metrics);
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return IndexedEdgesDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Indexed)";
+    }
+
+    @Override
+    public boolean isAvailable(JOGLRenderingTarget target) {
+        return IndexedEdgesDraw.isAvailable(engine, target.getDrawable());
+    }
+}
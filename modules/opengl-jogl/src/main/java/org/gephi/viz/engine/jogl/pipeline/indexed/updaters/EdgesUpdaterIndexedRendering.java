@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.jogl.pipeline.indexed.updaters;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.IndexedEdgesDraw;
+import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.jogl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgesUpdaterIndexedRendering implements WorldUpdater<JOGLRenderingTarget> {
+
+    private final VizEngine engine;
+    private final IndexedEdgeData edgeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public EdgesUpdaterIndexedRendering(VizEngine engine, IndexedEdgeData edgeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(JOGLRenderingTarget target) {
+        edgeData.init(target.getDrawable().getGL().getGL4());
+    }
+
+    @Override
+    public void dispose(JOGLRenderingTarget target) {
+        edgeData.dispose(target.getDrawable().getGL());
+    }
+
+    @Override
+    public void updateWorld() {
+        //Update time is recorded in EngineMetrics by the engine
+        edgeData.update(engine, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.EDGE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return IndexedEdgesDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Indexed)";
+    }
+
+    @Override
+    public boolean isAvailable(JOGLRenderingTarget target) {
+        return IndexedEdgesDraw.isAvailable(engine, target.getDrawable());
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
@@ -9,6 +9,7 @@ import java.nio.IntBuffer;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.jogl.pipeline.common.PipelineUtils;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
@@ -36,9 +37,11 @@ public class IndirectNodeData extends AbstractNodeData {
     public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
         updateData(
             engine.getZoom(),
+            engine.getCullingBoundaries(),
             spatialIndex,
             engine.getLookup().lookup(GraphRenderingOptions.class),
-            engine.getLookup().lookup(GraphSelection.class)
+            engine.getLookup().lookup(GraphSelection.class),
+            PipelineUtils.isParallelPackingEnabled(engine)
         );
     }
 
@@ -85,12 +88,12 @@ public class IndirectNodeData extends AbstractNodeData {
         //Initialize for batch nodes size:
         attributesGLBuffer = new GLBufferMutable(bufferName[ATTRIBS_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBuffer.bind(gl);
-        attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.init(gl, attributesStride * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBuffer.unbind(gl);
 
         attributesGLBufferSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferSecondary.bind(gl);
-        attributesGLBufferSecondary.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferSecondary.init(gl, attributesStride * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferSecondary.unbind(gl);
 
         commandsGLBuffer = new GLBufferMutable(bufferName[INDIRECT_DRAW_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
@@ -100,32 +103,36 @@ public class IndirectNodeData extends AbstractNodeData {
     }
 
     public void updateBuffers(final GL4 gl) {
-        final FloatBuffer buf = attributesBuffer.floatBuffer();
+        final NodesSnapshot snapshot = promoteNewestSnapshotToDraw();
+        if (snapshot == null) {
+            //Nothing new to upload
+            return;
+        }
 
-        buf.limit(instanceCounter.unselectedCount * ATTRIBS_STRIDE);
+        final FloatBuffer buf = snapshot.attributesBuffer.floatBuffer();
+
+        buf.limit(snapshot.instanceCounter.unselectedCount * attributesStride);
         buf.position(0);
 
         attributesGLBufferSecondary.bind(gl);
-        attributesGLBufferSecondary.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesSecondaryUploader.upload(gl, attributesGLBufferSecondary, buf, snapshot.attributesBlockHashes);
         attributesGLBufferSecondary.unbind(gl);
 
         final int offset = buf.limit();
-        buf.limit(offset + instanceCounter.selectedCount * ATTRIBS_STRIDE);
+        buf.limit(offset + snapshot.instanceCounter.selectedCount * attributesStride);
         buf.position(offset);
 
         attributesGLBuffer.bind(gl);
-        attributesGLBuffer.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesUploader.upload(gl, attributesGLBuffer, buf, snapshot.attributesBlockHashes);
         attributesGLBuffer.unbind(gl);
 
-        final IntBuffer commandsBufferData = commandsBuffer.intBuffer();
+        final IntBuffer commandsBufferData = snapshot.commandsBuffer.intBuffer();
         commandsBufferData.position(0);
-        commandsBufferData.limit(instanceCounter.total() * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+        commandsBufferData.limit(snapshot.instanceCounter.total() * INDIRECT_DRAW_COMMAND_INTS_COUNT);
 
+        uploadedBytes += (long) commandsBufferData.remaining() * Integer.BYTES;
         commandsGLBuffer.bind(gl);
         commandsGLBuffer.updateWithOrphaning(gl, commandsBufferData);
         commandsGLBuffer.unbind(gl);
-
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
     }
 }
@@ -8,6 +8,7 @@ import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeRenderer;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.jogl.pipeline.indirect.IndirectNodeData;
 import org.gephi.viz.engine.spi.Renderer;
 import org.gephi.viz.engine.util.gl.Constants;
@@ -44,6 +45,11 @@ public class NodeRendererIndirect extends AbstractNodeRenderer {
         nodeData.drawIndirect(target.getDrawable().getGL().getGL4(), layer, engine, mvpFloats);
     }
 
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        nodeData.reportMetrics(metrics);
+    }
+
     @Override
     public int getPreferenceInCategory() {
         return IndirectDraw.getPreferenceInCategory();
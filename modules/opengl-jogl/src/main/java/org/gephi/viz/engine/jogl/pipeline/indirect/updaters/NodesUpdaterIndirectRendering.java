@@ -1,6 +1,7 @@
 package org.gephi.viz.engine.jogl.pipeline.indirect.updaters;
 
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.CompactAttributes;
 import org.gephi.viz.engine.jogl.availability.IndirectDraw;
 import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
@@ -26,7 +27,7 @@ public class NodesUpdaterIndirectRendering implements WorldUpdater<JOGLRendering
 
     @Override
     public void init(JOGLRenderingTarget target) {
-        nodeData.init(target.getDrawable().getGL().getGL4());
+        nodeData.init(target.getDrawable().getGL().getGL4(), CompactAttributes.isAvailable(engine, target.getDrawable().getGL()));
     }
 
     @Override
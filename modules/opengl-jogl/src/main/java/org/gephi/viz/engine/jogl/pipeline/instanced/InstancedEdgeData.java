@@ -1,21 +1,27 @@
 package org.gephi.viz.engine.jogl.pipeline.instanced;
 
 import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.GL3ES3;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.FloatBuffer;
 
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.FencedBufferRing;
+import org.gephi.viz.engine.jogl.availability.PersistentMapping;
 import org.gephi.viz.engine.jogl.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.jogl.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.jogl.pipeline.common.PipelineUtils;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferFencedRing;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferPersistentStreaming;
+import org.gephi.viz.engine.jogl.util.gl.GLStreamingBuffer;
 
 /**
  *
@@ -32,15 +38,24 @@ public class InstancedEdgeData extends AbstractEdgeData {
     private static final int ATTRIBS_BUFFER_DIRECTED = 4;
     private static final int ATTRIBS_BUFFER_DIRECTED_SECONDARY = 5;
 
+    //All the attributes of a snapshot in consecutive instances, when persistent mapping or a fenced ring is available:
+    private GLStreamingBuffer attributesStreamingBuffer;
+    private int attributesUndirectedSecondaryBaseInstance = 0;
+    private int attributesUndirectedBaseInstance = 0;
+    private int attributesDirectedSecondaryBaseInstance = 0;
+    private int attributesDirectedBaseInstance = 0;
+
     public InstancedEdgeData() {
         super(true, true);
     }
 
     public void update(VizEngine engine, GraphIndexImpl graphIndex) {
         updateData(
+            engine.getCullingBoundaries(),
             graphIndex,
             engine.getLookup().lookup(GraphRenderingOptions.class),
-            engine.getLookup().lookup(GraphSelection.class)
+            engine.getLookup().lookup(GraphSelection.class),
+            PipelineUtils.isParallelPackingEnabled(engine)
         );
     }
 
@@ -52,7 +67,14 @@ public class InstancedEdgeData extends AbstractEdgeData {
     private void drawUndirected(GL3ES3 gl, VizEngine engine, RenderingLayer layer, float[] mvpFloats) {
         final int instanceCount = setupShaderProgramForRenderingLayerUndirected(gl, layer, engine, mvpFloats);
 
-        lineModelUndirected.drawInstanced(gl, instanceCount);
+        if (attributesStreamingBuffer != null) {
+            lineModelUndirected.drawInstanced(
+                gl.getGL4(), instanceCount,
+                layer.isBack() ? attributesUndirectedSecondaryBaseInstance : attributesUndirectedBaseInstance
+            );
+        } else {
+            lineModelUndirected.drawInstanced(gl, instanceCount);
+        }
         lineModelUndirected.stopUsingProgram(gl);
         unsetupUndirectedVertexArrayAttributes(gl);
     }
@@ -60,7 +82,14 @@ public class InstancedEdgeData extends AbstractEdgeData {
     private void drawDirected(GL3ES3 gl, VizEngine engine, RenderingLayer layer, float[] mvpFloats) {
         final int instanceCount = setupShaderProgramForRenderingLayerDirected(gl, layer, engine, mvpFloats);
 
-        lineModelDirected.drawInstanced(gl, instanceCount);
+        if (attributesStreamingBuffer != null) {
+            lineModelDirected.drawInstanced(
+                gl.getGL4(), instanceCount,
+                layer.isBack() ? attributesDirectedSecondaryBaseInstance : attributesDirectedBaseInstance
+            );
+        } else {
+            lineModelDirected.drawInstanced(gl, instanceCount);
+        }
         lineModelDirected.stopUsingProgram(gl);
         unsetupDirectedVertexArrayAttributes(gl);
     }
@@ -86,114 +115,136 @@ public class InstancedEdgeData extends AbstractEdgeData {
         //Initialize for batch edges size:
         attributesGLBufferDirected = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_DIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferDirected.bind(gl);
-        attributesGLBufferDirected.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferDirected.init(gl, attributesStride * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferDirected.unbind(gl);
 
         attributesGLBufferDirectedSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_DIRECTED_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferDirectedSecondary.bind(gl);
-        attributesGLBufferDirectedSecondary.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferDirectedSecondary.init(gl, attributesStride * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferDirectedSecondary.unbind(gl);
 
         attributesGLBufferUndirected = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_UNDIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferUndirected.bind(gl);
-        attributesGLBufferUndirected.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferUndirected.init(gl, attributesStride * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferUndirected.unbind(gl);
 
         attributesGLBufferUndirectedSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_UNDIRECTED_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferUndirectedSecondary.bind(gl);
-        attributesGLBufferUndirectedSecondary.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferUndirectedSecondary.init(gl, attributesStride * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferUndirectedSecondary.unbind(gl);
     }
 
-    public void updateBuffers(GL gl) {
-        final FloatBuffer buf = attributesBuffer.floatBuffer();
+    public void updateBuffers(GL gl, VizEngine engine) {
+        final EdgesSnapshot snapshot = promoteNewestSnapshotToDraw();
+        if (snapshot == null) {
+            //Nothing new to upload
+            return;
+        }
+
+        final FloatBuffer buf = snapshot.attributesBuffer.floatBuffer();
+
+        if (attributesStreamingBuffer == null) {
+            if (PersistentMapping.isAvailable(engine, gl)) {
+                initStreamingBuffer(gl, new GLBufferPersistentStreaming(GLBufferMutable.GL_BUFFER_TYPE_ARRAY, attributesStride));
+            } else if (FencedBufferRing.isAvailable(engine, gl)) {
+                initStreamingBuffer(gl, new GLBufferFencedRing(GLBufferMutable.GL_BUFFER_TYPE_ARRAY, attributesStride));
+            }
+        }
+
+        if (attributesStreamingBuffer != null) {
+            buf.limit((undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.totalToDraw()) * attributesStride);
+            buf.position(0);
+
+            if (attributesStreamingBuffer.write(gl, buf, snapshot.attributesBlockHashes)) {
+                useStreamingBuffer(gl.getGL2ES2());
+            }
+            uploadedBytes += attributesStreamingBuffer.getWrittenBytes();
+
+            attributesUndirectedSecondaryBaseInstance = attributesStreamingBuffer.getRegionFirstElement();
+            attributesUndirectedBaseInstance = attributesUndirectedSecondaryBaseInstance + undirectedInstanceCounter.unselectedCountToDraw;
+            attributesDirectedSecondaryBaseInstance = attributesUndirectedBaseInstance + undirectedInstanceCounter.selectedCountToDraw;
+            attributesDirectedBaseInstance = attributesDirectedSecondaryBaseInstance + directedInstanceCounter.unselectedCountToDraw;
+            return;
+        }
 
-        buf.limit(undirectedInstanceCounter.unselectedCount * ATTRIBS_STRIDE);
+        buf.limit(undirectedInstanceCounter.unselectedCountToDraw * attributesStride);
         buf.position(0);
 
         attributesGLBufferUndirectedSecondary.bind(gl);
-        attributesGLBufferUndirectedSecondary.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesUndirectedSecondaryUploader.upload(gl, attributesGLBufferUndirectedSecondary, buf, snapshot.attributesBlockHashes);
         attributesGLBufferUndirectedSecondary.unbind(gl);
 
         int offset = buf.limit();
-        buf.limit(offset + undirectedInstanceCounter.selectedCount * ATTRIBS_STRIDE);
+        buf.limit(offset + undirectedInstanceCounter.selectedCountToDraw * attributesStride);
         buf.position(offset);
 
         attributesGLBufferUndirected.bind(gl);
-        attributesGLBufferUndirected.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesUndirectedUploader.upload(gl, attributesGLBufferUndirected, buf, snapshot.attributesBlockHashes);
         attributesGLBufferUndirected.unbind(gl);
 
         offset = buf.limit();
-        buf.limit(offset + directedInstanceCounter.unselectedCount * ATTRIBS_STRIDE);
+        buf.limit(offset + directedInstanceCounter.unselectedCountToDraw * attributesStride);
         buf.position(offset);
 
         attributesGLBufferDirectedSecondary.bind(gl);
-        attributesGLBufferDirectedSecondary.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesDirectedSecondaryUploader.upload(gl, attributesGLBufferDirectedSecondary, buf, snapshot.attributesBlockHashes);
         attributesGLBufferDirectedSecondary.unbind(gl);
 
         offset = buf.limit();
-        buf.limit(offset + directedInstanceCounter.selectedCount * ATTRIBS_STRIDE);
+        buf.limit(offset + directedInstanceCounter.selectedCountToDraw * attributesStride);
         buf.position(offset);
 
         attributesGLBufferDirected.bind(gl);
-        attributesGLBufferDirected.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesDirectedUploader.upload(gl, attributesGLBufferDirected, buf, snapshot.attributesBlockHashes);
         attributesGLBufferDirected.unbind(gl);
-
-        undirectedInstanceCounter.promoteCountToDraw();
-        directedInstanceCounter.promoteCountToDraw();
     }
 
-    private void updateData(final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
-        if (!renderingOptions.isShowEdges()) {
-            undirectedInstanceCounter.clearCount();
-            directedInstanceCounter.clearCount();
-            return;
-        }
-
-        graphIndex.indexEdges();
-
-        //Selection:
-        final boolean someSelection = graphSelection.someNodesOrEdgesSelection();
-        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
-        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
-        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
-        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
-        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
-        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
-
-        final int totalEdges = graphIndex.getEdgeCount();
-
-        attributesBuffer.ensureCapacity(totalEdges * ATTRIBS_STRIDE);
-
-        final FloatBuffer attribsDirectBuffer = attributesBuffer.floatBuffer();
-
-        graphIndex.getVisibleEdges(edgesCallback);
-
-        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
-        final int visibleEdgesCount = edgesCallback.getCount();
-
-        final Graph graph = graphIndex.getVisibleGraph();
+    private void initStreamingBuffer(GL gl, GLStreamingBuffer streamingBuffer) {
+        attributesStreamingBuffer = streamingBuffer;
+        attributesStreamingBuffer.init(gl, BATCH_EDGES_SIZE);
+
+        //Replaces the mutable buffers:
+        attributesGLBufferDirected.destroy(gl);
+        attributesGLBufferDirectedSecondary.destroy(gl);
+        attributesGLBufferUndirected.destroy(gl);
+        attributesGLBufferUndirectedSecondary.destroy(gl);
+        attributesDirectedUploader.reset();
+        attributesDirectedSecondaryUploader.reset();
+        attributesUndirectedUploader.reset();
+        attributesUndirectedSecondaryUploader.reset();
+
+        useStreamingBuffer(gl.getGL2ES2());
+    }
 
-        updateUndirectedData(
-            graph,
-            someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-            attributesBufferBatch, 0, attribsDirectBuffer
-        );
-        updateDirectedData(
-            graph,
-            someSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-            attributesBufferBatch, 0, attribsDirectBuffer
-        );
+    private void useStreamingBuffer(GL2ES2 gl) {
+        attributesGLBufferDirected = attributesStreamingBuffer.getBuffer();
+        attributesGLBufferDirectedSecondary = attributesStreamingBuffer.getBuffer();
+        attributesGLBufferUndirected = attributesStreamingBuffer.getBuffer();
+        attributesGLBufferUndirectedSecondary = attributesStreamingBuffer.getBuffer();
+        resetVertexArrayAttributes(gl);
     }
 
     @Override
     public void dispose(GL gl) {
+        if (attributesStreamingBuffer != null) {
+            attributesStreamingBuffer.destroy(gl);
+            attributesStreamingBuffer = null;
+            attributesGLBufferDirected = null;
+            attributesGLBufferDirectedSecondary = null;
+            attributesGLBufferUndirected = null;
+            attributesGLBufferUndirectedSecondary = null;
+        }
+
         super.dispose(gl);
         attributesBufferBatch = null;
+    }
 
-        if (attributesBuffer != null) {
-            attributesBuffer.destroy();
-            attributesBuffer = null;
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        if (attributesStreamingBuffer != null) {
+            attributesStreamingBuffer.reportMetrics(metrics);
         }
+
+        super.reportMetrics(metrics);
     }
 }
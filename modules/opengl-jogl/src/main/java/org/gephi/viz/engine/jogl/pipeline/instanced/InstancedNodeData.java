@@ -1,17 +1,25 @@
 package org.gephi.viz.engine.jogl.pipeline.instanced;
 
 import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.GL2ES3;
 
 import java.nio.FloatBuffer;
 
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.FencedBufferRing;
+import org.gephi.viz.engine.jogl.availability.PersistentMapping;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.jogl.pipeline.common.PipelineUtils;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.jogl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferFencedRing;
+import org.gephi.viz.engine.jogl.util.gl.GLBufferPersistentStreaming;
+import org.gephi.viz.engine.jogl.util.gl.GLStreamingBuffer;
 
 /**
  *
@@ -29,12 +37,24 @@ public class InstancedNodeData extends AbstractNodeData {
     private static final int ATTRIBS_BUFFER = 1;
     private static final int ATTRIBS_BUFFER_SECONDARY = 2;
 
+    //Unselected and selected attributes of a snapshot in consecutive instances, when persistent mapping or a fenced ring is available:
+    private GLStreamingBuffer attributesStreamingBuffer;
+    private int attributesBaseInstance = 0;
+    private int attributesSecondaryBaseInstance = 0;
+
+    @Override
+    protected boolean isLodBucketing() {
+        return true;
+    }
+
     public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
         updateData(
             engine.getZoom(),
+            engine.getCullingBoundaries(),
             spatialIndex,
             engine.getLookup().lookup(GraphRenderingOptions.class),
-            engine.getLookup().lookup(GraphSelection.class)
+            engine.getLookup().lookup(GraphSelection.class),
+            PipelineUtils.isParallelPackingEnabled(engine)
         );
     }
 
@@ -58,27 +78,39 @@ public class InstancedNodeData extends AbstractNodeData {
             return;
         }
 
-        final float maxObservedSize = maxNodeSizeToDraw * engine.getZoom();
-        final int circleVertexCount;
-        final int firstVertex;
-        if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
-            circleVertexCount = circleVertexCount64;
-            firstVertex = firstVertex64;
-        } else if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
-            circleVertexCount = circleVertexCount32;
-            firstVertex = firstVertex32;
-        } else if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
-            circleVertexCount = circleVertexCount16;
-            firstVertex = firstVertex16;
-        } else {
-            circleVertexCount = circleVertexCount8;
-            firstVertex = firstVertex8;
+        //Nodes of the layer are grouped by LOD bucket, one draw per bucket:
+        int firstInstance = 0;
+        boolean attributesOffset = false;
+        for (int lodBucket = 0; lodBucket < LOD_BUCKETS; lodBucket++) {
+            final int bucketInstanceCount = getLodBucketCountToDraw(layer, lodBucket);
+            if (bucketInstanceCount <= 0) {
+                continue;
+            }
+
+            if (attributesStreamingBuffer != null) {
+                diskModel.drawInstanced(
+                    gl.getGL4(),
+                    lodFirstVertex[lodBucket], lodVertexCount[lodBucket], bucketInstanceCount,
+                    getAttributesBaseInstance(layer) + firstInstance
+                );
+            } else {
+                //No base instance, the attributes have to start at the first node of the bucket:
+                if (firstInstance > 0) {
+                    setInstancedAttributesOffset(gl, layer, firstInstance);
+                    attributesOffset = true;
+                }
+                diskModel.drawInstanced(
+                    gl,
+                    lodFirstVertex[lodBucket], lodVertexCount[lodBucket], bucketInstanceCount
+                );
+            }
+
+            firstInstance += bucketInstanceCount;
         }
 
-        diskModel.drawInstanced(
-            gl,
-            firstVertex, circleVertexCount, instanceCount
-        );
+        if (attributesOffset) {
+            setInstancedAttributesOffset(gl, layer, 0);
+        }
         diskModel.stopUsingProgram(gl);
         unsetupVertexArrayAttributes(gl);
     }
@@ -88,40 +120,121 @@ public class InstancedNodeData extends AbstractNodeData {
         super.initBuffers(gl);
         gl.glGenBuffers(bufferName.length, bufferName, 0);
 
-        initCirclesGLVertexBuffer(gl, bufferName[VERT_BUFFER]);
+        initVertexGLBuffer(gl, bufferName[VERT_BUFFER]);
 
         //Initialize for batch nodes size:
         attributesGLBuffer = new GLBufferMutable(bufferName[ATTRIBS_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBuffer.bind(gl);
-        attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.init(gl, attributesStride * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBuffer.unbind(gl);
 
         attributesGLBufferSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferSecondary.bind(gl);
-        attributesGLBufferSecondary.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBufferSecondary.init(gl, attributesStride * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferSecondary.unbind(gl);
     }
 
-    public void updateBuffers(GL gl) {
-        final FloatBuffer buf = attributesBuffer.floatBuffer();
+    protected void initVertexGLBuffer(GL gl, final int bufferName) {
+        initCirclesGLVertexBuffer(gl, bufferName);
+    }
+
+    public void updateBuffers(GL gl, VizEngine engine) {
+        final NodesSnapshot snapshot = promoteNewestSnapshotToDraw();
+        if (snapshot == null) {
+            //Nothing new to upload
+            return;
+        }
+
+        final FloatBuffer buf = snapshot.attributesBuffer.floatBuffer();
+
+        if (attributesStreamingBuffer == null) {
+            if (PersistentMapping.isAvailable(engine, gl)) {
+                initStreamingBuffer(gl, new GLBufferPersistentStreaming(GLBufferMutable.GL_BUFFER_TYPE_ARRAY, attributesStride));
+            } else if (FencedBufferRing.isAvailable(engine, gl)) {
+                initStreamingBuffer(gl, new GLBufferFencedRing(GLBufferMutable.GL_BUFFER_TYPE_ARRAY, attributesStride));
+            }
+        }
+
+        if (attributesStreamingBuffer != null) {
+            final int unselectedCount = snapshot.instanceCounter.unselectedCount;
+
+            buf.limit((unselectedCount + snapshot.instanceCounter.selectedCount) * attributesStride);
+            buf.position(0);
 
-        buf.limit(instanceCounter.unselectedCount * ATTRIBS_STRIDE);
+            if (attributesStreamingBuffer.write(gl, buf, snapshot.attributesBlockHashes)) {
+                useStreamingBuffer(gl.getGL2ES2());
+            }
+            uploadedBytes += attributesStreamingBuffer.getWrittenBytes();
+
+            attributesSecondaryBaseInstance = attributesStreamingBuffer.getRegionFirstElement();
+            attributesBaseInstance = attributesSecondaryBaseInstance + unselectedCount;
+            return;
+        }
+
+        buf.limit(snapshot.instanceCounter.unselectedCount * attributesStride);
         buf.position(0);
 
         attributesGLBufferSecondary.bind(gl);
-        attributesGLBufferSecondary.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesSecondaryUploader.upload(gl, attributesGLBufferSecondary, buf, snapshot.attributesBlockHashes);
         attributesGLBufferSecondary.unbind(gl);
 
         final int offset = buf.limit();
-        buf.limit(offset + instanceCounter.selectedCount * ATTRIBS_STRIDE);
+        buf.limit(offset + snapshot.instanceCounter.selectedCount * attributesStride);
         buf.position(offset);
 
         attributesGLBuffer.bind(gl);
-        attributesGLBuffer.updateWithOrphaning(gl, buf);
+        uploadedBytes += attributesUploader.upload(gl, attributesGLBuffer, buf, snapshot.attributesBlockHashes);
         attributesGLBuffer.unbind(gl);
+    }
 
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
+    /**
+     * @return True if the attributes are written to a streaming buffer (persistently mapped or fenced ring), so draws must use {@link #getAttributesBaseInstance(RenderingLayer)}
+     */
+    protected boolean isAttributesStreaming() {
+        return attributesStreamingBuffer != null;
     }
-}
 
+    protected int getAttributesBaseInstance(RenderingLayer layer) {
+        return layer.isBack() ? attributesSecondaryBaseInstance : attributesBaseInstance;
+    }
+
+    private void initStreamingBuffer(GL gl, GLStreamingBuffer streamingBuffer) {
+        attributesStreamingBuffer = streamingBuffer;
+        attributesStreamingBuffer.init(gl, BATCH_NODES_SIZE);
+
+        //Replaces the mutable buffers:
+        attributesGLBuffer.destroy(gl);
+        attributesGLBufferSecondary.destroy(gl);
+        attributesUploader.reset();
+        attributesSecondaryUploader.reset();
+
+        useStreamingBuffer(gl.getGL2ES2());
+    }
+
+    private void useStreamingBuffer(GL2ES2 gl) {
+        attributesGLBuffer = attributesStreamingBuffer.getBuffer();
+        attributesGLBufferSecondary = attributesStreamingBuffer.getBuffer();
+        resetVertexArrayAttributes(gl);
+    }
+
+    @Override
+    public void dispose(GL gl) {
+        if (attributesStreamingBuffer != null) {
+            attributesStreamingBuffer.destroy(gl);
+            attributesStreamingBuffer = null;
+            attributesGLBuffer = null;
+            attributesGLBufferSecondary = null;
+        }
+
+        super.dispose(gl);
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        if (attributesStreamingBuffer != null) {
+            attributesStreamingBuffer.reportMetrics(metrics);
+        }
+
+        super.reportMetrics(metrics);
+    }
+}
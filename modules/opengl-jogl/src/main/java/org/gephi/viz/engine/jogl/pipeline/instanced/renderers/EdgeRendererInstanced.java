@@ -8,6 +8,7 @@ import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractEdgeRenderer;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.jogl.pipeline.instanced.InstancedEdgeData;
 import org.gephi.viz.engine.spi.Renderer;
 import org.gephi.viz.engine.util.gl.Constants;
@@ -34,7 +35,7 @@ public class EdgeRendererInstanced extends AbstractEdgeRenderer {
 
     @Override
     public void worldUpdated(JOGLRenderingTarget target) {
-        edgeData.updateBuffers(target.getDrawable().getGL());
+        edgeData.updateBuffers(target.getDrawable().getGL(), engine);
     }
 
     private final float[] mvpFloats = new float[16];
@@ -49,6 +50,11 @@ public class EdgeRendererInstanced extends AbstractEdgeRenderer {
         );
     }
 
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        edgeData.reportMetrics(metrics);
+    }
+
     @Override
     public int getPreferenceInCategory() {
         return InstancedDraw.getPreferenceInCategory();
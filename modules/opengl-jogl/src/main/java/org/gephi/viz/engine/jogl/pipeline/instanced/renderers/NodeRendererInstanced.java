@@ -6,6 +6,7 @@ import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.jogl.pipeline.common.AbstractNodeRenderer;
 import org.gephi.viz.engine.jogl.pipeline.instanced.InstancedNodeData;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
 
 /**
  *
@@ -28,7 +29,7 @@ public class NodeRendererInstanced extends AbstractNodeRenderer {
 
     @Override
     public void worldUpdated(JOGLRenderingTarget target) {
-        nodeData.updateBuffers(target.getDrawable().getGL());
+        nodeData.updateBuffers(target.getDrawable().getGL(), engine);
     }
 
     private final float[] mvpFloats = new float[16];
@@ -39,6 +40,11 @@ public class NodeRendererInstanced extends AbstractNodeRenderer {
         nodeData.drawInstanced(target.getDrawable().getGL().getGL2ES3(), layer, engine, mvpFloats);
     }
 
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        nodeData.reportMetrics(metrics);
+    }
+
     @Override
     public int getPreferenceInCategory() {
         return InstancedDraw.getPreferenceInCategory();
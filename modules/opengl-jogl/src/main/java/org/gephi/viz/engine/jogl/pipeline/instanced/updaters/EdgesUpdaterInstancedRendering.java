@@ -1,6 +1,7 @@
 package org.gephi.viz.engine.jogl.pipeline.instanced.updaters;
 
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.CompactAttributes;
 import org.gephi.viz.engine.jogl.availability.InstancedDraw;
 import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
@@ -26,7 +27,7 @@ public class EdgesUpdaterInstancedRendering implements WorldUpdater<JOGLRenderin
 
     @Override
     public void init(JOGLRenderingTarget target) {
-        edgeData.init(target.getDrawable().getGL().getGL2ES2());
+        edgeData.init(target.getDrawable().getGL().getGL2ES2(), CompactAttributes.isAvailable(engine, target.getDrawable().getGL()));
     }
 
     @Override
@@ -36,9 +37,8 @@ public class EdgesUpdaterInstancedRendering implements WorldUpdater<JOGLRenderin
 
     @Override
     public void updateWorld() {
-        //final long start = TimeUtils.getTimeMillis();
+        //Update time is recorded in EngineMetrics by the engine
         edgeData.update(engine, spatialIndex);
-        //System.out.println("Edges update ms: " + (TimeUtils.getTimeMillis() - start));
     }
 
     @Override
@@ -1,6 +1,7 @@
 package org.gephi.viz.engine.jogl.pipeline.instanced.updaters;
 
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.availability.CompactAttributes;
 import org.gephi.viz.engine.jogl.availability.InstancedDraw;
 import org.gephi.viz.engine.jogl.JOGLRenderingTarget;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
@@ -26,7 +27,7 @@ public class NodesUpdaterInstancedRendering implements WorldUpdater<JOGLRenderin
 
     @Override
     public void init(JOGLRenderingTarget target) {
-        nodeData.init(target.getDrawable().getGL().getGL2ES2());
+        nodeData.init(target.getDrawable().getGL().getGL2ES2(), CompactAttributes.isAvailable(engine, target.getDrawable().getGL()));
     }
 
     @Override
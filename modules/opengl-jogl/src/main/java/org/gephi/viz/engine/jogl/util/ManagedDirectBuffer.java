@@ -37,6 +37,10 @@ public class ManagedDirectBuffer {
         return (IntBuffer) buffer.clear();
     }
 
+    public ByteBuffer byteBuffer() {
+        return (ByteBuffer) buffer.clear();
+    }
+
     public void ensureCapacity(int elements) {
         if (elementsCapacity < elements) {
             int newElementsCapacity = getNextPowerOf2(elements);
@@ -56,6 +60,10 @@ public class ManagedDirectBuffer {
         return elementsCapacity;
     }
 
+    public long getCapacityBytes() {
+        return (long) elementsCapacity * GLBuffers.sizeOfGLType(glType);
+    }
+
     public void destroy() {
         // Should always be, but let's be careful:
         if (buffer instanceof ByteBuffer) {
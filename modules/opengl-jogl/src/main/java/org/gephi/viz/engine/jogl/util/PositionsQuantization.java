@@ -0,0 +1,158 @@
+package org.gephi.viz.engine.jogl.util;
+
+import org.gephi.graph.api.Rect2D;
+
+/**
+ * Square box where the positions of the compact attributes layout are quantized to 16 bits unsigned normalized integers.
+ * <p>
+ * Shaders read quantized positions in the 0..1 range. {@link #applyToModelViewProjection(float[], float[])} maps that range back to the box, so world lengths used in the same space (node sizes, edge thickness) have to be divided by {@link #getScale()}.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class PositionsQuantization {
+
+    private static final int MAX_QUANTIZED = 0xFFFF;
+
+    /**
+     * Grid steps in the power of two above the bounds size. The box corners are snapped to the grid, so it only changes when the bounds cross a grid line, and small pans don't re-quantize every position.
+     */
+    private static final int GRID_STEPS = 16;
+
+    private float originX = 0;
+    private float originY = 0;
+    private float scale = 1;
+    private float inverseStep = MAX_QUANTIZED;
+
+    /**
+     * Sets the box to a square that contains the given bounds, with its corners snapped to a grid of {@link #GRID_STEPS} steps of the power of two above the bounds size.
+     */
+    public void set(float minX, float minY, float maxX, float maxY) {
+        final float size = Math.max(maxX - minX, maxY - minY);
+        if (!(size > 0) || !Float.isFinite(size) || !Float.isFinite(minX) || !Float.isFinite(minY)) {
+            this.originX = Float.isFinite(minX) ? minX : 0;
+            this.originY = Float.isFinite(minY) ? minY : 0;
+            this.scale = 1;
+            this.inverseStep = MAX_QUANTIZED;
+            return;
+        }
+
+        float powerOfTwo = Math.scalb(1f, Math.getExponent(size));
+        if (powerOfTwo < size) {
+            powerOfTwo *= 2;
+        }
+        final float step = powerOfTwo / GRID_STEPS;
+
+        this.originX = (float) Math.floor(minX / step) * step;
+        this.originY = (float) Math.floor(minY / step) * step;
+        this.scale = (float) Math.ceil(Math.max(maxX - originX, maxY - originY) / step) * step;
+        this.inverseStep = MAX_QUANTIZED / scale;
+    }
+
+    /**
+     * Sets the box to the view expanded by its own size on each side, so edges leaving the view can be clipped to the box with their clipped ends still out of sight.
+     *
+     * @param view View boundaries
+     */
+    public void setExpandedView(Rect2D view) {
+        final float width = view.maxX - view.minX;
+        final float height = view.maxY - view.minY;
+
+        set(view.minX - width, view.minY - height, view.maxX + width, view.maxY + height);
+    }
+
+    public void set(PositionsQuantization other) {
+        this.originX = other.originX;
+        this.originY = other.originY;
+        this.scale = other.scale;
+        this.inverseStep = other.inverseStep;
+    }
+
+    /**
+     * Quantizes a position, clamped to the box.
+     *
+     * @return Quantized x in the low 16 bits and quantized y in the high 16 bits, as float bits to be stored in a float buffer like colors are
+     */
+    public float pack(float x, float y) {
+        return Float.intBitsToFloat(quantize((x - originX) * inverseStep) | (quantize((y - originY) * inverseStep) << 16));
+    }
+
+    private static int quantize(float steps) {
+        if (!(steps > 0)) {
+            return 0;
+        }
+        if (steps >= MAX_QUANTIZED) {
+            return MAX_QUANTIZED;
+        }
+        return (int) (steps + 0.5f);
+    }
+
+    /**
+     * Liang-Barsky clipping of one end of a segment to the box. Segments that are {@link #isTriviallyOutside trivially outside} the box should be discarded first.
+     *
+     * @return Fraction of the segment from (x0, y0) that lies before it enters the box, 0 when (x0, y0) is inside
+     */
+    public float clipStartFraction(float x0, float y0, float x1, float y1) {
+        final float maxX = originX + scale;
+        final float maxY = originY + scale;
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+
+        float enter = 0;
+        if (x0 < originX && dx > 0) {
+            enter = Math.max(enter, (originX - x0) / dx);
+        } else if (x0 > maxX && dx < 0) {
+            enter = Math.max(enter, (maxX - x0) / dx);
+        }
+
+        if (y0 < originY && dy > 0) {
+            enter = Math.max(enter, (originY - y0) / dy);
+        } else if (y0 > maxY && dy < 0) {
+            enter = Math.max(enter, (maxY - y0) / dy);
+        }
+
+        return Math.min(enter, 1);
+    }
+
+    /**
+     * @return True when both ends of the segment are outside the box on the same side, so the segment can't cross it
+     */
+    public boolean isTriviallyOutside(float x0, float y0, float x1, float y1) {
+        final float maxX = originX + scale;
+        final float maxY = originY + scale;
+
+        return (x0 < originX && x1 < originX)
+                || (x0 > maxX && x1 > maxX)
+                || (y0 < originY && y1 < originY)
+                || (y0 > maxY && y1 > maxY);
+    }
+
+    /**
+     * Multiplies a model view projection by the transform from quantized 0..1 positions to world positions.
+     *
+     * @param mvp Column-major model view projection
+     * @param dest Destination of the 16 floats of the result
+     */
+    public void applyToModelViewProjection(float[] mvp, float[] dest) {
+        for (int row = 0; row < 4; row++) {
+            final float column0 = mvp[row];
+            final float column1 = mvp[4 + row];
+
+            dest[row] = column0 * scale;
+            dest[4 + row] = column1 * scale;
+            dest[8 + row] = mvp[8 + row];
+            dest[12 + row] = column0 * originX + column1 * originY + mvp[12 + row];
+        }
+    }
+
+    public float getOriginX() {
+        return originX;
+    }
+
+    public float getOriginY() {
+        return originY;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+}
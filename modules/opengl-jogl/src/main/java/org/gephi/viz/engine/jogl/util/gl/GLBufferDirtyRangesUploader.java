@@ -0,0 +1,184 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.gephi.viz.engine.util.BufferBlockHashes;
+
+/**
+ * Uploads a region of a world snapshot buffer into a GL buffer, only re-uploading the blocks that changed since the last upload with glBufferSubData.
+ * <p>
+ * The whole region is uploaded with orphaning when its position or length in the snapshot changed, or when most of it changed. Packing keeps the order of the visible elements between world updates, so moving a node or recoloring some of them only changes a few blocks.</p>
+ * <p>
+ * With {@link #uploadToRegion(GL, GLBuffer, long, FloatBuffer, long[])} the data goes to a region of a ring buffer protected by fences instead, see {@link GLBufferFencedRing}, so orphaning is not needed.
+ * {@link #writeToRegion(RangeWriter, long, FloatBuffer, long[])} does the same with any destination, like persistently mapped memory, see {@link GLBufferPersistentStreaming}.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLBufferDirtyRangesUploader {
+
+    private static final float MAX_DIRTY_FRACTION = 0.5f;
+
+    /**
+     * Destination of the uploaded ranges.
+     */
+    @FunctionalInterface
+    public interface RangeWriter {
+
+        /**
+         * @param data Data, with its position and limit set to the range to write
+         * @param offsetBytes Destination offset
+         * @param sizeBytes Range size
+         */
+        void write(FloatBuffer data, long offsetBytes, long sizeBytes);
+    }
+
+    private long[] uploadedHashes = new long[0];
+    private int uploadedStart = -1;
+    private int uploadedLength = -1;
+
+    /**
+     * Uploads the remaining floats of the data into the GL buffer, that must be bound.
+     * The position and limit of the data are kept.
+     *
+     * @param gl GL
+     * @param glBuffer Bound GL buffer
+     * @param data Snapshot buffer, with its position and limit set to the region to upload
+     * @param blockHashes Block hashes of the snapshot buffer, see {@link BufferBlockHashes}
+     * @return Uploaded bytes
+     */
+    public long upload(final GL gl, final GLBuffer glBuffer, final FloatBuffer data, final long[] blockHashes) {
+        return upload(gl, glBuffer, 0, true, data, blockHashes);
+    }
+
+    /**
+     * Same as {@link #upload(GL, GLBuffer, FloatBuffer, long[])}, to a region of the GL buffer that the GPU is not reading anymore, without orphaning.
+     *
+     * @param gl GL
+     * @param glBuffer Bound GL buffer
+     * @param regionOffsetBytes Offset of the region in the GL buffer
+     * @param data Snapshot buffer, with its position and limit set to the data to upload
+     * @param blockHashes Block hashes of the snapshot buffer, see {@link BufferBlockHashes}
+     * @return Uploaded bytes
+     */
+    public long uploadToRegion(final GL gl, final GLBuffer glBuffer, final long regionOffsetBytes, final FloatBuffer data, final long[] blockHashes) {
+        return upload(gl, glBuffer, regionOffsetBytes, false, data, blockHashes);
+    }
+
+    /**
+     * Same as {@link #uploadToRegion(GL, GLBuffer, long, FloatBuffer, long[])}, with the ranges written by the given writer. The region must be big enough for the data.
+     *
+     * @param writer Range writer
+     * @param regionOffsetBytes Offset of the region in the destination
+     * @param data Snapshot buffer, with its position and limit set to the data to write
+     * @param blockHashes Block hashes of the snapshot buffer, see {@link BufferBlockHashes}
+     * @return Written bytes
+     */
+    public long writeToRegion(final RangeWriter writer, final long regionOffsetBytes, final FloatBuffer data, final long[] blockHashes) {
+        return write(writer, null, regionOffsetBytes, true, data, blockHashes);
+    }
+
+    private long upload(final GL gl, final GLBuffer glBuffer, final long offsetBytes, final boolean orphaning, final FloatBuffer data, final long[] blockHashes) {
+        final boolean fits = glBuffer.getSizeBytes() >= offsetBytes + (long) data.remaining() * Float.BYTES;
+        final RangeWriter rangeWriter = (range, rangeOffsetBytes, sizeBytes) -> glBuffer.update(gl, range, rangeOffsetBytes, sizeBytes);
+
+        return write(rangeWriter, orphaning ? (range, rangeOffsetBytes, sizeBytes) -> glBuffer.updateWithOrphaning(gl, range) : null, offsetBytes, fits, data, blockHashes);
+    }
+
+    /**
+     * @param wholeWriter Writer of the whole data when it can't be written by ranges, or null to use the range writer
+     * @param fits True if the destination is big enough to only write the dirty ranges
+     */
+    private long write(final RangeWriter rangeWriter, final RangeWriter wholeWriter, final long offsetBytes, final boolean fits, final FloatBuffer data, final long[] blockHashes) {
+        final int start = data.position();
+        final int limit = data.limit();
+        final int length = limit - start;
+
+        final int firstBlock = start / BufferBlockHashes.BLOCK_FLOATS;
+        final int blocks = length > 0 ? (limit - 1) / BufferBlockHashes.BLOCK_FLOATS - firstBlock + 1 : 0;
+
+        long uploadedBytes = -1;
+        if (start == uploadedStart && length == uploadedLength && fits) {
+            uploadedBytes = uploadDirtyRanges(rangeWriter, offsetBytes, data, blockHashes, firstBlock, blocks);
+        }
+
+        if (uploadedBytes < 0) {
+            uploadedBytes = (long) length * Float.BYTES;
+            if (wholeWriter != null) {
+                wholeWriter.write(data, offsetBytes, uploadedBytes);
+            } else {
+                rangeWriter.write(data, offsetBytes, uploadedBytes);
+            }
+        }
+
+        if (uploadedHashes.length < blocks) {
+            uploadedHashes = new long[blocks];
+        }
+        System.arraycopy(blockHashes, firstBlock, uploadedHashes, 0, blocks);
+        uploadedStart = start;
+        uploadedLength = length;
+
+        data.limit(limit);
+        data.position(start);
+
+        return uploadedBytes;
+    }
+
+    /**
+     * @return Uploaded bytes, or -1 if too many blocks changed and the whole region should be uploaded
+     */
+    private long uploadDirtyRanges(final RangeWriter writer, final long offsetBytes, final FloatBuffer data, final long[] blockHashes, final int firstBlock, final int blocks) {
+        final int start = data.position();
+        final int limit = data.limit();
+
+        int dirtyFloats = 0;
+        for (int i = 0; i < blocks; i++) {
+            if (blockHashes[firstBlock + i] != uploadedHashes[i]) {
+                dirtyFloats += BufferBlockHashes.BLOCK_FLOATS;
+            }
+        }
+
+        if (dirtyFloats > (limit - start) * MAX_DIRTY_FRACTION) {
+            return -1;
+        }
+
+        long uploadedBytes = 0;
+        int i = 0;
+        while (i < blocks) {
+            if (blockHashes[firstBlock + i] == uploadedHashes[i]) {
+                i++;
+                continue;
+            }
+
+            //Merge consecutive dirty blocks in a single range:
+            int j = i + 1;
+            while (j < blocks && blockHashes[firstBlock + j] != uploadedHashes[j]) {
+                j++;
+            }
+
+            final int rangeStart = Math.max(start, (firstBlock + i) * BufferBlockHashes.BLOCK_FLOATS);
+            final int rangeEnd = Math.min(limit, (firstBlock + j) * BufferBlockHashes.BLOCK_FLOATS);
+
+            data.limit(rangeEnd);
+            data.position(rangeStart);
+
+            final long sizeBytes = (long) (rangeEnd - rangeStart) * Float.BYTES;
+            writer.write(data, offsetBytes + (long) (rangeStart - start) * Float.BYTES, sizeBytes);
+            uploadedBytes += sizeBytes;
+
+            data.limit(limit);
+            i = j;
+        }
+
+        return uploadedBytes;
+    }
+
+    /**
+     * Forgets the uploaded data, so the next upload is a whole one.
+     */
+    public void reset() {
+        Arrays.fill(uploadedHashes, 0);
+        uploadedStart = -1;
+        uploadedLength = -1;
+    }
+}
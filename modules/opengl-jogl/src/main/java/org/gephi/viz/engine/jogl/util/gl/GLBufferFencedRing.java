@@ -0,0 +1,134 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import java.nio.FloatBuffer;
+import org.gephi.viz.engine.status.EngineMetrics;
+
+/**
+ * Streaming buffer with {@link GLBufferMutable} storage, split in a ring of {@link #REGIONS_COUNT} regions, for when sync objects are available but persistent mapping is not (see {@link GLBufferPersistentStreaming}).
+ * <p>
+ * Each write uploads the data with glBufferSubData into the next region, after waiting for the fence inserted when leaving it, instead of orphaning the whole buffer. Each region keeps its own {@link GLBufferDirtyRangesUploader}, so only the blocks that changed since the region was last written are uploaded.</p>
+ * <p>
+ * The storage is reallocated (with a new name) when the data doesn't fit in a region.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLBufferFencedRing implements GLStreamingBuffer {
+
+    public static final int REGIONS_COUNT = 3;
+
+    private final int type;
+    private final int elementFloats;
+
+    private GLBufferMutable buffer;
+    private long writtenBytes = 0;
+    private final StreamingRegions regions = new StreamingRegions(REGIONS_COUNT);
+    private final GLSyncFences fences = new GLSyncFences(REGIONS_COUNT);
+
+    /**
+     * @param type Buffer type
+     * @param elementFloats Floats of each element (instance) in the buffer
+     */
+    public GLBufferFencedRing(int type, int elementFloats) {
+        this.type = type;
+        this.elementFloats = elementFloats;
+    }
+
+    @Override
+    public void init(GL gl, int regionElements) {
+        if (isInitialized()) {
+            throw new IllegalStateException("Already initialized");
+        }
+
+        allocate(gl, regionElements);
+    }
+
+    /**
+     * Uploads the remaining floats of the data into the next region of the ring. The position and limit of the data are kept.
+     *
+     * @param gl GL
+     * @param data Data to write, a whole number of elements
+     * @param blockHashes Block hashes of the data buffer, to only upload the blocks that changed since the region was last written
+     * @return True if the buffer had to be reallocated, so vertex arrays using {@link #getBuffer()} need to be configured again
+     */
+    @Override
+    public boolean write(GL gl, FloatBuffer data, long[] blockHashes) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("You should initialize the buffer first!");
+        }
+
+        final int neededElements = data.remaining() / elementFloats;
+
+        boolean reallocated = false;
+        if (!regions.fits(neededElements)) {
+            final int regionElements = regions.grownRegionElements(neededElements);
+            destroy(gl);
+            allocate(gl, regionElements);
+            reallocated = true;
+        } else {
+            //Draws using the current region were already issued:
+            fences.insert(gl, regions.advance());
+            fences.waitFor(gl, regions.getRegion());
+        }
+
+        final long regionOffsetBytes = (long) regions.getRegionFirstElement() * elementFloats * Float.BYTES;
+
+        buffer.bind(gl);
+        writtenBytes = regions.getUploader().uploadToRegion(gl, buffer, regionOffsetBytes, data, blockHashes);
+        buffer.unbind(gl);
+
+        return reallocated;
+    }
+
+    private void allocate(GL gl, int regionElements) {
+        final int[] name = new int[1];
+        gl.glGenBuffers(1, name, 0);
+
+        final long regionBytes = (long) regionElements * elementFloats * Float.BYTES;
+
+        buffer = new GLBufferMutable(name[0], type);
+        buffer.bind(gl);
+        buffer.init(gl, regionBytes * REGIONS_COUNT, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        buffer.unbind(gl);
+
+        regions.reset(regionElements);
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    @Override
+    public int getRegionFirstElement() {
+        return regions.getRegionFirstElement();
+    }
+
+    @Override
+    public GLBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return buffer != null;
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        fences.reportMetrics(metrics);
+    }
+
+    @Override
+    public void destroy(GL gl) {
+        if (!isInitialized()) {
+            return;
+        }
+
+        fences.destroy(gl);
+        buffer.destroy(gl);
+
+        buffer = null;
+        regions.reset(0);
+    }
+}
@@ -23,12 +23,12 @@ public class GLBufferImmutable implements GLBuffer {
 
     @Override
     public void bind(GL gl) {
-        gl.glBindBuffer(type, id);
+        GLStateTracker.bindBuffer(gl, type, id);
     }
 
     @Override
     public void unbind(GL gl) {
-        gl.glBindBuffer(type, 0);
+        GLStateTracker.unbindBuffer(gl, type);
     }
 
     @Override
@@ -136,7 +136,7 @@ public class GLBufferImmutable implements GLBuffer {
 
     @Override
     public boolean isBound(GL gl) {
-        return gl.getBoundBuffer(type) == id;
+        return GLStateTracker.isBufferBound(gl, type, id);
     }
 
     @Override
@@ -155,7 +155,7 @@ public class GLBufferImmutable implements GLBuffer {
             throw new IllegalStateException("You should initialize the buffer first!");
         }
 
-        gl.glDeleteBuffers(1, new int[]{id}, 0);
+        GLStateTracker.deleteBuffer(gl, id);
         sizeBytes = -1;
     }
 
@@ -2,6 +2,7 @@ package org.gephi.viz.engine.jogl.util.gl;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
 import com.jogamp.opengl.GL3ES3;
 import java.nio.Buffer;
 import static org.gephi.viz.engine.util.ArrayUtils.getNextPowerOf2;
@@ -16,6 +17,7 @@ public class GLBufferMutable implements GLBuffer {
     public static final int GL_BUFFER_TYPE_ARRAY = GL.GL_ARRAY_BUFFER;
     public static final int GL_BUFFER_TYPE_ELEMENT_INDICES = GL.GL_ELEMENT_ARRAY_BUFFER;
     public static final int GL_BUFFER_TYPE_DRAW_INDIRECT = GL3ES3.GL_DRAW_INDIRECT_BUFFER;
+    public static final int GL_BUFFER_TYPE_UNIFORM = GL2ES3.GL_UNIFORM_BUFFER;
     public static final int GL_BUFFER_USAGE_STATIC_DRAW = GL.GL_STATIC_DRAW;
     public static final int GL_BUFFER_USAGE_STREAM_DRAW = GL2ES2.GL_STREAM_DRAW;
     public static final int GL_BUFFER_USAGE_DYNAMIC_DRAW = GL.GL_DYNAMIC_DRAW;
@@ -33,12 +35,12 @@ public class GLBufferMutable implements GLBuffer {
 
     @Override
     public void bind(GL gl) {
-        gl.glBindBuffer(type, id);
+        GLStateTracker.bindBuffer(gl, type, id);
     }
 
     @Override
     public void unbind(GL gl) {
-        gl.glBindBuffer(type, 0);
+        GLStateTracker.unbindBuffer(gl, type);
     }
 
     @Override
@@ -118,7 +120,7 @@ public class GLBufferMutable implements GLBuffer {
             throw new IllegalStateException("You should initialize the buffer first!");
         }
 
-        gl.glDeleteBuffers(1, new int[]{id}, 0);
+        GLStateTracker.deleteBuffer(gl, id);
         sizeBytes = -1;
     }
 
@@ -153,7 +155,7 @@ public class GLBufferMutable implements GLBuffer {
 
     @Override
     public boolean isBound(GL gl) {
-        return gl.getBoundBuffer(type) == id;
+        return GLStateTracker.isBufferBound(gl, type, id);
     }
 
     @Override
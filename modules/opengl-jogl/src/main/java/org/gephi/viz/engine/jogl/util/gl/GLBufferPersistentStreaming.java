@@ -0,0 +1,156 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL4;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import org.gephi.viz.engine.status.EngineMetrics;
+
+/**
+ * Streaming buffer persistently mapped with {@link GLBufferImmutable} storage (GL 4.4 or ARB_buffer_storage), split in a ring of {@link #REGIONS_COUNT} regions.
+ * <p>
+ * Each write copies the data straight into the mapped memory of the next region, without glBufferSubData and its driver-side copy. Like {@link GLBufferFencedRing}, only the blocks that changed since the region was last written are copied, the others are still there. A fence is inserted when leaving a region, and waited before writing it again, so the GPU is never reading a region that is being written. Draws read the current region with {@link #getRegionFirstElement()} as base instance.</p>
+ * <p>
+ * The storage can't grow, so a bigger buffer (with a new name) is allocated when the data doesn't fit in a region.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLBufferPersistentStreaming implements GLStreamingBuffer {
+
+    public static final int REGIONS_COUNT = 3;
+
+    private static final int STORAGE_FLAGS = GL4.GL_MAP_WRITE_BIT | GL4.GL_MAP_PERSISTENT_BIT | GL4.GL_MAP_COHERENT_BIT;
+
+    private final int type;
+    private final int elementFloats;
+
+    private GLBufferImmutable buffer;
+    private FloatBuffer mapped;
+    private long writtenBytes = 0;
+    private final StreamingRegions regions = new StreamingRegions(REGIONS_COUNT);
+    private final GLSyncFences fences = new GLSyncFences(REGIONS_COUNT);
+    private final GLBufferDirtyRangesUploader.RangeWriter mappedWriter = (data, offsetBytes, sizeBytes) -> {
+        final FloatBuffer destination = mapped.duplicate();
+        destination.position((int) (offsetBytes / Float.BYTES));
+        destination.put(data);
+    };
+
+    /**
+     * @param type Buffer type
+     * @param elementFloats Floats of each element (instance) in the buffer
+     */
+    public GLBufferPersistentStreaming(int type, int elementFloats) {
+        this.type = type;
+        this.elementFloats = elementFloats;
+    }
+
+    /**
+     * Allocates and maps the buffer.
+     *
+     * @param gl GL
+     * @param regionElements Initial elements capacity of each region
+     */
+    @Override
+    public void init(GL gl, int regionElements) {
+        if (isInitialized()) {
+            throw new IllegalStateException("Already initialized");
+        }
+
+        allocate(gl, regionElements);
+    }
+
+    /**
+     * Copies the remaining floats of the data into the next region of the ring. The position and limit of the data are kept.
+     *
+     * @param gl GL
+     * @param data Data to write, a whole number of elements
+     * @param blockHashes Block hashes of the data buffer, to only copy the blocks that changed since the region was last written
+     * @return True if the buffer had to be reallocated, so vertex arrays using {@link #getBuffer()} need to be configured again
+     */
+    @Override
+    public boolean write(GL gl, FloatBuffer data, long[] blockHashes) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("You should initialize the buffer first!");
+        }
+
+        final int neededElements = data.remaining() / elementFloats;
+
+        boolean reallocated = false;
+        if (!regions.fits(neededElements)) {
+            final int regionElements = regions.grownRegionElements(neededElements);
+            destroy(gl);
+            allocate(gl, regionElements);
+            reallocated = true;
+        } else {
+            //Draws using the current region were already issued:
+            fences.insert(gl, regions.advance());
+            fences.waitFor(gl, regions.getRegion());
+        }
+
+        final long regionOffsetBytes = (long) regions.getRegionFirstElement() * elementFloats * Float.BYTES;
+        writtenBytes = regions.getUploader().writeToRegion(mappedWriter, regionOffsetBytes, data, blockHashes);
+
+        return reallocated;
+    }
+
+    private void allocate(GL gl, int regionElements) {
+        final int[] name = new int[1];
+        gl.glGenBuffers(1, name, 0);
+
+        final long regionBytes = (long) regionElements * elementFloats * Float.BYTES;
+        final long sizeBytes = regionBytes * REGIONS_COUNT;
+
+        buffer = new GLBufferImmutable(name[0], type);
+        buffer.bind(gl);
+        buffer.init(gl, sizeBytes, STORAGE_FLAGS);
+        mapped = gl.getGL4().glMapBufferRange(type, 0, sizeBytes, STORAGE_FLAGS)
+            .order(ByteOrder.nativeOrder())
+            .asFloatBuffer();
+        buffer.unbind(gl);
+
+        regions.reset(regionElements);
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    @Override
+    public int getRegionFirstElement() {
+        return regions.getRegionFirstElement();
+    }
+
+    @Override
+    public GLBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return buffer != null;
+    }
+
+    @Override
+    public void reportMetrics(EngineMetrics metrics) {
+        fences.reportMetrics(metrics);
+    }
+
+    @Override
+    public void destroy(GL gl) {
+        if (!isInitialized()) {
+            return;
+        }
+
+        fences.destroy(gl);
+
+        buffer.bind(gl);
+        gl.glUnmapBuffer(type);
+        buffer.unbind(gl);
+        buffer.destroy(gl);
+
+        buffer = null;
+        mapped = null;
+        regions.reset(0);
+    }
+}
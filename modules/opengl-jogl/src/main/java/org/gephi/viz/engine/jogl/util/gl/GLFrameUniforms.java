@@ -0,0 +1,196 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+import static org.gephi.viz.engine.util.gl.Constants.EDGE_SCALE_MAX;
+import static org.gephi.viz.engine.util.gl.Constants.EDGE_SCALE_MIN;
+import static org.gephi.viz.engine.util.gl.Constants.UNIFORM_BLOCK_BINDING_FRAME;
+
+/**
+ * Uniform buffer with the std140 {@code FrameUniforms} block: model view projection, background color, viewport, selection lighten factor, edge scale and edge weights range.
+ * <p>
+ * It is filled once per frame, when first used, and bound to {@link org.gephi.viz.engine.util.gl.Constants#UNIFORM_BLOCK_BINDING_FRAME}, so programs with the block only set their per draw uniforms.
+ * Models must check {@code use} and fall back to plain uniforms when the values they draw with are not the ones of the frame (compact attributes).</p>
+ * <p>
+ * Like {@link GLProgramBinaryCache}, it is attached to the GL context.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLFrameUniforms {
+
+    private static final String CONTEXT_ATTACHMENT_NAME = GLFrameUniforms.class.getName();
+
+    //std140 offsets, in floats:
+    private static final int MVP_OFFSET = 0;
+    private static final int BACKGROUND_COLOR_OFFSET = 16;
+    private static final int VIEWPORT_OFFSET = 20;
+    private static final int COLOR_LIGHTEN_FACTOR_OFFSET = 24;
+    private static final int EDGE_SCALE_MIN_OFFSET = 25;
+    private static final int EDGE_SCALE_MAX_OFFSET = 26;
+    private static final int MIN_WEIGHT_OFFSET = 27;
+    private static final int WEIGHT_DIFFERENCE_DIVISOR_OFFSET = 28;
+    //Rounded up to a multiple of vec4:
+    private static final int BLOCK_FLOATS = 32;
+
+    private final VizEngine engine;
+    private final int[] bufferName = new int[1];
+    private final GLBufferMutable buffer;
+
+    private final float[] data = new float[BLOCK_FLOATS];
+    private final float[] uploadedData = new float[BLOCK_FLOATS];
+    private final FloatBuffer dataBuffer = GLBuffers.newDirectFloatBuffer(BLOCK_FLOATS);
+    private boolean uploaded = false;
+    private boolean updatedInFrame = false;
+
+    //Values of the frame that are not stored as is in the block:
+    private final float[] mvpFloats = new float[16];
+    private float edgeScale;
+    private float minWeight;
+    private float maxWeight;
+
+    private GLFrameUniforms(GL gl, VizEngine engine) {
+        this.engine = engine;
+
+        gl.glGenBuffers(1, bufferName, 0);
+        buffer = new GLBufferMutable(bufferName[0], GLBufferMutable.GL_BUFFER_TYPE_UNIFORM);
+        buffer.bind(gl);
+        buffer.init(gl, (long) BLOCK_FLOATS * Float.BYTES, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        buffer.unbind(gl);
+    }
+
+    /**
+     * Attaches new frame uniforms to the current context of the GL, if uniform blocks are supported and not disabled.
+     *
+     * @param gl GL
+     * @param engine Engine to take the frame values from
+     * @param capabilities Capabilities of the GL
+     * @param openGLOptions Options, may be null
+     * @return The attached frame uniforms or null
+     */
+    public static GLFrameUniforms attach(GL gl, VizEngine engine, GLCapabilitiesSummary capabilities, OpenGLOptions openGLOptions) {
+        final GLContext context = gl.getContext();
+        context.detachObject(CONTEXT_ATTACHMENT_NAME);
+
+        if (!capabilities.isFrameUniformsSupported() || (openGLOptions != null && openGLOptions.isDisableFrameUniforms())) {
+            return null;
+        }
+
+        final GLFrameUniforms frameUniforms = new GLFrameUniforms(gl, engine);
+        context.attachObject(CONTEXT_ATTACHMENT_NAME, frameUniforms);
+        return frameUniforms;
+    }
+
+    /**
+     * @param gl GL
+     * @return Frame uniforms attached to the current context of the GL or null
+     */
+    public static GLFrameUniforms get(GL gl) {
+        final GLContext context = gl.getContext();
+        if (context == null) {
+            return null;
+        }
+
+        return (GLFrameUniforms) context.getAttachedObject(CONTEXT_ATTACHMENT_NAME);
+    }
+
+    /**
+     * Must be called before drawing each frame, so values are taken again from the engine.
+     */
+    public void frameStart() {
+        updatedInFrame = false;
+    }
+
+    /**
+     * Fills and binds the block if not done yet in this frame.
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection the caller would draw with
+     * @return True if the block has the same model view projection, so the caller can use a program with the block
+     */
+    public boolean use(GL2ES2 gl, float[] mvpFloats) {
+        update(gl);
+        return Arrays.equals(mvpFloats, this.mvpFloats);
+    }
+
+    /**
+     * Same as {@link #use(GL2ES2, float[])}, also checking the edge values.
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection the caller would draw with
+     * @param edgeScale Edge scale the caller would draw with
+     * @param minWeight Min weight the caller would draw with
+     * @param maxWeight Max weight the caller would draw with
+     * @return True if the block has the same values
+     */
+    public boolean use(GL2ES2 gl, float[] mvpFloats, float edgeScale, float minWeight, float maxWeight) {
+        return use(gl, mvpFloats)
+            && edgeScale == this.edgeScale
+            && minWeight == this.minWeight
+            && maxWeight == this.maxWeight;
+    }
+
+    private void update(GL2ES2 gl) {
+        if (updatedInFrame) {
+            return;
+        }
+        updatedInFrame = true;
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+        edgeScale = renderingOptions.getEdgeScale();
+        minWeight = graphIndex.getEdgesMinWeight();
+        maxWeight = graphIndex.getEdgesMaxWeight();
+
+        final int width = Math.max(1, engine.getWidth());
+        final int height = Math.max(1, engine.getHeight());
+
+        System.arraycopy(mvpFloats, 0, data, MVP_OFFSET, 16);
+        System.arraycopy(engine.getBackgroundColor(), 0, data, BACKGROUND_COLOR_OFFSET, 4);
+        data[VIEWPORT_OFFSET] = width;
+        data[VIEWPORT_OFFSET + 1] = height;
+        data[VIEWPORT_OFFSET + 2] = 1f / width;
+        data[VIEWPORT_OFFSET + 3] = 1f / height;
+        data[COLOR_LIGHTEN_FACTOR_OFFSET] = renderingOptions.getLightenNonSelectedFactor();
+        data[EDGE_SCALE_MIN_OFFSET] = EDGE_SCALE_MIN * edgeScale;
+        data[EDGE_SCALE_MAX_OFFSET] = EDGE_SCALE_MAX * edgeScale;
+        data[MIN_WEIGHT_OFFSET] = minWeight;
+        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
+            data[WEIGHT_DIFFERENCE_DIVISOR_OFFSET] = 1;
+        } else {
+            data[WEIGHT_DIFFERENCE_DIVISOR_OFFSET] = maxWeight - minWeight;
+        }
+
+        //Camera and options don't change in most frames:
+        if (!uploaded || !Arrays.equals(data, uploadedData)) {
+            dataBuffer.clear();
+            dataBuffer.put(data);
+            dataBuffer.flip();
+
+            buffer.bind(gl);
+            buffer.update(gl, dataBuffer);
+            buffer.unbind(gl);
+
+            System.arraycopy(data, 0, uploadedData, 0, BLOCK_FLOATS);
+            uploaded = true;
+        }
+
+        GLStateTracker.bindBufferBase(gl, GLBufferMutable.GL_BUFFER_TYPE_UNIFORM, UNIFORM_BLOCK_BINDING_FRAME, bufferName[0]);
+    }
+
+    public void dispose(GL gl) {
+        buffer.destroy(gl);
+    }
+}
@@ -0,0 +1,210 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.util.GLBuffers;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLCapabilitiesSummary;
+import org.gephi.viz.engine.jogl.util.gl.capabilities.GLVersionData;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+import static com.jogamp.opengl.GL2ES2.GL_LINK_STATUS;
+import static com.jogamp.opengl.GL2ES2.GL_NUM_PROGRAM_BINARY_FORMATS;
+import static com.jogamp.opengl.GL2ES2.GL_PROGRAM_BINARY_LENGTH;
+
+/**
+ * Disk cache of linked program binaries, to skip shader compilation on engine start and GL context re-creation.
+ * <p>
+ * Binaries are keyed by the shader sources, the explicit attribute locations and the GL renderer, vendor and version strings. A binary the driver rejects is deleted and the program is compiled from source again.</p>
+ * <p>
+ * The cache is attached to the GL context, where {@link GLShaderProgram} looks for it.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLProgramBinaryCache {
+
+    private static final String CONTEXT_ATTACHMENT_NAME = GLProgramBinaryCache.class.getName();
+    private static final String FILE_EXTENSION = ".bin";
+
+    private final File directory;
+    private final String glIdentifier;
+
+    private final int[] intData = new int[2];
+
+    public GLProgramBinaryCache(File directory, GLVersionData version) {
+        this.directory = directory;
+        this.glIdentifier = version.RENDERER + '\n' + version.VENDOR + '\n' + version.VERSION + '\n' + version.SHADING_LANGUAGE_VERSION;
+    }
+
+    /**
+     * Attaches a new cache to the current context of the GL, if program binaries are supported and a cache directory is configured.
+     *
+     * @param gl GL
+     * @param capabilities Capabilities of the GL
+     * @param openGLOptions Options, may be null
+     * @return The attached cache or null
+     */
+    public static GLProgramBinaryCache attach(GL gl, GLCapabilitiesSummary capabilities, OpenGLOptions openGLOptions) {
+        final GLContext context = gl.getContext();
+        context.detachObject(CONTEXT_ATTACHMENT_NAME);
+
+        if (openGLOptions == null || openGLOptions.getProgramBinaryCacheDirectory() == null || !capabilities.isProgramBinarySupported()) {
+            return null;
+        }
+
+        //Some implementations report the extension without any binary format:
+        final int[] data = new int[1];
+        gl.glGetIntegerv(GL_NUM_PROGRAM_BINARY_FORMATS, data, 0);
+        if (data[0] <= 0) {
+            return null;
+        }
+
+        final GLProgramBinaryCache cache = new GLProgramBinaryCache(openGLOptions.getProgramBinaryCacheDirectory(), capabilities.getVersion());
+        context.attachObject(CONTEXT_ATTACHMENT_NAME, cache);
+        return cache;
+    }
+
+    /**
+     * @param gl GL
+     * @return Cache attached to the current context of the GL or null
+     */
+    public static GLProgramBinaryCache get(GL gl) {
+        final GLContext context = gl.getContext();
+        if (context == null) {
+            return null;
+        }
+
+        return (GLProgramBinaryCache) context.getAttachedObject(CONTEXT_ATTACHMENT_NAME);
+    }
+
+    /**
+     * @param parts Everything that determines the linked program
+     * @return Key of the program for this GL implementation
+     */
+    public String computeKey(CharSequence... parts) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(glIdentifier.getBytes(StandardCharsets.UTF_8));
+            for (CharSequence part : parts) {
+                digest.update((byte) 0);
+                digest.update(part.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Loads the cached binary of the key into the program.
+     *
+     * @param gl GL
+     * @param program Program created and not linked yet
+     * @param key Key of the program
+     * @return True if the program is linked from the cached binary
+     */
+    public boolean load(GL2ES2 gl, int program, String key) {
+        final File file = getFile(key);
+        if (!file.isFile()) {
+            return false;
+        }
+
+        final int format;
+        final ByteBuffer binary;
+        try (InputStream is = Files.newInputStream(file.toPath()); DataInputStream dis = new DataInputStream(is)) {
+            format = dis.readInt();
+            final byte[] bytes = new byte[dis.readInt()];
+            dis.readFully(bytes);
+            binary = GLBuffers.newDirectByteBuffer(bytes);
+        } catch (IOException ex) {
+            System.out.println("Could not read program binary " + file + ": " + ex.getMessage());
+            file.delete();
+            return false;
+        }
+
+        gl.glProgramBinary(program, format, binary, binary.capacity());
+        gl.glGetProgramiv(program, GL_LINK_STATUS, intData, 0);
+        if (intData[0] == GL.GL_FALSE) {
+            //Driver updated or binary corrupted
+            file.delete();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Stores the binary of a linked program.
+     *
+     * @param gl GL
+     * @param program Linked program
+     * @param key Key of the program
+     */
+    public void store(GL2ES2 gl, int program, String key) {
+        gl.glGetProgramiv(program, GL_PROGRAM_BINARY_LENGTH, intData, 0);
+        final int length = intData[0];
+        if (length <= 0) {
+            return;
+        }
+
+        final ByteBuffer binary = GLBuffers.newDirectByteBuffer(length);
+        gl.glGetProgramBinary(program, length, intData, 0, intData, 1, binary);
+        final int writtenLength = intData[0];
+        final int format = intData[1];
+        if (writtenLength <= 0) {
+            return;
+        }
+
+        final byte[] bytes = new byte[writtenLength];
+        binary.get(bytes);
+
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                System.out.println("Could not create program binary cache directory " + directory);
+                return;
+            }
+
+            //Write and move, so concurrent engines never read partial files:
+            final Path tempFile = Files.createTempFile(directory.toPath(), key, ".tmp");
+            try {
+                try (OutputStream os = Files.newOutputStream(tempFile); DataOutputStream dos = new DataOutputStream(os)) {
+                    dos.writeInt(format);
+                    dos.writeInt(bytes.length);
+                    dos.write(bytes);
+                }
+                Files.move(tempFile, getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                //Only left when writing or moving failed:
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ex) {
+            System.out.println("Could not write program binary for key " + key + ": " + ex.getMessage());
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + FILE_EXTENSION);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+}
@@ -1,12 +1,14 @@
 package org.gephi.viz.engine.jogl.util.gl;
 
 import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
 import static com.jogamp.opengl.GL2ES2.GL_FRAGMENT_SHADER;
 import static com.jogamp.opengl.GL2ES2.GL_VERTEX_SHADER;
 import com.jogamp.opengl.util.glsl.ShaderCode;
 import com.jogamp.opengl.util.glsl.ShaderProgram;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  *
@@ -21,6 +23,7 @@ public class GLShaderProgram {
 
     private final Map<String, Integer> uniformLocations;
     private final Map<String, Integer> attribLocations;
+    private final Map<String, Integer> uniformBlockBindings;
     private boolean initDone = false;
 
     public GLShaderProgram(String srcRoot, String vertBasename) {
@@ -33,6 +36,7 @@ public class GLShaderProgram {
         this.fragBasename = fragBasename;
         this.uniformLocations = new HashMap<>();
         this.attribLocations = new HashMap<>();
+        this.uniformBlockBindings = new HashMap<>();
     }
 
     public GLShaderProgram addUniformName(String name) {
@@ -50,6 +54,18 @@ public class GLShaderProgram {
         return this;
     }
 
+    /**
+     * Binds a uniform block of the program to a uniform buffer binding point. Requires GL 3.1 or ES 3.0.
+     *
+     * @param name Name of the uniform block
+     * @param binding Binding point
+     * @return This program
+     */
+    public GLShaderProgram addUniformBlockBinding(String name, int binding) {
+        uniformBlockBindings.put(name, binding);
+        return this;
+    }
+
     public GLShaderProgram init(GL2ES2 gl) {
         if (initDone) {
             throw new IllegalStateException("Already initialized");
@@ -57,14 +73,17 @@ public class GLShaderProgram {
 
         ShaderProgram shaderProgram = new ShaderProgram();
 
+        //Only loads the sources, compilation happens when linking:
         ShaderCode vertShaderCode = ShaderCode.create(
                 gl, GL_VERTEX_SHADER, this.getClass(), srcRoot, null,
                 vertBasename, "vert", null, true
         );
 
         shaderProgram.add(vertShaderCode);
+
+        ShaderCode fragShaderCode = null;
         if (fragBasename != null) {
-            ShaderCode fragShaderCode = ShaderCode.create(
+            fragShaderCode = ShaderCode.create(
                     gl, GL_FRAGMENT_SHADER, this.getClass(), srcRoot, null,
                     fragBasename, "frag", null, true
             );
@@ -72,18 +91,41 @@ public class GLShaderProgram {
             shaderProgram.add(fragShaderCode);
         }
 
-        shaderProgram.init(gl);
+        final GLProgramBinaryCache binaryCache = GLProgramBinaryCache.get(gl);
+        String binaryCacheKey = null;
+        boolean loadedFromBinary = false;
+        if (binaryCache != null) {
+            binaryCacheKey = binaryCache.computeKey(
+                joinSources(vertShaderCode),
+                fragShaderCode != null ? joinSources(fragShaderCode) : "",
+                new TreeMap<>(attribLocations).toString()
+            );
+
+            id = gl.glCreateProgram();
+            loadedFromBinary = binaryCache.load(gl, id, binaryCacheKey);
+            if (!loadedFromBinary) {
+                gl.glDeleteProgram(id);
+            }
+        }
+
+        if (!loadedFromBinary) {
+            shaderProgram.init(gl);
 
-        id = shaderProgram.program();
+            id = shaderProgram.program();
 
-        //Set explicit locations:
-        for (String name : attribLocations.keySet().toArray(new String[0])) {
-            if (attribLocations.get(name) != null) {
-                gl.glBindAttribLocation(id, attribLocations.get(name), name);
+            //Set explicit locations:
+            for (String name : attribLocations.keySet().toArray(new String[0])) {
+                if (attribLocations.get(name) != null) {
+                    gl.glBindAttribLocation(id, attribLocations.get(name), name);
+                }
+            }
+
+            shaderProgram.link(gl, System.out);
+
+            if (binaryCache != null && shaderProgram.linked()) {
+                binaryCache.store(gl, id, binaryCacheKey);
             }
         }
-        
-        shaderProgram.link(gl, System.out);
 
         // Get variables locations
         for (String name : uniformLocations.keySet().toArray(new String[0])) {
@@ -96,11 +138,30 @@ public class GLShaderProgram {
             }
         }
 
+        //Linking, also from a binary, resets block bindings:
+        for (Map.Entry<String, Integer> entry : uniformBlockBindings.entrySet()) {
+            final GL2ES3 gl3 = gl.getGL2ES3();
+            final int blockIndex = gl3.glGetUniformBlockIndex(id, entry.getKey());
+            if (blockIndex != GL2ES3.GL_INVALID_INDEX) {
+                gl3.glUniformBlockBinding(id, blockIndex, entry.getValue());
+            }
+        }
+
         initDone = true;
 
         return this;
     }
 
+    private static String joinSources(ShaderCode shaderCode) {
+        final StringBuilder sb = new StringBuilder();
+        for (CharSequence[] source : shaderCode.shaderSource()) {
+            for (CharSequence part : source) {
+                sb.append(part);
+            }
+        }
+        return sb.toString();
+    }
+
     public boolean isInitialized() {
         return initDone;
     }
@@ -140,10 +201,10 @@ public class GLShaderProgram {
             throw new IllegalStateException("Initialize the program first!");
         }
 
-        gl.glUseProgram(id);
+        GLStateTracker.useProgram(gl, id);
     }
 
     public void stopUsing(GL2ES2 gl) {
-        gl.glUseProgram(0);
+        GLStateTracker.stopUsingProgram(gl);
     }
 }
@@ -0,0 +1,252 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.util.GLBuffers;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+/**
+ * Cache of the bound buffers per target, current program and current VAO of a GL context, to skip binds that don't change anything and to answer which buffer is bound without asking the GL.
+ * <p>
+ * Unbinding (binding zero) after each operation is skipped, except in debug mode, where it helps to find missing binds. Instead, {@link #restoreDefaults(GL)} unbinds everything once when the engine is done with the context, so other users of the context (like the JOGL panels) find the default state.</p>
+ * <p>
+ * Like {@link GLProgramBinaryCache}, it is attached to the GL context. All the static methods fall back to plain GL calls for contexts without a tracker.
+ * State changed with direct GL calls is not seen by the tracker, so buffers, programs and VAOs must be bound through it.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLStateTracker {
+
+    private static final String CONTEXT_ATTACHMENT_NAME = GLStateTracker.class.getName();
+
+    private static final int UNKNOWN = -1;
+    private static final int MAX_BUFFER_TARGETS = 16;
+
+    private final boolean unbindToZero;
+
+    private final int[] bufferTargets = new int[MAX_BUFFER_TARGETS];
+    private final int[] boundBuffers = new int[MAX_BUFFER_TARGETS];
+    private int bufferTargetsCount = 0;
+    private int program = UNKNOWN;
+    private int vertexArray = UNKNOWN;
+
+    public GLStateTracker(boolean unbindToZero) {
+        this.unbindToZero = unbindToZero;
+    }
+
+    /**
+     * Attaches a new tracker to the current context of the GL.
+     *
+     * @param gl GL
+     * @param openGLOptions Options, may be null
+     * @return The attached tracker
+     */
+    public static GLStateTracker attach(GL gl, OpenGLOptions openGLOptions) {
+        final GLStateTracker tracker = new GLStateTracker(openGLOptions != null && openGLOptions.isDebug());
+        gl.getContext().attachObject(CONTEXT_ATTACHMENT_NAME, tracker);
+        return tracker;
+    }
+
+    /**
+     * @param gl GL
+     * @return Tracker attached to the current context of the GL or null
+     */
+    public static GLStateTracker get(GL gl) {
+        final GLContext context = gl.getContext();
+        if (context == null) {
+            return null;
+        }
+
+        return (GLStateTracker) context.getAttachedObject(CONTEXT_ATTACHMENT_NAME);
+    }
+
+    public static void bindBuffer(GL gl, int target, int buffer) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null) {
+            gl.glBindBuffer(target, buffer);
+            return;
+        }
+
+        final int index = tracker.getBufferTargetIndex(target);
+        if (index >= 0 && tracker.boundBuffers[index] == buffer) {
+            return;
+        }
+
+        gl.glBindBuffer(target, buffer);
+        if (index >= 0) {
+            tracker.boundBuffers[index] = buffer;
+        }
+    }
+
+    public static void unbindBuffer(GL gl, int target) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null || tracker.unbindToZero) {
+            bindBuffer(gl, target, 0);
+        }
+    }
+
+    /**
+     * Binds a buffer to an indexed binding point, which also binds it to the generic binding point of the target.
+     *
+     * @param gl GL
+     * @param target Indexed target, like uniform buffer
+     * @param index Binding point
+     * @param buffer Buffer
+     */
+    public static void bindBufferBase(GL gl, int target, int index, int buffer) {
+        gl.getGL2ES3().glBindBufferBase(target, index, buffer);
+
+        final GLStateTracker tracker = get(gl);
+        if (tracker != null) {
+            final int targetIndex = tracker.getBufferTargetIndex(target);
+            if (targetIndex >= 0) {
+                tracker.boundBuffers[targetIndex] = buffer;
+            }
+        }
+    }
+
+    public static boolean isBufferBound(GL gl, int target, int buffer) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null || tracker.unbindToZero) {
+            return gl.getBoundBuffer(target) == buffer;
+        }
+
+        final int index = tracker.getBufferTargetIndex(target);
+        if (index < 0 || tracker.boundBuffers[index] == UNKNOWN) {
+            return gl.getBoundBuffer(target) == buffer;
+        }
+
+        return tracker.boundBuffers[index] == buffer;
+    }
+
+    public static void deleteBuffer(GL gl, int buffer) {
+        gl.glDeleteBuffers(1, new int[]{buffer}, 0);
+
+        //Deleted buffers are unbound from every target:
+        final GLStateTracker tracker = get(gl);
+        if (tracker != null) {
+            for (int i = 0; i < tracker.bufferTargetsCount; i++) {
+                if (tracker.boundBuffers[i] == buffer) {
+                    tracker.boundBuffers[i] = 0;
+                }
+            }
+        }
+    }
+
+    public static void useProgram(GL2ES2 gl, int program) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null) {
+            gl.glUseProgram(program);
+            return;
+        }
+
+        if (tracker.program != program) {
+            gl.glUseProgram(program);
+            tracker.program = program;
+        }
+    }
+
+    public static void stopUsingProgram(GL2ES2 gl) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null || tracker.unbindToZero) {
+            useProgram(gl, 0);
+        }
+    }
+
+    public static void bindVertexArray(GL2ES2 gl, int array) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null) {
+            GLFunctions.glBindVertexArray(gl, array);
+            return;
+        }
+
+        if (tracker.vertexArray != array) {
+            GLFunctions.glBindVertexArray(gl, array);
+            tracker.setVertexArray(array);
+        }
+    }
+
+    public static void unbindVertexArray(GL2ES2 gl) {
+        final GLStateTracker tracker = get(gl);
+        if (tracker == null || tracker.unbindToZero) {
+            bindVertexArray(gl, 0);
+        }
+    }
+
+    public static void deleteVertexArray(GL2ES2 gl, int array) {
+        GLFunctions.glDeleteVertexArrays(gl, 1, GLBuffers.newDirectIntBuffer(new int[]{array}));
+
+        //Deleting the bound VAO binds zero:
+        final GLStateTracker tracker = get(gl);
+        if (tracker != null && tracker.vertexArray == array) {
+            tracker.setVertexArray(0);
+        }
+    }
+
+    /**
+     * Forgets all the state, for when other code may have used the context. Call it before drawing each frame.
+     */
+    public void invalidate() {
+        for (int i = 0; i < bufferTargetsCount; i++) {
+            boundBuffers[i] = UNKNOWN;
+        }
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+    }
+
+    /**
+     * Unbinds the VAO, the program and the buffers of every target, when they are not known to be unbound.
+     *
+     * @param gl GL
+     */
+    public void restoreDefaults(GL gl) {
+        final GL2ES2 gl2es2 = gl.getGL2ES2();
+
+        //Only bound if supported:
+        if (vertexArray != 0 && vertexArray != UNKNOWN) {
+            GLFunctions.glUnbindVertexArray(gl2es2);
+            setVertexArray(0);
+        }
+
+        if (program != 0) {
+            gl2es2.glUseProgram(0);
+            program = 0;
+        }
+
+        for (int i = 0; i < bufferTargetsCount; i++) {
+            //Element indices are VAO state:
+            if (bufferTargets[i] != GL.GL_ELEMENT_ARRAY_BUFFER && boundBuffers[i] != 0) {
+                gl.glBindBuffer(bufferTargets[i], 0);
+                boundBuffers[i] = 0;
+            }
+        }
+    }
+
+    private void setVertexArray(int array) {
+        vertexArray = array;
+
+        //The element indices binding belongs to the VAO:
+        final int index = getBufferTargetIndex(GL.GL_ELEMENT_ARRAY_BUFFER);
+        if (index >= 0) {
+            boundBuffers[index] = UNKNOWN;
+        }
+    }
+
+    private int getBufferTargetIndex(int target) {
+        for (int i = 0; i < bufferTargetsCount; i++) {
+            if (bufferTargets[i] == target) {
+                return i;
+            }
+        }
+
+        if (bufferTargetsCount == MAX_BUFFER_TARGETS) {
+            //Not tracked
+            return -1;
+        }
+
+        bufferTargets[bufferTargetsCount] = target;
+        boundBuffers[bufferTargetsCount] = UNKNOWN;
+        return bufferTargetsCount++;
+    }
+}
@@ -0,0 +1,55 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import java.nio.FloatBuffer;
+import org.gephi.viz.engine.status.EngineMetrics;
+
+/**
+ * Buffer written once per world update into the next region of a ring, protected by fences, so the GPU can keep reading the previous regions without orphaning or implicit syncs.
+ * Draws read the region written last with {@link #getRegionFirstElement()} as base instance.
+ *
+ * @author Eduardo Ramos
+ */
+public interface GLStreamingBuffer {
+
+    /**
+     * Allocates the buffer.
+     *
+     * @param gl GL
+     * @param regionElements Initial elements capacity of each region
+     */
+    void init(GL gl, int regionElements);
+
+    /**
+     * Writes the remaining floats of the data into the next region of the ring. The position and limit of the data are kept.
+     *
+     * @param gl GL
+     * @param data Data to write, a whole number of elements
+     * @param blockHashes Block hashes of the data buffer, see {@link org.gephi.viz.engine.util.BufferBlockHashes}
+     * @return True if the buffer had to be reallocated, so vertex arrays using {@link #getBuffer()} need to be configured again
+     */
+    boolean write(GL gl, FloatBuffer data, long[] blockHashes);
+
+    /**
+     * @return Bytes copied by the last write
+     */
+    long getWrittenBytes();
+
+    /**
+     * @return First element of the region written last, to use as base instance when drawing
+     */
+    int getRegionFirstElement();
+
+    GLBuffer getBuffer();
+
+    boolean isInitialized();
+
+    /**
+     * Adds the fence waits since the last report to the metrics.
+     *
+     * @param metrics Metrics
+     */
+    void reportMetrics(EngineMetrics metrics);
+
+    void destroy(GL gl);
+}
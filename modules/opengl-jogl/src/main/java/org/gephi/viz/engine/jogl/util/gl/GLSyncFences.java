@@ -0,0 +1,92 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL3ES3;
+import org.gephi.viz.engine.status.EngineMetrics;
+
+/**
+ * Fences of the regions of a ring buffer, with the count and time of the waits of the CPU for the GPU, reported to {@link EngineMetrics}.
+ *
+ * @author Eduardo Ramos
+ */
+public class GLSyncFences {
+
+    private static final long FENCE_WAIT_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private final long[] fences;
+
+    private int waits = 0;
+    private long waitNanos = 0;
+
+    public GLSyncFences(int count) {
+        this.fences = new long[count];
+    }
+
+    /**
+     * Inserts a fence after the commands issued until now, replacing the previous one of the index.
+     *
+     * @param gl GL
+     * @param index Fence index
+     */
+    public void insert(GL gl, int index) {
+        final GL3ES3 gl3 = gl.getGL3ES3();
+        if (fences[index] != 0) {
+            gl3.glDeleteSync(fences[index]);
+        }
+        fences[index] = gl3.glFenceSync(GL3ES3.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    /**
+     * Waits until the GPU is done with the commands before the fence of the index, if any.
+     *
+     * @param gl GL
+     * @param index Fence index
+     */
+    public void waitFor(GL gl, int index) {
+        final long fence = fences[index];
+        if (fence == 0) {
+            return;
+        }
+
+        final GL3ES3 gl3 = gl.getGL3ES3();
+
+        //Only count real waits:
+        int result = gl3.glClientWaitSync(fence, 0, 0);
+        if (result != GL3ES3.GL_ALREADY_SIGNALED) {
+            final long start = System.nanoTime();
+            do {
+                result = gl3.glClientWaitSync(fence, GL3ES3.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_WAIT_TIMEOUT_NANOS);
+            } while (result == GL3ES3.GL_TIMEOUT_EXPIRED);
+
+            waits++;
+            waitNanos += System.nanoTime() - start;
+        }
+
+        if (result == GL3ES3.GL_WAIT_FAILED) {
+            System.out.println("Buffer fence wait failed");
+        }
+
+        gl3.glDeleteSync(fence);
+        fences[index] = 0;
+    }
+
+    /**
+     * Adds the waits since the last report to the metrics.
+     *
+     * @param metrics Metrics
+     */
+    public void reportMetrics(EngineMetrics metrics) {
+        metrics.addBufferFenceWaits(waits, waitNanos);
+        waits = 0;
+        waitNanos = 0;
+    }
+
+    public void destroy(GL gl) {
+        for (int i = 0; i < fences.length; i++) {
+            if (fences[i] != 0) {
+                gl.getGL3ES3().glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2GL3;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.EngineMetrics;
+
+/**
+ * GL_TIME_ELAPSED queries around renderer calls and buffer uploads, reported to {@link EngineMetrics} as GPU times.
+ * <p>
+ * Each measured call has two queries used alternately, and results are only read when already available, so the CPU never waits for the GPU. When both queries of a call are still pending, the call is not measured that time.
+ * Elapsed time queries can't be nested, so a start while another query is active is ignored.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLTimerQueries {
+
+    private static final int QUERIES_PER_TIMER = 2;
+
+    private final Map<String, Timer> renderTimers = new HashMap<>();
+    private final Map<String, Timer> bufferUploadTimers = new HashMap<>();
+    private final List<Timer> timers = new ArrayList<>();
+    private Timer activeTimer = null;
+    private int nestedStarts = 0;
+
+    private final int[] available = new int[1];
+    private final long[] elapsedNanos = new long[1];
+
+    public void renderStart(GL gl, String rendererName, RenderingLayer layer) {
+        final String key = EngineMetrics.renderKey(rendererName, layer);
+        Timer timer = renderTimers.get(key);
+        if (timer == null) {
+            timer = new Timer(rendererName, layer);
+            renderTimers.put(key, timer);
+        }
+
+        start(gl, timer);
+    }
+
+    public void bufferUploadStart(GL gl, String rendererName) {
+        Timer timer = bufferUploadTimers.get(rendererName);
+        if (timer == null) {
+            timer = new Timer(rendererName, null);
+            bufferUploadTimers.put(rendererName, timer);
+        }
+
+        start(gl, timer);
+    }
+
+    private void start(GL gl, Timer timer) {
+        if (activeTimer != null) {
+            nestedStarts++;
+            return;
+        }
+
+        final GL2GL3 gl2gl3 = gl.getGL2GL3();
+        if (timer.queries[0] == 0) {
+            gl2gl3.glGenQueries(QUERIES_PER_TIMER, timer.queries, 0);
+            timers.add(timer);
+        }
+
+        if (timer.pending[timer.next]) {
+            //GPU is too far behind, don't wait for it:
+            return;
+        }
+
+        gl2gl3.glBeginQuery(GL2GL3.GL_TIME_ELAPSED, timer.queries[timer.next]);
+        activeTimer = timer;
+    }
+
+    /**
+     * Ends the query started by the last {@link #renderStart(GL, String, RenderingLayer)} or {@link #bufferUploadStart(GL, String)}, if any.
+     *
+     * @param gl GL
+     */
+    public void end(GL gl) {
+        if (nestedStarts > 0) {
+            nestedStarts--;
+            return;
+        }
+
+        final Timer timer = activeTimer;
+        if (timer == null) {
+            return;
+        }
+
+        gl.getGL2GL3().glEndQuery(GL2GL3.GL_TIME_ELAPSED);
+        timer.pending[timer.next] = true;
+        timer.next = (timer.next + 1) % QUERIES_PER_TIMER;
+        activeTimer = null;
+    }
+
+    /**
+     * Records the results that are already available in the metrics.
+     *
+     * @param gl GL
+     * @param metrics Metrics
+     */
+    public void reportMetrics(GL gl, EngineMetrics metrics) {
+        final GL2GL3 gl2gl3 = gl.getGL2GL3();
+
+        for (Timer timer : timers) {
+            //Oldest query first, the next one can't be available before it:
+            for (int i = 0; i < QUERIES_PER_TIMER; i++) {
+                final int slot = (timer.next + i) % QUERIES_PER_TIMER;
+                if (!timer.pending[slot]) {
+                    continue;
+                }
+
+                gl2gl3.glGetQueryObjectiv(timer.queries[slot], GL2GL3.GL_QUERY_RESULT_AVAILABLE, available, 0);
+                if (available[0] == GL.GL_FALSE) {
+                    break;
+                }
+
+                gl2gl3.glGetQueryObjectui64v(timer.queries[slot], GL2GL3.GL_QUERY_RESULT, elapsedNanos, 0);
+                timer.pending[slot] = false;
+
+                if (timer.layer != null) {
+                    metrics.recordGpuRender(timer.rendererName, timer.layer, elapsedNanos[0]);
+                } else {
+                    metrics.recordGpuBufferUpload(timer.rendererName, elapsedNanos[0]);
+                }
+            }
+        }
+    }
+
+    public void destroy(GL gl) {
+        if (activeTimer != null) {
+            nestedStarts = 0;
+            end(gl);
+        }
+
+        final GL2GL3 gl2gl3 = gl.getGL2GL3();
+        for (Timer timer : timers) {
+            gl2gl3.glDeleteQueries(QUERIES_PER_TIMER, timer.queries, 0);
+        }
+
+        timers.clear();
+        renderTimers.clear();
+        bufferUploadTimers.clear();
+    }
+
+    private static class Timer {
+
+        private final String rendererName;
+        //Null for buffer uploads:
+        private final RenderingLayer layer;
+
+        private final int[] queries = new int[QUERIES_PER_TIMER];
+        private final boolean[] pending = new boolean[QUERIES_PER_TIMER];
+        private int next = 0;
+
+        public Timer(String rendererName, RenderingLayer layer) {
+            this.rendererName = rendererName;
+            this.layer = layer;
+        }
+    }
+}
@@ -70,17 +70,25 @@ public abstract class GLVertexArrayObject {
         }
     }
 
+    public void destroy(GL2ES2 gl) {
+        if (arrayId != -1) {
+            GLStateTracker.deleteVertexArray(gl, arrayId);
+            arrayId = -1;
+        }
+        attributeLocations = null;
+    }
+
     private void configureAll(GL2ES2 gl) {
         configure(gl);
         configureEnabledAttributes(gl);
     }
 
     private void bind(GL2ES2 gl) {
-        GLFunctions.glBindVertexArray(gl, arrayId);
+        GLStateTracker.bindVertexArray(gl, arrayId);
     }
 
     private void unbind(GL2ES2 gl) {
-        GLFunctions.glUnbindVertexArray(gl);
+        GLStateTracker.unbindVertexArray(gl);
     }
 
     private void configureEnabledAttributes(GL2ES2 gl) {
@@ -0,0 +1,86 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+/**
+ * Regions of a {@link GLStreamingBuffer} ring, without GL calls: which region is written next, its capacity, and a {@link GLBufferDirtyRangesUploader} per region, so a region only gets the blocks that changed since it was last written.
+ * <p>
+ * The fence of a region is inserted when leaving it with {@link #advance()}, and waited when coming back to it {@link #getRegionsCount()} writes later.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class StreamingRegions {
+
+    private final GLBufferDirtyRangesUploader[] uploaders;
+    private int regionElements = 0;
+    private int region = 0;
+
+    public StreamingRegions(int regionsCount) {
+        if (regionsCount < 2) {
+            throw new IllegalArgumentException("At least 2 regions are needed, the GPU may be reading the current one");
+        }
+
+        this.uploaders = new GLBufferDirtyRangesUploader[regionsCount];
+        for (int i = 0; i < regionsCount; i++) {
+            uploaders[i] = new GLBufferDirtyRangesUploader();
+        }
+    }
+
+    /**
+     * Sets the capacity of the regions after allocating the storage, going back to the first region. Data written before is forgotten.
+     *
+     * @param regionElements Elements capacity of each region
+     */
+    public void reset(int regionElements) {
+        for (GLBufferDirtyRangesUploader uploader : uploaders) {
+            uploader.reset();
+        }
+
+        this.regionElements = regionElements;
+        this.region = 0;
+    }
+
+    public boolean fits(int elements) {
+        return elements <= regionElements;
+    }
+
+    /**
+     * @param neededElements Elements that don't fit
+     * @return Capacity of each region for a new storage, growing at least by half
+     */
+    public int grownRegionElements(int neededElements) {
+        return Math.max(neededElements, regionElements + (regionElements >> 1));
+    }
+
+    /**
+     * Moves to the next region.
+     *
+     * @return Region left, whose fence must be inserted
+     */
+    public int advance() {
+        final int left = region;
+        region = (region + 1) % uploaders.length;
+        return left;
+    }
+
+    public int getRegion() {
+        return region;
+    }
+
+    public int getRegionsCount() {
+        return uploaders.length;
+    }
+
+    public int getRegionElements() {
+        return regionElements;
+    }
+
+    public int getRegionFirstElement() {
+        return region * regionElements;
+    }
+
+    /**
+     * @return Uploader of the current region
+     */
+    public GLBufferDirtyRangesUploader getUploader() {
+        return uploaders[region];
+    }
+}
@@ -10,6 +10,7 @@ import static com.jogamp.opengl.GL2ES3.GL_CONTEXT_FLAGS;
 import static com.jogamp.opengl.GL2ES3.GL_MAJOR_VERSION;
 import static com.jogamp.opengl.GL2ES3.GL_MINOR_VERSION;
 import static com.jogamp.opengl.GL2ES3.GL_NUM_EXTENSIONS;
+import static com.jogamp.opengl.GL4.GL_MAX_TEXTURE_BUFFER_SIZE;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
@@ -31,10 +32,15 @@ public final class GLCapabilitiesSummary {
             gl.glGetIntegerv(GL_CONTEXT_FLAGS, data);
             version.CONTEXT_FLAGS = data.get(0);
         }
+        if (check(3, 1) || extensions.ARB_texture_buffer_object) {
+            gl.glGetIntegerv(GL_MAX_TEXTURE_BUFFER_SIZE, data);
+            maxTextureBufferSize = data.get(0);
+        }
     }
 
     private GLVersionData version;
     private GLExtensionData extensions;
+    private int maxTextureBufferSize = 0;
 
     private final IntBuffer data = GLBuffers.newDirectIntBuffer(1);
 
@@ -700,4 +706,65 @@ public final class GLCapabilitiesSummary {
             extensions.ARB_multi_draw_indirect &&
             extensions.ARB_buffer_storage;
     }
+
+    /**
+     * Persistent mapped buffers, with buffer storage, sync objects and drawing with base instance.
+     *
+     * @return True if supported
+     */
+    public boolean isPersistentMappingSupported() {
+        return (check(4, 4) || extensions.ARB_buffer_storage)
+            && (check(4, 2) || extensions.ARB_base_instance)
+            && (check(3, 2) || extensions.ARB_sync);
+    }
+
+    /**
+     * Mutable buffers split in regions protected by sync objects, drawing with base instance.
+     *
+     * @return True if supported
+     */
+    public boolean isFencedBufferRingSupported() {
+        return (check(4, 2) || extensions.ARB_base_instance)
+            && (check(3, 2) || extensions.ARB_sync);
+    }
+
+    /**
+     * Retrieving and loading linked program binaries.
+     *
+     * @return True if supported
+     */
+    public boolean isProgramBinarySupported() {
+        return check(4, 1) || extensions.ARB_get_program_binary;
+    }
+
+    /**
+     * Uniform buffers shared by GLSL 330 programs.
+     *
+     * @return True if supported
+     */
+    public boolean isFrameUniformsSupported() {
+        return check(3, 3);
+    }
+
+    /**
+     * Measuring GPU time with GL_TIME_ELAPSED queries.
+     *
+     * @return True if supported
+     */
+    public boolean isTimerQuerySupported() {
+        return check(3, 3) || extensions.ARB_timer_query;
+    }
+
+    /**
+     * @return GL_MAX_TEXTURE_BUFFER_SIZE in texels, or 0 when texture buffers are not supported
+     */
+    public int getMaxTextureBufferSize() {
+        return maxTextureBufferSize;
+    }
+
+    public boolean isIndexedEdgesSupported() {
+        return (check(3, 1) || extensions.ARB_texture_buffer_object)
+            && (check(4, 2) || extensions.ARB_base_instance)
+            && isInstancingSupported();
+    }
 }
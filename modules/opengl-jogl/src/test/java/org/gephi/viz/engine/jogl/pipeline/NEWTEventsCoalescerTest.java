@@ -0,0 +1,138 @@
+package org.gephi.viz.engine.jogl.pipeline;
+
+import com.jogamp.newt.event.InputEvent;
+import com.jogamp.newt.event.KeyEvent;
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NEWTEventsCoalescerTest {
+
+    private final Object source = new Object();
+    private long when = 0;
+
+    public NEWTEventsCoalescerTest() {
+    }
+
+    @Test
+    public void testRunOfMovesKeepsLast() {
+        final MouseEvent last = mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 30, 30);
+
+        final List<NEWTEvent> events = coalesce(
+                mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 10, 10),
+                mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 20, 20),
+                last
+        );
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertSame(last, events.get(0));
+    }
+
+    @Test
+    public void testRunOfDragsKeepsLast() {
+        final MouseEvent press = mouse(MouseEvent.EVENT_MOUSE_PRESSED, InputEvent.BUTTON1_MASK, 0, 0);
+        final MouseEvent lastDrag = mouse(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 30, 0);
+        final MouseEvent release = mouse(MouseEvent.EVENT_MOUSE_RELEASED, 0, 30, 0);
+
+        final List<NEWTEvent> events = coalesce(
+                press,
+                mouse(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 10, 0),
+                mouse(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 20, 0),
+                lastDrag,
+                release
+        );
+
+        Assert.assertEquals(Arrays.asList(press, lastDrag, release), events);
+    }
+
+    @Test
+    public void testWheelRotationsAreSummed() {
+        final List<NEWTEvent> events = coalesce(
+                wheel(0, 1, 1),
+                wheel(0, 2, 1),
+                wheel(0, -0.5f, 1)
+        );
+
+        Assert.assertEquals(1, events.size());
+
+        final MouseEvent wheel = (MouseEvent) events.get(0);
+        Assert.assertEquals(MouseEvent.EVENT_MOUSE_WHEEL_MOVED, wheel.getEventType());
+        Assert.assertEquals(2.5f, wheel.getRotation()[1], 0);
+        Assert.assertEquals(1f, wheel.getRotationScale(), 0);
+    }
+
+    @Test
+    public void testWheelWithDifferentScaleNotMerged() {
+        final List<NEWTEvent> events = coalesce(
+                wheel(0, 1, 1),
+                wheel(0, 1, 2)
+        );
+
+        Assert.assertEquals(2, events.size());
+    }
+
+    @Test
+    public void testBarriersAreNotMerged() {
+        final MouseEvent firstMove = mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 10, 10);
+        final MouseEvent click = mouse(MouseEvent.EVENT_MOUSE_CLICKED, 0, 10, 10);
+        final MouseEvent secondMove = mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 20, 20);
+        final MouseEvent wheel = wheel(0, 1, 1);
+        final MouseEvent thirdMove = mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 30, 30);
+        final KeyEvent key = KeyEvent.create(KeyEvent.EVENT_KEY_PRESSED, source, when++, 0, KeyEvent.VK_A, KeyEvent.VK_A, 'a');
+        final MouseEvent fourthMove = mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 40, 40);
+
+        final List<NEWTEvent> events = coalesce(firstMove, click, secondMove, wheel, thirdMove, key, fourthMove);
+
+        Assert.assertEquals(Arrays.asList(firstMove, click, secondMove, wheel, thirdMove, key, fourthMove), events);
+    }
+
+    @Test
+    public void testClicksAreNotMerged() {
+        final MouseEvent firstClick = mouse(MouseEvent.EVENT_MOUSE_CLICKED, 0, 10, 10);
+        final MouseEvent secondClick = mouse(MouseEvent.EVENT_MOUSE_CLICKED, 0, 10, 10);
+
+        final List<NEWTEvent> events = coalesce(firstClick, secondClick);
+
+        Assert.assertEquals(Arrays.asList(firstClick, secondClick), events);
+    }
+
+    @Test
+    public void testModifierChangesAreNotMerged() {
+        final MouseEvent move = mouse(MouseEvent.EVENT_MOUSE_MOVED, 0, 10, 10);
+        final MouseEvent firstShiftMove = mouse(MouseEvent.EVENT_MOUSE_MOVED, InputEvent.SHIFT_MASK, 20, 20);
+        final MouseEvent lastShiftMove = mouse(MouseEvent.EVENT_MOUSE_MOVED, InputEvent.SHIFT_MASK, 30, 30);
+        final MouseEvent drag = mouse(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 40, 40);
+        final MouseEvent ctrlDrag = mouse(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK | InputEvent.CTRL_MASK, 50, 50);
+
+        final List<NEWTEvent> events = coalesce(move, firstShiftMove, lastShiftMove, drag, ctrlDrag);
+
+        Assert.assertEquals(Arrays.asList(move, lastShiftMove, drag, ctrlDrag), events);
+    }
+
+    @Test
+    public void testEmpty() {
+        Assert.assertTrue(coalesce().isEmpty());
+    }
+
+    private static List<NEWTEvent> coalesce(NEWTEvent... events) {
+        final List<NEWTEvent> list = new ArrayList<>(Arrays.asList(events));
+        new NEWTEventsCoalescer().coalesce(list);
+        return list;
+    }
+
+    private MouseEvent mouse(short eventType, int modifiers, int x, int y) {
+        return new MouseEvent(eventType, source, when++, modifiers, x, y, (short) 1, (short) 1, new float[]{0, 0, 0}, 1);
+    }
+
+    private MouseEvent wheel(int modifiers, float rotationY, float rotationScale) {
+        return new MouseEvent(MouseEvent.EVENT_MOUSE_WHEEL_MOVED, source, when++, modifiers, 0, 0, (short) 0, (short) 0, new float[]{0, rotationY, 0}, rotationScale);
+    }
+}
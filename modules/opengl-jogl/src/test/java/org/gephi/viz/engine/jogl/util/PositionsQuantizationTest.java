@@ -0,0 +1,145 @@
+package org.gephi.viz.engine.jogl.util;
+
+import java.util.Random;
+import org.gephi.graph.api.Rect2D;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class PositionsQuantizationTest {
+
+    public PositionsQuantizationTest() {
+    }
+
+    @Test
+    public void testBoxContainsBounds() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        quantization.set(-13.7f, 250.2f, 406.1f, 310f);
+
+        Assert.assertTrue(quantization.getOriginX() <= -13.7f);
+        Assert.assertTrue(quantization.getOriginY() <= 250.2f);
+        Assert.assertTrue(quantization.getOriginX() + quantization.getScale() >= 406.1f);
+        Assert.assertTrue(quantization.getOriginY() + quantization.getScale() >= 310f);
+
+        //Not much bigger than the bounds:
+        Assert.assertTrue(quantization.getScale() <= (406.1f + 13.7f) * 1.25f);
+    }
+
+    @Test
+    public void testSmallPansKeepTheBox() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        final PositionsQuantization panned = new PositionsQuantization();
+
+        quantization.setExpandedView(new Rect2D(100, 100, 300, 200));
+        panned.setExpandedView(new Rect2D(101.5f, 100.8f, 301.5f, 200.8f));
+
+        Assert.assertEquals(quantization.getOriginX(), panned.getOriginX(), 0);
+        Assert.assertEquals(quantization.getOriginY(), panned.getOriginY(), 0);
+        Assert.assertEquals(quantization.getScale(), panned.getScale(), 0);
+    }
+
+    @Test
+    public void testEmptyBounds() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+
+        quantization.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        Assert.assertEquals(0, quantization.getOriginX(), 0);
+        Assert.assertEquals(1, quantization.getScale(), 0);
+
+        quantization.set(5, 6, 5, 6);
+        Assert.assertEquals(5, quantization.getOriginX(), 0);
+        Assert.assertEquals(6, quantization.getOriginY(), 0);
+        Assert.assertEquals(1, quantization.getScale(), 0);
+    }
+
+    @Test
+    public void testRoundTripWithModelViewProjection() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        quantization.set(-500, -200, 700, 900);
+
+        //Scale, rotation and translation, column-major:
+        final float[] mvp = {
+            0.002f, 0.001f, 0, 0,
+            -0.001f, 0.003f, 0, 0,
+            0, 0, 1, 0,
+            0.1f, -0.3f, 0, 1
+        };
+        final float[] folded = new float[16];
+        quantization.applyToModelViewProjection(mvp, folded);
+
+        final float step = quantization.getScale() / 0xFFFF;
+        final float tolerance = step * 0.5f * 0.006f * 1.01f;
+
+        final Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            final float x = -500 + random.nextFloat() * 1200;
+            final float y = -200 + random.nextFloat() * 1100;
+
+            final int bits = Float.floatToRawIntBits(quantization.pack(x, y));
+            final float u = (bits & 0xFFFF) / (float) 0xFFFF;
+            final float v = (bits >>> 16) / (float) 0xFFFF;
+
+            for (int row = 0; row < 2; row++) {
+                final float expected = mvp[row] * x + mvp[4 + row] * y + mvp[12 + row];
+                final float actual = folded[row] * u + folded[4 + row] * v + folded[12 + row];
+                Assert.assertEquals(expected, actual, tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void testPackClampsToBox() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        quantization.set(0, 0, 100, 100);
+
+        Assert.assertEquals(0, Float.floatToRawIntBits(quantization.pack(-50, -1)));
+        Assert.assertEquals(0xFFFFFFFF, Float.floatToRawIntBits(quantization.pack(1000, 1000)));
+        Assert.assertEquals(0xFFFF, Float.floatToRawIntBits(quantization.pack(Float.POSITIVE_INFINITY, Float.NaN)));
+    }
+
+    @Test
+    public void testClipUnclippedSegment() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        quantization.set(0, 0, 128, 128);
+
+        Assert.assertFalse(quantization.isTriviallyOutside(10, 10, 100, 50));
+        Assert.assertEquals(0, quantization.clipStartFraction(10, 10, 100, 50), 0);
+        Assert.assertEquals(0, quantization.clipStartFraction(100, 50, 10, 10), 0);
+    }
+
+    @Test
+    public void testClipSegmentEnteringBox() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        quantization.set(0, 0, 128, 128);
+        final float maxX = quantization.getOriginX() + quantization.getScale();
+
+        //From the left side:
+        float fraction = quantization.clipStartFraction(-64, 64, 64, 64);
+        Assert.assertEquals(0.5f, fraction, 1e-6f);
+
+        //From the right side, the clipped end is on the box edge:
+        fraction = quantization.clipStartFraction(maxX + 100, 10, maxX - 100, 30);
+        Assert.assertEquals(maxX, maxX + 100 - 200 * fraction, 1e-3f);
+
+        //Through a corner, the last side crossed wins:
+        fraction = quantization.clipStartFraction(-10, -40, 30, 40);
+        Assert.assertEquals(0.5f, fraction, 1e-6f);
+        Assert.assertEquals(0, -40 + 80 * fraction, 1e-4f);
+    }
+
+    @Test
+    public void testTriviallyOutside() {
+        final PositionsQuantization quantization = new PositionsQuantization();
+        quantization.set(0, 0, 128, 128);
+
+        Assert.assertTrue(quantization.isTriviallyOutside(-10, 5, -1, 100));
+        Assert.assertTrue(quantization.isTriviallyOutside(5, 500, 100, 200));
+        //Crossing the box from side to side:
+        Assert.assertFalse(quantization.isTriviallyOutside(-10, 64, 200, 64));
+        //Both ends outside on different sides without crossing the box are still clipped, not trivially discarded:
+        Assert.assertFalse(quantization.isTriviallyOutside(-10, 64, 64, 200));
+    }
+}
@@ -0,0 +1,272 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import com.jogamp.opengl.GL;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.gephi.viz.engine.util.BufferBlockHashes;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class GLBufferDirtyRangesUploaderTest {
+
+    private static final int BLOCK = BufferBlockHashes.BLOCK_FLOATS;
+    private static final int BLOCK_BYTES = BLOCK * Float.BYTES;
+
+    public GLBufferDirtyRangesUploaderTest() {
+    }
+
+    @Test
+    public void testFirstUploadIsWhole() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        Assert.assertEquals(BLOCK_BYTES * 8, upload(uploader, glBuffer, data));
+        Assert.assertEquals(1, glBuffer.orphaningUpdates);
+        Assert.assertTrue(glBuffer.ranges.isEmpty());
+    }
+
+    @Test
+    public void testUnchangedData() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        upload(uploader, glBuffer, data);
+        Assert.assertEquals(0, upload(uploader, glBuffer, data));
+        Assert.assertEquals(1, glBuffer.orphaningUpdates);
+        Assert.assertTrue(glBuffer.ranges.isEmpty());
+    }
+
+    @Test
+    public void testSingleChangedBlock() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        upload(uploader, glBuffer, data);
+        data.put(BLOCK * 5 + 3, -1);
+
+        Assert.assertEquals(BLOCK_BYTES, upload(uploader, glBuffer, data));
+        Assert.assertEquals(1, glBuffer.ranges.size());
+        Assert.assertArrayEquals(new long[]{BLOCK_BYTES * 5, BLOCK_BYTES}, glBuffer.ranges.get(0));
+        Assert.assertEquals(0, data.position());
+        Assert.assertEquals(BLOCK * 8, data.limit());
+    }
+
+    @Test
+    public void testAdjacentBlocksAreMerged() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        upload(uploader, glBuffer, data);
+        data.put(BLOCK, -1);
+        data.put(BLOCK * 2, -1);
+        data.put(BLOCK * 6, -1);
+
+        Assert.assertEquals(BLOCK_BYTES * 3, upload(uploader, glBuffer, data));
+        Assert.assertEquals(2, glBuffer.ranges.size());
+        Assert.assertArrayEquals(new long[]{BLOCK_BYTES, BLOCK_BYTES * 2}, glBuffer.ranges.get(0));
+        Assert.assertArrayEquals(new long[]{BLOCK_BYTES * 6, BLOCK_BYTES}, glBuffer.ranges.get(1));
+    }
+
+    @Test
+    public void testLastPartialBlock() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 4 + 10);
+
+        upload(uploader, glBuffer, data);
+        data.put(BLOCK * 4 + 9, -1);
+
+        Assert.assertEquals(10 * Float.BYTES, upload(uploader, glBuffer, data));
+        Assert.assertArrayEquals(new long[]{BLOCK_BYTES * 4, 10 * Float.BYTES}, glBuffer.ranges.get(0));
+    }
+
+    @Test
+    public void testLengthChangeUploadsWhole() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        upload(uploader, glBuffer, data);
+        data.limit(BLOCK * 7);
+
+        Assert.assertEquals(BLOCK_BYTES * 7, upload(uploader, glBuffer, data));
+        Assert.assertEquals(2, glBuffer.orphaningUpdates);
+        Assert.assertTrue(glBuffer.ranges.isEmpty());
+    }
+
+    @Test
+    public void testMostlyDirtyUploadsWhole() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        upload(uploader, glBuffer, data);
+        for (int block = 0; block < 5; block++) {
+            data.put(block * BLOCK, -1);
+        }
+
+        Assert.assertEquals(BLOCK_BYTES * 8, upload(uploader, glBuffer, data));
+        Assert.assertEquals(2, glBuffer.orphaningUpdates);
+        Assert.assertTrue(glBuffer.ranges.isEmpty());
+    }
+
+    @Test
+    public void testUploadToRegion() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+        final long regionOffset = 1000;
+        glBuffer.init(null, regionOffset + BLOCK_BYTES * 8, 0);
+
+        data.position(BLOCK * 2);
+        Assert.assertEquals(BLOCK_BYTES * 6, uploader.uploadToRegion(null, glBuffer, regionOffset, data, hashes(data)));
+        Assert.assertEquals(0, glBuffer.orphaningUpdates);
+        Assert.assertArrayEquals(new long[]{regionOffset, BLOCK_BYTES * 6}, glBuffer.ranges.get(0));
+
+        glBuffer.ranges.clear();
+        data.put(BLOCK * 3, -1);
+        Assert.assertEquals(BLOCK_BYTES, uploader.uploadToRegion(null, glBuffer, regionOffset, data, hashes(data)));
+        Assert.assertArrayEquals(new long[]{regionOffset + BLOCK_BYTES, BLOCK_BYTES}, glBuffer.ranges.get(0));
+        Assert.assertEquals(BLOCK * 2, data.position());
+    }
+
+    @Test
+    public void testReset() {
+        final RecordingGLBuffer glBuffer = new RecordingGLBuffer();
+        final GLBufferDirtyRangesUploader uploader = new GLBufferDirtyRangesUploader();
+        final FloatBuffer data = createData(BLOCK * 8);
+
+        upload(uploader, glBuffer, data);
+        uploader.reset();
+
+        Assert.assertEquals(BLOCK_BYTES * 8, upload(uploader, glBuffer, data));
+        Assert.assertEquals(2, glBuffer.orphaningUpdates);
+    }
+
+    private static long upload(GLBufferDirtyRangesUploader uploader, RecordingGLBuffer glBuffer, FloatBuffer data) {
+        glBuffer.ranges.clear();
+        return uploader.upload(null, glBuffer, data, hashes(data));
+    }
+
+    private static long[] hashes(FloatBuffer data) {
+        return BufferBlockHashes.compute(data, data.limit(), null);
+    }
+
+    private static FloatBuffer createData(int length) {
+        final FloatBuffer data = FloatBuffer.allocate(length);
+        for (int i = 0; i < length; i++) {
+            data.put(i, i);
+        }
+        return data;
+    }
+
+    /**
+     * Records the partial updates as offset and size in bytes, without GL.
+     */
+    private static class RecordingGLBuffer implements GLBuffer {
+
+        private final List<long[]> ranges = new ArrayList<>();
+        private int orphaningUpdates = 0;
+        private long sizeBytes = 0;
+
+        @Override
+        public void init(GL gl, long sizeBytes, int usageFlags) {
+            this.sizeBytes = sizeBytes;
+        }
+
+        @Override
+        public void init(GL gl, Buffer buffer, int usageFlags) {
+            this.sizeBytes = (long) buffer.remaining() * Float.BYTES;
+        }
+
+        @Override
+        public void update(GL gl, Buffer buffer) {
+            update(gl, buffer, 0, (long) buffer.remaining() * Float.BYTES);
+        }
+
+        @Override
+        public void update(GL gl, Buffer buffer, long sizeBytes) {
+            update(gl, buffer, 0, sizeBytes);
+        }
+
+        @Override
+        public void update(GL gl, Buffer buffer, long offsetBytes, long sizeBytes) {
+            Assert.assertEquals(sizeBytes, (long) buffer.remaining() * Float.BYTES);
+            Assert.assertTrue(offsetBytes + sizeBytes <= this.sizeBytes);
+            ranges.add(new long[]{offsetBytes, sizeBytes});
+        }
+
+        @Override
+        public void updateWithOrphaning(GL gl, Buffer buffer) {
+            updateWithOrphaning(gl, buffer, (long) buffer.remaining() * Float.BYTES);
+        }
+
+        @Override
+        public void updateWithOrphaning(GL gl, Buffer buffer, long sizeBytes) {
+            this.sizeBytes = Math.max(this.sizeBytes, sizeBytes);
+            orphaningUpdates++;
+        }
+
+        @Override
+        public void bind(GL gl) {
+        }
+
+        @Override
+        public void destroy(GL gl) {
+        }
+
+        @Override
+        public int getId() {
+            return 1;
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        @Override
+        public int getType() {
+            return 0;
+        }
+
+        @Override
+        public int getUsageFlags() {
+            return 0;
+        }
+
+        @Override
+        public boolean isBound(GL gl) {
+            return true;
+        }
+
+        @Override
+        public boolean isInitialized() {
+            return true;
+        }
+
+        @Override
+        public long size() {
+            return sizeBytes;
+        }
+
+        @Override
+        public void unbind(GL gl) {
+        }
+
+        @Override
+        public boolean isMutable() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.gephi.viz.engine.jogl.util.gl;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.gephi.viz.engine.util.BufferBlockHashes;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class StreamingRegionsTest {
+
+    private static final int BLOCK = BufferBlockHashes.BLOCK_FLOATS;
+
+    public StreamingRegionsTest() {
+    }
+
+    @Test
+    public void testRotation() {
+        final StreamingRegions regions = new StreamingRegions(3);
+        regions.reset(100);
+
+        Assert.assertEquals(0, regions.getRegion());
+        Assert.assertEquals(0, regions.advance());
+        Assert.assertEquals(1, regions.getRegion());
+        Assert.assertEquals(100, regions.getRegionFirstElement());
+        Assert.assertEquals(1, regions.advance());
+        Assert.assertEquals(2, regions.advance());
+        Assert.assertEquals(0, regions.getRegion());
+        Assert.assertEquals(0, regions.getRegionFirstElement());
+    }
+
+    @Test
+    public void testFencesNeverWaitForCurrentDraws() {
+        final StreamingRegions regions = new StreamingRegions(3);
+        regions.reset(100);
+
+        //Write index when the fence of each region was inserted:
+        final int[] fenceWrite = {-1, -1, -1};
+        int drawnRegion = regions.getRegion();
+        for (int write = 1; write < 20; write++) {
+            final int left = regions.advance();
+            Assert.assertEquals(drawnRegion, left);
+            fenceWrite[left] = write;
+
+            //Region waited is not the one just drawn, and was left regions count - 1 writes ago:
+            final int region = regions.getRegion();
+            Assert.assertNotEquals(drawnRegion, region);
+            if (fenceWrite[region] >= 0) {
+                Assert.assertEquals(regions.getRegionsCount() - 1, write - fenceWrite[region]);
+            }
+            drawnRegion = region;
+        }
+    }
+
+    @Test
+    public void testGrow() {
+        final StreamingRegions regions = new StreamingRegions(3);
+        regions.reset(100);
+
+        Assert.assertTrue(regions.fits(100));
+        Assert.assertFalse(regions.fits(101));
+        Assert.assertEquals(150, regions.grownRegionElements(101));
+        Assert.assertEquals(400, regions.grownRegionElements(400));
+
+        regions.advance();
+        regions.reset(150);
+        Assert.assertEquals(0, regions.getRegion());
+        Assert.assertEquals(150, regions.getRegionElements());
+    }
+
+    @Test
+    public void testRegionsOnlyGetTheirDirtyBlocks() {
+        final int regionFloats = BLOCK * 8;
+        final StreamingRegions regions = new StreamingRegions(3);
+        regions.reset(regionFloats);
+
+        final FloatBuffer destination = FloatBuffer.allocate(regionFloats * 3);
+        final List<long[]> ranges = new ArrayList<>();
+        final GLBufferDirtyRangesUploader.RangeWriter writer = (data, offsetBytes, sizeBytes) -> {
+            ranges.add(new long[]{offsetBytes, sizeBytes});
+            final FloatBuffer region = destination.duplicate();
+            region.position((int) (offsetBytes / Float.BYTES));
+            region.put(data);
+        };
+
+        final FloatBuffer data = FloatBuffer.allocate(regionFloats);
+        for (int write = 0; write < 6; write++) {
+            if (write > 0) {
+                regions.advance();
+            }
+            data.put(write * BLOCK, -write);
+
+            ranges.clear();
+            final long regionOffsetBytes = (long) regions.getRegionFirstElement() * Float.BYTES;
+            final long written = regions.getUploader().writeToRegion(writer, regionOffsetBytes, data, BufferBlockHashes.compute(data, regionFloats, null));
+
+            if (write < 3) {
+                //First write of each region is whole:
+                Assert.assertEquals((long) regionFloats * Float.BYTES, written);
+            } else {
+                //Only the blocks changed in the last 3 writes:
+                Assert.assertEquals(3L * BLOCK * Float.BYTES, written);
+                Assert.assertArrayEquals(new long[]{regionOffsetBytes + (long) (write - 2) * BLOCK * Float.BYTES, 3L * BLOCK * Float.BYTES}, ranges.get(0));
+            }
+
+            //Region holds the same data as the snapshot:
+            final FloatBuffer region = destination.duplicate();
+            region.position(regions.getRegionFirstElement()).limit(regions.getRegionFirstElement() + regionFloats);
+            Assert.assertEquals(data, region.slice());
+            Assert.assertEquals(0, data.position());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleRegion() {
+        new StreamingRegions(1);
+    }
+}
@@ -0,0 +1,77 @@
+package org.gephi.viz.engine.fixtures;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing set of unordered node index pairs, to avoid duplicated edges without boxing.
+ *
+ * @author Eduardo Ramos
+ */
+class NodePairSet {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private int size = 0;
+    private int mask;
+
+    NodePairSet(long expectedSize) {
+        final long capacity = Math.max(16, Long.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1);
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Too many edges: " + expectedSize);
+        }
+
+        keys = new long[(int) capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length - 1;
+    }
+
+    /**
+     * @return True if the pair was not present
+     */
+    boolean add(int a, int b) {
+        final long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        size++;
+
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length - 1;
+
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                int i = mix(key) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
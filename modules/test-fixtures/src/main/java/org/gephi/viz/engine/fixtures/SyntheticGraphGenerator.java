@@ -0,0 +1,449 @@
+package org.gephi.viz.engine.fixtures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+
+/**
+ * Builds synthetic graphs directly into graphstore, with positions, sizes, colors and weights, for reproducible tests and benchmarks at any scale.
+ * <p>
+ * Elements are added to the store in batches, without any import process. Self loops and duplicated node pairs are never generated.
+ * The same seed and settings always produce the same graph.
+ *
+ * @author Eduardo Ramos
+ */
+public class SyntheticGraphGenerator {
+
+    public static final int BATCH_SIZE = 65536;
+
+    private long seed = 42;
+    private double directedRatio = 0.5;
+    private float minNodeSize = 1;
+    private float maxNodeSize = 10;
+    private float nodeSpacing = 20;
+    private float minWeight = 1;
+    private float maxWeight = 10;
+    private boolean spatialIndex = true;
+
+    public SyntheticGraphGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param directedRatio Ratio of directed edges. 0 for an undirected graph, 1 for a directed graph, anything between for a mixed graph
+     * @return This generator
+     */
+    public SyntheticGraphGenerator directedRatio(double directedRatio) {
+        if (directedRatio < 0 || directedRatio > 1) {
+            throw new IllegalArgumentException("directedRatio should be in range [0, 1]");
+        }
+        this.directedRatio = directedRatio;
+        return this;
+    }
+
+    public SyntheticGraphGenerator nodeSizes(float minNodeSize, float maxNodeSize) {
+        if (minNodeSize <= 0 || maxNodeSize < minNodeSize) {
+            throw new IllegalArgumentException("Invalid node sizes range");
+        }
+        this.minNodeSize = minNodeSize;
+        this.maxNodeSize = maxNodeSize;
+        return this;
+    }
+
+    /**
+     * @param nodeSpacing Average distance between neighbour nodes in the layouts
+     * @return This generator
+     */
+    public SyntheticGraphGenerator nodeSpacing(float nodeSpacing) {
+        if (nodeSpacing <= 0) {
+            throw new IllegalArgumentException("nodeSpacing should be positive");
+        }
+        this.nodeSpacing = nodeSpacing;
+        return this;
+    }
+
+    public SyntheticGraphGenerator edgeWeights(float minWeight, float maxWeight) {
+        if (maxWeight < minWeight) {
+            throw new IllegalArgumentException("Invalid edge weights range");
+        }
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    /**
+     * @param spatialIndex Enable the graphstore spatial index, needed by the engine. Enabled by default
+     * @return This generator
+     */
+    public SyntheticGraphGenerator spatialIndex(boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+        return this;
+    }
+
+    /**
+     * Erdős–Rényi G(n, m) graph: edges between uniformly random node pairs, with nodes uniformly distributed in a square.
+     *
+     * @param nodesCount Nodes count
+     * @param edgesCount Edges count
+     * @return New graph model
+     */
+    public GraphModel erdosRenyi(final int nodesCount, final long edgesCount) {
+        checkEdgesCount(nodesCount, edgesCount);
+
+        final Random random = new Random(seed);
+        final GraphModel graphModel = newGraphModel();
+        final float side = squareSide(nodesCount);
+
+        final Node[] nodes = addNodes(graphModel, nodesCount, random, (i, node) -> {
+            node.setX((random.nextFloat() - 0.5f) * side);
+            node.setY((random.nextFloat() - 0.5f) * side);
+            setRandomColor(node, random);
+        });
+
+        final EdgesWriter edges = new EdgesWriter(graphModel, nodes, edgesCount, random);
+        while (edges.count() < edgesCount) {
+            edges.add(random.nextInt(nodesCount), random.nextInt(nodesCount));
+        }
+        edges.flush();
+
+        return graphModel;
+    }
+
+    /**
+     * Barabási–Albert preferential attachment graph: each new node connects to existing nodes with probability proportional to their degree.
+     * Node sizes grow with the degree and nodes are placed close to the ones they attach to.
+     *
+     * @param nodesCount Nodes count
+     * @param edgesPerNode Edges added with each new node
+     * @return New graph model
+     */
+    public GraphModel barabasiAlbert(final int nodesCount, final int edgesPerNode) {
+        if (edgesPerNode < 1 || edgesPerNode >= nodesCount) {
+            throw new IllegalArgumentException("edgesPerNode should be in range [1, nodesCount)");
+        }
+
+        final Random random = new Random(seed);
+        final GraphModel graphModel = newGraphModel();
+        final long edgesCount = (long) (nodesCount - edgesPerNode) * edgesPerNode;
+
+        //Node indices repeated once per edge end, so uniform picking is proportional to degree:
+        final int[] targetsPool = new int[(int) Math.min(Integer.MAX_VALUE - 8, edgesCount * 2 + edgesPerNode)];
+        int targetsPoolSize = 0;
+        for (int i = 0; i < edgesPerNode; i++) {
+            targetsPool[targetsPoolSize++] = i;
+        }
+
+        final int[] degrees = new int[nodesCount];
+        final float[] xs = new float[nodesCount];
+        final float[] ys = new float[nodesCount];
+        final int[] sources = new int[(int) edgesCount];
+        final int[] targets = new int[(int) edgesCount];
+        final NodePairSet pairs = new NodePairSet(edgesCount);
+        final int[] chosen = new int[edgesPerNode];
+
+        final float spread = nodeSpacing * (float) Math.sqrt(edgesPerNode);
+        int edgeIndex = 0;
+        for (int i = 0; i < nodesCount; i++) {
+            if (i < edgesPerNode) {
+                xs[i] = (random.nextFloat() - 0.5f) * spread;
+                ys[i] = (random.nextFloat() - 0.5f) * spread;
+                continue;
+            }
+
+            int chosenCount = 0;
+            int attempts = 0;
+            while (chosenCount < edgesPerNode && attempts < edgesPerNode * 32) {
+                attempts++;
+                final int target = targetsPool[random.nextInt(targetsPoolSize)];
+                if (pairs.add(i, target)) {
+                    chosen[chosenCount++] = target;
+                }
+            }
+
+            float x = 0;
+            float y = 0;
+            for (int j = 0; j < chosenCount; j++) {
+                final int target = chosen[j];
+                sources[edgeIndex] = i;
+                targets[edgeIndex] = target;
+                edgeIndex++;
+
+                degrees[i]++;
+                degrees[target]++;
+                targetsPool[targetsPoolSize++] = target;
+                targetsPool[targetsPoolSize++] = i;
+
+                x += xs[target];
+                y += ys[target];
+            }
+
+            if (chosenCount == 0) {
+                //No new pair found, place it like the seed nodes:
+                xs[i] = (random.nextFloat() - 0.5f) * spread;
+                ys[i] = (random.nextFloat() - 0.5f) * spread;
+                continue;
+            }
+
+            final double angle = random.nextDouble() * Math.PI * 2;
+            final float distance = spread * (0.5f + random.nextFloat());
+            xs[i] = x / chosenCount + (float) Math.cos(angle) * distance;
+            ys[i] = y / chosenCount + (float) Math.sin(angle) * distance;
+        }
+
+        int maxDegree = 1;
+        for (int degree : degrees) {
+            maxDegree = Math.max(maxDegree, degree);
+        }
+        final double logMaxDegree = Math.log(1 + maxDegree);
+
+        final Node[] nodes = addNodes(graphModel, nodesCount, random, (i, node) -> {
+            node.setX(xs[i]);
+            node.setY(ys[i]);
+            node.setSize(minNodeSize + (maxNodeSize - minNodeSize) * (float) (Math.log(1 + degrees[i]) / logMaxDegree));
+            setRandomColor(node, random);
+        });
+
+        final EdgesWriter edges = new EdgesWriter(graphModel, nodes, edgeIndex, random, false);
+        for (int i = 0; i < edgeIndex; i++) {
+            edges.add(sources[i], targets[i]);
+        }
+        edges.flush();
+
+        return graphModel;
+    }
+
+    /**
+     * Grid graph: nodes on a lattice, each one connected to its right and bottom neighbours.
+     *
+     * @param columns Columns count
+     * @param rows Rows count
+     * @return New graph model
+     */
+    public GraphModel grid(final int columns, final int rows) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("columns and rows should be positive");
+        }
+
+        final Random random = new Random(seed);
+        final GraphModel graphModel = newGraphModel();
+        final int nodesCount = Math.multiplyExact(columns, rows);
+
+        final Node[] nodes = addNodes(graphModel, nodesCount, random, (i, node) -> {
+            final int column = i % columns;
+            final int row = i / columns;
+            node.setX((column - columns / 2f) * nodeSpacing);
+            node.setY((row - rows / 2f) * nodeSpacing);
+            node.setR((float) column / columns);
+            node.setG((float) row / rows);
+            node.setB(0.5f);
+        });
+
+        final long edgesCount = (long) (columns - 1) * rows + (long) columns * (rows - 1);
+        final EdgesWriter edges = new EdgesWriter(graphModel, nodes, edgesCount, random, false);
+        for (int i = 0; i < nodesCount; i++) {
+            final int column = i % columns;
+            final int row = i / columns;
+            if (column < columns - 1) {
+                edges.add(i, i + 1);
+            }
+            if (row < rows - 1) {
+                edges.add(i, i + columns);
+            }
+        }
+        edges.flush();
+
+        return graphModel;
+    }
+
+    /**
+     * Clustered graph: nodes split in communities, laid out as separated gaussian blobs with one color per community.
+     *
+     * @param nodesCount Nodes count
+     * @param communitiesCount Communities count
+     * @param edgesCount Edges count
+     * @param intraCommunityRatio Ratio of edges inside a community, the rest connect random communities
+     * @return New graph model
+     */
+    public GraphModel communities(final int nodesCount, final int communitiesCount, final long edgesCount, final double intraCommunityRatio) {
+        checkEdgesCount(nodesCount, edgesCount);
+        if (communitiesCount < 1 || communitiesCount > nodesCount) {
+            throw new IllegalArgumentException("communitiesCount should be in range [1, nodesCount]");
+        }
+        if (intraCommunityRatio < 0 || intraCommunityRatio > 1) {
+            throw new IllegalArgumentException("intraCommunityRatio should be in range [0, 1]");
+        }
+
+        final Random random = new Random(seed);
+        final GraphModel graphModel = newGraphModel();
+
+        //Communities are contiguous node index ranges:
+        final int communitySize = nodesCount / communitiesCount;
+        final float communityRadius = squareSide(communitySize) / 2;
+        final float layoutRadius = communityRadius * (float) Math.sqrt(communitiesCount) * 2;
+
+        final float[] centersX = new float[communitiesCount];
+        final float[] centersY = new float[communitiesCount];
+        final float[][] colors = new float[communitiesCount][3];
+        for (int c = 0; c < communitiesCount; c++) {
+            final double angle = random.nextDouble() * Math.PI * 2;
+            final float distance = layoutRadius * (float) Math.sqrt(random.nextDouble());
+            centersX[c] = (float) Math.cos(angle) * distance;
+            centersY[c] = (float) Math.sin(angle) * distance;
+            colors[c][0] = random.nextFloat();
+            colors[c][1] = random.nextFloat();
+            colors[c][2] = random.nextFloat();
+        }
+
+        final Node[] nodes = addNodes(graphModel, nodesCount, random, (i, node) -> {
+            final int community = communityOf(i, communitySize, communitiesCount);
+            node.setX(centersX[community] + (float) random.nextGaussian() * communityRadius / 2);
+            node.setY(centersY[community] + (float) random.nextGaussian() * communityRadius / 2);
+            node.setR(colors[community][0]);
+            node.setG(colors[community][1]);
+            node.setB(colors[community][2]);
+        });
+
+        final EdgesWriter edges = new EdgesWriter(graphModel, nodes, edgesCount, random);
+        while (edges.count() < edgesCount) {
+            final int source = random.nextInt(nodesCount);
+            final int target;
+            if (random.nextDouble() < intraCommunityRatio) {
+                final int community = communityOf(source, communitySize, communitiesCount);
+                final int start = community * communitySize;
+                final int end = community == communitiesCount - 1 ? nodesCount : start + communitySize;
+                target = start + random.nextInt(end - start);
+            } else {
+                target = random.nextInt(nodesCount);
+            }
+            edges.add(source, target);
+        }
+        edges.flush();
+
+        return graphModel;
+    }
+
+    private static int communityOf(int nodeIndex, int communitySize, int communitiesCount) {
+        return Math.min(nodeIndex / communitySize, communitiesCount - 1);
+    }
+
+    private GraphModel newGraphModel() {
+        return GraphModel.Factory.newInstance(
+            Configuration.builder().enableSpatialIndex(spatialIndex).build()
+        );
+    }
+
+    private float squareSide(int nodesCount) {
+        return (float) Math.sqrt(nodesCount) * nodeSpacing;
+    }
+
+    private void checkEdgesCount(int nodesCount, long edgesCount) {
+        if (nodesCount < 2 && edgesCount > 0) {
+            throw new IllegalArgumentException("At least 2 nodes are needed to create edges");
+        }
+        //Keep some margin so random pairs can still be found:
+        if (edgesCount > (long) nodesCount * (nodesCount - 1) / 4) {
+            throw new IllegalArgumentException("Too many edges for " + nodesCount + " nodes: " + edgesCount);
+        }
+    }
+
+    private void setRandomColor(Node node, Random random) {
+        node.setR(random.nextFloat());
+        node.setG(random.nextFloat());
+        node.setB(random.nextFloat());
+    }
+
+    private interface NodeInitializer {
+
+        void init(int index, Node node);
+    }
+
+    private Node[] addNodes(GraphModel graphModel, int nodesCount, Random random, NodeInitializer initializer) {
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getGraph();
+        final Node[] nodes = new Node[nodesCount];
+        final List<Node> batch = new ArrayList<>(Math.min(nodesCount, BATCH_SIZE));
+
+        for (int i = 0; i < nodesCount; i++) {
+            final Node node = factory.newNode(String.valueOf(i));
+            node.setSize(minNodeSize + random.nextFloat() * (maxNodeSize - minNodeSize));
+            initializer.init(i, node);
+            nodes[i] = node;
+
+            batch.add(node);
+            if (batch.size() == BATCH_SIZE) {
+                graph.addAllNodes(batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            graph.addAllNodes(batch);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Creates edges with random weight and direction, skipping self loops and duplicated pairs, and adds them to the store in batches.
+     */
+    private class EdgesWriter {
+
+        private final GraphFactory factory;
+        private final Graph graph;
+        private final Node[] nodes;
+        private final Random random;
+        private final NodePairSet pairs;
+        private final List<Edge> batch;
+        private long count = 0;
+
+        EdgesWriter(GraphModel graphModel, Node[] nodes, long expectedEdges, Random random) {
+            this(graphModel, nodes, expectedEdges, random, true);
+        }
+
+        EdgesWriter(GraphModel graphModel, Node[] nodes, long expectedEdges, Random random, boolean checkDuplicates) {
+            this.factory = graphModel.factory();
+            this.graph = graphModel.getGraph();
+            this.nodes = nodes;
+            this.random = random;
+            this.pairs = checkDuplicates ? new NodePairSet(expectedEdges) : null;
+            this.batch = new ArrayList<>((int) Math.min(expectedEdges, BATCH_SIZE));
+        }
+
+        /**
+         * @return True if the edge was created
+         */
+        boolean add(int source, int target) {
+            if (source == target || (pairs != null && !pairs.add(source, target))) {
+                return false;
+            }
+
+            final boolean directed = directedRatio >= 1 || (directedRatio > 0 && random.nextDouble() < directedRatio);
+            final double weight = minWeight + random.nextDouble() * (maxWeight - minWeight);
+            batch.add(factory.newEdge(nodes[source], nodes[target], 0, weight, directed));
+            count++;
+
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+            return true;
+        }
+
+        long count() {
+            return count;
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                graph.addAllEdges(batch);
+                batch.clear();
+            }
+        }
+    }
+}
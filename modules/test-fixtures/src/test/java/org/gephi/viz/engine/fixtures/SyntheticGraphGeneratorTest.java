@@ -0,0 +1,76 @@
+package org.gephi.viz.engine.fixtures;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class SyntheticGraphGeneratorTest {
+
+    public SyntheticGraphGeneratorTest() {
+    }
+
+    @Test
+    public void testErdosRenyi() {
+        final Graph graph = new SyntheticGraphGenerator().erdosRenyi(1000, 5000).getGraph();
+
+        Assert.assertEquals(1000, graph.getNodeCount());
+        Assert.assertEquals(5000, graph.getEdgeCount());
+        for (Edge edge : graph.getEdges()) {
+            Assert.assertNotSame(edge.getSource(), edge.getTarget());
+        }
+    }
+
+    @Test
+    public void testGrid() {
+        final Graph graph = new SyntheticGraphGenerator().grid(10, 20).getGraph();
+
+        Assert.assertEquals(200, graph.getNodeCount());
+        Assert.assertEquals(9 * 20 + 10 * 19, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testBarabasiAlbert() {
+        final Graph graph = new SyntheticGraphGenerator().barabasiAlbert(1000, 3).getGraph();
+
+        Assert.assertEquals(1000, graph.getNodeCount());
+        Assert.assertEquals(997 * 3, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testCommunities() {
+        final Graph graph = new SyntheticGraphGenerator().communities(1000, 10, 3000, 0.9).getGraph();
+
+        Assert.assertEquals(1000, graph.getNodeCount());
+        Assert.assertEquals(3000, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testDirectedRatio() {
+        final Graph directed = new SyntheticGraphGenerator().directedRatio(1).erdosRenyi(100, 200).getGraph();
+        final Graph undirected = new SyntheticGraphGenerator().directedRatio(0).erdosRenyi(100, 200).getGraph();
+
+        Assert.assertTrue(directed.isDirected());
+        Assert.assertTrue(undirected.isUndirected());
+        Assert.assertTrue(new SyntheticGraphGenerator().directedRatio(0.5).erdosRenyi(100, 200).getGraph().isMixed());
+    }
+
+    @Test
+    public void testSameSeedSameGraph() {
+        final GraphModel a = new SyntheticGraphGenerator().seed(7).communities(500, 5, 1000, 0.8);
+        final GraphModel b = new SyntheticGraphGenerator().seed(7).communities(500, 5, 1000, 0.8);
+
+        for (Node node : a.getGraph().getNodes()) {
+            final Node other = b.getGraph().getNode(node.getId());
+            Assert.assertEquals(node.x(), other.x(), 0);
+            Assert.assertEquals(node.y(), other.y(), 0);
+            Assert.assertEquals(node.size(), other.size(), 0);
+        }
+    }
+}